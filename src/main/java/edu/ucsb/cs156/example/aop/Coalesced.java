@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.aop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets concurrent identical calls of the annotated GET handler (same path,
+ * query and role set) share one execution. Callers that wait longer than
+ * timeoutMs for the shared result run the handler themselves; 0 uses
+ * app.coalescing.timeout-ms.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+  long timeoutMs() default 0;
+}
@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// after the rate limiter, so every caller is counted; outside the transaction
+// advisor (LOWEST_PRECEDENCE), so followers wait without holding a transaction
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 4)
+public class CoalescingAspect {
+
+  @Autowired
+  RequestCoalescer requestCoalescer;
+
+  @Autowired
+  CurrentUserService currentUserService;
+
+  @Around("@annotation(coalesced)")
+  public Object coalesce(ProceedingJoinPoint joinPoint, Coalesced coalesced) throws Throwable {
+    if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+      return joinPoint.proceed();
+    }
+    return requestCoalescer.execute(key(attributes.getRequest()), coalesced.timeoutMs(), joinPoint::proceed);
+  }
+
+  // method, path, parameters in a canonical order, and the caller's roles
+  String key(HttpServletRequest request) {
+    StringBuilder key = new StringBuilder(request.getMethod()).append(' ').append(request.getRequestURI());
+    for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+      key.append('&').append(parameter.getKey()).append('=').append(String.join(",", parameter.getValue()));
+    }
+    String roles = currentUserService.getRoles().stream()
+        .map(GrantedAuthority::getAuthority)
+        .sorted()
+        .collect(Collectors.joining(","));
+    return key.append('|').append(roles).toString();
+  }
+}
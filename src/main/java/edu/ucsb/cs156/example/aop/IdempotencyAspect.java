@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.IdempotencyService;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+// inside method security (HIGHEST_PRECEDENCE, see SecurityConfig), so only
+// authorized calls claim a key; outside the rate limiter and any transaction,
+// so a replay is answered before either; and after ExposeInvocationInterceptor
+// (HIGHEST_PRECEDENCE + 1), which the binding of the @Idempotent argument relies on
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class IdempotencyAspect {
+
+  static final int MAX_KEY_LENGTH = 255;
+  // a fresh token on each attempt; it is not part of what the request asks for
+  static final String CSRF_PARAMETER = "_csrf";
+
+  @Autowired
+  IdempotencyService idempotencyService;
+
+  @Autowired
+  CurrentUserService currentUserService;
+
+  @Around("@annotation(idempotent)")
+  public Object idempotent(ProceedingJoinPoint joinPoint, Idempotent idempotent) throws Throwable {
+    if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+      return joinPoint.proceed();
+    }
+    HttpServletRequest request = attributes.getRequest();
+    String key = request.getHeader(IdempotencyService.HEADER);
+    if (key == null) {
+      return joinPoint.proceed();
+    }
+    if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          IdempotencyService.HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+    }
+    return idempotencyService.execute(id(request, key), fingerprint(request),
+        ((MethodSignature) joinPoint.getSignature()).getMethod().getGenericReturnType(),
+        joinPoint::proceed,
+        () -> {
+          if (attributes.getResponse() != null) {
+            attributes.getResponse().setHeader(IdempotencyService.REPLAYED_HEADER, "true");
+          }
+        });
+  }
+
+  // keys are scoped to the caller and the endpoint, so two users cannot collide
+  String id(HttpServletRequest request, String key) {
+    return sha256(currentUserService.getPrincipalName() + '\n' + request.getMethod() + ' ' + request.getRequestURI()
+        + '\n' + key);
+  }
+
+  // method, path and parameters in a canonical order
+  String fingerprint(HttpServletRequest request) {
+    StringBuilder fingerprint = new StringBuilder(request.getMethod()).append(' ').append(request.getRequestURI());
+    for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+      if (CSRF_PARAMETER.equals(parameter.getKey())) {
+        continue;
+      }
+      fingerprint.append('&').append(parameter.getKey()).append('=').append(String.join(",", parameter.getValue()));
+    }
+    return sha256(fingerprint.toString());
+  }
+
+  private static String sha256(String value) {
+    try {
+      return HexFormat.of().formatHex(
+          MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.aop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Honors an Idempotency-Key header on the annotated POST handler: the first
+ * request with a key runs the handler, and later ones with the same key from
+ * the same user get its response back without running it again.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.errors.TooManyRequestsException;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.RateLimiterService;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// inside method security and IdempotencyAspect, so neither a forbidden call
+// nor a replay spends a token; outside the transaction advisor
+// (LOWEST_PRECEDENCE), so a rejected call opens none
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class RateLimitAspect {
+
+  @Autowired
+  RateLimiterService rateLimiterService;
+
+  @Autowired
+  CurrentUserService currentUserService;
+
+  @Around("@annotation(rateLimited)")
+  public Object limit(ProceedingJoinPoint joinPoint, RateLimited rateLimited) throws Throwable {
+    long retryAfterNanos = rateLimiterService.tryAcquire(rateLimited.value(),
+        currentUserService.getPrincipalName(), currentUserService.getRoles());
+    if (retryAfterNanos > 0) {
+      throw new TooManyRequestsException(rateLimited.value(), retryAfterNanos);
+    }
+    return joinPoint.proceed();
+  }
+}
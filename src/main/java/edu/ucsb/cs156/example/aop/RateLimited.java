@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.aop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how often one user may call the annotated handler; the value names
+ * the endpoint under app.rate-limit.endpoints in application.properties.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+  String value();
+}
@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.util.SerializationUtils;
+import org.springframework.web.util.WebUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the in-progress OAuth2 authorization request in a short-lived signed
+ * cookie instead of the HttpSession, so the Google callback can land on a
+ * different node from the one that started the login. The signature, its
+ * purpose and the expiry are checked before the cookie is deserialized.
+ */
+@Slf4j
+public class CookieOAuth2AuthorizationRequestRepository
+    implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+  public static final String COOKIE_NAME = "OAUTH2_AUTH_REQUEST";
+  static final String PURPOSE = "oauth2-authorization-request";
+  private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+  private final SessionTokenCodec codec;
+
+  public CookieOAuth2AuthorizationRequestRepository(SessionTokenCodec codec) {
+    this.codec = codec;
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+    String state = request.getParameter(OAuth2ParameterNames.STATE);
+    Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+    if (state == null || cookie == null) {
+      return null;
+    }
+    return codec.verify(PURPOSE, cookie.getValue())
+        .map(CookieOAuth2AuthorizationRequestRepository::deserialize)
+        .filter(authorizationRequest -> state.equals(authorizationRequest.getState()))
+        .orElse(null);
+  }
+
+  @Override
+  public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest, HttpServletRequest request,
+      HttpServletResponse response) {
+    if (authorizationRequest == null) {
+      writeCookie(request, response, "", Duration.ZERO);
+      return;
+    }
+    writeCookie(request, response, codec.sign(PURPOSE, SerializationUtils.serialize(authorizationRequest), MAX_AGE),
+        MAX_AGE);
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request) {
+    return loadAuthorizationRequest(request);
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request,
+      HttpServletResponse response) {
+    OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+    if (authorizationRequest != null) {
+      writeCookie(request, response, "", Duration.ZERO);
+    }
+    return authorizationRequest;
+  }
+
+  // signed by this application, but possibly by an older version of it
+  private static OAuth2AuthorizationRequest deserialize(byte[] bytes) {
+    try {
+      return (OAuth2AuthorizationRequest) SerializationUtils.deserialize(bytes);
+    } catch (IllegalArgumentException | IllegalStateException | ClassCastException e) {
+      log.warn("ignoring an authorization request cookie that cannot be read: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private static void writeCookie(HttpServletRequest request, HttpServletResponse response, String value,
+      Duration maxAge) {
+    ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+        .path("/")
+        .httpOnly(true)
+        .secure(request.isSecure())
+        .sameSite("Lax")
+        .maxAge(maxAge)
+        .build();
+    response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+  }
+}
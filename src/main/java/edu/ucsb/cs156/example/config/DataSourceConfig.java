@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import edu.ucsb.cs156.example.services.ConnectionPoolMetrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DataSourceConfig {
+
+  // Hikari only accepts a metrics tracker before the pool starts, so it is
+  // attached as soon as the DataSource bean has been initialized
+  @Bean
+  public static BeanPostProcessor hikariMetricsPostProcessor(ObjectProvider<ConnectionPoolMetrics> connectionPoolMetrics) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource) {
+          ((HikariDataSource) bean).setMetricsTrackerFactory(connectionPoolMetrics.getObject());
+        }
+        return bean;
+      }
+    };
+  }
+}
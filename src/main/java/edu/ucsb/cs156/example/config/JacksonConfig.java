@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Tuning for the application ObjectMapper, which Spring MVC uses to write
+ * every response straight to the servlet output stream. Spring Boot registers
+ * Module beans with that mapper; the rest of the tuning is spring.jackson.*
+ * in application.properties.
+ *
+ * Clients may also ask for Smile (application/x-jackson-smile) or CBOR
+ * (application/cbor) in Accept. Those converters take the place of Spring's
+ * defaults for the two formats, which come after the JSON one, so a client
+ * that accepts anything still gets JSON. Their mappers come from Boot's
+ * builder, so they carry the same modules and spring.jackson.* settings and
+ * encode the same tree as JSON.
+ */
+@Configuration
+public class JacksonConfig {
+
+  // Blackbird replaces reflective getter calls with generated lambdas; a
+  // native image cannot define classes at run time, so it keeps reflection
+  @Bean
+  public Module blackbirdModule() {
+    return NativeDetector.inNativeImage() ? new SimpleModule("reflection") : new BlackbirdModule();
+  }
+
+  // the builder bean is prototype-scoped, so each converter gets its own
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+  }
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+  }
+}
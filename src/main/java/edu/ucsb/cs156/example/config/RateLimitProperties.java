@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * app.rate-limit.endpoints.&lt;endpoint&gt;.&lt;role&gt;.capacity / .period, where role is
+ * a granted role without the ROLE_ prefix in lower case (user, admin, ...).
+ * A user gets the most generous limit among their roles, or default-limit if
+ * none of their roles is configured for the endpoint.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+  private boolean enabled = true;
+  private int maxBuckets = 100_000;
+  private Duration idleEviction = Duration.ofMinutes(10);
+  private Limit defaultLimit = new Limit(60, Duration.ofMinutes(1));
+  private Map<String, Map<String, Limit>> endpoints = new HashMap<>();
+
+  // capacity requests in a burst, refilled continuously over period
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  public static class Limit {
+    private int capacity;
+    private Duration period;
+  }
+}
@@ -4,6 +4,7 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -13,18 +14,24 @@ import java.util.Set;
 import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
 import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
 import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
@@ -39,7 +46,9 @@ import lombok.extern.slf4j.Slf4j;
 
 @Configuration
 @EnableWebSecurity
-@EnableGlobalMethodSecurity(prePostEnabled = true)
+// ahead of the handler aspects (aop package), so a caller without the role
+// claims no idempotency key and spends no rate-limit token
+@EnableGlobalMethodSecurity(prePostEnabled = true, order = Ordered.HIGHEST_PRECEDENCE)
 @Slf4j
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
@@ -49,6 +58,19 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
   @Autowired
   UserRepository userRepository;
 
+  // Opt-in: keep the login in a signed cookie instead of the HttpSession
+  @Value("${app.session.stateless:false}")
+  private boolean statelessSessions;
+
+  @Value("${app.session.secret:}")
+  private String sessionSecret;
+
+  @Value("${app.session.max-age:8h}")
+  private Duration sessionMaxAge;
+
+  @Value("${app.session.absolute-max-age:7d}")
+  private Duration sessionAbsoluteMaxAge;
+
   @Override
   protected void configure(HttpSecurity http) throws Exception {
     http.authorizeRequests(authorize -> authorize
@@ -62,6 +84,17 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         .logout(logout -> logout
             .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
             .logoutSuccessUrl("/"));
+
+    if (statelessSessions) {
+      SessionTokenCodec codec = new SessionTokenCodec(sessionSecret, sessionMaxAge, sessionAbsoluteMaxAge);
+      http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+          .securityContext(context -> context
+              .securityContextRepository(new SignedCookieSecurityContextRepository(codec, userAuthoritiesMapper())))
+          .oauth2Login(oauth2 -> oauth2
+              .authorizationEndpoint(authorization -> authorization
+                  .authorizationRequestRepository(new CookieOAuth2AuthorizationRequestRepository(codec)))
+              .authorizedClientRepository(new DiscardingAuthorizedClientRepository()));
+    }
   }
 
   @Override
@@ -106,4 +139,24 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     Optional<User> u = userRepository.findByEmail(email);
     return u.isPresent() && u.get().getAdmin();
   }
-}
\ No newline at end of file
+
+  // The Google access token is only used during login, so in stateless mode
+  // it is not kept (the default keeps one per user in memory on each node)
+  private static class DiscardingAuthorizedClientRepository implements OAuth2AuthorizedClientRepository {
+    @Override
+    public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId,
+        Authentication principal, HttpServletRequest request) {
+      return null;
+    }
+
+    @Override
+    public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal,
+        HttpServletRequest request, HttpServletResponse response) {
+    }
+
+    @Override
+    public void removeAuthorizedClient(String clientRegistrationId, Authentication principal,
+        HttpServletRequest request, HttpServletResponse response) {
+    }
+  }
+}
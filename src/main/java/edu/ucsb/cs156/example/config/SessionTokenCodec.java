@@ -0,0 +1,220 @@
+package edu.ucsb.cs156.example.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Signs and verifies the compact tokens that carry a logged-in user between
+ * requests in stateless session mode: base64url(payload) "." expiry "."
+ * base64url(HMAC-SHA256). The MAC also covers a purpose label, so a token
+ * signed for one cookie is not accepted as another. The session payload holds
+ * the Google attributes that CurrentUserService reads, the granted roles, the
+ * issue time and the login time, so any node holding the secret can rebuild
+ * the OAuth2AuthenticationToken without a session or a database lookup.
+ *
+ * A session token expires max-age after it was issued, but never later than
+ * absolute-max-age after the login, however often it is re-issued.
+ */
+@Slf4j
+public class SessionTokenCodec {
+
+  // the Google attributes CurrentUserServiceImpl reads; anything else is dropped
+  static final List<String> ATTRIBUTES = List.of("sub", "email", "name", "given_name", "family_name",
+      "picture", "email_verified", "locale", "hd");
+
+  static final String NAME_ATTRIBUTE = "sub";
+  static final String SESSION = "session";
+  // published in .env.SAMPLE before it was left blank, so anyone could sign with it
+  static final String SAMPLE_SECRET = "at-least-32-random-bytes-shared-by-all-nodes";
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final SecretKeySpec key;
+  private final Duration maxAge;
+  private final Duration absoluteMaxAge;
+  private final Clock clock;
+
+  public SessionTokenCodec(String secret, Duration maxAge, Duration absoluteMaxAge) {
+    this(secret, maxAge, absoluteMaxAge, Clock.systemUTC());
+  }
+
+  SessionTokenCodec(String secret, Duration maxAge, Duration absoluteMaxAge, Clock clock) {
+    if (secret == null || secret.getBytes(StandardCharsets.UTF_8).length < 32) {
+      throw new IllegalStateException("app.session.secret (SESSION_SECRET) must be at least 32 bytes "
+          + "and the same on every node when app.session.stateless=true");
+    }
+    if (secret.equals(SAMPLE_SECRET)) {
+      throw new IllegalStateException("app.session.secret (SESSION_SECRET) is the public placeholder from an "
+          + "old .env.SAMPLE; generate a random one");
+    }
+    this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    this.maxAge = maxAge;
+    this.absoluteMaxAge = absoluteMaxAge;
+    this.clock = clock;
+  }
+
+  public Duration getMaxAge() {
+    return maxAge;
+  }
+
+  /** Whether half of the token's max-age has passed since it was issued. */
+  public boolean isDueForRefresh(Decoded decoded) {
+    return now() - decoded.getIssuedAtEpochSecond() > maxAge.getSeconds() / 2;
+  }
+
+  /** A token for a new login. */
+  public String encode(OAuth2AuthenticationToken authentication) {
+    return encode(authentication, now());
+  }
+
+  /** A token for a login made at the given time, e.g. when re-issuing one. */
+  public String encode(OAuth2AuthenticationToken authentication, long loginEpochSecond) {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    OAuth2User principal = authentication.getPrincipal();
+    for (String name : ATTRIBUTES) {
+      Object value = principal.getAttribute(name);
+      if (value != null) {
+        attributes.put(name, value);
+      }
+    }
+    List<String> roles = new ArrayList<>();
+    authentication.getAuthorities().forEach(authority -> roles.add(authority.getAuthority()));
+
+    long now = now();
+    Map<String, Object> payload = new LinkedHashMap<>();
+    payload.put("a", attributes);
+    payload.put("r", roles);
+    payload.put("c", authentication.getAuthorizedClientRegistrationId());
+    payload.put("iat", now);
+    payload.put("lt", loginEpochSecond);
+    long expires = Math.min(now + maxAge.getSeconds(), loginEpochSecond + absoluteMaxAge.getSeconds());
+    try {
+      return sign(SESSION, mapper.writeValueAsBytes(payload), Duration.ofSeconds(expires - now));
+    } catch (Exception e) {
+      throw new IllegalStateException("could not encode session token", e);
+    }
+  }
+
+  /**
+   * @return the authentication, or empty if the token is malformed, was not
+   *         signed with this secret, or has expired
+   */
+  public Optional<Decoded> decode(String token) {
+    return verify(SESSION, token).flatMap(this::parse);
+  }
+
+  /** Signs arbitrary bytes for one purpose, valid for the given time. */
+  public String sign(String purpose, byte[] payload, Duration validFor) {
+    String signed = ENCODER.encodeToString(payload) + "." + (now() + validFor.getSeconds());
+    return signed + "." + ENCODER.encodeToString(mac(purpose, signed));
+  }
+
+  /**
+   * @return the signed bytes, or empty if the token was signed for another
+   *         purpose or with another secret, or has expired
+   */
+  public Optional<byte[]> verify(String purpose, String token) {
+    if (token == null) {
+      return Optional.empty();
+    }
+    int lastDot = token.lastIndexOf('.');
+    int dot = token.indexOf('.');
+    if (dot <= 0 || dot == lastDot) {
+      return Optional.empty();
+    }
+    try {
+      String signed = token.substring(0, lastDot);
+      byte[] signature = DECODER.decode(token.substring(lastDot + 1));
+      if (!MessageDigest.isEqual(mac(purpose, signed), signature)
+          || now() >= Long.parseLong(token.substring(dot + 1, lastDot))) {
+        return Optional.empty();
+      }
+      return Optional.of(DECODER.decode(token.substring(0, dot)));
+    } catch (IllegalArgumentException e) {
+      // also covers NumberFormatException
+      return Optional.empty();
+    }
+  }
+
+  private Optional<Decoded> parse(byte[] json) {
+    try {
+      Map<String, Object> payload = mapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+      long issuedAt = ((Number) payload.get("iat")).longValue();
+      long loggedInAt = ((Number) payload.get("lt")).longValue();
+      @SuppressWarnings("unchecked")
+      Map<String, Object> attributes = (Map<String, Object>) payload.get("a");
+      @SuppressWarnings("unchecked")
+      Collection<String> roles = (Collection<String>) payload.get("r");
+
+      // ROLE_USER is the OAuth2UserAuthority Spring Security grants at login
+      Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+      for (String role : roles) {
+        authorities.add("ROLE_USER".equals(role)
+            ? new OAuth2UserAuthority(role, attributes)
+            : new SimpleGrantedAuthority(role));
+      }
+      OAuth2User user = new DefaultOAuth2User(authorities, attributes, NAME_ATTRIBUTE);
+      return Optional.of(new Decoded(new OAuth2AuthenticationToken(user, authorities, (String) payload.get("c")),
+          issuedAt, loggedInAt));
+    } catch (Exception e) {
+      log.warn("rejecting signed session token with an unreadable payload: {}", e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private long now() {
+    return clock.instant().getEpochSecond();
+  }
+
+  private byte[] mac(String purpose, String signed) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      mac.update(purpose.getBytes(StandardCharsets.US_ASCII));
+      mac.update((byte) '\n');
+      return mac.doFinal(signed.getBytes(StandardCharsets.US_ASCII));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PACKAGE)
+  public static class Decoded {
+    private final OAuth2AuthenticationToken authentication;
+    private final long issuedAtEpochSecond;
+    private final long loginEpochSecond;
+  }
+}
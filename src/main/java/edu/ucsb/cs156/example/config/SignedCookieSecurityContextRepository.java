@@ -0,0 +1,150 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SaveContextOnUpdateOrErrorResponseWrapper;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.util.WebUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the security context in a signed cookie instead of the HttpSession,
+ * so any node can serve any request and no per-user state stays in the heap.
+ *
+ * The cookie is written when a new authentication appears (the OAuth2 login),
+ * re-issued once half of its lifetime has passed, and cleared when the context
+ * is emptied (logout). A re-issue looks the roles up again through the same
+ * mapper as the login, but keeps the login time, which bounds how long the
+ * cookie can be renewed. As with the session repository, the response is
+ * wrapped so the cookie is set before the response commits: the login ends in
+ * a redirect, which commits before SecurityContextPersistenceFilter would save.
+ */
+@Slf4j
+public class SignedCookieSecurityContextRepository implements SecurityContextRepository {
+
+  public static final String COOKIE_NAME = "SESSION_TOKEN";
+
+  private final SessionTokenCodec codec;
+  private final GrantedAuthoritiesMapper authoritiesMapper;
+
+  public SignedCookieSecurityContextRepository(SessionTokenCodec codec, GrantedAuthoritiesMapper authoritiesMapper) {
+    this.codec = codec;
+    this.authoritiesMapper = authoritiesMapper;
+  }
+
+  @Override
+  public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+    HttpServletRequest request = requestResponseHolder.getRequest();
+    Optional<SessionTokenCodec.Decoded> decoded = readCookie(request).flatMap(codec::decode);
+    OAuth2AuthenticationToken refreshed = decoded.filter(codec::isDueForRefresh)
+        .map(token -> reauthorize(token.getAuthentication()))
+        .orElse(null);
+
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    decoded.ifPresent(token -> context.setAuthentication(refreshed != null ? refreshed : token.getAuthentication()));
+    requestResponseHolder.setResponse(new SaveToCookieResponseWrapper(requestResponseHolder.getResponse(), request,
+        decoded.orElse(null), refreshed, readCookie(request).isPresent()));
+    return context;
+  }
+
+  @Override
+  public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+    SaveToCookieResponseWrapper wrapper = WebUtils.getNativeResponse(response, SaveToCookieResponseWrapper.class);
+    if (wrapper == null) {
+      throw new IllegalStateException("saveContext called with a response that loadContext did not wrap");
+    }
+    if (!wrapper.isContextSaved()) {
+      wrapper.saveContext(context);
+    }
+  }
+
+  @Override
+  public boolean containsContext(HttpServletRequest request) {
+    return readCookie(request).flatMap(codec::decode).isPresent();
+  }
+
+  // maps what Google granted at login, as userAuthoritiesMapper did then; on
+  // failure the cookie is left as it is and the next request tries again
+  private OAuth2AuthenticationToken reauthorize(OAuth2AuthenticationToken authentication) {
+    List<GrantedAuthority> granted = authentication.getAuthorities().stream()
+        .filter(authority -> authority instanceof OAuth2UserAuthority || authority.getAuthority().startsWith("SCOPE_"))
+        .collect(Collectors.toList());
+    try {
+      Collection<? extends GrantedAuthority> authorities = authoritiesMapper.mapAuthorities(granted);
+      return new OAuth2AuthenticationToken(
+          new DefaultOAuth2User(authorities, authentication.getPrincipal().getAttributes(),
+              SessionTokenCodec.NAME_ATTRIBUTE),
+          authorities, authentication.getAuthorizedClientRegistrationId());
+    } catch (RuntimeException e) {
+      log.warn("could not look up roles to re-issue the session cookie: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private static Optional<String> readCookie(HttpServletRequest request) {
+    return Optional.ofNullable(WebUtils.getCookie(request, COOKIE_NAME)).map(Cookie::getValue);
+  }
+
+  private void writeCookie(HttpServletRequest request, HttpServletResponse response, String value, Duration maxAge) {
+    ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+        .path("/")
+        .httpOnly(true)
+        .secure(request.isSecure())
+        .sameSite("Lax")
+        .maxAge(maxAge)
+        .build();
+    response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+  }
+
+  private final class SaveToCookieResponseWrapper extends SaveContextOnUpdateOrErrorResponseWrapper {
+    private final HttpServletRequest request;
+    private final SessionTokenCodec.Decoded loaded;
+    private final OAuth2AuthenticationToken refreshed;
+    private final boolean hadCookie;
+
+    SaveToCookieResponseWrapper(HttpServletResponse response, HttpServletRequest request,
+        SessionTokenCodec.Decoded loaded, OAuth2AuthenticationToken refreshed, boolean hadCookie) {
+      super(response, true);
+      this.request = request;
+      this.loaded = loaded;
+      this.refreshed = refreshed;
+      this.hadCookie = hadCookie;
+    }
+
+    @Override
+    protected void saveContext(SecurityContext context) {
+      Authentication authentication = context.getAuthentication();
+      HttpServletResponse response = (HttpServletResponse) getResponse();
+      if (authentication instanceof OAuth2AuthenticationToken token) {
+        if (loaded != null && authentication == refreshed) {
+          writeCookie(request, response, codec.encode(token, loaded.getLoginEpochSecond()), codec.getMaxAge());
+        } else if (loaded == null || loaded.getAuthentication() != authentication) {
+          writeCookie(request, response, codec.encode(token), codec.getMaxAge());
+        }
+      } else if (hadCookie) {
+        // logged out, or an expired or tampered cookie
+        writeCookie(request, response, "", Duration.ZERO);
+      }
+    }
+  }
+}
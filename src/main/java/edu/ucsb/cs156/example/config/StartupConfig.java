@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.config;
+
+import java.lang.management.ManagementFactory;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Configuration
+public class StartupConfig {
+
+  @Bean
+  public ApplicationListener<ApplicationReadyEvent> logStartupTime() {
+    return event -> log.info("STARTUP ready_ms={}", ManagementFactory.getRuntimeMXBean().getUptime());
+  }
+
+  // Used by the fast-startup Maven profile for the AppCDS training run:
+  // start once, then exit so the JVM can dump the loaded classes
+  @Bean
+  @ConditionalOnProperty("app.startup.exit-on-ready")
+  public ApplicationListener<ApplicationReadyEvent> exitOnReady() {
+    return event -> System.exit(SpringApplication.exit(event.getApplicationContext(), () -> 0));
+  }
+}
@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.config;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Logs, once, how long after JVM start the first request finished; this is
+ * the number the startup benchmark in docs/fast-startup.md compares.
+ */
+@Slf4j
+@Component
+public class StartupTimingFilter extends OncePerRequestFilter {
+
+  private final AtomicBoolean firstRequestServed = new AtomicBoolean();
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    filterChain.doFilter(request, response);
+    if (!firstRequestServed.get() && firstRequestServed.compareAndSet(false, true)) {
+      log.info("STARTUP first_request_ms={} uri={}",
+          ManagementFactory.getRuntimeMXBean().getUptime(), request.getRequestURI());
+    }
+  }
+}
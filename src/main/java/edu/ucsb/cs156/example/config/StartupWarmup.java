@@ -0,0 +1,237 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+
+import edu.ucsb.cs156.example.controllers.MenuItemReviewController;
+import edu.ucsb.cs156.example.controllers.RecommendationRequestController;
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import edu.ucsb.cs156.example.controllers.UCSBDiningCommonsController;
+import edu.ucsb.cs156.example.controllers.UCSBDiningCommonsMenuItemController;
+import edu.ucsb.cs156.example.controllers.UCSBOrganizationController;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.JsonResponseCache;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.LongStream;
+
+/**
+ * Runs before the application reports ready, so that the first real requests
+ * do not pay for cold Hikari, Hibernate, Jackson, method security and JIT.
+ *
+ * Spring Boot publishes ReadinessState.ACCEPTING_TRAFFIC only after every
+ * ApplicationRunner has returned, so /actuator/health/readiness stays
+ * OUT_OF_SERVICE while this runs; liveness is already UP, so a slow warm-up
+ * is not mistaken for a hung process. It:
+ *
+ * 1. opens the pool's minimum idle connections;
+ * 2. renders the cached /all responses of the reference data;
+ * 3. calls each controller's bounded read endpoints through their proxies,
+ *    as a synthetic ROLE_USER caller that cannot write, and serializes the
+ *    results, app.warmup.iterations times or until app.warmup.timeout;
+ * 4. sends a few requests through the embedded server, when there is one.
+ *
+ * Failures are logged and skipped; a warm-up that fails must not keep the
+ * instance from ever becoming ready.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmup implements ApplicationRunner {
+
+  static final String PRINCIPAL = "warmup";
+  // answered without a logged-in user, and without touching the database
+  static final List<String> HTTP_PATHS = List.of("/api/systemInfo", "/api/currentUser", "/csrf");
+  static final List<Long> IDS = LongStream.rangeClosed(0, 10).boxed().toList();
+  static final int PAGE_SIZE = 50;
+
+  @Autowired
+  ApplicationContext applicationContext;
+
+  @Autowired
+  DataSource dataSource;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Autowired
+  JsonResponseCache jsonResponseCache;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  UCSBDatesController ucsbDatesController;
+
+  @Autowired
+  UCSBDiningCommonsController ucsbDiningCommonsController;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemController ucsbDiningCommonsMenuItemController;
+
+  @Autowired
+  UCSBOrganizationController ucsbOrganizationController;
+
+  @Autowired
+  MenuItemReviewController menuItemReviewController;
+
+  @Autowired
+  RecommendationRequestController recommendationRequestController;
+
+  @Value("${app.warmup.iterations:20}")
+  int iterations;
+
+  @Value("${app.warmup.timeout:60s}")
+  Duration timeout;
+
+  @FunctionalInterface
+  interface Step {
+    void run() throws Exception;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    long start = System.nanoTime();
+    long deadline = start + timeout.toNanos();
+    int[] rounds = new int[1];
+    step("connection pool", this::primeConnectionPool);
+    step("reference data", this::preloadReferenceData);
+    step("endpoints", () -> rounds[0] = exerciseEndpoints(deadline));
+    step("embedded server", this::exerciseServer);
+    log.info("STARTUP warmup_ms={} endpoint_rounds={} uptime_ms={}", (System.nanoTime() - start) / 1_000_000,
+        rounds[0], ManagementFactory.getRuntimeMXBean().getUptime());
+  }
+
+  private static void step(String name, Step step) {
+    try {
+      step.run();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      log.warn("warm-up of {} failed; continuing", name, e);
+    }
+  }
+
+  private void primeConnectionPool() throws SQLException {
+    int size = dataSource instanceof HikariDataSource hikari ? Math.max(1, hikari.getMinimumIdle()) : 1;
+    // held open together, so the pool has to create each one
+    List<Connection> connections = new ArrayList<>();
+    try {
+      for (int i = 0; i < size; i++) {
+        Connection connection = dataSource.getConnection();
+        connections.add(connection);
+        connection.isValid(1);
+      }
+    } finally {
+      for (Connection connection : connections) {
+        try {
+          connection.close();
+        } catch (SQLException e) {
+          log.debug("could not return warm-up connection", e);
+        }
+      }
+    }
+    log.info("warm-up opened {} connections", connections.size());
+  }
+
+  private void preloadReferenceData() throws IOException {
+    jsonResponseCache.preload(UCSBDiningCommons.class, ucsbDiningCommonsRepository::findAll);
+    jsonResponseCache.preload(UCSBOrganization.class, ucsbOrganizationRepository::findAll);
+  }
+
+  // read-only calls that each read a bounded number of rows, whatever the size of the
+  // tables; id 0 never exists, so the missing and 404 paths are exercised too
+  List<Callable<Object>> endpoints() {
+    return List.of(
+        () -> ucsbDatesController.getBatch(IDS),
+        () -> ucsbDatesController.getById(0L),
+        () -> ucsbDiningCommonsController.getBatch(List.of(PRINCIPAL)),
+        () -> ucsbDiningCommonsController.getById(PRINCIPAL),
+        () -> ucsbDiningCommonsController.getLeaderboard(10),
+        () -> ucsbDiningCommonsMenuItemController.getBatch(IDS),
+        () -> ucsbDiningCommonsMenuItemController.getById(0L),
+        () -> ucsbOrganizationController.getBatch(List.of(PRINCIPAL)),
+        () -> ucsbOrganizationController.getById(PRINCIPAL),
+        () -> menuItemReviewController.getPageWithItems(0, PAGE_SIZE),
+        () -> menuItemReviewController.getBatch(IDS),
+        () -> menuItemReviewController.getById(0L),
+        () -> recommendationRequestController.getBatch(IDS),
+        () -> recommendationRequestController.getById(0L));
+  }
+
+  private int exerciseEndpoints(long deadline) throws Exception {
+    SecurityContext previous = SecurityContextHolder.getContext();
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    context.setAuthentication(new UsernamePasswordAuthenticationToken(PRINCIPAL, null,
+        List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    SecurityContextHolder.setContext(context);
+    try {
+      List<Callable<Object>> endpoints = endpoints();
+      int round = 0;
+      while (round < iterations) {
+        for (Callable<Object> endpoint : endpoints) {
+          // checked per call, so that one slow call cannot run the warm-up a whole round past the timeout
+          if (System.nanoTime() >= deadline) {
+            return round;
+          }
+          try {
+            mapper.writeValueAsBytes(endpoint.call());
+          } catch (EntityNotFoundException e) {
+            // expected
+          }
+        }
+        round++;
+      }
+      return round;
+    } finally {
+      SecurityContextHolder.setContext(previous);
+    }
+  }
+
+  private void exerciseServer() throws IOException, InterruptedException {
+    if (!(applicationContext instanceof WebServerApplicationContext web) || web.getWebServer() == null) {
+      return;
+    }
+    HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    for (String path : HTTP_PATHS) {
+      HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + web.getWebServer().getPort() + path))
+          .timeout(Duration.ofSeconds(5))
+          .build();
+      client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+  }
+}
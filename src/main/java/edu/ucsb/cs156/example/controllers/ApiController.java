@@ -1,26 +1,87 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.TooManyRequestsException;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Slf4j
 public abstract class ApiController {
   @Autowired
   private CurrentUserService currentUserService;
 
+  @Autowired
+  private ApplicationEventPublisher applicationEventPublisher;
+
+  @Value("${app.batch.max-ids:1000}")
+  private int batchMaxIds;
+
+  // ids per IN list
+  @Value("${app.batch.chunk-size:200}")
+  private int batchChunkSize;
+
   protected CurrentUser getCurrentUser() {
     return currentUserService.getCurrentUser();
   }
 
+  // Write handlers are @Transactional: the OutboxWriter records the event in
+  // the same transaction, and the other listeners (cache, change feed,
+  // invalidation bus) run only after it commits
+  protected void publishChange(Class<?> entityType, Object id, EntityChangeEvent.Op op) {
+    applicationEventPublisher.publishEvent(EntityChangeEvent.of(entityType, id, op));
+  }
+
+  /**
+   * Looks up many entities in a few IN-list queries. Duplicate ids are
+   * collapsed; the result keeps the order in which ids were first requested.
+   */
+  protected <T, ID> BatchResult<T, ID> findAllInOrder(CrudRepository<T, ID> repository, List<ID> ids,
+      Function<T, ID> idOf) {
+    List<ID> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+    if (distinct.size() > batchMaxIds) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "at most %d ids may be requested at once".formatted(batchMaxIds));
+    }
+    Map<ID, T> byId = new HashMap<>();
+    for (int from = 0; from < distinct.size(); from += batchChunkSize) {
+      List<ID> chunk = distinct.subList(from, Math.min(distinct.size(), from + batchChunkSize));
+      repository.findAllById(chunk).forEach(entity -> byId.put(idOf.apply(entity), entity));
+    }
+    List<T> found = new ArrayList<>(byId.size());
+    List<ID> missing = new ArrayList<>();
+    for (ID id : distinct) {
+      T entity = byId.get(id);
+      if (entity != null) {
+        found.add(entity);
+      } else {
+        missing.add(id);
+      }
+    }
+    return new BatchResult<>(found, missing);
+  }
+
   protected Object genericMessage(String message) {
     return Map.of("message", message);
   }
@@ -33,4 +94,26 @@ public abstract class ApiController {
       "message", e.getMessage()
     );
   }
+
+  // e.g. a review of a menu item that does not exist, or deleting an item that
+  // still has reviews; the database message is logged rather than returned
+  @ExceptionHandler({ DataIntegrityViolationException.class })
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Object handleDataIntegrityViolation(DataIntegrityViolationException e) {
+    log.warn("rejected change: {}", e.getMostSpecificCause().getMessage());
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", "the change conflicts with related rows"
+    );
+  }
+
+  @ExceptionHandler({ TooManyRequestsException.class })
+  public ResponseEntity<Object> handleTooManyRequests(TooManyRequestsException e) {
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+      .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+      .body(Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage()
+      ));
+  }
 }
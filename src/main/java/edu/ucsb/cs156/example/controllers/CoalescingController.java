@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.CoalescingStats;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name="Request coalescing (admin only)")
+@RequestMapping("/api/admin/coalescing")
+@RestController
+public class CoalescingController extends ApiController {
+
+    @Autowired
+    RequestCoalescer requestCoalescer;
+
+    @Operation(summary= "Get how many concurrent identical GETs shared one execution")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("")
+    public CoalescingStats coalescingStats() {
+        return requestCoalescer.getStats();
+    }
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.ConnectionPoolStats;
+import edu.ucsb.cs156.example.services.ConnectionPoolMetrics;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name="Database connection pool (admin only)")
+@RequestMapping("/api/admin/pool")
+@RestController
+public class ConnectionPoolController extends ApiController {
+
+    @Autowired
+    ConnectionPoolMetrics connectionPoolMetrics;
+
+    @Operation(summary= "Get connection pool usage and connection wait times")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("")
+    public ConnectionPoolStats poolStats() {
+        return connectionPoolMetrics.getStats();
+    }
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.services.DashboardService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Dashboard")
+@RequestMapping("/api/dashboard")
+@RestController
+public class DashboardController extends ApiController {
+
+    @Autowired
+    DashboardService dashboardService;
+
+    @Operation(summary= "Get the current user, system info, dining commons, menu items, recent reviews and upcoming dates at once")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("")
+    public Dashboard dashboard() {
+        return dashboardService.getDashboard(this::getCurrentUser);
+    }
+}
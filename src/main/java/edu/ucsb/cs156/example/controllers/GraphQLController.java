@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.GraphQLRequest;
+import edu.ucsb.cs156.example.services.GraphQLService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+@Tag(name = "GraphQL")
+@RequestMapping("/api/graphql")
+@RestController
+public class GraphQLController extends ApiController {
+
+    @Autowired
+    GraphQLService graphQLService;
+
+    @Operation(summary= "Run a read-only GraphQL query over reviews, menu items, dining commons, recommendation requests, organizations and dates")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @PostMapping("")
+    public Map<String, Object> graphql(@RequestBody GraphQLRequest request) {
+        if (!StringUtils.hasText(request.getQuery())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "query is required");
+        }
+        return graphQLService.execute(request.getQuery(), request.getOperationName(), request.getVariables());
+    }
+}
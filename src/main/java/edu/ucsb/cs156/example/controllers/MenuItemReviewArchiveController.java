@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.ReviewArchive;
+import edu.ucsb.cs156.example.services.ReviewArchiver;
+import edu.ucsb.cs156.example.services.ReviewPartitions.Quarter;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+@Tag(name = "MenuItemReview archive")
+@RequestMapping("/api/menuitemreview/archive")
+@RestController
+public class MenuItemReviewArchiveController extends ApiController {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    ReviewArchiver reviewArchiver;
+
+    @Operation(summary= "List the quarters of reviews moved out of the database")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("")
+    public List<ReviewArchive> archives() throws IOException {
+        return reviewArchiver.list();
+    }
+
+    @Operation(summary= "Stream an archived quarter of reviews, one JSON object per line")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/{quarter}")
+    public ResponseEntity<StreamingResponseBody> archive(
+            @Parameter(name="quarter", description="calendar quarter, e.g. 2023q1") @PathVariable String quarter,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        Quarter parsed = Quarter.parse(quarter);
+        Optional<Path> archived = parsed != null ? reviewArchiver.find(parsed) : Optional.empty();
+        Path file = archived.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                "no archive for quarter %s".formatted(quarter)));
+
+        // the file is already gzipped; send it as is to clients that accept that
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip").contentLength(Files.size(file));
+        }
+        return response.body(out -> {
+            try (InputStream in = gzip ? Files.newInputStream(file) : new GZIPInputStream(Files.newInputStream(file))) {
+                in.transferTo(out);
+            }
+        });
+    }
+}
@@ -1,8 +1,16 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.Coalesced;
+import edu.ucsb.cs156.example.aop.Idempotent;
+import edu.ucsb.cs156.example.aop.RateLimited;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.models.ReviewWithItem;
+import edu.ucsb.cs156.example.services.ReferenceFilter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,8 +20,12 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -22,10 +34,14 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.server.ResponseStatusException;
 import javax.validation.Valid;
 
 
 import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.List;
+import java.util.Locale;
 
 @Tag(name = "MenuItemReview")
 @RequestMapping("/api/menuitemreview")
@@ -33,11 +49,43 @@ import java.time.LocalDateTime;
 @Slf4j
 public class MenuItemReviewController extends ApiController {
 
+    static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     MenuItemReviewRepository menuItemReviewRepository;
 
+    @Autowired
+    ReferenceFilter referenceFilter;
+
+    static final String ITEM_FOREIGN_KEY = "menuitemreview_item";
+
+    // a filter miss is looked up before it is rejected; ids the filter lets
+    // through are checked by the menuitemreview_item foreign key
+    private void checkItemExists(long itemId) {
+        if (!referenceFilter.mightContainMenuItem(itemId)) {
+            throw new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, itemId);
+        }
+    }
+
+    // flushes so that a missing item fails here, with the same 404 as a filter miss,
+    // rather than as a conflict at commit
+    private MenuItemReview saveChecked(MenuItemReview menuItemReview) {
+        try {
+            MenuItemReview saved = menuItemReviewRepository.save(menuItemReview);
+            menuItemReviewRepository.flush();
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            String message = String.valueOf(e.getMostSpecificCause().getMessage());
+            if (message.toLowerCase(Locale.ROOT).contains(ITEM_FOREIGN_KEY)) {
+                throw new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, menuItemReview.getItemId());
+            }
+            throw e;
+        }
+    }
+
     @Operation(summary= "List all menu item reviews")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
     @GetMapping("/all")
     public Iterable<MenuItemReview> allReviews() {
         Iterable<MenuItemReview> reviews = menuItemReviewRepository.findAll();
@@ -46,6 +94,7 @@ public class MenuItemReviewController extends ApiController {
     
     @Operation(summary= "Get a single review")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
     @GetMapping("")
     public MenuItemReview getById(
             @Parameter(name="id") @RequestParam Long id) {
@@ -55,8 +104,34 @@ public class MenuItemReviewController extends ApiController {
         return menuItemReview;
     }
 
+    @Operation(summary= "Get many reviews at once, in the order requested")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
+    @GetMapping("/batch")
+    public BatchResult<MenuItemReview, Long> getBatch(
+            @Parameter(name="ids", description="comma-separated") @RequestParam List<Long> ids) {
+        return findAllInOrder(menuItemReviewRepository, ids, MenuItemReview::getId);
+    }
+
+    @Operation(summary= "List a page of reviews, newest first, with each item's name, station and dining commons")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
+    @GetMapping("/page")
+    public List<ReviewWithItem> getPageWithItems(
+            @Parameter(name="page", description="zero-based") @RequestParam(defaultValue = "0") int page,
+            @Parameter(name="size", description="at most 500") @RequestParam(defaultValue = "50") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be at least 0 and size between 1 and %d".formatted(MAX_PAGE_SIZE));
+        }
+        return menuItemReviewRepository.findPageWithItems(PageRequest.of(page, size));
+    }
+
     @Operation(summary= "Create a new item review")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RateLimited("menuitemreview-post")
+    @Transactional
+    @Idempotent
     @PostMapping("/post")
     public MenuItemReview postMenuItemReview(
         @Parameter(name="itemId") @RequestParam Long itemId,
@@ -66,6 +141,7 @@ public class MenuItemReviewController extends ApiController {
         @Parameter(name="comments") @RequestParam String comments
     ) throws JsonProcessingException {
         log.info("localDateTime={}", dateReviewed);
+        checkItemExists(itemId);
 
         MenuItemReview menuItemReview = new MenuItemReview();
         menuItemReview.setItemId(itemId);
@@ -74,11 +150,13 @@ public class MenuItemReviewController extends ApiController {
         menuItemReview.setComments(comments);
         menuItemReview.setDateReviewed(dateReviewed);
 
-       MenuItemReview savedMenuItemReview = menuItemReviewRepository.save(menuItemReview);
+       MenuItemReview savedMenuItemReview = saveChecked(menuItemReview);
+       publishChange(MenuItemReview.class, savedMenuItemReview.getId(), EntityChangeEvent.Op.CREATE);
        return savedMenuItemReview;
     }
     @Operation(summary= "Delete a review")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @DeleteMapping("")
     public Object deleteMenuItemReview(
             @Parameter(name="id") @RequestParam Long id) {
@@ -86,11 +164,13 @@ public class MenuItemReviewController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
         menuItemReviewRepository.delete(menuItemReview);
+        publishChange(MenuItemReview.class, id, EntityChangeEvent.Op.DELETE);
         return genericMessage("MenuItemReview with id %s deleted".formatted(id));
     }
 
     @Operation(summary= "Update a single review")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @PutMapping("")
     public MenuItemReview updateMenuItemReview(
             @Parameter(name="id") @RequestParam Long id,
@@ -99,14 +179,33 @@ public class MenuItemReviewController extends ApiController {
         MenuItemReview menuItemReview = menuItemReviewRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
+        checkItemExists(incoming.getItemId());
         menuItemReview.setItemId(incoming.getItemId());
         menuItemReview.setReviewerEmail(incoming.getReviewerEmail());
         menuItemReview.setStars(incoming.getStars());
         menuItemReview.setDateReviewed(incoming.getDateReviewed());
         menuItemReview.setComments(incoming.getComments());
 
-        menuItemReviewRepository.save(menuItemReview);
+        saveChecked(menuItemReview);
+        publishChange(MenuItemReview.class, id, EntityChangeEvent.Op.UPDATE);
 
         return menuItemReview;
     }
+
+    @Operation(summary= "Delete every review written before a date")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
+    @DeleteMapping("/bulk")
+    public Object deleteReviewedBefore(
+            @Parameter(name="itemId", description="only reviews of this menu item (optional)") @RequestParam(required = false) Long itemId,
+            @Parameter(name="dateReviewedBefore", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)", example="2023-12-01T13:15") @RequestParam("dateReviewedBefore") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateReviewedBefore) {
+
+        int count = menuItemReviewRepository.deleteReviewedBefore(itemId, dateReviewedBefore);
+        if (count > 0) {
+            publishChange(MenuItemReview.class, EntityChangeEvent.ALL_IDS, EntityChangeEvent.Op.DELETE);
+        }
+        return Map.of(
+            "message", "%d MenuItemReviews deleted".formatted(count),
+            "count", count);
+    }
 }
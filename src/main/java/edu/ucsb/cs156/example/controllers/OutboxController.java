@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.entities.OutboxEvent;
+import edu.ucsb.cs156.example.services.OutboxRelay;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Tag(name = "Change outbox")
+@RequestMapping("/api/outbox")
+@RestController
+public class OutboxController extends ApiController {
+
+    @Autowired
+    OutboxRelay outboxRelay;
+
+    @Operation(summary= "List entity changes after an outbox id, oldest first; pass the last id seen to sync incrementally")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("")
+    public List<OutboxEvent> eventsAfter(
+            @Parameter(name="after") @RequestParam(defaultValue = "0") long after,
+            @Parameter(name="limit") @RequestParam(defaultValue = "100") int limit) {
+        return outboxRelay.eventsAfter(after, limit);
+    }
+}
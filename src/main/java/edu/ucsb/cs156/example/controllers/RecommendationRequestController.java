@@ -1,7 +1,14 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.Coalesced;
+import edu.ucsb.cs156.example.aop.Idempotent;
+import edu.ucsb.cs156.example.aop.RateLimited;
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.repositories.ArchivedRecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,7 +20,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -22,10 +31,17 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.List;
+import java.util.Optional;
 
 @Tag(name = "RecommendationRequest")
 @RequestMapping("/api/RecommendationRequest")
@@ -36,27 +52,74 @@ public class RecommendationRequestController extends ApiController {
     @Autowired
     RecommendationRequestRepository recommendationRequestRepository;
 
-    @Operation(summary= "List all recommendation requests")
+    // done requests moved out of the main table by the RecommendationRequestArchiver
+    @Autowired
+    ArchivedRecommendationRequestRepository archivedRecommendationRequestRepository;
+
+    @Operation(summary= "List all recommendation requests; archived (done and long past) ones only when asked for")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
     @GetMapping("/all")
-    public Iterable<RecommendationRequest> allRecommendationRequests() {
+    public Iterable<RecommendationRequest> allRecommendationRequests(
+            @Parameter(name="includeArchived") @RequestParam(defaultValue = "false") boolean includeArchived) {
         Iterable<RecommendationRequest> requests = recommendationRequestRepository.findAll();
-        return requests;
+        if (!includeArchived) {
+            return requests;
+        }
+        List<RecommendationRequest> all = new ArrayList<>();
+        requests.forEach(all::add);
+        archivedRecommendationRequestRepository.findAll()
+                .forEach(archived -> all.add(archived.toRecommendationRequest()));
+        return all;
+    }
+
+    private Optional<RecommendationRequest> findHotThenCold(Long id) {
+        Optional<RecommendationRequest> hot = recommendationRequestRepository.findById(id);
+        return hot.isPresent() ? hot
+                : archivedRecommendationRequestRepository.findById(id).map(ArchivedRecommendationRequest::toRecommendationRequest);
     }
 
     @Operation(summary= "Get a single recommendation request")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
     @GetMapping("")
     public RecommendationRequest getById(
             @Parameter(name="id") @RequestParam Long id) {
-        RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
+        RecommendationRequest recommendationRequest = findHotThenCold(id)
                 .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
         return recommendationRequest;
     }
 
+    @Operation(summary= "Get many recommendation requests at once, in the order requested")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
+    @GetMapping("/batch")
+    public BatchResult<RecommendationRequest, Long> getBatch(
+            @Parameter(name="ids", description="comma-separated") @RequestParam List<Long> ids) {
+        BatchResult<RecommendationRequest, Long> hot = findAllInOrder(recommendationRequestRepository, ids, RecommendationRequest::getId);
+        if (hot.getMissing().isEmpty()) {
+            return hot;
+        }
+        BatchResult<ArchivedRecommendationRequest, Long> cold = findAllInOrder(archivedRecommendationRequestRepository,
+                hot.getMissing(), ArchivedRecommendationRequest::getId);
+        Map<Long, RecommendationRequest> byId = new HashMap<>();
+        hot.getFound().forEach(request -> byId.put(request.getId(), request));
+        cold.getFound().forEach(archived -> byId.put(archived.getId(), archived.toRecommendationRequest()));
+        List<RecommendationRequest> found = new ArrayList<>(byId.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (byId.containsKey(id)) {
+                found.add(byId.get(id));
+            }
+        }
+        return new BatchResult<>(found, cold.getMissing());
+    }
+
     @Operation(summary= "Create a new recommendation request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @RateLimited("recommendationrequest-post")
+    @Transactional
+    @Idempotent
     @PostMapping("/post")
     public RecommendationRequest postRecommendationRequest(
             @Parameter(name="requesterEmail") @RequestParam String requesterEmail,
@@ -82,31 +145,42 @@ public class RecommendationRequestController extends ApiController {
         recommendationRequest.setDone(done);
 
         RecommendationRequest savedRecommendationRequest = recommendationRequestRepository.save(recommendationRequest);
+        publishChange(RecommendationRequest.class, savedRecommendationRequest.getId(), EntityChangeEvent.Op.CREATE);
 
         return savedRecommendationRequest;
     }
 
     @Operation(summary= "Delete a RecommendationRequest")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @DeleteMapping("")
     public Object deleteRecommendationRequest(
             @Parameter(name="id") @RequestParam Long id) {
-        RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
-
-        recommendationRequestRepository.delete(recommendationRequest);
+        Optional<RecommendationRequest> hot = recommendationRequestRepository.findById(id);
+        if (hot.isPresent()) {
+            recommendationRequestRepository.delete(hot.get());
+        } else {
+            ArchivedRecommendationRequest archived = archivedRecommendationRequestRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
+            archivedRecommendationRequestRepository.delete(archived);
+        }
+        publishChange(RecommendationRequest.class, id, EntityChangeEvent.Op.DELETE);
         return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
     }
 
     @Operation(summary= "Update a single recommendation request")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @PutMapping("")
     public RecommendationRequest updateRecommendationRequest(
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid RecommendationRequest incoming) {
 
         RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
+                .orElseThrow(() -> archivedRecommendationRequestRepository.existsById(id)
+                        ? new ResponseStatusException(HttpStatus.CONFLICT,
+                                "RecommendationRequest with id %s is archived and read-only".formatted(id))
+                        : new EntityNotFoundException(RecommendationRequest.class, id));
 
         recommendationRequest.setRequesterEmail(incoming.getRequesterEmail());
         recommendationRequest.setProfessorEmail(incoming.getProfessorEmail());
@@ -116,7 +190,25 @@ public class RecommendationRequestController extends ApiController {
         recommendationRequest.setDone(incoming.getDone());
 
         recommendationRequestRepository.save(recommendationRequest);
+        publishChange(RecommendationRequest.class, id, EntityChangeEvent.Op.UPDATE);
 
         return recommendationRequest;
     }
+
+    @Operation(summary= "Mark every matching open recommendation request as done")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
+    @PutMapping("/bulk/done")
+    public Object markDone(
+            @Parameter(name="professorEmail", description="only requests to this professor (optional)") @RequestParam(required = false) String professorEmail,
+            @Parameter(name="dateNeededBefore", description="date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)", example="2023-12-01T13:15") @RequestParam("dateNeededBefore") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateNeededBefore) {
+
+        int count = recommendationRequestRepository.markDone(professorEmail, dateNeededBefore);
+        if (count > 0) {
+            publishChange(RecommendationRequest.class, EntityChangeEvent.ALL_IDS, EntityChangeEvent.Op.UPDATE);
+        }
+        return Map.of(
+            "message", "%d RecommendationRequests marked done".formatted(count),
+            "count", count);
+    }
 }
@@ -1,7 +1,11 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.Coalesced;
+import edu.ucsb.cs156.example.aop.Idempotent;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,6 +18,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -26,6 +31,7 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Tag(name = "UCSBDates")
 @RequestMapping("/api/ucsbdates")
@@ -38,6 +44,7 @@ public class UCSBDatesController extends ApiController {
 
     @Operation(summary= "List all ucsb dates")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
     @GetMapping("/all")
     public Iterable<UCSBDate> allUCSBDates() {
         Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
@@ -46,6 +53,7 @@ public class UCSBDatesController extends ApiController {
 
     @Operation(summary= "Get a single date")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
     @GetMapping("")
     public UCSBDate getById(
             @Parameter(name="id") @RequestParam Long id) {
@@ -55,8 +63,19 @@ public class UCSBDatesController extends ApiController {
         return ucsbDate;
     }
 
+    @Operation(summary= "Get many dates at once, in the order requested")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
+    @GetMapping("/batch")
+    public BatchResult<UCSBDate, Long> getBatch(
+            @Parameter(name="ids", description="comma-separated") @RequestParam List<Long> ids) {
+        return findAllInOrder(ucsbDateRepository, ids, UCSBDate::getId);
+    }
+
     @Operation(summary= "Create a new date")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
+    @Idempotent
     @PostMapping("/post")
     public UCSBDate postUCSBDate(
             @Parameter(name="quarterYYYYQ") @RequestParam String quarterYYYYQ,
@@ -75,12 +94,14 @@ public class UCSBDatesController extends ApiController {
         ucsbDate.setLocalDateTime(localDateTime);
 
         UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
+        publishChange(UCSBDate.class, savedUcsbDate.getId(), EntityChangeEvent.Op.CREATE);
 
         return savedUcsbDate;
     }
 
     @Operation(summary= "Delete a UCSBDate")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @DeleteMapping("")
     public Object deleteUCSBDate(
             @Parameter(name="id") @RequestParam Long id) {
@@ -88,11 +109,13 @@ public class UCSBDatesController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
         ucsbDateRepository.delete(ucsbDate);
+        publishChange(UCSBDate.class, id, EntityChangeEvent.Op.DELETE);
         return genericMessage("UCSBDate with id %s deleted".formatted(id));
     }
 
     @Operation(summary= "Update a single date")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @PutMapping("")
     public UCSBDate updateUCSBDate(
             @Parameter(name="id") @RequestParam Long id,
@@ -106,6 +129,7 @@ public class UCSBDatesController extends ApiController {
         ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
 
         ucsbDateRepository.save(ucsbDate);
+        publishChange(UCSBDate.class, id, EntityChangeEvent.Op.UPDATE);
 
         return ucsbDate;
     }
@@ -1,8 +1,15 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.Coalesced;
+import edu.ucsb.cs156.example.aop.Idempotent;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.CommonsRating;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.JsonResponseCache;
+import edu.ucsb.cs156.example.services.RatingLeaderboard;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,7 +17,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,28 +29,41 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
 
+import java.io.IOException;
+import java.util.List;
+
 @Tag(name = "UCSBDiningCommons")
 @RequestMapping("/api/ucsbdiningcommons")
 @RestController
 @Slf4j
 public class UCSBDiningCommonsController extends ApiController {
 
+    static final int MAX_LEADERBOARD_SIZE = 100;
+
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+    @Autowired
+    JsonResponseCache jsonResponseCache;
+
+    @Autowired
+    RatingLeaderboard ratingLeaderboard;
+
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    public ResponseEntity<?> allCommonss(WebRequest request) throws IOException {
+        return jsonResponseCache.serve(UCSBDiningCommons.class, request, ucsbDiningCommonsRepository::findAll);
     }
 
     @Operation(summary= "Get a single commons")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
     @GetMapping("")
     public UCSBDiningCommons getById(
             @Parameter(name="code") @RequestParam String code) {
@@ -50,8 +73,32 @@ public class UCSBDiningCommonsController extends ApiController {
         return commons;
     }
 
+    @Operation(summary= "Get many commons at once, in the order requested")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
+    @GetMapping("/batch")
+    public BatchResult<UCSBDiningCommons, String> getBatch(
+            @Parameter(name="codes", description="comma-separated") @RequestParam List<String> codes) {
+        return findAllInOrder(ucsbDiningCommonsRepository, codes, UCSBDiningCommons::getCode);
+    }
+
+    @Operation(summary= "Dining commons ranked by the average stars of their menu items' reviews")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
+    @GetMapping("/leaderboard")
+    public List<CommonsRating> getLeaderboard(
+            @Parameter(name="limit", description="at most 100") @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_LEADERBOARD_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and %d".formatted(MAX_LEADERBOARD_SIZE));
+        }
+        return ratingLeaderboard.top(limit);
+    }
+
     @Operation(summary= "Create a new commons")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
+    @Idempotent
     @PostMapping("/post")
     public UCSBDiningCommons postCommons(
         @Parameter(name="code") @RequestParam String code,
@@ -74,12 +121,14 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(longitude);
 
         UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+        publishChange(UCSBDiningCommons.class, savedCommons.getCode(), EntityChangeEvent.Op.CREATE);
 
         return savedCommons;
     }
 
     @Operation(summary= "Delete a UCSBDiningCommons")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @DeleteMapping("")
     public Object deleteCommons(
             @Parameter(name="code") @RequestParam String code) {
@@ -87,11 +136,13 @@ public class UCSBDiningCommonsController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
         ucsbDiningCommonsRepository.delete(commons);
+        publishChange(UCSBDiningCommons.class, code, EntityChangeEvent.Op.DELETE);
         return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
     }
 
     @Operation(summary= "Update a single commons")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @PutMapping("")
     public UCSBDiningCommons updateCommons(
             @Parameter(name="code") @RequestParam String code,
@@ -109,6 +160,7 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLongitude(incoming.getLongitude());
 
         ucsbDiningCommonsRepository.save(commons);
+        publishChange(UCSBDiningCommons.class, code, EntityChangeEvent.Op.UPDATE);
 
         return commons;
     }
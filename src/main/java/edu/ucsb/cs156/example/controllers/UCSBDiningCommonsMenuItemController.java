@@ -1,8 +1,14 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.Coalesced;
+import edu.ucsb.cs156.example.aop.Idempotent;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +20,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -26,6 +33,8 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
 
 @Tag(name = "UCSBDiningCommonsMenuItem")
 @RequestMapping("/api/UCSBDiningCommonsMenuItem")
@@ -35,10 +44,21 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     
     @Autowired
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+    @Autowired
+    UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+    // items have no foreign key to commons, so this lookup is the only check
+    private void checkDiningCommonsExists(String diningCommonsCode) {
+        if (diningCommonsCode == null || !ucsbDiningCommonsRepository.existsById(diningCommonsCode)) {
+            throw new EntityNotFoundException(UCSBDiningCommons.class, diningCommonsCode);
+        }
+    }
     
     //issue #7      GET ALL
     @Operation(summary= "List all ucsb dining commons menu items")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
     @GetMapping("/all")
     public Iterable<UCSBDiningCommonsMenuItem> allCommonsMenuItems() {
         Iterable<UCSBDiningCommonsMenuItem> items = ucsbDiningCommonsMenuItemRepository.findAll();
@@ -49,6 +69,8 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     //issue #7      POST
     @Operation(summary= "Create a new item")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
+    @Idempotent
     @PostMapping("/post")
     public UCSBDiningCommonsMenuItem postCommonsMenuItem(
         @Parameter(name="diningCommonsCode") @RequestParam String diningCommonsCode,
@@ -57,12 +79,15 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
         ) /*throws JsonProcessingException */
         {
 
+        checkDiningCommonsExists(diningCommonsCode);
+
         UCSBDiningCommonsMenuItem commonsMenuItem = new UCSBDiningCommonsMenuItem();
         commonsMenuItem.setDiningCommonsCode(diningCommonsCode);
         commonsMenuItem.setName(name);
         commonsMenuItem.setStation(station);
 
         UCSBDiningCommonsMenuItem savedCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.save(commonsMenuItem);
+        publishChange(UCSBDiningCommonsMenuItem.class, savedCommonsMenuItem.getId(), EntityChangeEvent.Op.CREATE);
 
         return savedCommonsMenuItem;
     }
@@ -71,6 +96,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     //issue #8
     @Operation(summary= "Get a single commons menu item")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
     @GetMapping("")
     public UCSBDiningCommonsMenuItem getById(
             @Parameter(name="id") @RequestParam Long id) {
@@ -81,9 +107,19 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
 
     }
 
+    @Operation(summary= "Get many commons menu items at once, in the order requested")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
+    @GetMapping("/batch")
+    public BatchResult<UCSBDiningCommonsMenuItem, Long> getBatch(
+            @Parameter(name="ids", description="comma-separated") @RequestParam List<Long> ids) {
+        return findAllInOrder(ucsbDiningCommonsMenuItemRepository, ids, UCSBDiningCommonsMenuItem::getId);
+    }
+
     //issue #9
     @Operation(summary= "Update a single menu item")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @PutMapping("")
     public UCSBDiningCommonsMenuItem updateUCSBDiningCommonsMenuItem(
         @Parameter(name="id") @RequestParam Long id,
@@ -92,11 +128,16 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
             UCSBDiningCommonsMenuItem commonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
+            // items saved before codes were checked can still be edited without fixing theirs
+            if (!Objects.equals(incoming.getDiningCommonsCode(), commonsMenuItem.getDiningCommonsCode())) {
+                checkDiningCommonsExists(incoming.getDiningCommonsCode());
+            }
             commonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
             commonsMenuItem.setName(incoming.getName());
             commonsMenuItem.setStation(incoming.getStation());
 
             ucsbDiningCommonsMenuItemRepository.save(commonsMenuItem);
+            publishChange(UCSBDiningCommonsMenuItem.class, id, EntityChangeEvent.Op.UPDATE);
             
 
             return commonsMenuItem;
@@ -105,6 +146,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     //issue #10
     @Operation(summary= "Delete a commons menu item")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @DeleteMapping("")
     public Object deleteUCSBDiningCommonsMenuItem(
         @Parameter(name="id") @RequestParam Long id){
@@ -113,6 +155,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
         ucsbDiningCommonsMenuItemRepository.delete(commonsMenuItem);
+        publishChange(UCSBDiningCommonsMenuItem.class, id, EntityChangeEvent.Op.DELETE);
         return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
     }
     
@@ -1,8 +1,13 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.aop.Coalesced;
+import edu.ucsb.cs156.example.aop.Idempotent;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.JsonResponseCache;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,7 +17,9 @@ import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -21,9 +28,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 
+import java.io.IOException;
+import java.util.List;
+
 @Tag(name = "UCSBOrganization")
 @RequestMapping("/api/UCSBOrganization")
 @RestController
@@ -32,16 +43,20 @@ public class UCSBOrganizationController extends ApiController {
     @Autowired
     UCSBOrganizationRepository ucsbOrganizationRepository;
 
+    @Autowired
+    JsonResponseCache jsonResponseCache;
+
     @Operation(summary= "List all ucsb organizations")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBOrganization> allUCSBOrganization() {
-        Iterable<UCSBOrganization> orgs = ucsbOrganizationRepository.findAll();
-        return orgs;
+    public ResponseEntity<?> allUCSBOrganization(WebRequest request) throws IOException {
+        return jsonResponseCache.serve(UCSBOrganization.class, request, ucsbOrganizationRepository::findAll);
     }
 
     @Operation(summary= "Create a new UCSB organization")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
+    @Idempotent
     @PostMapping("/post")
     public UCSBOrganization postOrg(
         @Parameter(name="orgCode") @RequestParam String orgCode,
@@ -60,12 +75,14 @@ public class UCSBOrganizationController extends ApiController {
         ucsborg.setInactive(inactive);
 
         UCSBOrganization savedOrg = ucsbOrganizationRepository.save(ucsborg);
+        publishChange(UCSBOrganization.class, savedOrg.getOrgCode(), EntityChangeEvent.Op.CREATE);
 
         return savedOrg;
     }
 
     @Operation(summary= "Get UCSB organization by ID")
     @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
     @GetMapping("")
     public UCSBOrganization getById(
             @Parameter(name="orgCode") @RequestParam String orgCode) {
@@ -75,8 +92,18 @@ public class UCSBOrganizationController extends ApiController {
         return org;
     }
 
+    @Operation(summary= "Get many UCSB organizations at once, in the order requested")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Coalesced
+    @GetMapping("/batch")
+    public BatchResult<UCSBOrganization, String> getBatch(
+            @Parameter(name="orgCodes", description="comma-separated") @RequestParam List<String> orgCodes) {
+        return findAllInOrder(ucsbOrganizationRepository, orgCodes, UCSBOrganization::getOrgCode);
+    }
+
     @Operation(summary= "Update an existing UCSB organization")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @PutMapping("")
     public UCSBOrganization updateOrg(
             @Parameter(name="orgCode") @RequestParam String orgCode,
@@ -91,12 +118,14 @@ public class UCSBOrganizationController extends ApiController {
         org.setInactive(incoming.getInactive());
 
         ucsbOrganizationRepository.save(org);
+        publishChange(UCSBOrganization.class, orgCode, EntityChangeEvent.Op.UPDATE);
 
         return org;
     }
 
     @Operation(summary= "Delete a UCSB organization")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
     @DeleteMapping("")
     public Object deleteOrg(
             @Parameter(name="orgCode") @RequestParam String orgCode) {
@@ -104,6 +133,7 @@ public class UCSBOrganizationController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
         ucsbOrganizationRepository.delete(org);
+        publishChange(UCSBOrganization.class, orgCode, EntityChangeEvent.Op.DELETE);
         return genericMessage("record %s deleted".formatted(orgCode));
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * A done recommendation request moved out of the RecommendationRequest table
+ * by the RecommendationRequestArchiver. It keeps its original id.
+ *
+ * The id is assigned, so Spring Data cannot tell a new copy from a stored one
+ * and save() would merge, with a SELECT per row. Copies are new until loaded
+ * or persisted, so the archiver's saveAll() inserts them directly.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "ArchivedRecommendationRequest")
+public class ArchivedRecommendationRequest implements Persistable<Long> {
+  @Id
+  private long id;
+
+  private String requesterEmail;
+  private String professorEmail;
+  private String explanation;
+  private LocalDateTime dateRequested;
+  private LocalDateTime dateNeeded;
+  private boolean done;
+  private Instant archivedAt;
+
+  @Transient
+  @JsonIgnore
+  @Builder.Default
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private boolean stored = false;
+
+  @Override
+  public Long getId() {
+    return id;
+  }
+
+  @Override
+  @JsonIgnore
+  public boolean isNew() {
+    return !stored;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markStored() {
+    stored = true;
+  }
+
+  public static ArchivedRecommendationRequest from(RecommendationRequest request, Instant archivedAt) {
+    return ArchivedRecommendationRequest.builder()
+      .id(request.getId())
+      .requesterEmail(request.getRequesterEmail())
+      .professorEmail(request.getProfessorEmail())
+      .explanation(request.getExplanation())
+      .dateRequested(request.getDateRequested())
+      .dateNeeded(request.getDateNeeded())
+      .done(request.getDone())
+      .archivedAt(archivedAt)
+      .build();
+  }
+
+  public RecommendationRequest toRecommendationRequest() {
+    return RecommendationRequest.builder()
+      .id(id)
+      .requesterEmail(requesterEmail)
+      .professorEmail(professorEmail)
+      .explanation(explanation)
+      .dateRequested(dateRequested)
+      .dateNeeded(dateNeeded)
+      .done(done)
+      .build();
+  }
+}
@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One Idempotency-Key seen on a POST: claimed when the request starts,
+ * completed with the JSON response in the same transaction as the insert.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "idempotencykeys")
+public class IdempotencyKey {
+  // SHA-256 of the user, the path and the header value
+  @Id
+  private String id;
+  // SHA-256 of the request parameters; a key reused with others is rejected
+  private String fingerprint;
+  // null while the request is in progress
+  @Column(length = 1048576)
+  private String response;
+  private Instant claimedAt;
+  private Instant completedAt;
+}
@@ -1,29 +1,52 @@
 package edu.ucsb.cs156.example.entities;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 import java.time.LocalDateTime;
 
 import javax.persistence.GenerationType;
 import javax.persistence.GeneratedValue;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.ToString;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity(name = "menuitemreview")
+@Table(indexes = @Index(name = "menuitemreview_date_reviewed", columnList = "dateReviewed"))
 public class MenuItemReview {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private long id;
+  // named like the join column below, or Hibernate sees two logical names for item_id
+  @Column(name = "item_id", nullable = false)
   private long itemId;
   private String reviewerEmail;
   private int stars;
   private LocalDateTime dateReviewed;
   private String comments;
-}
\ No newline at end of file
+
+  // the same item_id column, read-only; reviews are written through itemId
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "item_id", insertable = false, updatable = false,
+      foreignKey = @ForeignKey(name = "menuitemreview_item"))
+  @JsonIgnore
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private UCSBDiningCommonsMenuItem item;
+}
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.Instant;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The id of the last outbox event delivered to one consumer. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "outboxcursors")
+public class OutboxCursor {
+  @Id
+  private String consumer;
+  private long position;
+  private Instant updatedAt;
+}
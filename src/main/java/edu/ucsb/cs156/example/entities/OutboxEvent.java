@@ -0,0 +1,51 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.Instant;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row per entity change, inserted in the same transaction as the change
+ * itself. Rows are never updated; the id is the position consumers read from.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "outboxevents")
+@Table(indexes = @Index(name = "outboxevents_created_at", columnList = "createdAt"))
+public class OutboxEvent {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private String entityType;
+  private String entityId;
+  @Enumerated(EnumType.STRING)
+  private EntityChangeEvent.Op op;
+  private long version;
+  private Instant createdAt;
+
+  public static OutboxEvent from(EntityChangeEvent event, Instant createdAt) {
+    return OutboxEvent.builder()
+      .entityType(event.getEntityType())
+      .entityId(event.getId())
+      .op(event.getOp())
+      .version(event.getVersion())
+      .createdAt(createdAt)
+      .build();
+  }
+}
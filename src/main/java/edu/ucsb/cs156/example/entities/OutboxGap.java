@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * An outbox event id that one consumer's cursor moved past before the id was
+ * visible. It may belong to a transaction that has not committed yet, so the
+ * relay looks for it again until the gap window has passed.
+ *
+ * Like ArchivedRecommendationRequest, a gap is new until loaded or persisted,
+ * so saveAll() inserts without first selecting each assigned key.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "outboxgaps")
+@IdClass(OutboxGap.Key.class)
+public class OutboxGap implements Persistable<OutboxGap.Key> {
+  @Id
+  private String consumer;
+  @Id
+  private long eventId;
+  private Instant skippedAt;
+
+  @Transient
+  @Builder.Default
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private boolean stored = false;
+
+  @Override
+  public Key getId() {
+    return new Key(consumer, eventId);
+  }
+
+  @Override
+  public boolean isNew() {
+    return !stored;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markStored() {
+    stored = true;
+  }
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  public static class Key implements Serializable {
+    private String consumer;
+    private long eventId;
+  }
+}
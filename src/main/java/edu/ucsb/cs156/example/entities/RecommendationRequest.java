@@ -6,6 +6,8 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,6 +19,7 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "RecommendationRequest")
+@Table(indexes = @Index(name = "recommendation_request_done_date_needed", columnList = "done, dateNeeded"))
 public class RecommendationRequest {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
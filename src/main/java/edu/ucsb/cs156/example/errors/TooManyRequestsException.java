@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.errors;
+
+import java.util.concurrent.TimeUnit;
+
+public class TooManyRequestsException extends RuntimeException {
+  private final long retryAfterSeconds;
+
+  public TooManyRequestsException(String endpoint, long retryAfterNanos) {
+    super("rate limit exceeded for %s".formatted(endpoint));
+    // round up so clients never retry too early
+    this.retryAfterSeconds = Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response of the /batch endpoints: the entities found, in the order their
+ * ids were requested, and the requested ids that matched nothing.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchResult<T, ID> {
+  private List<T> found;
+  private List<ID> missing;
+}
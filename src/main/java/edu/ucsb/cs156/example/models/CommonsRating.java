@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * One dining commons on the leaderboard: the average stars of the reviews of
+ * its menu items. Commons without reviews are not ranked.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CommonsRating {
+  private String diningCommonsCode;
+  private String diningCommonsName;
+  private long reviewCount;
+  private double averageStars;
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ConnectionPoolStats {
+  private String poolName;
+  private int activeConnections;
+  private int idleConnections;
+  private int totalConnections;
+  private int maxConnections;
+  private int threadsAwaitingConnection;
+  private long acquisitions;
+  private long timeouts;
+  private long meanWaitMicros;
+  private long p50WaitMicros;
+  private long p99WaitMicros;
+  private long maxWaitMicros;
+}
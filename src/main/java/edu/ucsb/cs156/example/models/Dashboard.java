@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Everything the home page shows, in one response. A part that failed or
+ * timed out is null and named in unavailable.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class Dashboard {
+  private CurrentUser currentUser;
+  private SystemInfo systemInfo;
+  private Iterable<UCSBDiningCommons> diningCommons;
+  private List<UCSBDiningCommonsMenuItem> menuItems;
+  private List<MenuItemReview> recentReviews;
+  private List<UCSBDate> upcomingDates;
+  private List<String> unavailable;
+}
@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class EntityChangeEvent {
+  public enum Op { CREATE, UPDATE, DELETE }
+
+  // id used when a set-based statement touched an unknown set of rows
+  public static final String ALL_IDS = "*";
+
+  // entity type used when every entity type may have changed (e.g. after a
+  // node missed invalidations while disconnected)
+  public static final String ALL_TYPES = "*";
+
+  // Seeded from the clock so versions keep increasing across restarts
+  private static final AtomicLong SEQUENCE = new AtomicLong(System.currentTimeMillis() * 1000);
+
+  private String entityType;
+  private String id;
+  private Op op;
+  private long version;
+
+  // true when the change was made on another node and arrived over the InvalidationBus
+  @JsonIgnore
+  private boolean remote;
+
+  public static EntityChangeEvent of(Class<?> entityType, Object id, Op op) {
+    return EntityChangeEvent.builder()
+      .entityType(entityType.getSimpleName())
+      .id(String.valueOf(id))
+      .op(op)
+      .version(SEQUENCE.incrementAndGet())
+      .build();
+  }
+
+  public static EntityChangeEvent allTypes() {
+    return EntityChangeEvent.builder()
+      .entityType(ALL_TYPES)
+      .id(ALL_IDS)
+      .op(Op.UPDATE)
+      .version(SEQUENCE.incrementAndGet())
+      .build();
+  }
+}
@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Body of a POST to /api/graphql, as sent by standard GraphQL clients. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class GraphQLRequest {
+  private String query;
+  private String operationName;
+  private Map<String, Object> variables;
+}
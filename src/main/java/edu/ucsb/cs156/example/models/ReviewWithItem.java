@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.time.LocalDateTime;
+
+/**
+ * A review together with the menu item it is about and that item's dining
+ * commons, read in one query by MenuItemReviewRepository.findPageWithItems.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ReviewWithItem {
+  private long id;
+  private long itemId;
+  private String reviewerEmail;
+  private int stars;
+  private LocalDateTime dateReviewed;
+  private String comments;
+  private String itemName;
+  private String station;
+  private String diningCommonsCode;
+  // null when the item names a commons that is not in ucsbdiningcommons
+  private String diningCommonsName;
+}
@@ -0,0 +1,11 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+
+@Repository
+public interface ArchivedRecommendationRequestRepository extends CrudRepository<ArchivedRecommendationRequest, Long> {
+}
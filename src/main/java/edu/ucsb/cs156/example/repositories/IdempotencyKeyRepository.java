@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.IdempotencyKey;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyKeyRepository extends CrudRepository<IdempotencyKey, String> {
+
+  // a plain insert, so a key another request holds fails with a duplicate key instead of being merged
+  @Modifying
+  @Query(value = "INSERT INTO idempotencykeys (id, fingerprint, claimed_at) VALUES (:id, :fingerprint, :claimedAt)",
+      nativeQuery = true)
+  int claim(@Param("id") String id, @Param("fingerprint") String fingerprint, @Param("claimedAt") Instant claimedAt);
+
+  // takes over a claim whose request never completed
+  @Modifying
+  @Query("UPDATE idempotencykeys k SET k.claimedAt = :claimedAt"
+      + " WHERE k.id = :id AND k.response IS NULL AND k.claimedAt < :staleBefore")
+  int reclaim(@Param("id") String id, @Param("claimedAt") Instant claimedAt, @Param("staleBefore") Instant staleBefore);
+
+  @Modifying
+  @Query("UPDATE idempotencykeys k SET k.response = :response, k.completedAt = :completedAt WHERE k.id = :id")
+  int complete(@Param("id") String id, @Param("response") String response, @Param("completedAt") Instant completedAt);
+
+  // after a failed request, so that a retry runs it again
+  @Modifying
+  @Query("DELETE FROM idempotencykeys k WHERE k.id = :id AND k.response IS NULL")
+  int release(@Param("id") String id);
+
+  @Modifying
+  @Query("DELETE FROM idempotencykeys k WHERE k.claimedAt < :before")
+  int deleteClaimedBefore(@Param("before") Instant before);
+}
@@ -1,11 +1,49 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.ReviewWithItem;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 
 @Repository
 public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {  
-}
\ No newline at end of file
+
+  // implemented by SimpleJpaRepository; writes pending changes so constraint violations surface at the call
+  void flush();
+
+  List<MenuItemReview> findAllByOrderByDateReviewedDesc(Pageable page);
+
+  List<MenuItemReview> findAllByOrderByIdAsc(Pageable page);
+
+  // the first perItem reviews of each item, oldest first
+  @Query(value = "SELECT * FROM (SELECT r.*, ROW_NUMBER() OVER (PARTITION BY r.item_id ORDER BY r.id) AS position"
+      + " FROM menuitemreview r WHERE r.item_id IN :itemIds) ranked WHERE ranked.position <= :perItem"
+      + " ORDER BY ranked.id", nativeQuery = true)
+  List<MenuItemReview> findFirstPerItem(@Param("itemIds") Collection<Long> itemIds, @Param("perItem") int perItem);
+
+  // newest first, each review joined to its item and the item's commons in a single statement
+  @Query("SELECT new edu.ucsb.cs156.example.models.ReviewWithItem(r.id, r.itemId, r.reviewerEmail, r.stars,"
+      + " r.dateReviewed, r.comments, i.name, i.station, i.diningCommonsCode, c.name)"
+      + " FROM menuitemreview r LEFT JOIN r.item i LEFT JOIN ucsbdiningcommons c ON c.code = i.diningCommonsCode"
+      + " ORDER BY r.dateReviewed DESC, r.id DESC")
+  List<ReviewWithItem> findPageWithItems(Pageable page);
+
+  // itemId is optional; null matches reviews of every item
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM menuitemreview r WHERE r.dateReviewed < :dateReviewedBefore"
+      + " AND (:itemId IS NULL OR r.itemId = :itemId)")
+  int deleteReviewedBefore(@Param("itemId") Long itemId,
+      @Param("dateReviewedBefore") LocalDateTime dateReviewedBefore);
+}
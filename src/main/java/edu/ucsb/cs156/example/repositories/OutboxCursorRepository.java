@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.OutboxCursor;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import java.util.Optional;
+
+@Repository
+public interface OutboxCursorRepository extends CrudRepository<OutboxCursor, String> {
+
+  // SKIP LOCKED: empty while another node holds the row, instead of waiting for it
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+  Optional<OutboxCursor> findLockedByConsumer(String consumer);
+}
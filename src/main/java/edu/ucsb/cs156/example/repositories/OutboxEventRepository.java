@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.OutboxEvent;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends CrudRepository<OutboxEvent, Long> {
+
+  List<OutboxEvent> findByIdGreaterThanOrderByIdAsc(long id, Pageable page);
+
+  List<OutboxEvent> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM outboxevents e WHERE e.createdAt < :cutoff")
+  int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
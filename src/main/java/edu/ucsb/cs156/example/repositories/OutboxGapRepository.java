@@ -0,0 +1,14 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.OutboxGap;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxGapRepository extends CrudRepository<OutboxGap, OutboxGap.Key> {
+
+  List<OutboxGap> findByConsumer(String consumer);
+}
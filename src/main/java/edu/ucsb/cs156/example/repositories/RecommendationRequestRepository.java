@@ -2,10 +2,43 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 
 @Repository
 public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long> {
-}
\ No newline at end of file
+
+  List<RecommendationRequest> findAllByOrderByIdAsc(Pageable page);
+
+  // professorEmail is optional; null matches every professor
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE RecommendationRequest r SET r.done = true"
+      + " WHERE r.done = false AND r.dateNeeded < :dateNeededBefore"
+      + " AND (:professorEmail IS NULL OR r.professorEmail = :professorEmail)")
+  int markDone(@Param("professorEmail") String professorEmail,
+      @Param("dateNeededBefore") LocalDateTime dateNeededBefore);
+
+  // locked, so an update cannot slip in between archiving a copy and deleting the row
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  List<RecommendationRequest> findByDoneTrueAndDateNeededBeforeOrderByIdAsc(LocalDateTime dateNeededBefore,
+      Pageable page);
+
+  // flushes first, so copies saved earlier in the transaction are not cleared unwritten
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("DELETE FROM RecommendationRequest r WHERE r.id IN :ids")
+  int deleteByIds(@Param("ids") Collection<Long> ids);
+}
@@ -2,11 +2,19 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 
 @Repository
 public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+
+  List<UCSBDate> findByLocalDateTimeGreaterThanEqualOrderByLocalDateTimeAsc(LocalDateTime from, Pageable page);
+
+  List<UCSBDate> findAllByOrderByIdAsc(Pageable page);
 }
\ No newline at end of file
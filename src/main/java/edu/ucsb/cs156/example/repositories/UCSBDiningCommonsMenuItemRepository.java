@@ -2,11 +2,31 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 
 @Repository
 public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {
-  
+
+  List<UCSBDiningCommonsMenuItem> findAllByOrderByIdDesc(Pageable page);
+
+  List<UCSBDiningCommonsMenuItem> findAllByOrderByIdAsc(Pageable page);
+
+  // the first perCommons items of each dining commons, oldest first
+  @Query(value = "SELECT * FROM (SELECT i.*,"
+      + " ROW_NUMBER() OVER (PARTITION BY i.dining_commons_code ORDER BY i.id) AS position"
+      + " FROM ucsbdiningcommonsmenuitems i WHERE i.dining_commons_code IN :codes) ranked"
+      + " WHERE ranked.position <= :perCommons ORDER BY ranked.id", nativeQuery = true)
+  List<UCSBDiningCommonsMenuItem> findFirstPerCommons(@Param("codes") Collection<String> codes,
+      @Param("perCommons") int perCommons);
+
+  @Query("SELECT i.id FROM ucsbdiningcommonsmenuitems i")
+  List<Long> findAllIds();
 }
\ No newline at end of file
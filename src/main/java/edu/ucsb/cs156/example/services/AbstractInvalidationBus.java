@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Shared plumbing for the transports: forwards local events, republishes
+ * peers' events, and defines the wire format
+ * node|entityType|op|version|id (id last, as it may contain '|').
+ */
+@Slf4j
+public abstract class AbstractInvalidationBus implements InvalidationBus {
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final ApplicationEventPublisher applicationEventPublisher;
+
+  protected AbstractInvalidationBus(ApplicationEventPublisher applicationEventPublisher) {
+    this.applicationEventPublisher = applicationEventPublisher;
+  }
+
+  @Override
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChange(EntityChangeEvent event) {
+    if (!event.getRemote()) {
+      publish(event);
+    }
+  }
+
+  /** Handles a message from the transport; our own messages are ignored. */
+  protected void receive(String message) {
+    if (!message.startsWith(nodeId + "|")) {
+      decode(message).ifPresent(applicationEventPublisher::publishEvent);
+    }
+  }
+
+  /** After missing messages (e.g. a dropped connection) assume everything changed. */
+  protected void resync() {
+    EntityChangeEvent event = EntityChangeEvent.allTypes();
+    event.setRemote(true);
+    applicationEventPublisher.publishEvent(event);
+  }
+
+  protected String encode(EntityChangeEvent event) {
+    return String.join("|", nodeId, event.getEntityType(), event.getOp().name(),
+        String.valueOf(event.getVersion()), event.getId());
+  }
+
+  static Optional<EntityChangeEvent> decode(String message) {
+    String[] parts = message.split("\\|", 5);
+    try {
+      return Optional.of(EntityChangeEvent.builder()
+          .entityType(parts[1])
+          .op(EntityChangeEvent.Op.valueOf(parts[2]))
+          .version(Long.parseLong(parts[3]))
+          .id(parts[4])
+          .remote(true)
+          .build());
+    } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+      log.warn("ignoring malformed invalidation message: {}", message);
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter over 64-bit hashes. mightContain never answers
+ * false for a key that was put; it answers true for a key that was not with
+ * about the probability the filter was sized for, rising once more keys than
+ * expected are put. Safe for concurrent put and mightContain.
+ */
+class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  BloomFilter(long expectedKeys, double falsePositiveRate) {
+    long n = Math.max(1, expectedKeys);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (m + 63) / 64));
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = words * 64L;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+  }
+
+  void put(long key) {
+    long h1 = mix(key);
+    long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+        // another bit of the same word was set concurrently; retry
+      }
+    }
+  }
+
+  boolean mightContain(long key) {
+    long h1 = mix(key);
+    long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  int getHashCount() {
+    return hashCount;
+  }
+
+  long getBitCount() {
+    return bitCount;
+  }
+
+  /** 64-bit FNV-1a of the UTF-8 bytes, so string keys spread like long ones after mix. */
+  static long key(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  // finalizer of SplitMix64
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,209 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans entity change events out to Server-Sent Events subscribers.
+ *
+ * Each event is serialized once into a shared ring buffer (which also serves
+ * Last-Event-ID replay); subscribers only hold references to those entries in
+ * a small bounded queue. A subscriber whose queue overflows is disconnected
+ * rather than allowed to slow down everyone else, and an idle subscriber costs
+ * an emitter and an empty queue.
+ */
+@Slf4j
+@Service("changeFeed")
+public class ChangeFeedService {
+
+  private static final FeedEntry HEARTBEAT = new FeedEntry(-1, null);
+
+  private final ObjectWriter writer;
+  private final Executor dispatcher;
+  private final int subscriberQueueSize;
+  private final long emitterTimeoutMs;
+
+  // entry ids (the SSE ids) count up from 1 in the order entries are appended
+  private final FeedEntry[] ring;
+  private long ringHead = 0;
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final AtomicLong droppedSubscribers = new AtomicLong();
+
+  @Autowired
+  public ChangeFeedService(ObjectMapper mapper,
+      @Value("${app.changes.buffer-size:1024}") int bufferSize,
+      @Value("${app.changes.subscriber-queue-size:256}") int subscriberQueueSize,
+      @Value("${app.changes.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+      @Value("${app.changes.dispatch-threads:2}") int dispatchThreads) {
+    this(mapper, bufferSize, subscriberQueueSize, emitterTimeoutMs,
+        Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+          Thread thread = new Thread(runnable, "change-feed-dispatch");
+          thread.setDaemon(true);
+          return thread;
+        }));
+  }
+
+  ChangeFeedService(ObjectMapper mapper, int bufferSize, int subscriberQueueSize, long emitterTimeoutMs,
+      Executor dispatcher) {
+    this.writer = mapper.writerFor(EntityChangeEvent.class);
+    this.ring = new FeedEntry[bufferSize];
+    this.subscriberQueueSize = subscriberQueueSize;
+    this.emitterTimeoutMs = emitterTimeoutMs;
+    this.dispatcher = dispatcher;
+  }
+
+  public SseEmitter subscribe(Long lastEventId) {
+    Subscriber subscriber = new Subscriber(createEmitter());
+    subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+    subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+    subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+
+    // replayed and registered in one step, so no event is queued twice or ahead of older ones
+    synchronized (ring) {
+      if (lastEventId != null) {
+        long oldest = Math.max(0, ringHead - ring.length);
+        // an id beyond the newest was issued before a restart; what was missed is unknown
+        long start = lastEventId > ringHead ? oldest : Math.max(oldest, lastEventId);
+        for (long id = start; id < ringHead; id++) {
+          offer(subscriber, ring[(int) (id % ring.length)]);
+        }
+      }
+      subscribers.add(subscriber);
+    }
+    return subscriber.emitter;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChange(EntityChangeEvent event) throws JsonProcessingException {
+    String json = writer.writeValueAsString(event);
+    // offering only queues the entry, so subscribers see events in ring order
+    synchronized (ring) {
+      FeedEntry entry = new FeedEntry(ringHead + 1, json);
+      ring[(int) (ringHead++ % ring.length)] = entry;
+      subscribers.forEach(subscriber -> offer(subscriber, entry));
+    }
+  }
+
+  @Scheduled(fixedRateString = "${app.changes.heartbeat-interval-ms:15000}")
+  public void heartbeat() {
+    subscribers.forEach(subscriber -> offer(subscriber, HEARTBEAT));
+  }
+
+  public int getSubscriberCount() {
+    return subscribers.size();
+  }
+
+  public long getDroppedSubscriberCount() {
+    return droppedSubscribers.get();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    subscribers.clear();
+    if (dispatcher instanceof ExecutorService) {
+      ((ExecutorService) dispatcher).shutdownNow();
+    }
+  }
+
+  SseEmitter createEmitter() {
+    return new SseEmitter(emitterTimeoutMs);
+  }
+
+  private void offer(Subscriber subscriber, FeedEntry entry) {
+    if (subscriber.size.incrementAndGet() > subscriberQueueSize) {
+      subscriber.size.decrementAndGet();
+      drop(subscriber);
+      return;
+    }
+    subscriber.queue.add(entry);
+    schedule(subscriber);
+  }
+
+  private void schedule(Subscriber subscriber) {
+    if (subscriber.draining.compareAndSet(false, true)) {
+      dispatcher.execute(() -> drain(subscriber));
+    }
+  }
+
+  private void drain(Subscriber subscriber) {
+    try {
+      FeedEntry entry;
+      while ((entry = subscriber.queue.poll()) != null) {
+        subscriber.size.decrementAndGet();
+        if (entry == HEARTBEAT) {
+          subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+        } else {
+          subscriber.emitter.send(SseEmitter.event()
+              .id(String.valueOf(entry.id))
+              .name("change")
+              .data(entry.json, MediaType.APPLICATION_JSON));
+        }
+      }
+    } catch (IOException | IllegalStateException e) {
+      log.info("removing change feed subscriber: {}", e.getMessage());
+      subscribers.remove(subscriber);
+      subscriber.queue.clear();
+      return;
+    } finally {
+      subscriber.draining.set(false);
+    }
+    if (!subscriber.queue.isEmpty()) {
+      schedule(subscriber);
+    }
+  }
+
+  private void drop(Subscriber subscriber) {
+    if (subscribers.remove(subscriber)) {
+      droppedSubscribers.incrementAndGet();
+      log.warn("dropping slow change feed subscriber");
+      subscriber.queue.clear();
+      subscriber.emitter.complete();
+    }
+  }
+
+  @AllArgsConstructor
+  private static class FeedEntry {
+    private final long id;
+    private final String json;
+  }
+
+  private static class Subscriber {
+    private final SseEmitter emitter;
+    private final Queue<FeedEntry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.services;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import edu.ucsb.cs156.example.models.ConnectionPoolStats;
+
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Receives Hikari's per-checkout timings (registered on the pool by
+ * DataSourceConfig) and keeps a log2-bucketed histogram of how long
+ * request threads waited for a connection.
+ */
+@Service("connectionPoolMetrics")
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+  // bucket i counts waits in [2^i, 2^(i+1)) microseconds; bucket 0 also holds sub-microsecond waits
+  private static final int BUCKETS = 40;
+
+  private volatile String poolName;
+  private volatile PoolStats poolStats;
+
+  private final AtomicLongArray waitBuckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder acquisitions = new LongAdder();
+  private final LongAdder totalWaitMicros = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+  private final AtomicLong maxWaitMicros = new AtomicLong();
+
+  @Override
+  public IMetricsTracker create(String poolName, PoolStats poolStats) {
+    this.poolName = poolName;
+    this.poolStats = poolStats;
+    return new IMetricsTracker() {
+      @Override
+      public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        recordWait(elapsedAcquiredNanos);
+      }
+
+      @Override
+      public void recordConnectionTimeout() {
+        timeouts.increment();
+      }
+    };
+  }
+
+  void recordWait(long nanos) {
+    long micros = nanos / 1000;
+    int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(1, micros)));
+    waitBuckets.incrementAndGet(bucket);
+    acquisitions.increment();
+    totalWaitMicros.add(micros);
+    maxWaitMicros.accumulateAndGet(micros, Math::max);
+  }
+
+  public ConnectionPoolStats getStats() {
+    long count = acquisitions.sum();
+    ConnectionPoolStats.ConnectionPoolStatsBuilder stats = ConnectionPoolStats.builder()
+        .poolName(poolName)
+        .acquisitions(count)
+        .timeouts(timeouts.sum())
+        .meanWaitMicros(count == 0 ? 0 : totalWaitMicros.sum() / count)
+        .p50WaitMicros(percentile(count, 0.50))
+        .p99WaitMicros(percentile(count, 0.99))
+        .maxWaitMicros(maxWaitMicros.get());
+
+    PoolStats pool = poolStats;
+    if (pool != null) {
+      stats.activeConnections(pool.getActiveConnections())
+          .idleConnections(pool.getIdleConnections())
+          .totalConnections(pool.getTotalConnections())
+          .maxConnections(pool.getMaxConnections())
+          .threadsAwaitingConnection(pool.getPendingThreads());
+    }
+    return stats.build();
+  }
+
+  // upper bound of the bucket holding the requested rank
+  private long percentile(long count, double fraction) {
+    long rank = (long) Math.ceil(count * fraction);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += waitBuckets.get(i);
+      if (seen >= rank && seen > 0) {
+        return (1L << (i + 1)) - 1;
+      }
+    }
+    return 0;
+  }
+}
@@ -5,7 +5,9 @@ import edu.ucsb.cs156.example.models.CurrentUser;
 
 import java.util.Collection;
 
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 public abstract class CurrentUserService {
   public abstract User getUser();
@@ -16,4 +18,11 @@ public abstract class CurrentUserService {
     return getUser() != null;
   }
 
+  // Name of the authenticated principal, read from the security context
+  // without the database lookup getUser() does
+  public String getPrincipalName() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return authentication == null ? null : authentication.getName();
+  }
+
 }
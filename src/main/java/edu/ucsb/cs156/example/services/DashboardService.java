@@ -0,0 +1,157 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Builds the home page Dashboard by querying the repositories at the same
+ * time, each in its own read-only transaction on a bounded pool, so the
+ * response takes as long as the slowest part rather than the sum of them.
+ *
+ * When the pool and its queue are full the request thread runs the part
+ * itself, which slows that request down instead of failing it. A part that
+ * misses its timeout is left out of the response; its query keeps running
+ * to completion on the pool.
+ */
+@Slf4j
+@Service("dashboardService")
+public class DashboardService {
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  SystemInfoService systemInfoService;
+
+  private final Executor executor;
+  private final TransactionOperations readOnly;
+  private final long partTimeoutMs;
+  private final int listSize;
+  private final Clock clock;
+
+  @Autowired
+  public DashboardService(PlatformTransactionManager transactionManager,
+      @Value("${app.dashboard.threads:8}") int threads,
+      @Value("${app.dashboard.queue-capacity:64}") int queueCapacity,
+      @Value("${app.dashboard.part-timeout-ms:2000}") long partTimeoutMs,
+      @Value("${app.dashboard.list-size:10}") int listSize) {
+    this(newExecutor(threads, queueCapacity), readOnly(transactionManager), partTimeoutMs, listSize,
+        Clock.systemDefaultZone());
+  }
+
+  DashboardService(Executor executor, TransactionOperations readOnly, long partTimeoutMs, int listSize,
+      Clock clock) {
+    this.executor = executor;
+    this.readOnly = readOnly;
+    this.partTimeoutMs = partTimeoutMs;
+    this.listSize = listSize;
+    this.clock = clock;
+  }
+
+  public Dashboard getDashboard(Supplier<CurrentUser> currentUser) {
+    PageRequest first = PageRequest.of(0, listSize);
+    List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+
+    CompletableFuture<Iterable<UCSBDiningCommons>> diningCommons = query("diningCommons", unavailable,
+        () -> ucsbDiningCommonsRepository.findAll());
+    CompletableFuture<List<UCSBDiningCommonsMenuItem>> menuItems = query("menuItems", unavailable,
+        () -> ucsbDiningCommonsMenuItemRepository.findAllByOrderByIdDesc(first));
+    CompletableFuture<List<MenuItemReview>> recentReviews = query("recentReviews", unavailable,
+        () -> menuItemReviewRepository.findAllByOrderByDateReviewedDesc(first));
+    CompletableFuture<List<UCSBDate>> upcomingDates = query("upcomingDates", unavailable,
+        () -> ucsbDateRepository.findByLocalDateTimeGreaterThanEqualOrderByLocalDateTimeAsc(
+            LocalDateTime.now(clock), first));
+
+    // these read the request's security context, so they stay on this thread
+    Dashboard dashboard = Dashboard.builder()
+        .currentUser(currentUser.get())
+        .systemInfo(systemInfoService.getSystemInfo())
+        .build();
+
+    dashboard.setDiningCommons(diningCommons.join());
+    dashboard.setMenuItems(menuItems.join());
+    dashboard.setRecentReviews(recentReviews.join());
+    dashboard.setUpcomingDates(upcomingDates.join());
+    synchronized (unavailable) {
+      dashboard.setUnavailable(new ArrayList<>(unavailable));
+    }
+    return dashboard;
+  }
+
+  private <T> CompletableFuture<T> query(String part, List<String> unavailable, Supplier<T> query) {
+    return CompletableFuture.supplyAsync(() -> readOnly.execute(status -> query.get()), executor)
+        .orTimeout(partTimeoutMs, TimeUnit.MILLISECONDS)
+        .exceptionally(e -> {
+          log.warn("dashboard part {} unavailable: {}", part, e.toString());
+          unavailable.add(part);
+          return null;
+        });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (executor instanceof ExecutorService) {
+      ((ExecutorService) executor).shutdownNow();
+    }
+  }
+
+  private static TransactionOperations readOnly(PlatformTransactionManager transactionManager) {
+    TransactionTemplate template = new TransactionTemplate(transactionManager);
+    template.setReadOnly(true);
+    return template;
+  }
+
+  private static ExecutorService newExecutor(int threads, int queueCapacity) {
+    AtomicInteger count = new AtomicInteger();
+    return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "dashboard-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+}
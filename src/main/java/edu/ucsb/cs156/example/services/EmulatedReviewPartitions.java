@@ -0,0 +1,54 @@
+package edu.ucsb.cs156.example.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Quarters over a single menuitemreview table, for H2. The index on
+ * date_reviewed makes each quarter a range scan, which is what partition
+ * pruning gives Postgres; dropping a quarter is a ranged delete.
+ */
+@Service("reviewPartitions")
+@ConditionalOnProperty(name = "app.reviews.partitioning", havingValue = "emulated", matchIfMissing = true)
+public class EmulatedReviewPartitions extends ReviewPartitions {
+
+  @Autowired
+  public EmulatedReviewPartitions(DataSource dataSource) {
+    this(new JdbcTemplate(dataSource));
+  }
+
+  EmulatedReviewPartitions(JdbcTemplate jdbcTemplate) {
+    super(jdbcTemplate);
+  }
+
+  @Override
+  public void prepare(LocalDate today) {
+    // one table holds every quarter
+  }
+
+  @Override
+  public List<Quarter> quartersBefore(LocalDate cutoff) {
+    // the quarter the cutoff falls in has not ended yet
+    LocalDate before = Quarter.of(cutoff).getStart();
+    return jdbcTemplate.queryForList("SELECT DISTINCT YEAR(date_reviewed) * 10 + QUARTER(date_reviewed) FROM "
+        + TABLE + " WHERE date_reviewed < ?", Integer.class, before.atStartOfDay())
+        .stream()
+        .map(yearQuarter -> new Quarter(yearQuarter / 10, yearQuarter % 10))
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public void drop(Quarter quarter) {
+    jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE date_reviewed >= ? AND date_reviewed < ?",
+        quarter.getStart().atStartOfDay(), quarter.getEnd().atStartOfDay());
+  }
+}
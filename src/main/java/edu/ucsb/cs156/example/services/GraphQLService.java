@@ -0,0 +1,244 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderFactory;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Executes queries against graphql/schema.graphqls.
+ *
+ * Every lookup by key, including the nested ones (a review's menu item, an
+ * item's dining commons, ...), goes through a DataLoader created for the
+ * request. Keys requested at the same depth of the query are de-duplicated
+ * and loaded with one IN-list query per entity type, so the number of SQL
+ * statements depends on the shape of the query, not on the number of rows.
+ * Depth and field-count limits reject queries before they run. Every list,
+ * nested ones included, returns at most app.graphql.max-list-size entries,
+ * fewer when the query passes first.
+ */
+@Service("graphQLService")
+public class GraphQLService {
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired
+  UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  UserRepository userRepository;
+
+  private final GraphQL graphQL;
+  private final DataLoaderOptions loaderOptions;
+  private final int maxListSize;
+
+  @Autowired
+  public GraphQLService(@Value("${app.graphql.max-depth:6}") int maxDepth,
+      @Value("${app.graphql.max-complexity:200}") int maxComplexity,
+      @Value("${app.graphql.batch-size:200}") int batchSize,
+      @Value("${app.graphql.max-list-size:100}") int maxListSize) throws IOException {
+    this.maxListSize = maxListSize;
+    String schema;
+    try (InputStream in = new ClassPathResource("graphql/schema.graphqls").getInputStream()) {
+      schema = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+    }
+    this.graphQL = GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(
+            new SchemaParser().parse(schema), wiring()))
+        .instrumentation(new ChainedInstrumentation(List.of(
+            new MaxQueryDepthInstrumentation(maxDepth),
+            new MaxQueryComplexityInstrumentation(maxComplexity),
+            new DataLoaderDispatcherInstrumentation())))
+        .build();
+    this.loaderOptions = DataLoaderOptions.newOptions().setMaxBatchSize(batchSize);
+  }
+
+  /** @return the result in the GraphQL response format (data and errors) */
+  public Map<String, Object> execute(String query, String operationName, Map<String, Object> variables) {
+    ExecutionInput input = ExecutionInput.newExecutionInput()
+        .query(query)
+        .operationName(operationName)
+        .variables(variables != null ? variables : Map.of())
+        .dataLoaderRegistry(dataLoaders())
+        .build();
+    return graphQL.execute(input).toSpecification();
+  }
+
+  private RuntimeWiring wiring() {
+    return RuntimeWiring.newRuntimeWiring()
+        .type("Query", type -> type
+            .dataFetcher("reviews",
+                all("review", "ids", Long::valueOf, page -> menuItemReviewRepository.findAllByOrderByIdAsc(page)))
+            .dataFetcher("menuItems", all("menuItem", "ids", Long::valueOf,
+                page -> ucsbDiningCommonsMenuItemRepository.findAllByOrderByIdAsc(page)))
+            .dataFetcher("diningCommons", all("diningCommons", "codes", Function.identity(),
+                page -> ucsbDiningCommonsRepository.findAllByOrderByCodeAsc(page)))
+            .dataFetcher("recommendationRequests", all("recommendationRequest", "ids", Long::valueOf,
+                page -> recommendationRequestRepository.findAllByOrderByIdAsc(page)))
+            .dataFetcher("organizations", all("organization", "orgCodes", Function.identity(),
+                page -> ucsbOrganizationRepository.findAllByOrderByOrgCodeAsc(page)))
+            .dataFetcher("dates",
+                all("date", "ids", Long::valueOf, page -> ucsbDateRepository.findAllByOrderByIdAsc(page))))
+        .type("MenuItemReview", type -> type
+            .dataFetcher("menuItem", env -> load(env, "menuItem", env.<MenuItemReview>getSource().getItemId()))
+            .dataFetcher("reviewer", env -> load(env, "user", env.<MenuItemReview>getSource().getReviewerEmail())))
+        .type("UCSBDiningCommonsMenuItem", type -> type
+            .dataFetcher("diningCommons",
+                env -> load(env, "diningCommons", env.<UCSBDiningCommonsMenuItem>getSource().getDiningCommonsCode()))
+            .dataFetcher("reviews",
+                env -> loadFirst(env, "reviewsByItem", env.<UCSBDiningCommonsMenuItem>getSource().getId())))
+        .type("UCSBDiningCommons", type -> type
+            .dataFetcher("menuItems",
+                env -> loadFirst(env, "menuItemsByCommons", env.<UCSBDiningCommons>getSource().getCode())))
+        .build();
+  }
+
+  // the first rows in key order, or the rows for the given keys through the loader
+  private <K> DataFetcher<Object> all(String loader, String argument, Function<String, K> parseKey,
+      Function<Pageable, List<?>> findPage) {
+    return env -> {
+      int first = first(env);
+      List<String> keys = env.getArgument(argument);
+      if (keys == null) {
+        return first == 0 ? List.of() : findPage.apply(PageRequest.of(0, first));
+      }
+      if (keys.size() > first) {
+        throw new IllegalArgumentException("at most " + first + " " + argument + " may be requested");
+      }
+      DataLoader<K, Object> dataLoader = env.getDataLoader(loader);
+      return dataLoader.loadMany(keys.stream().map(parseKey).collect(Collectors.toList()));
+    };
+  }
+
+  // a one-to-many relation, whose loader fetches at most maxListSize rows per key
+  private <K> CompletableFuture<Object> loadFirst(DataFetchingEnvironment env, String loader, K key) {
+    int first = first(env);
+    return load(env, loader, key).thenApply(values -> {
+      List<?> list = (List<?>) values;
+      return list.size() > first ? list.subList(0, first) : list;
+    });
+  }
+
+  private int first(DataFetchingEnvironment env) {
+    Integer first = env.getArgument("first");
+    if (first == null) {
+      return maxListSize;
+    }
+    if (first < 0) {
+      throw new IllegalArgumentException("first must not be negative");
+    }
+    return Math.min(first, maxListSize);
+  }
+
+  private static <K> CompletableFuture<Object> load(DataFetchingEnvironment env, String loader, K key) {
+    if (key == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    DataLoader<K, Object> dataLoader = env.getDataLoader(loader);
+    return dataLoader.load(key);
+  }
+
+  DataLoaderRegistry dataLoaders() {
+    return new DataLoaderRegistry()
+        .register("review", loader((List<Long> ids) ->
+            inKeyOrder(ids, menuItemReviewRepository.findAllById(ids), MenuItemReview::getId)))
+        .register("menuItem", loader((List<Long> ids) ->
+            inKeyOrder(ids, ucsbDiningCommonsMenuItemRepository.findAllById(ids), UCSBDiningCommonsMenuItem::getId)))
+        .register("diningCommons", loader((List<String> codes) ->
+            inKeyOrder(codes, ucsbDiningCommonsRepository.findAllById(codes), UCSBDiningCommons::getCode)))
+        .register("recommendationRequest", loader((List<Long> ids) ->
+            inKeyOrder(ids, recommendationRequestRepository.findAllById(ids), RecommendationRequest::getId)))
+        .register("organization", loader((List<String> codes) ->
+            inKeyOrder(codes, ucsbOrganizationRepository.findAllById(codes), UCSBOrganization::getOrgCode)))
+        .register("date", loader((List<Long> ids) ->
+            inKeyOrder(ids, ucsbDateRepository.findAllById(ids), UCSBDate::getId)))
+        .register("user", loader((List<String> emails) ->
+            inKeyOrder(emails, userRepository.findAllByEmailIn(emails), User::getEmail)))
+        .register("reviewsByItem", loader((List<Long> itemIds) ->
+            groupedInKeyOrder(itemIds, menuItemReviewRepository.findFirstPerItem(itemIds, maxListSize),
+                MenuItemReview::getItemId)))
+        .register("menuItemsByCommons", loader((List<String> codes) ->
+            groupedInKeyOrder(codes, ucsbDiningCommonsMenuItemRepository.findFirstPerCommons(codes, maxListSize),
+                UCSBDiningCommonsMenuItem::getDiningCommonsCode)));
+  }
+
+  // loads run on the request thread, inside its security context
+  private <K, V> DataLoader<K, V> loader(Function<List<K>, List<V>> load) {
+    return DataLoaderFactory.newDataLoader(keys -> CompletableFuture.completedFuture(load.apply(keys)),
+        loaderOptions);
+  }
+
+  // a DataLoader expects one value per key, in key order, null when missing
+  static <K, V> List<V> inKeyOrder(List<K> keys, Iterable<V> values, Function<V, K> keyOf) {
+    Map<K, V> byKey = new HashMap<>();
+    values.forEach(value -> byKey.put(keyOf.apply(value), value));
+    List<V> ordered = new ArrayList<>(keys.size());
+    keys.forEach(key -> ordered.add(byKey.get(key)));
+    return ordered;
+  }
+
+  static <K, V> List<List<V>> groupedInKeyOrder(List<K> keys, Iterable<V> values, Function<V, K> keyOf) {
+    Map<K, List<V>> byKey = new HashMap<>();
+    values.forEach(value -> byKey.computeIfAbsent(keyOf.apply(value), key -> new ArrayList<>()).add(value));
+    List<List<V>> ordered = new ArrayList<>(keys.size());
+    keys.forEach(key -> ordered.add(byKey.getOrDefault(key, List.of())));
+    return ordered;
+  }
+}
@@ -0,0 +1,217 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.IdempotencyKey;
+import edu.ucsb.cs156.example.repositories.IdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Type;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs a POST at most once per Idempotency-Key.
+ *
+ * The key is claimed with an insert in its own transaction, so a concurrent
+ * duplicate on any node sees the claim and gets 409. The handler then runs in
+ * a transaction that also stores its JSON response under the key, so the
+ * insert and the response commit together. Completed keys are kept in a
+ * bounded LRU, so retries of a recent request are answered from memory;
+ * other nodes, and this one after eviction, read the table. If the handler
+ * fails, the claim is released and a retry runs it again.
+ */
+@Slf4j
+@Service("idempotencyService")
+public class IdempotencyService {
+
+  public static final String HEADER = "Idempotency-Key";
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  @FunctionalInterface
+  public interface Call {
+    Object run() throws Throwable;
+  }
+
+  private final IdempotencyKeyRepository repository;
+  private final TransactionOperations transactions;
+  private final TransactionOperations newTransactions;
+  private final ObjectMapper mapper;
+  private final Duration retention;
+  private final Duration inProgressTimeout;
+  private final Clock clock;
+  private final Map<String, IdempotencyKey> completed;
+
+  @Autowired
+  public IdempotencyService(IdempotencyKeyRepository repository, PlatformTransactionManager transactionManager,
+      ObjectMapper mapper,
+      @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+      @Value("${app.idempotency.retention:24h}") Duration retention,
+      @Value("${app.idempotency.in-progress-timeout:30s}") Duration inProgressTimeout) {
+    this(repository, new TransactionTemplate(transactionManager), requiresNew(transactionManager), mapper,
+        cacheSize, retention, inProgressTimeout, Clock.systemUTC());
+  }
+
+  IdempotencyService(IdempotencyKeyRepository repository, TransactionOperations transactions,
+      TransactionOperations newTransactions, ObjectMapper mapper, int cacheSize, Duration retention,
+      Duration inProgressTimeout, Clock clock) {
+    this.repository = repository;
+    this.transactions = transactions;
+    this.newTransactions = newTransactions;
+    this.mapper = mapper;
+    this.retention = retention;
+    this.inProgressTimeout = inProgressTimeout;
+    this.clock = clock;
+    this.completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, IdempotencyKey> eldest) {
+        return size() > cacheSize;
+      }
+    });
+  }
+
+  private static TransactionTemplate requiresNew(PlatformTransactionManager transactionManager) {
+    TransactionTemplate template = new TransactionTemplate(transactionManager);
+    template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    return template;
+  }
+
+  /**
+   * @param id          the scoped key, see IdempotencyAspect
+   * @param fingerprint of the request parameters
+   * @param type        the handler's return type, to read a stored response back as
+   * @param onReplay    run when a stored response is returned instead of calling
+   */
+  public Object execute(String id, String fingerprint, Type type, Call call, Runnable onReplay) throws Throwable {
+    Instant now = clock.instant();
+    IdempotencyKey key = completed.get(id);
+    if (key != null && expired(key, now)) {
+      completed.remove(id);
+      key = null;
+    }
+    if (key == null) {
+      if (claim(id, fingerprint, now)) {
+        return run(id, fingerprint, call);
+      }
+      key = repository.findById(id).orElse(null);
+      if (key == null) {
+        // released by a request that failed just now
+        throw inProgress();
+      }
+    }
+    if (!key.getFingerprint().equals(fingerprint)) {
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+          "Idempotency-Key was already used for a different request");
+    }
+    if (key.getResponse() != null) {
+      completed.put(id, key);
+      onReplay.run();
+      return mapper.readValue(key.getResponse(), mapper.constructType(type));
+    }
+    if (key.getClaimedAt().isBefore(now.minus(inProgressTimeout)) && reclaim(id, now)) {
+      log.warn("took over idempotency key {} claimed at {}", id, key.getClaimedAt());
+      return run(id, fingerprint, call);
+    }
+    throw inProgress();
+  }
+
+  private static ResponseStatusException inProgress() {
+    return new ResponseStatusException(HttpStatus.CONFLICT, "a request with this Idempotency-Key is in progress");
+  }
+
+  private boolean expired(IdempotencyKey key, Instant now) {
+    return key.getClaimedAt().isBefore(now.minus(retention));
+  }
+
+  private boolean claim(String id, String fingerprint, Instant now) {
+    try {
+      newTransactions.executeWithoutResult(status -> repository.claim(id, fingerprint, now));
+      return true;
+    } catch (DataIntegrityViolationException e) {
+      return false;
+    }
+  }
+
+  private boolean reclaim(String id, Instant now) {
+    Integer updated = newTransactions.execute(status -> repository.reclaim(id, now, now.minus(inProgressTimeout)));
+    return updated != null && updated == 1;
+  }
+
+  private Object run(String id, String fingerprint, Call call) throws Throwable {
+    IdempotencyKey key;
+    Object result;
+    try {
+      Object[] holder = new Object[1];
+      key = transactions.execute(status -> {
+        try {
+          holder[0] = call.run();
+        } catch (RuntimeException | Error e) {
+          throw e;
+        } catch (Throwable t) {
+          throw new CallFailed(t);
+        }
+        Instant now = clock.instant();
+        String response = write(holder[0]);
+        repository.complete(id, response, now);
+        return IdempotencyKey.builder().id(id).fingerprint(fingerprint).response(response)
+            .claimedAt(now).completedAt(now).build();
+      });
+      result = holder[0];
+    } catch (RuntimeException | Error e) {
+      release(id);
+      throw e instanceof CallFailed failed ? failed.getCause() : e;
+    }
+    completed.put(id, key);
+    return result;
+  }
+
+  private String write(Object result) {
+    try {
+      return mapper.writeValueAsString(result);
+    } catch (JsonProcessingException e) {
+      throw new CallFailed(e);
+    }
+  }
+
+  private void release(String id) {
+    try {
+      newTransactions.executeWithoutResult(status -> repository.release(id));
+    } catch (RuntimeException e) {
+      // the claim expires after app.idempotency.in-progress-timeout anyway
+      log.warn("could not release idempotency key {}", id, e);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:3600000}")
+  public void deleteExpired() {
+    Instant before = clock.instant().minus(retention);
+    Integer deleted = newTransactions.execute(status -> repository.deleteClaimedBefore(before));
+    if (deleted != null && deleted > 0) {
+      log.info("deleted {} idempotency keys claimed before {}", deleted, before);
+    }
+  }
+
+  // carries a checked exception out of the transaction callback
+  private static class CallFailed extends RuntimeException {
+    CallFailed(Throwable cause) {
+      super(cause);
+    }
+  }
+}
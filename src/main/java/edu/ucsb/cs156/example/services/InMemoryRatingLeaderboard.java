@@ -0,0 +1,171 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.CommonsRating;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * The leaderboard kept in memory, for H2. Each review's item and stars, and
+ * each item's commons, are remembered so that a change event can take the old
+ * values out of the totals before putting the new ones in: a review update
+ * touches one item and one commons, an item moving between commons moves its
+ * totals from one to the other. Events name only the changed row, so each one
+ * reads it back; set-based changes and missed invalidations rebuild
+ * everything on the next read.
+ */
+@Slf4j
+@Service("ratingLeaderboard")
+@ConditionalOnProperty(name = "app.leaderboard.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRatingLeaderboard extends RatingLeaderboard {
+
+  private static class Totals {
+    long count;
+    long stars;
+
+    void add(long count, long stars) {
+      this.count += count;
+      this.stars += stars;
+    }
+  }
+
+  // what a review adds to its item's totals
+  private static class Rating {
+    final long itemId;
+    final int stars;
+
+    Rating(MenuItemReview review) {
+      this.itemId = review.getItemId();
+      this.stars = review.getStars();
+    }
+  }
+
+  private final MenuItemReviewRepository menuItemReviewRepository;
+  private final UCSBDiningCommonsMenuItemRepository menuItemRepository;
+  private final UCSBDiningCommonsRepository diningCommonsRepository;
+
+  // all guarded by this; empty until first built
+  private boolean built;
+  private final Map<Long, Rating> reviews = new HashMap<>();
+  private final Map<Long, String> itemCommons = new HashMap<>();
+  private final Map<Long, Totals> itemTotals = new HashMap<>();
+  private final Map<String, Totals> commonsTotals = new HashMap<>();
+  private final Map<String, String> commonsNames = new HashMap<>();
+
+  @Autowired
+  public InMemoryRatingLeaderboard(MenuItemReviewRepository menuItemReviewRepository,
+      UCSBDiningCommonsMenuItemRepository menuItemRepository, UCSBDiningCommonsRepository diningCommonsRepository) {
+    this.menuItemReviewRepository = menuItemReviewRepository;
+    this.menuItemRepository = menuItemRepository;
+    this.diningCommonsRepository = diningCommonsRepository;
+  }
+
+  @Override
+  public synchronized List<CommonsRating> top(int limit) {
+    if (!built) {
+      rebuild();
+    }
+    return commonsTotals.entrySet().stream()
+        .filter(entry -> entry.getValue().count > 0 && commonsNames.containsKey(entry.getKey()))
+        .map(entry -> CommonsRating.builder()
+            .diningCommonsCode(entry.getKey())
+            .diningCommonsName(commonsNames.get(entry.getKey()))
+            .reviewCount(entry.getValue().count)
+            .averageStars((double) entry.getValue().stars / entry.getValue().count)
+            .build())
+        .sorted(RANKING)
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onEntityChange(EntityChangeEvent event) {
+    if (!built || !affects(event)) {
+      return;
+    }
+    if (EntityChangeEvent.ALL_TYPES.equals(event.getEntityType())
+        || EntityChangeEvent.ALL_IDS.equals(event.getId())) {
+      built = false;
+      return;
+    }
+    if (MenuItemReview.class.getSimpleName().equals(event.getEntityType())) {
+      long id = Long.parseLong(event.getId());
+      setReview(id, menuItemReviewRepository.findById(id).orElse(null));
+    } else if (UCSBDiningCommonsMenuItem.class.getSimpleName().equals(event.getEntityType())) {
+      long id = Long.parseLong(event.getId());
+      setItemCommons(id, menuItemRepository.findById(id).map(UCSBDiningCommonsMenuItem::getDiningCommonsCode)
+          .orElse(null));
+    } else {
+      diningCommonsRepository.findById(event.getId()).ifPresentOrElse(
+          commons -> commonsNames.put(commons.getCode(), commons.getName()),
+          () -> commonsNames.remove(event.getId()));
+    }
+  }
+
+  private void rebuild() {
+    reviews.clear();
+    itemCommons.clear();
+    itemTotals.clear();
+    commonsTotals.clear();
+    commonsNames.clear();
+    diningCommonsRepository.findAll().forEach(commons -> commonsNames.put(commons.getCode(), commons.getName()));
+    menuItemRepository.findAll().forEach(item -> setItemCommons(item.getId(), item.getDiningCommonsCode()));
+    menuItemReviewRepository.findAll().forEach(review -> setReview(review.getId(), review));
+    built = true;
+    log.info("built rating leaderboard over {} reviews", reviews.size());
+  }
+
+  // review null when deleted
+  private void setReview(long id, MenuItemReview review) {
+    Rating rating = review != null ? new Rating(review) : null;
+    Rating old = rating != null ? reviews.put(id, rating) : reviews.remove(id);
+    if (old != null) {
+      addToItem(old.itemId, -1, -old.stars);
+    }
+    if (rating != null) {
+      addToItem(rating.itemId, 1, rating.stars);
+    }
+  }
+
+  private void addToItem(long itemId, long count, long stars) {
+    itemTotals.computeIfAbsent(itemId, id -> new Totals()).add(count, stars);
+    String code = itemCommons.get(itemId);
+    if (code != null) {
+      commonsTotals.computeIfAbsent(code, c -> new Totals()).add(count, stars);
+    }
+  }
+
+  // code null when the item was deleted
+  private void setItemCommons(long itemId, String code) {
+    String old = code != null ? itemCommons.put(itemId, code) : itemCommons.remove(itemId);
+    if (Objects.equals(old, code)) {
+      return;
+    }
+    Totals totals = itemTotals.get(itemId);
+    if (totals == null) {
+      return;
+    }
+    if (old != null) {
+      commonsTotals.get(old).add(-totals.count, -totals.stars);
+    }
+    if (code != null) {
+      commonsTotals.computeIfAbsent(code, c -> new Totals()).add(totals.count, totals.stars);
+    }
+  }
+}
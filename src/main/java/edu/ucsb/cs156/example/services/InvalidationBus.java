@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+
+/**
+ * Carries entity change events between application instances so each node
+ * can evict what it has cached locally. Locally published EntityChangeEvents
+ * are sent to the other nodes; events from other nodes are republished here
+ * with remote set, so every @EventListener (cache eviction, change feed) sees
+ * writes made anywhere in the cluster.
+ *
+ * Which transport is used is chosen with app.invalidation.transport.
+ */
+public interface InvalidationBus {
+
+  void publish(EntityChangeEvent event);
+
+  String getNodeId();
+}
@@ -0,0 +1,196 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds the fully rendered JSON (plain and gzipped) for list endpoints whose
+ * data rarely changes, so a hit is served as a single byte[] copy to the
+ * servlet output stream. Entries are keyed by entity type and evicted on every
+ * EntityChangeEvent for that type, whether the write happened on this node or
+ * arrived from a peer over the InvalidationBus.
+ *
+ * A client that prefers another format (e.g. Smile or CBOR) bypasses the
+ * cache and gets the loaded entities, for the message converters to write in
+ * the format it asked for.
+ */
+@Slf4j
+@Service("jsonResponseCache")
+public class JsonResponseCache {
+
+  private final ObjectMapper mapper;
+  private final boolean enabled;
+
+  private final ConcurrentHashMap<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+  // Bumped on every invalidation; a load that started before an invalidation is not stored
+  private final AtomicLong generation = new AtomicLong();
+
+  @Autowired
+  public JsonResponseCache(ObjectMapper mapper,
+      @Value("${app.cache.json-responses.enabled:true}") boolean enabled) {
+    this.mapper = mapper;
+    this.enabled = enabled;
+  }
+
+  public ResponseEntity<?> serve(Class<?> entityType, WebRequest request, Supplier<?> loader) throws IOException {
+    if (!acceptsJson(request.getHeader(HttpHeaders.ACCEPT))) {
+      return ResponseEntity.ok().header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(loader.get());
+    }
+    CachedResponse cached = lookup(entityType.getSimpleName(), loader);
+
+    // Spring answers If-None-Match with 304 for a 200 ResponseEntity carrying an ETag;
+    // the two encodings are different representations, so each has its own
+    boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .eTag(gzip ? cached.getGzipEtag() : cached.getEtag())
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+
+    if (gzip) {
+      return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.getGzip());
+    }
+    return builder.body(cached.getJson());
+  }
+
+  /** Renders and stores the entry ahead of the first request, e.g. while warming up. */
+  public void preload(Class<?> entityType, Supplier<?> loader) throws IOException {
+    lookup(entityType.getSimpleName(), loader);
+  }
+
+  public void invalidate(Class<?> entityType) {
+    invalidate(entityType.getSimpleName());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChange(EntityChangeEvent event) {
+    invalidate(event.getEntityType());
+  }
+
+  private void invalidate(String entityType) {
+    generation.incrementAndGet();
+    if (EntityChangeEvent.ALL_TYPES.equals(entityType)) {
+      entries.clear();
+      log.info("invalidated all cached json");
+    } else if (entries.remove(entityType) != null) {
+      log.info("invalidated cached json for {}", entityType);
+    }
+  }
+
+  private CachedResponse lookup(String key, Supplier<?> loader) throws IOException {
+    if (enabled) {
+      CachedResponse cached = entries.get(key);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    long startGeneration = generation.get();
+    CachedResponse rendered = render(loader.get());
+    if (enabled && generation.get() == startGeneration) {
+      CachedResponse existing = entries.putIfAbsent(key, rendered);
+      if (existing != null) {
+        return existing;
+      }
+    }
+    return rendered;
+  }
+
+  private CachedResponse render(Object value) throws IOException {
+    byte[] json = mapper.writeValueAsBytes(value);
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+      gzip.write(json);
+    }
+
+    String digest = DigestUtils.md5DigestAsHex(json);
+    return new CachedResponse(json, buffer.toByteArray(), "\"" + digest + "\"", "\"" + digest + "-gzip\"");
+  }
+
+  // JSON when nothing is asked for, when Accept does not parse, or when the
+  // client's first preference is JSON or a wildcard covering it
+  static boolean acceptsJson(String accept) {
+    if (accept == null || accept.isBlank()) {
+      return true;
+    }
+    List<MediaType> mediaTypes;
+    try {
+      mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+    } catch (InvalidMediaTypeException e) {
+      return true;
+    }
+    if (mediaTypes.stream().anyMatch(mediaType -> mediaType.getQualityValue() == 0
+        && mediaType.isCompatibleWith(MediaType.APPLICATION_JSON) && !mediaType.isWildcardSubtype())) {
+      return false;
+    }
+    mediaTypes.removeIf(mediaType -> mediaType.getQualityValue() == 0);
+    MediaType.sortBySpecificityAndQuality(mediaTypes);
+    return !mediaTypes.isEmpty() && mediaTypes.get(0).includes(MediaType.APPLICATION_JSON);
+  }
+
+  // gzip unless refused with q=0; a wildcard stands for gzip when gzip is not listed
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Double gzip = null;
+    Double any = null;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parameters = coding.split(";");
+      String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+      double quality = 1;
+      for (int i = 1; i < parameters.length; i++) {
+        String parameter = parameters[i].trim().toLowerCase(Locale.ROOT);
+        if (parameter.startsWith("q=")) {
+          try {
+            quality = Double.parseDouble(parameter.substring(2).trim());
+          } catch (NumberFormatException e) {
+            quality = 0;
+          }
+        }
+      }
+      if (name.equals("gzip") || name.equals("x-gzip")) {
+        gzip = quality;
+      } else if (name.equals("*")) {
+        any = quality;
+      }
+    }
+    return gzip != null ? gzip > 0 : any != null && any > 0;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  private static class CachedResponse {
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+  }
+}
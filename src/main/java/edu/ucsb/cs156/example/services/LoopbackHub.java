@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * The peers of a LoopbackInvalidationBus. Each bus has its own hub unless
+ * the context defines a LoopbackHub bean; tests that want several nodes
+ * register one shared instance in each of their contexts.
+ */
+public class LoopbackHub {
+
+  private final Set<LoopbackInvalidationBus> nodes = new CopyOnWriteArraySet<>();
+
+  void join(LoopbackInvalidationBus node) {
+    nodes.add(node);
+  }
+
+  void leave(LoopbackInvalidationBus node) {
+    nodes.remove(node);
+  }
+
+  void deliver(String message) {
+    for (LoopbackInvalidationBus node : nodes) {
+      node.receive(message);
+    }
+  }
+}
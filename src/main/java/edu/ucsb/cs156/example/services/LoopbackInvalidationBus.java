@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * In-JVM transport: the peers are the buses that share a LoopbackHub. Unless
+ * the context provides one, the hub is private, so separate application
+ * contexts in one JVM (such as cached test contexts) never hear each other
+ * and publishing is a no-op, as in local development.
+ */
+@Service("invalidationBus")
+@ConditionalOnProperty(name = "app.invalidation.transport", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackInvalidationBus extends AbstractInvalidationBus {
+
+  private final LoopbackHub hub;
+
+  @Autowired
+  public LoopbackInvalidationBus(ApplicationEventPublisher applicationEventPublisher,
+      ObjectProvider<LoopbackHub> hub) {
+    this(applicationEventPublisher, hub.getIfAvailable(LoopbackHub::new));
+  }
+
+  LoopbackInvalidationBus(ApplicationEventPublisher applicationEventPublisher, LoopbackHub hub) {
+    super(applicationEventPublisher);
+    this.hub = hub;
+    hub.join(this);
+  }
+
+  @Override
+  public void publish(EntityChangeEvent event) {
+    hub.deliver(encode(event));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    hub.leave(this);
+  }
+}
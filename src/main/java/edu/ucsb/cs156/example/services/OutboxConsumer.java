@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Receives outbox events from the OutboxRelay in id order, at least once:
+ * a batch is redelivered if accept throws, so consumers must be idempotent.
+ * Register one by declaring it as a bean.
+ */
+public interface OutboxConsumer {
+
+  /** Names the consumer's cursor; must be stable across restarts. */
+  String getName();
+
+  void accept(List<OutboxEvent> batch);
+}
@@ -0,0 +1,208 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.OutboxCursor;
+import edu.ucsb.cs156.example.entities.OutboxEvent;
+import edu.ucsb.cs156.example.entities.OutboxGap;
+import edu.ucsb.cs156.example.repositories.OutboxCursorRepository;
+import edu.ucsb.cs156.example.repositories.OutboxEventRepository;
+import edu.ucsb.cs156.example.repositories.OutboxGapRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers outbox events to every OutboxConsumer bean in batches, keeping a
+ * per-consumer high-water mark in the outboxcursors table, and prunes events
+ * older than the retention period.
+ *
+ * Ids are assigned at insert but become visible at commit, so a later id can
+ * commit before an earlier one. The relay moves a cursor past missing ids
+ * straight away, but records each one in outboxgaps and looks it up again on
+ * every run; an event that commits late is delivered then, out of id order.
+ * A gap is given up only after the gap window, by when its transaction has
+ * rolled back or been open far longer than any request transaction. Each
+ * batch is delivered while holding a row lock on the consumer's cursor, so
+ * two nodes never deliver the same events to a consumer. A consumer whose
+ * cursor falls behind the retention period misses the pruned events and
+ * should re-read its source tables.
+ */
+@Slf4j
+@Service("outboxRelay")
+public class OutboxRelay {
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final OutboxCursorRepository outboxCursorRepository;
+  private final OutboxGapRepository outboxGapRepository;
+  private final List<OutboxConsumer> consumers;
+  private final TransactionOperations transactions;
+  private final int batchSize;
+  private final Duration gapWindow;
+  private final Duration retention;
+  private final Clock clock;
+
+  @Autowired
+  public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxCursorRepository outboxCursorRepository,
+      OutboxGapRepository outboxGapRepository, ObjectProvider<OutboxConsumer> consumers,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.outbox.batch-size:500}") int batchSize,
+      @Value("${app.outbox.gap-window:10m}") Duration gapWindow,
+      @Value("${app.outbox.retention:7d}") Duration retention) {
+    this(outboxEventRepository, outboxCursorRepository, outboxGapRepository,
+        consumers.orderedStream().collect(Collectors.toList()), new TransactionTemplate(transactionManager),
+        batchSize, gapWindow, retention, Clock.systemUTC());
+  }
+
+  OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxCursorRepository outboxCursorRepository,
+      OutboxGapRepository outboxGapRepository, List<OutboxConsumer> consumers, TransactionOperations transactions,
+      int batchSize, Duration gapWindow, Duration retention, Clock clock) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.outboxCursorRepository = outboxCursorRepository;
+    this.outboxGapRepository = outboxGapRepository;
+    this.consumers = consumers;
+    this.transactions = transactions;
+    this.batchSize = batchSize;
+    this.gapWindow = gapWindow;
+    this.retention = retention;
+    this.clock = clock;
+  }
+
+  /**
+   * Events after the given id, up to the first id that may still be
+   * uncommitted. Readers that keep only a high-water mark cannot come back for
+   * an id they passed, so a gap holds them for up to the gap window.
+   */
+  public List<OutboxEvent> eventsAfter(long id, int limit) {
+    List<OutboxEvent> events = outboxEventRepository.findByIdGreaterThanOrderByIdAsc(id,
+        PageRequest.of(0, Math.max(1, Math.min(limit, batchSize))));
+    Instant gapSettled = Instant.now(clock).minus(gapWindow);
+    long expected = id + 1;
+    for (int i = 0; i < events.size(); i++) {
+      OutboxEvent event = events.get(i);
+      // ids below this one were assigned before it was written
+      if (event.getId() != expected && event.getCreatedAt().isAfter(gapSettled)) {
+        return events.subList(0, i);
+      }
+      expected = event.getId() + 1;
+    }
+    return events;
+  }
+
+  @Scheduled(fixedDelayString = "${app.outbox.relay-interval-ms:1000}")
+  public void relay() {
+    for (OutboxConsumer consumer : consumers) {
+      try {
+        relay(consumer);
+      } catch (RuntimeException e) {
+        // the cursor was not advanced, so the failed batch is retried next time
+        log.error("outbox consumer {} failed", consumer.getName(), e);
+      }
+    }
+  }
+
+  private void relay(OutboxConsumer consumer) {
+    if (!outboxCursorRepository.existsById(consumer.getName())) {
+      try {
+        outboxCursorRepository.save(OutboxCursor.builder().consumer(consumer.getName())
+            .updatedAt(Instant.now(clock)).build());
+      } catch (DataIntegrityViolationException e) {
+        log.debug("outbox cursor {} was created by another node", consumer.getName());
+      }
+    }
+    while (Boolean.TRUE.equals(transactions.execute(status -> relayBatch(consumer)))) {
+      // a full batch was delivered, so more may be waiting
+    }
+  }
+
+  private boolean relayBatch(OutboxConsumer consumer) {
+    Optional<OutboxCursor> locked = outboxCursorRepository.findLockedByConsumer(consumer.getName());
+    if (locked.isEmpty()) {
+      log.debug("outbox consumer {} is being relayed by another node", consumer.getName());
+      return false;
+    }
+    OutboxCursor cursor = locked.get();
+    Instant now = Instant.now(clock);
+    List<OutboxEvent> late = lateEvents(consumer.getName(), now);
+    List<OutboxEvent> next = outboxEventRepository.findByIdGreaterThanOrderByIdAsc(cursor.getPosition(),
+        PageRequest.of(0, batchSize));
+    if (late.isEmpty() && next.isEmpty()) {
+      return false;
+    }
+    List<OutboxEvent> batch = new ArrayList<>(late);
+    batch.addAll(next);
+    consumer.accept(batch);
+    if (!next.isEmpty()) {
+      recordGaps(consumer.getName(), cursor.getPosition(), next, now);
+      cursor.setPosition(next.get(next.size() - 1).getId());
+    }
+    cursor.setUpdatedAt(now);
+    outboxCursorRepository.save(cursor);
+    return next.size() == batchSize;
+  }
+
+  // events that committed after the cursor passed them; their gaps, and those past the window, are closed
+  private List<OutboxEvent> lateEvents(String consumer, Instant now) {
+    List<OutboxGap> gaps = outboxGapRepository.findByConsumer(consumer);
+    if (gaps.isEmpty()) {
+      return List.of();
+    }
+    List<OutboxEvent> late = outboxEventRepository.findByIdInOrderByIdAsc(
+        gaps.stream().map(OutboxGap::getEventId).collect(Collectors.toList()));
+    Set<Long> found = late.stream().map(OutboxEvent::getId).collect(Collectors.toSet());
+    Instant expired = now.minus(gapWindow);
+    List<OutboxGap> closed = new ArrayList<>();
+    for (OutboxGap gap : gaps) {
+      if (found.contains(gap.getEventId())) {
+        closed.add(gap);
+      } else if (!gap.getSkippedAt().isAfter(expired)) {
+        log.debug("outbox event {} did not commit within {}; no longer waiting for it", gap.getEventId(), gapWindow);
+        closed.add(gap);
+      }
+    }
+    outboxGapRepository.deleteAll(closed);
+    return late;
+  }
+
+  private void recordGaps(String consumer, long position, List<OutboxEvent> events, Instant now) {
+    List<OutboxGap> gaps = new ArrayList<>();
+    long expected = position + 1;
+    for (OutboxEvent event : events) {
+      // open transactions hold at most a pool's worth of ids; a jump wider than a
+      // batch is the sequence moving on (or pruned history), not ids still to commit
+      if (event.getId() - expected <= batchSize) {
+        for (long id = expected; id < event.getId(); id++) {
+          gaps.add(OutboxGap.builder().consumer(consumer).eventId(id).skippedAt(now).build());
+        }
+      }
+      expected = event.getId() + 1;
+    }
+    if (!gaps.isEmpty()) {
+      outboxGapRepository.saveAll(gaps);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.outbox.prune-interval-ms:3600000}")
+  public void prune() {
+    int pruned = outboxEventRepository.deleteCreatedBefore(Instant.now(clock).minus(retention));
+    if (pruned > 0) {
+      log.info("pruned {} outbox events older than {}", pruned, retention);
+    }
+  }
+}
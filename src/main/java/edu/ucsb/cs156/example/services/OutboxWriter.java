@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.OutboxEvent;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.repositories.OutboxEventRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * Appends each local change event to the outbox. This listener runs
+ * synchronously on the publishing thread, so the row joins the controller's
+ * transaction and commits (or rolls back) with the change it records. Events
+ * from other nodes were already written by the node that made the change.
+ */
+@Service("outboxWriter")
+public class OutboxWriter {
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final Clock clock;
+
+  @Autowired
+  public OutboxWriter(OutboxEventRepository outboxEventRepository) {
+    this(outboxEventRepository, Clock.systemUTC());
+  }
+
+  OutboxWriter(OutboxEventRepository outboxEventRepository, Clock clock) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.clock = clock;
+  }
+
+  @EventListener
+  public void onEntityChange(EntityChangeEvent event) {
+    if (!event.getRemote()) {
+      outboxEventRepository.save(OutboxEvent.from(event, Instant.now(clock)));
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Postgres LISTEN/NOTIFY transport. Notifications are sent with pg_notify on
+ * a pooled connection; one dedicated connection outside the pool LISTENs and
+ * polls for peers' notifications. Whenever that connection is (re)opened,
+ * notifications may have been missed, so everything cached is evicted.
+ */
+@Slf4j
+@Service("invalidationBus")
+@ConditionalOnProperty(name = "app.invalidation.transport", havingValue = "postgres")
+public class PostgresInvalidationBus extends AbstractInvalidationBus {
+
+  @FunctionalInterface
+  interface ConnectionFactory {
+    Connection open() throws SQLException;
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ConnectionFactory listenConnections;
+  private final String channel;
+  private final int pollMs;
+  private final long reconnectDelayMs;
+
+  private volatile boolean running;
+  private Thread listener;
+
+  @Autowired
+  public PostgresInvalidationBus(ApplicationEventPublisher applicationEventPublisher, DataSource dataSource,
+      DataSourceProperties dataSourceProperties,
+      @Value("${app.invalidation.channel:entity_changes}") String channel,
+      @Value("${app.invalidation.poll-ms:500}") int pollMs) {
+    this(applicationEventPublisher, new JdbcTemplate(dataSource),
+        () -> DriverManager.getConnection(dataSourceProperties.determineUrl(),
+            dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword()),
+        channel, pollMs, 5000);
+  }
+
+  PostgresInvalidationBus(ApplicationEventPublisher applicationEventPublisher, JdbcTemplate jdbcTemplate,
+      ConnectionFactory listenConnections, String channel, int pollMs, long reconnectDelayMs) {
+    super(applicationEventPublisher);
+    if (!channel.matches("[a-z_][a-z0-9_]*")) {
+      throw new IllegalArgumentException("app.invalidation.channel must be a lower-case SQL identifier");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.listenConnections = listenConnections;
+    this.channel = channel;
+    this.pollMs = pollMs;
+    this.reconnectDelayMs = reconnectDelayMs;
+  }
+
+  @Override
+  public void publish(EntityChangeEvent event) {
+    try {
+      jdbcTemplate.queryForObject("select pg_notify(?, ?)", Object.class, channel, encode(event));
+    } catch (RuntimeException e) {
+      // peers keep serving what they cached until they next resync
+      log.error("could not notify peers of {} {} {}", event.getOp(), event.getEntityType(), event.getId(), e);
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    listener = new Thread(this::listen, "invalidation-bus-listener");
+    listener.setDaemon(true);
+    listener.start();
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    running = false;
+    listener.interrupt();
+    listener.join(pollMs * 2L);
+  }
+
+  void listen() {
+    while (running) {
+      try (Connection connection = listenConnections.open()) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + channel);
+        }
+        log.info("listening for cache invalidations on {}", channel);
+        resync();
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              receive(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        if (!running) {
+          return;
+        }
+        log.warn("invalidation listener lost its connection; retrying in {} ms: {}", reconnectDelayMs, e.getMessage());
+        try {
+          Thread.sleep(reconnectDelayMs);
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.CommonsRating;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The leaderboard as the materialized view commons_rating, shared by every
+ * node. A change marks it stale on the node that made it, and the next
+ * refresh rebuilds it with REFRESH MATERIALIZED VIEW CONCURRENTLY, which
+ * computes the new contents beside the old and applies only the rows that
+ * differ, so reads are never blocked. Changes are batched per refresh
+ * interval rather than refreshing once per write.
+ *
+ * Migration version 10 creates the view and its unique index.
+ */
+@Slf4j
+@Service("ratingLeaderboard")
+@ConditionalOnProperty(name = "app.leaderboard.store", havingValue = "postgres")
+public class PostgresRatingLeaderboard extends RatingLeaderboard {
+
+  static final String VIEW = "commons_rating";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AtomicBoolean stale = new AtomicBoolean();
+
+  @Autowired
+  public PostgresRatingLeaderboard(DataSource dataSource) {
+    this(new JdbcTemplate(dataSource));
+  }
+
+  PostgresRatingLeaderboard(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public List<CommonsRating> top(int limit) {
+    return jdbcTemplate.query("SELECT dining_commons_code, dining_commons_name, review_count, average_stars FROM "
+        + VIEW + " ORDER BY average_stars DESC, review_count DESC, dining_commons_code LIMIT ?",
+        (rs, rowNum) -> CommonsRating.builder()
+            .diningCommonsCode(rs.getString("dining_commons_code"))
+            .diningCommonsName(rs.getString("dining_commons_name"))
+            .reviewCount(rs.getLong("review_count"))
+            .averageStars(rs.getDouble("average_stars"))
+            .build(),
+        limit);
+  }
+
+  @Override
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChange(EntityChangeEvent event) {
+    // the node that made a change refreshes the shared view; a node that missed
+    // invalidations cannot tell whether that happened
+    if (affects(event)
+        && (!event.getRemote() || EntityChangeEvent.ALL_TYPES.equals(event.getEntityType()))) {
+      stale.set(true);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.leaderboard.refresh-ms:5000}")
+  public void refresh() {
+    if (!stale.getAndSet(false)) {
+      return;
+    }
+    try {
+      jdbcTemplate.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY " + VIEW);
+    } catch (DataAccessException e) {
+      stale.set(true);
+      log.warn("could not refresh {}", VIEW, e);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Range partitions of menuitemreview on date_reviewed, one per quarter
+ * (menuitemreview_2023q1, ...), plus a default partition for reviews without
+ * a date or beyond the last quarter created.
+ *
+ * Migration version 9 partitions the table up to the current quarter; this
+ * adds the quarters ahead on startup and from the daily archive run. Creating
+ * a partition moves the matching rows out of the default partition first, so
+ * quarters can be added after the fact. Structural changes take an advisory
+ * lock so that nodes starting together do not race.
+ */
+@Slf4j
+@Service("reviewPartitions")
+@ConditionalOnProperty(name = "app.reviews.partitioning", havingValue = "postgres")
+@DependsOn("entityManagerFactory")
+public class PostgresReviewPartitions extends ReviewPartitions {
+
+  static final String DEFAULT_PARTITION = TABLE + "_default";
+
+  private final TransactionOperations transactions;
+  private final int quartersAhead;
+  private final Clock clock;
+
+  @Autowired
+  public PostgresReviewPartitions(DataSource dataSource, PlatformTransactionManager transactionManager,
+      @Value("${app.reviews.partitions-ahead:2}") int quartersAhead) {
+    this(new JdbcTemplate(dataSource), new TransactionTemplate(transactionManager), quartersAhead,
+        Clock.systemDefaultZone());
+  }
+
+  PostgresReviewPartitions(JdbcTemplate jdbcTemplate, TransactionOperations transactions, int quartersAhead,
+      Clock clock) {
+    super(jdbcTemplate);
+    this.transactions = transactions;
+    this.quartersAhead = quartersAhead;
+    this.clock = clock;
+  }
+
+  @PostConstruct
+  public void prepareOnStartup() {
+    prepare(LocalDate.now(clock));
+  }
+
+  @Override
+  public void prepare(LocalDate today) {
+    transactions.executeWithoutResult(status -> {
+      lock();
+      List<Quarter> existing = partitions();
+      Quarter quarter = Quarter.of(today);
+      for (int i = 0; i <= quartersAhead; i++, quarter = quarter.next()) {
+        if (!existing.contains(quarter)) {
+          createPartition(quarter);
+        }
+      }
+    });
+  }
+
+  // a review dated in a quarter whose partition was already archived lands in
+  // the default partition, and its quarter is archived again
+  @Override
+  public List<Quarter> quartersBefore(LocalDate cutoff) {
+    Stream<Quarter> ended = partitions().stream().filter(quarter -> !quarter.getEnd().isAfter(cutoff));
+    Stream<Quarter> late = jdbcTemplate.queryForList("SELECT DISTINCT CAST(EXTRACT(YEAR FROM date_reviewed) * 10"
+        + " + EXTRACT(QUARTER FROM date_reviewed) AS integer) FROM " + DEFAULT_PARTITION + " WHERE date_reviewed < ?",
+        Integer.class, Quarter.of(cutoff).getStart().atStartOfDay())
+        .stream()
+        .map(yearQuarter -> new Quarter(yearQuarter / 10, yearQuarter % 10));
+    return Stream.concat(ended, late).distinct().sorted().collect(Collectors.toList());
+  }
+
+  // writers to the quarter wait until the archive transaction ends, so no
+  // change is made after the rows were read and before they are removed
+  @Override
+  public void forEachReview(Quarter quarter, Consumer<MenuItemReview> action) {
+    jdbcTemplate.execute("LOCK TABLE " + tableOf(quarter) + " IN SHARE MODE");
+    super.forEachReview(quarter, action);
+  }
+
+  @Override
+  public void drop(Quarter quarter) {
+    lock();
+    if (partitions().contains(quarter)) {
+      jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partitionName(quarter));
+      jdbcTemplate.execute("DROP TABLE " + partitionName(quarter));
+    } else {
+      jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE date_reviewed >= ? AND date_reviewed < ?",
+          quarter.getStart().atStartOfDay(), quarter.getEnd().atStartOfDay());
+    }
+  }
+
+  private String tableOf(Quarter quarter) {
+    return partitions().contains(quarter) ? partitionName(quarter) : DEFAULT_PARTITION;
+  }
+
+  static String partitionName(Quarter quarter) {
+    return TABLE + "_" + quarter;
+  }
+
+  List<Quarter> partitions() {
+    return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i"
+        + " JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent"
+        + " WHERE p.relname = ?", String.class, TABLE)
+        .stream()
+        .map(name -> name.startsWith(TABLE + "_") ? Quarter.parse(name.substring(TABLE.length() + 1)) : null)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
+  // held until the surrounding transaction ends
+  private void lock() {
+    jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(hashtext(?))", Object.class, TABLE + "_partitions");
+  }
+
+  // rows already in the default partition for this quarter are moved into the new one
+  private void createPartition(Quarter quarter) {
+    String name = partitionName(quarter);
+    String from = quarter.getStart().toString();
+    String to = quarter.getEnd().toString();
+    jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+    jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM " + DEFAULT_PARTITION
+        + " WHERE date_reviewed >= ? AND date_reviewed < ?",
+        quarter.getStart().atStartOfDay(), quarter.getEnd().atStartOfDay());
+    jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE date_reviewed >= ? AND date_reviewed < ?",
+        quarter.getStart().atStartOfDay(), quarter.getEnd().atStartOfDay());
+    jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name
+        + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    log.info("created partition {} for [{}, {})", name, from, to);
+  }
+}
@@ -0,0 +1,157 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.config.RateLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user token buckets for the endpoints marked @RateLimited.
+ *
+ * Each bucket is a single AtomicLong holding the time at which it will be full
+ * again (the generic cell rate algorithm), so taking a token is one read and
+ * one compare-and-set with no locks or allocation. A bucket that has refilled
+ * holds no state worth keeping, which is what the idle sweep evicts; when the
+ * map is at max-buckets, callers without a bucket share an overflow bucket per
+ * endpoint until the next sweep, instead of growing it further or sweeping on
+ * the request thread.
+ */
+@Slf4j
+@Service("rateLimiter")
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimiterService {
+
+  private static final String OVERFLOW_KEY = "\u0000overflow";
+
+  private final RateLimitProperties properties;
+  private final LongSupplier nanoClock;
+
+  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+  private final AtomicLong rejected = new AtomicLong();
+
+  @Autowired
+  public RateLimiterService(RateLimitProperties properties) {
+    this(properties, System::nanoTime);
+  }
+
+  RateLimiterService(RateLimitProperties properties, LongSupplier nanoClock) {
+    this.properties = properties;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Takes a token for this user from the endpoint's bucket.
+   *
+   * @return 0 if the request may proceed, otherwise the nanoseconds until a
+   *         token will be available
+   */
+  public long tryAcquire(String endpoint, String user, Collection<? extends GrantedAuthority> roles) {
+    if (!properties.getEnabled()) {
+      return 0;
+    }
+    long now = nanoClock.getAsLong();
+    String key = endpoint + '\u0000' + user;
+    Bucket bucket = buckets.get(key);
+    if (bucket == null) {
+      bucket = newBucket(key, endpoint, roles, now);
+    }
+    long retryAfter = bucket.tryAcquire(now);
+    if (retryAfter > 0) {
+      rejected.incrementAndGet();
+    }
+    return retryAfter;
+  }
+
+  @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+  public void evictIdle() {
+    long now = nanoClock.getAsLong();
+    long idleNanos = properties.getIdleEviction().toNanos();
+    buckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+  }
+
+  public int getBucketCount() {
+    return buckets.size();
+  }
+
+  public long getRejectedCount() {
+    return rejected.get();
+  }
+
+  // only the scheduled sweep makes room; scanning here would cost every new caller a pass over the map
+  private Bucket newBucket(String key, String endpoint, Collection<? extends GrantedAuthority> roles, long now) {
+    if (buckets.size() >= properties.getMaxBuckets()) {
+      key = endpoint + OVERFLOW_KEY;
+      Bucket overflow = buckets.get(key);
+      if (overflow != null) {
+        return overflow;
+      }
+      log.warn("rate limiter is tracking {} buckets; sharing an overflow bucket for {} until the next sweep",
+          buckets.size(), endpoint);
+    }
+    RateLimitProperties.Limit limit = limitFor(endpoint, roles);
+    return buckets.computeIfAbsent(key, k -> new Bucket(limit, now));
+  }
+
+  // the most generous limit among the user's configured roles
+  RateLimitProperties.Limit limitFor(String endpoint, Collection<? extends GrantedAuthority> roles) {
+    Map<String, RateLimitProperties.Limit> byRole = properties.getEndpoints().get(endpoint);
+    RateLimitProperties.Limit best = null;
+    if (byRole != null && roles != null) {
+      for (GrantedAuthority authority : roles) {
+        String role = authority.getAuthority().replaceFirst("^ROLE_", "").toLowerCase(Locale.ROOT);
+        RateLimitProperties.Limit limit = byRole.get(role);
+        if (limit != null && (best == null || perSecond(limit) > perSecond(best))) {
+          best = limit;
+        }
+      }
+    }
+    return best != null ? best : properties.getDefaultLimit();
+  }
+
+  private static double perSecond(RateLimitProperties.Limit limit) {
+    return (double) limit.getCapacity() / limit.getPeriod().toNanos();
+  }
+
+  static class Bucket {
+    // nanoseconds between tokens, and how far ahead of now the full-time may run
+    private final long interval;
+    private final long burst;
+    // time at which the bucket will be full again
+    private final AtomicLong fullAt;
+
+    Bucket(RateLimitProperties.Limit limit, long now) {
+      this.interval = Math.max(1, limit.getPeriod().toNanos() / Math.max(1, limit.getCapacity()));
+      this.burst = interval * Math.max(1, limit.getCapacity());
+      this.fullAt = new AtomicLong(now);
+    }
+
+    long tryAcquire(long now) {
+      while (true) {
+        long current = fullAt.get();
+        long next = Math.max(current, now) + interval;
+        long excess = next - now - burst;
+        if (excess > 0) {
+          return excess;
+        }
+        if (fullAt.compareAndSet(current, next)) {
+          return 0;
+        }
+      }
+    }
+
+    boolean isIdle(long now, long idleNanos) {
+      return now - fullAt.get() >= idleNanos;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.CommonsRating;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dining commons ranked by the average stars of the reviews of their menu
+ * items. Joining menuitemreview to ucsbdiningcommonsmenuitems to
+ * ucsbdiningcommons on every read would scan every review, so the ranking is
+ * read from an aggregate kept current by the change events of reviews, items
+ * (which can move between commons) and commons (which can be renamed).
+ * Postgres keeps the aggregate in a materialized view; the one used on H2
+ * keeps it in memory.
+ */
+public abstract class RatingLeaderboard {
+
+  static final Set<String> SOURCES = Set.of(MenuItemReview.class.getSimpleName(),
+      UCSBDiningCommonsMenuItem.class.getSimpleName(), UCSBDiningCommons.class.getSimpleName());
+
+  // best first; ties go to the commons with more reviews, then by code
+  static final Comparator<CommonsRating> RANKING = Comparator
+      .comparingDouble(CommonsRating::getAverageStars).reversed()
+      .thenComparing(Comparator.comparingLong(CommonsRating::getReviewCount).reversed())
+      .thenComparing(CommonsRating::getDiningCommonsCode);
+
+  /** The best rated commons, at most limit of them. */
+  public abstract List<CommonsRating> top(int limit);
+
+  public abstract void onEntityChange(EntityChangeEvent event);
+
+  static boolean affects(EntityChangeEvent event) {
+    return EntityChangeEvent.ALL_TYPES.equals(event.getEntityType()) || SOURCES.contains(event.getEntityType());
+  }
+}
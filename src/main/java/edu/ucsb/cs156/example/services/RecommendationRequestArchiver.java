@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.repositories.ArchivedRecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Moves done recommendation requests whose dateNeeded is older than the
+ * configured age into the ArchivedRecommendationRequest table, one batch per
+ * transaction, so the table behind /api/RecommendationRequest/all only holds
+ * requests that are still open or recent. The controller reads the archive
+ * when a request is not found in the main table.
+ */
+@Slf4j
+@Service("recommendationRequestArchiver")
+public class RecommendationRequestArchiver {
+
+  private final RecommendationRequestRepository recommendationRequestRepository;
+  private final ArchivedRecommendationRequestRepository archivedRecommendationRequestRepository;
+  private final TransactionOperations transactions;
+  private final Duration after;
+  private final int batchSize;
+  private final Clock clock;
+
+  @Autowired
+  public RecommendationRequestArchiver(RecommendationRequestRepository recommendationRequestRepository,
+      ArchivedRecommendationRequestRepository archivedRecommendationRequestRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.recommendation-requests.archive.after:90d}") Duration after,
+      @Value("${app.recommendation-requests.archive.batch-size:500}") int batchSize) {
+    this(recommendationRequestRepository, archivedRecommendationRequestRepository,
+        new TransactionTemplate(transactionManager), after, batchSize, Clock.systemDefaultZone());
+  }
+
+  RecommendationRequestArchiver(RecommendationRequestRepository recommendationRequestRepository,
+      ArchivedRecommendationRequestRepository archivedRecommendationRequestRepository,
+      TransactionOperations transactions, Duration after, int batchSize, Clock clock) {
+    this.recommendationRequestRepository = recommendationRequestRepository;
+    this.archivedRecommendationRequestRepository = archivedRecommendationRequestRepository;
+    this.transactions = transactions;
+    this.after = after;
+    this.batchSize = batchSize;
+    this.clock = clock;
+  }
+
+  /** @return the number of requests moved */
+  @Scheduled(fixedDelayString = "${app.recommendation-requests.archive.interval-ms:3600000}")
+  public int archive() {
+    LocalDateTime cutoff = LocalDateTime.now(clock).minus(after);
+    int total = 0;
+    int moved;
+    do {
+      moved = transactions.execute(status -> moveBatch(cutoff));
+      total += moved;
+    } while (moved == batchSize);
+    if (total > 0) {
+      log.info("archived {} done recommendation requests needed before {}", total, cutoff);
+    }
+    return total;
+  }
+
+  private int moveBatch(LocalDateTime cutoff) {
+    List<RecommendationRequest> batch = recommendationRequestRepository
+        .findByDoneTrueAndDateNeededBeforeOrderByIdAsc(cutoff, PageRequest.of(0, batchSize));
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    Instant now = Instant.now(clock);
+    archivedRecommendationRequestRepository.saveAll(batch.stream()
+        .map(request -> ArchivedRecommendationRequest.from(request, now))
+        .collect(Collectors.toList()));
+    recommendationRequestRepository.deleteByIds(batch.stream()
+        .map(RecommendationRequest::getId)
+        .collect(Collectors.toList()));
+    return batch.size();
+  }
+}
@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Bloom filter of the menu item ids that exist, so that a review naming one
+ * can go straight to the insert, where the menuitemreview_item foreign key is
+ * the exact check.
+ *
+ * The filter only saves lookups; it never rejects a write on its own. An id it
+ * rules out is looked up by primary key, since it may have been created on
+ * another node whose event has not arrived yet, and is added to the filter if
+ * found. Creates are added as their change events arrive, from this node after
+ * commit or from others over the InvalidationBus. Deleted ids stay in until the
+ * periodic rebuild, which also resizes the filter. See docs/reference-filter.md.
+ */
+@Slf4j
+@Service("referenceFilter")
+public class ReferenceFilter {
+
+  // the filter is sized for this many times the ids present when built, leaving room for creates
+  static final int GROWTH = 2;
+  static final int MIN_EXPECTED_KEYS = 1024;
+
+  private final UCSBDiningCommonsMenuItemRepository menuItemRepository;
+  private final double falsePositiveRate;
+
+  // null until first built; everything might exist until then
+  private volatile BloomFilter menuItems;
+
+  // creates seen while a rebuild reads the table, guarded by this
+  private List<EntityChangeEvent> pending;
+
+  private final Object rebuilding = new Object();
+
+  @Autowired
+  public ReferenceFilter(UCSBDiningCommonsMenuItemRepository menuItemRepository,
+      @Value("${app.reference-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+    this.menuItemRepository = menuItemRepository;
+    this.falsePositiveRate = falsePositiveRate;
+  }
+
+  /** False only if no menu item has this id; queries only when the filter rules it out. */
+  public boolean mightContainMenuItem(long id) {
+    BloomFilter filter = menuItems;
+    if (filter == null || filter.mightContain(id)) {
+      return true;
+    }
+    if (!menuItemRepository.existsById(id)) {
+      return false;
+    }
+    // created elsewhere and its event is still on the way
+    filter.put(id);
+    return true;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChange(EntityChangeEvent event) {
+    if (EntityChangeEvent.ALL_TYPES.equals(event.getEntityType())) {
+      // this node may have missed creates made elsewhere
+      rebuild();
+      return;
+    }
+    if (event.getOp() != EntityChangeEvent.Op.CREATE || EntityChangeEvent.ALL_IDS.equals(event.getId())) {
+      return;
+    }
+    synchronized (this) {
+      if (pending != null) {
+        pending.add(event);
+      }
+      add(event, menuItems);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.reference-filter.rebuild-ms:900000}")
+  public void rebuild() {
+    synchronized (rebuilding) {
+      synchronized (this) {
+        pending = new ArrayList<>();
+      }
+      try {
+        List<Long> itemIds = menuItemRepository.findAllIds();
+        BloomFilter next = new BloomFilter(Math.max(MIN_EXPECTED_KEYS, (long) itemIds.size() * GROWTH),
+            falsePositiveRate);
+        itemIds.forEach(next::put);
+        synchronized (this) {
+          pending.forEach(event -> add(event, next));
+          menuItems = next;
+        }
+        log.info("rebuilt reference filter over {} menu items", itemIds.size());
+      } finally {
+        synchronized (this) {
+          pending = null;
+        }
+      }
+    }
+  }
+
+  private static void add(EntityChangeEvent event, BloomFilter menuItems) {
+    if (menuItems != null && UCSBDiningCommonsMenuItem.class.getSimpleName().equals(event.getEntityType())) {
+      menuItems.put(Long.parseLong(event.getId()));
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.CoalescingStats;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-flight execution: the first caller for a key runs the call on its
+ * own thread and every caller arriving while it is in flight waits for, and
+ * returns, the same result (or exception). Nothing is kept once the call
+ * completes, so this collapses only truly concurrent requests and never
+ * serves stale data.
+ */
+@Slf4j
+@Service("requestCoalescer")
+public class RequestCoalescer {
+
+  @FunctionalInterface
+  public interface Call {
+    Object run() throws Throwable;
+  }
+
+  private final boolean enabled;
+  private final long defaultTimeoutMs;
+
+  private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder collapsed = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+
+  @Autowired
+  public RequestCoalescer(@Value("${app.coalescing.enabled:true}") boolean enabled,
+      @Value("${app.coalescing.timeout-ms:5000}") long defaultTimeoutMs) {
+    this.enabled = enabled;
+    this.defaultTimeoutMs = defaultTimeoutMs;
+  }
+
+  public Object execute(String key, long timeoutMs, Call call) throws Throwable {
+    if (!enabled) {
+      return call.run();
+    }
+    requests.increment();
+    CompletableFuture<Object> mine = new CompletableFuture<>();
+    CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+    if (leader == null) {
+      return lead(key, mine, call);
+    }
+
+    collapsed.increment();
+    try {
+      return leader.get(timeoutMs > 0 ? timeoutMs : defaultTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    } catch (TimeoutException e) {
+      timeouts.increment();
+      log.warn("gave up waiting for in-flight {}; running it separately", key);
+      executions.increment();
+      return call.run();
+    }
+  }
+
+  public CoalescingStats getStats() {
+    return CoalescingStats.builder()
+        .requests(requests.sum())
+        .executions(executions.sum())
+        .collapsed(collapsed.sum())
+        .timeouts(timeouts.sum())
+        .inFlight(inFlight.size())
+        .build();
+  }
+
+  private Object lead(String key, CompletableFuture<Object> mine, Call call) throws Throwable {
+    executions.increment();
+    try {
+      Object result = call.run();
+      mine.complete(result);
+      return result;
+    } catch (Throwable t) {
+      mine.completeExceptionally(t);
+      throw t;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+}
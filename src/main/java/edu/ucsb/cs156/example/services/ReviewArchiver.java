@@ -0,0 +1,200 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.models.ReviewArchive;
+import edu.ucsb.cs156.example.services.ReviewPartitions.Quarter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves quarters of reviews older than the retention period out of the
+ * database into gzipped JSON Lines files, one per quarter
+ * (menuitemreview_2023q1.jsonl.gz), in the same shape as the REST API.
+ *
+ * A quarter is written to a temporary file, moved into place, and dropped in
+ * one transaction. A quarter archived before, because reviews dated in it were
+ * added later or because an earlier drop failed, keeps the reviews already in
+ * its file; the new file holds those plus the rows read now, which replace any
+ * line with the same id. With several nodes, point app.reviews.archive.dir at
+ * storage they share.
+ */
+@Slf4j
+@Service("reviewArchiver")
+public class ReviewArchiver {
+
+  static final String PREFIX = "menuitemreview_";
+  static final String SUFFIX = ".jsonl.gz";
+
+  private final ReviewPartitions reviewPartitions;
+  private final TransactionOperations transactions;
+  private final ObjectWriter writer;
+  private final ObjectReader reader;
+  private final ApplicationEventPublisher applicationEventPublisher;
+  private final Path directory;
+  private final Period retention;
+  private final Clock clock;
+
+  @Autowired
+  public ReviewArchiver(ReviewPartitions reviewPartitions, PlatformTransactionManager transactionManager,
+      ObjectMapper mapper, ApplicationEventPublisher applicationEventPublisher,
+      @Value("${app.reviews.archive.dir:review-archive}") String directory,
+      @Value("${app.reviews.archive.retention:2y}") Period retention) {
+    this(reviewPartitions, new TransactionTemplate(transactionManager), mapper, applicationEventPublisher,
+        Paths.get(directory), retention, Clock.systemDefaultZone());
+  }
+
+  ReviewArchiver(ReviewPartitions reviewPartitions, TransactionOperations transactions, ObjectMapper mapper,
+      ApplicationEventPublisher applicationEventPublisher, Path directory, Period retention, Clock clock) {
+    this.reviewPartitions = reviewPartitions;
+    this.transactions = transactions;
+    this.writer = mapper.writerFor(MenuItemReview.class);
+    this.reader = mapper.reader();
+    this.applicationEventPublisher = applicationEventPublisher;
+    this.directory = directory;
+    this.retention = retention;
+    this.clock = clock;
+  }
+
+  @Scheduled(cron = "${app.reviews.archive.cron:0 30 3 * * *}")
+  public void archive() {
+    LocalDate today = LocalDate.now(clock);
+    reviewPartitions.prepare(today);
+    for (Quarter quarter : reviewPartitions.quartersBefore(today.minus(retention))) {
+      try {
+        archive(quarter);
+      } catch (IOException | RuntimeException e) {
+        // later quarters wait, so the archive never has gaps
+        log.error("could not archive reviews of {}", quarter, e);
+        return;
+      }
+    }
+  }
+
+  /** @return the number of reviews archived */
+  long archive(Quarter quarter) throws IOException {
+    Files.createDirectories(directory);
+    Path target = directory.resolve(PREFIX + quarter + SUFFIX);
+    Path temp = Files.createTempFile(directory, PREFIX + quarter, ".tmp");
+    try {
+      Long count = transactions.execute(status -> {
+        long rows = write(quarter, temp, target);
+        try {
+          Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        reviewPartitions.drop(quarter);
+        applicationEventPublisher.publishEvent(
+            EntityChangeEvent.of(MenuItemReview.class, EntityChangeEvent.ALL_IDS, EntityChangeEvent.Op.DELETE));
+        return rows;
+      });
+      log.info("archived {} reviews of {} to {}", count, quarter, target);
+      return count;
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private long write(Quarter quarter, Path file, Path archived) {
+    long[] rows = { 0 };
+    try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      if (Files.exists(archived)) {
+        Set<Long> current = new HashSet<>();
+        reviewPartitions.forEachReview(quarter, review -> current.add(review.getId()));
+        copyExcept(archived, current, out);
+      }
+      reviewPartitions.forEachReview(quarter, review -> {
+        try {
+          out.write(writer.writeValueAsBytes(review));
+          out.write('\n');
+          rows[0]++;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return rows[0];
+  }
+
+  private void copyExcept(Path archived, Set<Long> ids, OutputStream out) throws IOException {
+    try (BufferedReader in = new BufferedReader(new InputStreamReader(
+        new GZIPInputStream(Files.newInputStream(archived)), StandardCharsets.UTF_8))) {
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        if (!line.isEmpty() && !ids.contains(reader.readTree(line).path("id").asLong())) {
+          out.write(line.getBytes(StandardCharsets.UTF_8));
+          out.write('\n');
+        }
+      }
+    }
+  }
+
+  /** Archived quarters, oldest first. */
+  public List<ReviewArchive> list() throws IOException {
+    List<ReviewArchive> archives = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return archives;
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+          Quarter quarter = Quarter.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+          if (quarter != null) {
+            archives.add(ReviewArchive.builder()
+                .quarter(quarter.toString())
+                .compressedBytes(Files.size(file))
+                .archivedAt(Files.getLastModifiedTime(file).toInstant())
+                .build());
+          }
+        }
+      }
+    }
+    return archives;
+  }
+
+  /** The gzipped file for the quarter, if it has been archived. */
+  public Optional<Path> find(Quarter quarter) {
+    Path file = directory.resolve(PREFIX + quarter + SUFFIX);
+    return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+  }
+}
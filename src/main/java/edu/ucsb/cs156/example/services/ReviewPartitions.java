@@ -0,0 +1,110 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Storage of menuitemreview by calendar quarter of dateReviewed. Postgres
+ * partitions the table for real; the emulation used on H2 keeps one table and
+ * works on the same quarters by date range, so the archiver runs unchanged on
+ * either. Reviews without a date belong to no quarter and are never archived.
+ */
+public abstract class ReviewPartitions {
+
+  static final String TABLE = "menuitemreview";
+  static final int FETCH_SIZE = 500;
+
+  protected final JdbcTemplate jdbcTemplate;
+
+  protected ReviewPartitions(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /** Makes sure the quarters from today's through a few ahead can take reviews. */
+  public abstract void prepare(LocalDate today);
+
+  /** Quarters that end on or before the cutoff and may still hold reviews, oldest first. */
+  public abstract List<Quarter> quartersBefore(LocalDate cutoff);
+
+  /** Removes every review dated in the quarter; call inside a transaction. */
+  public abstract void drop(Quarter quarter);
+
+  /** Reads the quarter's reviews in id order; call inside a transaction so Postgres streams them. */
+  public void forEachReview(Quarter quarter, Consumer<MenuItemReview> action) {
+    jdbcTemplate.query("SELECT id, item_id, reviewer_email, stars, date_reviewed, comments FROM " + TABLE
+        + " WHERE date_reviewed >= ? AND date_reviewed < ? ORDER BY id",
+        statement -> {
+          // without a fetch size the Postgres driver reads the whole quarter into memory
+          statement.setFetchSize(FETCH_SIZE);
+          statement.setObject(1, quarter.getStart().atStartOfDay());
+          statement.setObject(2, quarter.getEnd().atStartOfDay());
+        },
+        rs -> {
+          Timestamp dateReviewed = rs.getTimestamp("date_reviewed");
+          action.accept(MenuItemReview.builder()
+              .id(rs.getLong("id"))
+              .itemId(rs.getLong("item_id"))
+              .reviewerEmail(rs.getString("reviewer_email"))
+              .stars(rs.getInt("stars"))
+              .dateReviewed(dateReviewed != null ? dateReviewed.toLocalDateTime() : null)
+              .comments(rs.getString("comments"))
+              .build());
+        });
+  }
+
+  /** A calendar quarter, written 2023q1. */
+  @Data
+  @AllArgsConstructor
+  public static class Quarter implements Comparable<Quarter> {
+    private static final Pattern FORMAT = Pattern.compile("(\\d{4})q([1-4])");
+
+    private final int year;
+    private final int quarter;
+
+    public static Quarter of(LocalDate date) {
+      return new Quarter(date.getYear(), (date.getMonthValue() - 1) / 3 + 1);
+    }
+
+    /** @return the quarter, or null if the text is not one */
+    public static Quarter parse(String text) {
+      Matcher matcher = FORMAT.matcher(text);
+      return matcher.matches()
+          ? new Quarter(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+          : null;
+    }
+
+    public LocalDate getStart() {
+      return LocalDate.of(year, (quarter - 1) * 3 + 1, 1);
+    }
+
+    // exclusive
+    public LocalDate getEnd() {
+      return getStart().plusMonths(3);
+    }
+
+    public Quarter next() {
+      return of(getEnd());
+    }
+
+    @Override
+    public int compareTo(Quarter other) {
+      return getStart().compareTo(other.getStart());
+    }
+
+    @Override
+    public String toString() {
+      return year + "q" + quarter;
+    }
+  }
+}
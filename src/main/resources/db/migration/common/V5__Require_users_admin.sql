@@ -0,0 +1,3 @@
+-- V4 left admin nullable; the entity maps it to a primitive boolean
+UPDATE users SET admin = FALSE WHERE admin IS NULL;
+ALTER TABLE users ALTER COLUMN admin SET NOT NULL;
@@ -0,0 +1,10 @@
+CREATE INDEX menuitemreview_date_reviewed ON menuitemreview (date_reviewed);
+CREATE INDEX recommendation_request_done_date_needed ON recommendation_request (done, date_needed);
+
+-- Without the foreign key, deleting a menu item left its reviews behind. They
+-- name an item the API now reports as missing, and would stop the key below
+-- from being added.
+DELETE FROM menuitemreview
+  WHERE NOT EXISTS (SELECT 1 FROM ucsbdiningcommonsmenuitems i WHERE i.id = menuitemreview.item_id);
+ALTER TABLE menuitemreview ADD CONSTRAINT menuitemreview_item
+  FOREIGN KEY (item_id) REFERENCES ucsbdiningcommonsmenuitems (id);
@@ -0,0 +1,7 @@
+-- Ids each OutboxRelay consumer moved past before they were visible
+CREATE TABLE outboxgaps (
+  consumer VARCHAR(255) NOT NULL,
+  event_id BIGINT NOT NULL,
+  skipped_at TIMESTAMP,
+  PRIMARY KEY (consumer, event_id)
+);
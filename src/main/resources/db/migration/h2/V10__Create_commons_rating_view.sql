@@ -0,0 +1,2 @@
+-- H2 has no materialized views. InMemoryRatingLeaderboard keeps the leaderboard
+-- in each node's memory; see docs/leaderboard.md.
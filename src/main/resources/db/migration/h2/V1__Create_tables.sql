@@ -0,0 +1,66 @@
+-- The schema Hibernate created with ddl-auto=update, before users.admin (V4).
+-- A database created that way is baselined at version 4 and never runs this,
+-- so anything added since belongs in a later version.
+
+CREATE TABLE users (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  email VARCHAR(255),
+  google_sub VARCHAR(255),
+  picture_url VARCHAR(255),
+  full_name VARCHAR(255),
+  given_name VARCHAR(255),
+  family_name VARCHAR(255),
+  email_verified BOOLEAN NOT NULL,
+  locale VARCHAR(255),
+  hosted_domain VARCHAR(255)
+);
+
+CREATE TABLE ucsbdates (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  quarteryyyyq VARCHAR(255),
+  name VARCHAR(255),
+  local_date_time TIMESTAMP
+);
+
+CREATE TABLE ucsbdiningcommons (
+  code VARCHAR(255) PRIMARY KEY,
+  name VARCHAR(255),
+  has_sack_meal BOOLEAN NOT NULL,
+  has_take_out_meal BOOLEAN NOT NULL,
+  has_dining_cam BOOLEAN NOT NULL,
+  latitude DOUBLE,
+  longitude DOUBLE
+);
+
+CREATE TABLE ucsbdiningcommonsmenuitems (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  dining_commons_code VARCHAR(255),
+  name VARCHAR(255),
+  station VARCHAR(255)
+);
+
+CREATE TABLE ucsborgs (
+  org_code VARCHAR(255) PRIMARY KEY,
+  org_translation_short VARCHAR(255),
+  org_translation VARCHAR(255),
+  inactive BOOLEAN NOT NULL
+);
+
+CREATE TABLE menuitemreview (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  item_id BIGINT NOT NULL,
+  reviewer_email VARCHAR(255),
+  stars INTEGER NOT NULL,
+  date_reviewed TIMESTAMP,
+  comments VARCHAR(255)
+);
+
+CREATE TABLE recommendation_request (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  requester_email VARCHAR(255),
+  professor_email VARCHAR(255),
+  explanation VARCHAR(255),
+  date_requested TIMESTAMP,
+  date_needed TIMESTAMP,
+  done BOOLEAN NOT NULL
+);
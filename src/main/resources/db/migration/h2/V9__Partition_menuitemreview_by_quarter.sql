@@ -0,0 +1,2 @@
+-- H2 has no table partitioning. EmulatedReviewPartitions treats each quarter
+-- of the plain menuitemreview table as a partition; see docs/review-archive.md.
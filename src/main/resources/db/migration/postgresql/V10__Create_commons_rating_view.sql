@@ -0,0 +1,14 @@
+-- The dining commons leaderboard (docs/leaderboard.md), read and refreshed by
+-- PostgresRatingLeaderboard. Later changes to the tables it reads have to drop
+-- and recreate it.
+
+CREATE MATERIALIZED VIEW commons_rating AS
+  SELECT c.code AS dining_commons_code, c.name AS dining_commons_name,
+      COUNT(*) AS review_count, AVG(r.stars) AS average_stars
+    FROM menuitemreview r
+    JOIN ucsbdiningcommonsmenuitems i ON i.id = r.item_id
+    JOIN ucsbdiningcommons c ON c.code = i.dining_commons_code
+    GROUP BY c.code, c.name;
+
+-- REFRESH MATERIALIZED VIEW CONCURRENTLY matches old and new rows on a unique index
+CREATE UNIQUE INDEX commons_rating_code ON commons_rating (dining_commons_code);
@@ -0,0 +1,37 @@
+-- Tables for the recommendation request archive, the change outbox and
+-- idempotency keys.
+
+CREATE TABLE archived_recommendation_request (
+  id BIGINT PRIMARY KEY,
+  requester_email VARCHAR(255),
+  professor_email VARCHAR(255),
+  explanation VARCHAR(255),
+  date_requested TIMESTAMP,
+  date_needed TIMESTAMP,
+  done BOOLEAN NOT NULL,
+  archived_at TIMESTAMP
+);
+
+CREATE TABLE outboxevents (
+  id BIGSERIAL PRIMARY KEY,
+  entity_type VARCHAR(255),
+  entity_id VARCHAR(255),
+  op VARCHAR(255),
+  version BIGINT NOT NULL,
+  created_at TIMESTAMP
+);
+CREATE INDEX outboxevents_created_at ON outboxevents (created_at);
+
+CREATE TABLE outboxcursors (
+  consumer VARCHAR(255) PRIMARY KEY,
+  position BIGINT NOT NULL,
+  updated_at TIMESTAMP
+);
+
+CREATE TABLE idempotencykeys (
+  id VARCHAR(255) PRIMARY KEY,
+  fingerprint VARCHAR(255),
+  response VARCHAR(1048576),
+  claimed_at TIMESTAMP,
+  completed_at TIMESTAMP
+);
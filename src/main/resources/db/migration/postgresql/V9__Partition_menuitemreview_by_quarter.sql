@@ -0,0 +1,53 @@
+-- Range partitions of menuitemreview on date_reviewed, one per calendar quarter
+-- (menuitemreview_2023q1, ...), from the oldest review to the current quarter,
+-- plus a default partition for reviews without a date or beyond the last
+-- quarter. PostgresReviewPartitions adds the quarters ahead on startup and
+-- daily; see docs/review-archive.md.
+--
+-- A key on a partitioned table must include the partition column, so the
+-- primary key on id becomes a unique key on (id, date_reviewed). Ids still come
+-- from menuitemreview_id_seq. Columns are listed by name because a baselined
+-- table, created by Hibernate, may have them in another order.
+
+ALTER TABLE menuitemreview RENAME TO menuitemreview_unpartitioned;
+
+CREATE TABLE menuitemreview (
+  id BIGINT NOT NULL DEFAULT nextval('menuitemreview_id_seq'),
+  item_id BIGINT NOT NULL,
+  reviewer_email VARCHAR(255),
+  stars INTEGER NOT NULL,
+  date_reviewed TIMESTAMP,
+  comments VARCHAR(255),
+  CONSTRAINT menuitemreview_id_date_reviewed UNIQUE (id, date_reviewed)
+) PARTITION BY RANGE (date_reviewed);
+
+-- otherwise dropped with the old table
+ALTER SEQUENCE menuitemreview_id_seq OWNED BY menuitemreview.id;
+
+CREATE TABLE menuitemreview_default PARTITION OF menuitemreview DEFAULT;
+
+DO $$
+DECLARE
+  quarter TIMESTAMP;
+BEGIN
+  FOR quarter IN
+    SELECT generate_series(date_trunc('quarter', LEAST(MIN(date_reviewed), LOCALTIMESTAMP)),
+        date_trunc('quarter', LOCALTIMESTAMP), INTERVAL '3 months')
+      FROM menuitemreview_unpartitioned
+  LOOP
+    EXECUTE format('CREATE TABLE %I PARTITION OF menuitemreview FOR VALUES FROM (%L) TO (%L)',
+        'menuitemreview_' || to_char(quarter, 'YYYY') || 'q' || to_char(quarter, 'Q'),
+        quarter, quarter + INTERVAL '3 months');
+  END LOOP;
+END
+$$;
+
+INSERT INTO menuitemreview (id, item_id, reviewer_email, stars, date_reviewed, comments)
+  SELECT id, item_id, reviewer_email, stars, date_reviewed, comments FROM menuitemreview_unpartitioned;
+
+DROP TABLE menuitemreview_unpartitioned;
+
+-- an index or foreign key on a partitioned table applies to every partition, present and future
+CREATE INDEX menuitemreview_date_reviewed ON menuitemreview (date_reviewed);
+ALTER TABLE menuitemreview ADD CONSTRAINT menuitemreview_item
+  FOREIGN KEY (item_id) REFERENCES ucsbdiningcommonsmenuitems (id);
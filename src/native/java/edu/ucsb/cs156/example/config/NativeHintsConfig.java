@@ -0,0 +1,151 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.nativex.hint.AotProxyHint;
+import org.springframework.nativex.hint.JdkProxyHint;
+import org.springframework.nativex.hint.NativeHint;
+import org.springframework.nativex.hint.ProxyBits;
+import org.springframework.nativex.hint.ResourceHint;
+import org.springframework.nativex.hint.TypeAccess;
+import org.springframework.nativex.hint.TypeHint;
+
+import edu.ucsb.cs156.example.aop.CoalescingAspect;
+import edu.ucsb.cs156.example.aop.IdempotencyAspect;
+import edu.ucsb.cs156.example.aop.LoggingAspect;
+import edu.ucsb.cs156.example.aop.RateLimitAspect;
+import edu.ucsb.cs156.example.controllers.ChangesController;
+import edu.ucsb.cs156.example.controllers.CoalescingController;
+import edu.ucsb.cs156.example.controllers.DashboardController;
+import edu.ucsb.cs156.example.controllers.GraphQLController;
+import edu.ucsb.cs156.example.controllers.ConnectionPoolController;
+import edu.ucsb.cs156.example.controllers.MenuItemReviewArchiveController;
+import edu.ucsb.cs156.example.controllers.MenuItemReviewController;
+import edu.ucsb.cs156.example.controllers.OutboxController;
+import edu.ucsb.cs156.example.controllers.RecommendationRequestController;
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import edu.ucsb.cs156.example.controllers.UCSBDiningCommonsController;
+import edu.ucsb.cs156.example.controllers.UCSBDiningCommonsMenuItemController;
+import edu.ucsb.cs156.example.controllers.UCSBOrganizationController;
+import edu.ucsb.cs156.example.controllers.UserInfoController;
+import edu.ucsb.cs156.example.controllers.UsersController;
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
+import edu.ucsb.cs156.example.entities.IdempotencyKey;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.OutboxCursor;
+import edu.ucsb.cs156.example.entities.OutboxEvent;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.CoalescingStats;
+import edu.ucsb.cs156.example.models.CommonsRating;
+import edu.ucsb.cs156.example.models.ConnectionPoolStats;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.models.GraphQLRequest;
+import edu.ucsb.cs156.example.models.ReviewArchive;
+import edu.ucsb.cs156.example.models.ReviewWithItem;
+import edu.ucsb.cs156.example.models.SystemInfo;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+/**
+ * Reflection and proxy hints for the native image (compiled only by the
+ * native Maven profile, which adds src/native/java).
+ *
+ * Lombok generates the entities' and models' constructors and accessors, which
+ * Hibernate and Jackson then reach reflectively; repositories are JDK proxies;
+ * controllers carrying @PreAuthorize and the aspects' pointcuts are class
+ * proxies that must be generated at build time. The GraphQL schema is read
+ * from the classpath at startup.
+ */
+@NativeHint(types = @TypeHint(
+    types = {
+        MenuItemReview.class, RecommendationRequest.class, UCSBDate.class, UCSBDiningCommons.class,
+        UCSBDiningCommonsMenuItem.class, UCSBOrganization.class, User.class, OutboxEvent.class, OutboxCursor.class,
+        ArchivedRecommendationRequest.class, IdempotencyKey.class,
+        CurrentUser.class, SystemInfo.class, EntityChangeEvent.class, EntityChangeEvent.Op.class,
+        ConnectionPoolStats.class, CoalescingStats.class, BatchResult.class, Dashboard.class, GraphQLRequest.class,
+        ReviewArchive.class, ReviewWithItem.class, CommonsRating.class, RateLimitProperties.class,
+        RateLimitProperties.Limit.class
+    },
+    access = { TypeAccess.DECLARED_CONSTRUCTORS, TypeAccess.DECLARED_FIELDS, TypeAccess.DECLARED_METHODS,
+        TypeAccess.PUBLIC_METHODS }))
+@NativeHint(types = @TypeHint(types = { LoggingAspect.class, RateLimitAspect.class, CoalescingAspect.class,
+    IdempotencyAspect.class },
+    access = { TypeAccess.DECLARED_CONSTRUCTORS, TypeAccess.DECLARED_METHODS }))
+@NativeHint(jdkProxies = {
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.MenuItemReviewRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" }),
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.RecommendationRequestRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" }),
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.UCSBDateRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" }),
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" }),
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" }),
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" }),
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.UserRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" }),
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.OutboxEventRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" }),
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.OutboxCursorRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" }),
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.ArchivedRecommendationRequestRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" }),
+    @JdkProxyHint(typeNames = { "edu.ucsb.cs156.example.repositories.IdempotencyKeyRepository",
+        "org.springframework.data.repository.Repository",
+        "org.springframework.transaction.interceptor.TransactionalProxy",
+        "org.springframework.aop.framework.Advised", "org.springframework.core.DecoratingProxy" })
+})
+@NativeHint(aotProxies = {
+    @AotProxyHint(targetClass = MenuItemReviewController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = RecommendationRequestController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = UCSBDatesController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = UCSBDiningCommonsController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = UCSBDiningCommonsMenuItemController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = UCSBOrganizationController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = UserInfoController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = UsersController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = ChangesController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = ConnectionPoolController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = CoalescingController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = OutboxController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = DashboardController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = GraphQLController.class, proxyFeatures = ProxyBits.IS_STATIC),
+    @AotProxyHint(targetClass = MenuItemReviewArchiveController.class, proxyFeatures = ProxyBits.IS_STATIC)
+})
+@NativeHint(resources = @ResourceHint(patterns = { "graphql/.*\\.graphqls", "db/migration/.*\\.sql" }))
+@Configuration(proxyBeanMethods = false)
+public class NativeHintsConfig {}
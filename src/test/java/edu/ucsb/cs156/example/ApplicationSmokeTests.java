@@ -0,0 +1,360 @@
+package edu.ucsb.cs156.example;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import edu.ucsb.cs156.example.services.RecommendationRequestArchiver;
+import edu.ucsb.cs156.example.services.ReferenceFilter;
+import edu.ucsb.cs156.example.services.ReviewArchiver;
+
+/**
+ * Boots the whole application against an in-memory H2 database and drives
+ * each controller through its real repositories. Run on the JVM by default
+ * and as a native executable by mvn -Pnative test.
+ */
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:smoke;DB_CLOSE_DELAY=-1", "app.outbox.gap-window=0s",
+    "app.reviews.archive.dir=target/smoke-review-archive" })
+@AutoConfigureMockMvc
+@WithMockUser(roles = { "ADMIN", "USER" })
+class ApplicationSmokeTests {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Autowired
+  ReviewArchiver reviewArchiver;
+
+  @Autowired
+  RecommendationRequestArchiver recommendationRequestArchiver;
+
+  @Autowired
+  ReferenceFilter referenceFilter;
+
+  private Map<String, Object> ok(MockHttpServletRequestBuilder request) throws Exception {
+    String body = mockMvc.perform(request.with(csrf()))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return mapper.readValue(body, Map.class);
+  }
+
+  // menu items must name a dining commons that exists
+  private void diningCommons(String code) throws Exception {
+    ok(post("/api/ucsbdiningcommons/post?code=" + code + "&name=" + code + "&hasSackMeal=false&hasTakeOutMeal=false"
+        + "&hasDiningCam=false&latitude=34.41&longitude=-119.85"));
+  }
+
+  private MockHttpServletRequestBuilder putJson(String url, String json) {
+    return put(url).contentType(MediaType.APPLICATION_JSON).content(json);
+  }
+
+  @Test
+  void ucsb_dates() throws Exception {
+    Object id = ok(post("/api/ucsbdates/post?quarterYYYYQ=20221&name=noon&localDateTime=2022-01-03T12:00:00")).get("id");
+
+    mockMvc.perform(get("/api/ucsbdates/all")).andExpect(status().isOk());
+    assertEquals("noon", ok(get("/api/ucsbdates?id=" + id)).get("name"));
+    assertEquals(List.of(0), ok(get("/api/ucsbdates/batch?ids=0," + id)).get("missing"));
+    assertEquals("20222", ok(putJson("/api/ucsbdates?id=" + id,
+        "{\"quarterYYYYQ\":\"20222\",\"name\":\"noon\",\"localDateTime\":\"2022-04-03T12:00:00\"}")).get("quarterYYYYQ"));
+    ok(delete("/api/ucsbdates?id=" + id));
+    mockMvc.perform(get("/api/ucsbdates?id=" + id)).andExpect(status().isNotFound());
+  }
+
+  @Test
+  void ucsb_dining_commons() throws Exception {
+    ok(post("/api/ucsbdiningcommons/post?code=smoke-ortega&name=Ortega&hasSackMeal=true&hasTakeOutMeal=true"
+        + "&hasDiningCam=false&latitude=34.41&longitude=-119.85"));
+
+    mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.code == 'smoke-ortega')].name").value("Ortega"));
+    assertEquals("Ortega", ok(get("/api/ucsbdiningcommons?code=smoke-ortega")).get("name"));
+    assertEquals(true, ok(putJson("/api/ucsbdiningcommons?code=smoke-ortega",
+        "{\"name\":\"Ortega\",\"hasSackMeal\":true,\"hasTakeOutMeal\":true,\"hasDiningCam\":true,"
+            + "\"latitude\":34.41,\"longitude\":-119.85}")).get("hasDiningCam"));
+    ok(delete("/api/ucsbdiningcommons?code=smoke-ortega"));
+  }
+
+  @Test
+  void ucsb_dining_commons_menu_items() throws Exception {
+    diningCommons("ortega");
+    Object id = ok(post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=ortega&name=Burrito&station=Grill")).get("id");
+
+    mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/all")).andExpect(status().isOk());
+    assertEquals("Burrito", ok(get("/api/UCSBDiningCommonsMenuItem?id=" + id)).get("name"));
+    assertEquals("Salads", ok(putJson("/api/UCSBDiningCommonsMenuItem?id=" + id,
+        "{\"diningCommonsCode\":\"ortega\",\"name\":\"Burrito\",\"station\":\"Salads\"}")).get("station"));
+    ok(delete("/api/UCSBDiningCommonsMenuItem?id=" + id));
+  }
+
+  @Test
+  void ucsb_organizations() throws Exception {
+    ok(post("/api/UCSBOrganization/post?orgCode=SMOKE&orgTranslationShort=SMOKE&orgTranslation=Smoke Test Club&inactive=false"));
+
+    mockMvc.perform(get("/api/UCSBOrganization/all"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.orgCode == 'SMOKE')].orgTranslationShort").value("SMOKE"));
+    assertEquals("Smoke Test Club", ok(get("/api/UCSBOrganization?orgCode=SMOKE")).get("orgTranslation"));
+    assertEquals(true, ok(putJson("/api/UCSBOrganization?orgCode=SMOKE",
+        "{\"orgTranslationShort\":\"SMOKE\",\"orgTranslation\":\"Smoke Test Club\",\"inactive\":true}")).get("inactive"));
+    ok(delete("/api/UCSBOrganization?orgCode=SMOKE"));
+  }
+
+  @Test
+  void recommendation_requests() throws Exception {
+    Object id = ok(post("/api/RecommendationRequest/post?requesterEmail=student@ucsb.edu&professorEmail=prof@ucsb.edu"
+        + "&explanation=grad school&dateRequested=2022-01-03T00:00:00&dateNeeded=2022-02-03T00:00:00&done=false")).get("id");
+
+    mockMvc.perform(get("/api/RecommendationRequest/all")).andExpect(status().isOk());
+    assertEquals("prof@ucsb.edu", ok(get("/api/RecommendationRequest?id=" + id)).get("professorEmail"));
+    assertEquals(true, ok(putJson("/api/RecommendationRequest?id=" + id,
+        "{\"requesterEmail\":\"student@ucsb.edu\",\"professorEmail\":\"prof@ucsb.edu\",\"explanation\":\"grad school\","
+            + "\"dateRequested\":\"2022-01-03T00:00:00\",\"dateNeeded\":\"2022-02-03T00:00:00\",\"done\":true}")).get("done"));
+    ok(delete("/api/RecommendationRequest?id=" + id));
+  }
+
+  @Test
+  void menu_item_reviews() throws Exception {
+    diningCommons("carrillo");
+    Object itemId = ok(post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=carrillo&name=Pho&station=Noodles")).get("id");
+    Object id = ok(post("/api/menuitemreview/post?itemId=" + itemId + "&reviewerEmail=student@ucsb.edu&stars=4"
+        + "&dateReviewed=2022-01-03T12:00:00&comments=good")).get("id");
+
+    mockMvc.perform(get("/api/menuitemreview/all")).andExpect(status().isOk());
+    assertEquals(4, ok(get("/api/menuitemreview?id=" + id)).get("stars"));
+    assertEquals(5, ok(putJson("/api/menuitemreview?id=" + id,
+        "{\"itemId\":" + itemId + ",\"reviewerEmail\":\"student@ucsb.edu\",\"stars\":5,"
+            + "\"dateReviewed\":\"2022-01-03T12:00:00\",\"comments\":\"better\"}")).get("stars"));
+    ok(delete("/api/menuitemreview?id=" + id));
+  }
+
+  @Test
+  void review_page_carries_item_and_commons_and_reviews_need_an_item() throws Exception {
+    ok(post("/api/ucsbdiningcommons/post?code=smoke-page&name=Page Commons&hasSackMeal=false&hasTakeOutMeal=false"
+        + "&hasDiningCam=false&latitude=34.41&longitude=-119.85"));
+    Object itemId = ok(post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=smoke-page&name=Curry&station=Wok")).get("id");
+    Object id = ok(post("/api/menuitemreview/post?itemId=" + itemId + "&reviewerEmail=page@ucsb.edu&stars=5"
+        + "&dateReviewed=2099-01-03T12:00:00&comments=newest")).get("id");
+
+    mockMvc.perform(get("/api/menuitemreview/page?size=1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id").value(id))
+        .andExpect(jsonPath("$[0].itemName").value("Curry"))
+        .andExpect(jsonPath("$[0].station").value("Wok"))
+        .andExpect(jsonPath("$[0].diningCommonsName").value("Page Commons"));
+
+    mockMvc.perform(delete("/api/UCSBDiningCommonsMenuItem?id=" + itemId).with(csrf()))
+        .andExpect(status().isConflict());
+    referenceFilter.rebuild();
+    mockMvc.perform(post("/api/menuitemreview/post?itemId=999999&reviewerEmail=page@ucsb.edu&stars=1"
+            + "&dateReviewed=2022-01-03T12:00:00&comments=nothing").with(csrf()))
+        .andExpect(status().isNotFound());
+    // a deleted item stays in the filter, so the foreign key rejects this one
+    Object goneId = ok(post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=smoke-page&name=Gone&station=Wok")).get("id");
+    ok(delete("/api/UCSBDiningCommonsMenuItem?id=" + goneId));
+    mockMvc.perform(post("/api/menuitemreview/post?itemId=" + goneId + "&reviewerEmail=page@ucsb.edu&stars=1"
+            + "&dateReviewed=2022-01-03T12:00:00&comments=gone").with(csrf()))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.message").value("UCSBDiningCommonsMenuItem with id " + goneId + " not found"));
+    mockMvc.perform(post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=nowhere&name=Air&station=None").with(csrf()))
+        .andExpect(status().isNotFound());
+    ok(delete("/api/menuitemreview?id=" + id));
+  }
+
+  @Test
+  void leaderboard_follows_review_changes_and_item_moves() throws Exception {
+    diningCommons("smoke-rank-a");
+    diningCommons("smoke-rank-b");
+    Object itemId = ok(post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=smoke-rank-a&name=Ramen&station=Noodles")).get("id");
+    ok(post("/api/menuitemreview/post?itemId=" + itemId + "&reviewerEmail=rank@ucsb.edu&stars=2"
+        + "&dateReviewed=2022-01-03T12:00:00&comments=fine"));
+    Object id = ok(post("/api/menuitemreview/post?itemId=" + itemId + "&reviewerEmail=rank@ucsb.edu&stars=3"
+        + "&dateReviewed=2022-01-04T12:00:00&comments=ok")).get("id");
+
+    mockMvc.perform(get("/api/ucsbdiningcommons/leaderboard?limit=100"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.diningCommonsCode == 'smoke-rank-a')].averageStars").value(contains(2.5)));
+
+    ok(putJson("/api/menuitemreview?id=" + id, "{\"itemId\":" + itemId + ",\"reviewerEmail\":\"rank@ucsb.edu\","
+        + "\"stars\":5,\"dateReviewed\":\"2022-01-04T12:00:00\",\"comments\":\"better\"}"));
+    mockMvc.perform(get("/api/ucsbdiningcommons/leaderboard?limit=100"))
+        .andExpect(jsonPath("$[?(@.diningCommonsCode == 'smoke-rank-a')].averageStars").value(contains(3.5)));
+
+    ok(putJson("/api/UCSBDiningCommonsMenuItem?id=" + itemId,
+        "{\"diningCommonsCode\":\"smoke-rank-b\",\"name\":\"Ramen\",\"station\":\"Noodles\"}"));
+    mockMvc.perform(get("/api/ucsbdiningcommons/leaderboard?limit=100"))
+        .andExpect(jsonPath("$[?(@.diningCommonsCode == 'smoke-rank-a')]").isEmpty())
+        .andExpect(jsonPath("$[?(@.diningCommonsCode == 'smoke-rank-b')].reviewCount").value(contains(2)));
+  }
+
+  // compared as JSON text, since a binary parser may report a small long as a LongNode
+  private String read(String url, MediaType accept, ObjectMapper reader) throws Exception {
+    byte[] body = mockMvc.perform(get(url).accept(accept))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(accept))
+        .andReturn().getResponse().getContentAsByteArray();
+    return reader.readTree(body).toString();
+  }
+
+  @Test
+  void binary_formats_encode_the_same_tree_as_json() throws Exception {
+    diningCommons("dlg");
+    Object itemId = ok(post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=dlg&name=Tacos&station=Grill")).get("id");
+    ok(post("/api/menuitemreview/post?itemId=" + itemId + "&reviewerEmail=student@ucsb.edu&stars=2"
+        + "&dateReviewed=2022-01-03T12:00:00&comments=cold"));
+    ok(post("/api/RecommendationRequest/post?requesterEmail=student@ucsb.edu&professorEmail=prof@ucsb.edu"
+        + "&explanation=binary&dateRequested=2022-01-03T00:00:00&dateNeeded=2022-02-03T00:00:00&done=false"));
+    MediaType smile = MediaType.valueOf("application/x-jackson-smile");
+    MediaType cbor = MediaType.valueOf("application/cbor");
+
+    for (String url : List.of("/api/menuitemreview/all", "/api/RecommendationRequest/all")) {
+      String json = read(url, MediaType.APPLICATION_JSON, mapper);
+      assertEquals(json, read(url, smile, new ObjectMapper(new SmileFactory())));
+      assertEquals(json, read(url, cbor, new ObjectMapper(new CBORFactory())));
+      mockMvc.perform(get(url).accept(MediaType.ALL))
+          .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+  }
+
+  @Test
+  void old_review_quarters_are_archived_and_streamed_back() throws Exception {
+    diningCommons("ortega");
+    Object itemId = ok(post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=ortega&name=Soup&station=Soups")).get("id");
+    Object id = ok(post("/api/menuitemreview/post?itemId=" + itemId + "&reviewerEmail=archive@ucsb.edu&stars=1"
+        + "&dateReviewed=2001-05-01T12:00:00&comments=old")).get("id");
+
+    reviewArchiver.archive();
+
+    mockMvc.perform(get("/api/menuitemreview?id=" + id)).andExpect(status().isNotFound());
+    mockMvc.perform(get("/api/menuitemreview/archive"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.quarter == '2001q2')]").exists());
+    MvcResult started = mockMvc.perform(get("/api/menuitemreview/archive/2001q2"))
+        .andExpect(request().asyncStarted()).andReturn();
+    mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("\"reviewerEmail\":\"archive@ucsb.edu\"")));
+  }
+
+  @Test
+  void done_recommendation_requests_move_to_the_archive_table() throws Exception {
+    Object id = ok(post("/api/RecommendationRequest/post?requesterEmail=archive@ucsb.edu&professorEmail=prof@ucsb.edu"
+        + "&explanation=old&dateRequested=2001-01-03T00:00:00&dateNeeded=2001-02-03T00:00:00&done=true")).get("id");
+
+    recommendationRequestArchiver.archive();
+
+    assertEquals("archive@ucsb.edu", ok(get("/api/RecommendationRequest?id=" + id)).get("requesterEmail"));
+    mockMvc.perform(get("/api/RecommendationRequest/all"))
+        .andExpect(jsonPath("$[?(@.id == " + id + ")]").isEmpty());
+    mockMvc.perform(get("/api/RecommendationRequest/all?includeArchived=true"))
+        .andExpect(jsonPath("$[?(@.id == " + id + ")].requesterEmail").value(contains("archive@ucsb.edu")));
+    mockMvc.perform(get("/api/RecommendationRequest/batch?ids=" + id))
+        .andExpect(jsonPath("$.found[0].id").value(id));
+    mockMvc.perform(putJson("/api/RecommendationRequest?id=" + id, "{\"requesterEmail\":\"x@ucsb.edu\"}").with(csrf()))
+        .andExpect(status().isConflict());
+    ok(delete("/api/RecommendationRequest?id=" + id));
+    mockMvc.perform(get("/api/RecommendationRequest?id=" + id)).andExpect(status().isNotFound());
+  }
+
+  @Test
+  void retried_posts_with_an_idempotency_key_insert_once() throws Exception {
+    String url = "/api/ucsbdates/post?quarterYYYYQ=20223&name=retried&localDateTime=2022-09-22T08:00:00";
+    Object id = ok(post(url).header("Idempotency-Key", "smoke-retry")).get("id");
+
+    MvcResult retry = mockMvc.perform(post(url).header("Idempotency-Key", "smoke-retry").with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Idempotent-Replayed", "true"))
+        .andReturn();
+    assertEquals(id, mapper.readValue(retry.getResponse().getContentAsString(), Map.class).get("id"));
+    mockMvc.perform(post(url.replace("retried", "changed")).header("Idempotency-Key", "smoke-retry").with(csrf()))
+        .andExpect(status().isUnprocessableEntity());
+    mockMvc.perform(get("/api/ucsbdates/all"))
+        .andExpect(jsonPath("$[?(@.name == 'retried')].id").value(contains(id)));
+  }
+
+  // method security runs before the idempotency and rate limit aspects, so
+  // these don't use up the 10 posts a minute a user may make; the 11th would
+  // otherwise get 429
+  @Test
+  @WithMockUser(username = "forbidden@ucsb.edu", roles = { "USER" })
+  void posts_without_the_role_claim_no_key_and_spend_no_tokens() throws Exception {
+    for (int i = 0; i < 12; i++) {
+      mockMvc.perform(post("/api/menuitemreview/post?itemId=1&reviewerEmail=forbidden@ucsb.edu&stars=1"
+              + "&dateReviewed=2022-01-03T12:00:00&comments=no").header("Idempotency-Key", "smoke-forbidden")
+              .with(csrf()))
+          .andExpect(status().isForbidden());
+    }
+  }
+
+  @Test
+  void outbox_records_each_committed_change() throws Exception {
+    Object id = ok(post("/api/ucsbdates/post?quarterYYYYQ=20223&name=outbox&localDateTime=2022-09-03T12:00:00")).get("id");
+    ok(delete("/api/ucsbdates?id=" + id));
+
+    mockMvc.perform(get("/api/outbox?limit=500"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[?(@.entityType == 'UCSBDate' && @.entityId == '" + id + "')].op")
+            .value(contains("CREATE", "DELETE")));
+  }
+
+  @Test
+  void graphql_resolves_nested_relations() throws Exception {
+    diningCommons("portola");
+    Object itemId = ok(post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=portola&name=Ramen&station=Noodles")).get("id");
+    ok(post("/api/menuitemreview/post?itemId=" + itemId + "&reviewerEmail=student@ucsb.edu&stars=3"
+        + "&dateReviewed=2022-01-03T12:00:00&comments=ok"));
+
+    mockMvc.perform(post("/api/graphql").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+            .content("{\"query\":\"{ menuItems(ids: [\\\"" + itemId + "\\\"]) { name reviews(first: 1) { stars } }"
+                + " diningCommons(codes: [\\\"portola\\\"]) { menuItems(first: 5) { name } } }\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.errors").doesNotExist())
+        .andExpect(jsonPath("$.data.menuItems[0].name").value("Ramen"))
+        .andExpect(jsonPath("$.data.menuItems[0].reviews[0].stars").value(3))
+        .andExpect(jsonPath("$.data.diningCommons[0].menuItems[*].name").value(hasItem("Ramen")));
+  }
+
+  @Test
+  void users_system_info_and_admin_endpoints() throws Exception {
+    mockMvc.perform(get("/api/currentUser")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/systemInfo")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/admin/users")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/admin/pool")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/admin/coalescing")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/dashboard"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.unavailable").isEmpty());
+    mockMvc.perform(get("/api/changes/stream")).andExpect(request().asyncStarted());
+  }
+
+  @Test
+  void ready_after_the_startup_warmup() throws Exception {
+    mockMvc.perform(get("/actuator/health/liveness")).andExpect(jsonPath("$.status").value("UP"));
+    mockMvc.perform(get("/actuator/health/readiness")).andExpect(jsonPath("$.status").value("UP"));
+  }
+}
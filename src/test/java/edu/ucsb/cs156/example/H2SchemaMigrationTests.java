@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example;
+
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest(properties = { "spring.datasource.url=jdbc:h2:mem:schema-h2;DB_CLOSE_DELAY=-1",
+    "spring.jpa.hibernate.ddl-auto=validate" })
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class H2SchemaMigrationTests extends SchemaMigrationTestCase {
+
+  @Override
+  protected String dialect() {
+    return "org.hibernate.dialect.H2Dialect";
+  }
+
+  @Override
+  protected String schema() {
+    return "PUBLIC";
+  }
+
+  // a database of its own
+  @Override
+  protected Location location(String name) {
+    return new Location("jdbc:h2:mem:" + getClass().getSimpleName() + "-" + name + ";DB_CLOSE_DELAY=-1", "PUBLIC");
+  }
+}
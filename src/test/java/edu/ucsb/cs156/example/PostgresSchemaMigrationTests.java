@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.example.services.PostgresRatingLeaderboard;
+
+/**
+ * Runs the postgresql migrations on PostgreSQL 14 with the production
+ * dialect. Needs Docker for the Testcontainers JDBC URL, so it is left out of
+ * mvn test and run by mvn test -Plocalhost,postgres. To use a running server
+ * instead, pass the JDBC URL of an empty database, with its user and password
+ * as URL parameters, in -Dpostgres.url. The tests that need a second schema
+ * create it in the same database.
+ */
+@Tag("postgres")
+@DataJpaTest(properties = {
+    "spring.datasource.url=${postgres.url:jdbc:tc:postgresql:14-alpine:///schema_migrations?TC_DAEMON=true}",
+    "spring.flyway.locations=classpath:db/migration/common,classpath:db/migration/postgresql",
+    "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQL95Dialect",
+    "spring.jpa.hibernate.ddl-auto=validate" })
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class PostgresSchemaMigrationTests extends SchemaMigrationTestCase {
+
+  @Value("${spring.datasource.url}")
+  String url;
+
+  @Override
+  protected String dialect() {
+    return "org.hibernate.dialect.PostgreSQL95Dialect";
+  }
+
+  @Override
+  protected String schema() {
+    return "public";
+  }
+
+  @Override
+  protected Location location(String name) {
+    return new Location(url, name);
+  }
+
+  // version 10 creates the view with the unique index a concurrent refresh needs
+  @Test
+  void leaderboard_view_can_be_refreshed_concurrently_and_read() {
+    new JdbcTemplate(dataSource).execute("REFRESH MATERIALIZED VIEW CONCURRENTLY commons_rating");
+
+    assertEquals(List.of(), new PostgresRatingLeaderboard(dataSource).top(10));
+  }
+
+  // menuitemreview is partitioned by date_reviewed (version 9), so its id is
+  // only unique together with it
+  @Override
+  protected List<String> migrated(List<String> hibernate) {
+    List<String> lines = new ArrayList<>(hibernate);
+    lines.removeAll(List.of("primary key menuitemreview.id", "index menuitemreview_pkey on menuitemreview.id"));
+    lines.addAll(List.of("index menuitemreview_id_date_reviewed on menuitemreview.id",
+        "index menuitemreview_id_date_reviewed on menuitemreview.date_reviewed"));
+    lines.sort(null);
+    return lines;
+  }
+
+  @Override
+  protected List<String> partitions(Connection connection, String schema) throws SQLException {
+    List<String> partitions = new ArrayList<>();
+    try (PreparedStatement statement = connection.prepareStatement("SELECT c.relname FROM pg_class c"
+        + " JOIN pg_namespace n ON n.oid = c.relnamespace WHERE c.relispartition AND n.nspname = ?")) {
+      statement.setString(1, schema);
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          partitions.add(rs.getString(1));
+        }
+      }
+    }
+    return partitions;
+  }
+}
@@ -0,0 +1,207 @@
+package edu.ucsb.cs156.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.hibernate.tool.schema.TargetType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+
+/**
+ * Migrates an empty database with Flyway and starts JPA on it with
+ * ddl-auto=validate, which fails the context if a mapped table or column is
+ * missing or has the wrong type. Then compares the migrated schema with the
+ * one Hibernate itself would create for the same dialect, which also catches
+ * what validate ignores: nullability, lengths, indexes, foreign keys and
+ * tables no entity maps.
+ */
+public abstract class SchemaMigrationTestCase {
+
+  @Autowired
+  Flyway flyway;
+
+  @Autowired
+  DataSource dataSource;
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  /** The Hibernate dialect the schema is created for. */
+  protected abstract String dialect();
+
+  /** The schema the application's datasource is migrated in. */
+  protected abstract String schema();
+
+  /** An empty schema of its own for the test to create tables in. */
+  protected abstract Location location(String name);
+
+  /** A JDBC URL, taking no separate user or password, and a schema in that database. */
+  protected record Location(String url, String schema) {
+  }
+
+  /** The schema the migrations leave, given the one Hibernate creates. */
+  protected List<String> migrated(List<String> hibernate) {
+    return hibernate;
+  }
+
+  /** Tables that are partitions of another, which describe() leaves out. */
+  protected List<String> partitions(Connection connection, String schema) throws SQLException {
+    return List.of();
+  }
+
+  @Test
+  void every_migration_is_applied_and_hibernate_validates_the_result() {
+    assertEquals(0, flyway.info().pending().length);
+    assertEquals("10", flyway.info().current().getVersion().getVersion());
+    assertEquals("validate", entityManagerFactory.getProperties().get(AvailableSettings.HBM2DDL_AUTO));
+  }
+
+  @Test
+  void migrated_schema_matches_the_one_hibernate_creates() throws SQLException {
+    Location hibernate = location("hibernate");
+    createWithHibernate(hibernate);
+
+    List<String> expected;
+    try (Connection connection = DriverManager.getConnection(hibernate.url())) {
+      expected = migrated(describe(connection, hibernate.schema()));
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      assertEquals(expected, describe(connection, schema()));
+    }
+  }
+
+  @Test
+  void database_created_before_the_migrations_gets_every_later_one() throws SQLException {
+    Location baselined = location("baselined");
+    // what ddl-auto=update left behind: the version 4 schema, with no history table
+    Flyway.configure().configuration(flyway.getConfiguration()).dataSource(baselined.url(), "", "")
+        .schemas(baselined.schema()).target(MigrationVersion.fromVersion("4")).load().migrate();
+    try (Connection connection = DriverManager.getConnection(baselined.url());
+        Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE " + baselined.schema() + ".\"flyway_schema_history\"");
+    }
+
+    Flyway.configure().configuration(flyway.getConfiguration()).dataSource(baselined.url(), "", "")
+        .schemas(baselined.schema()).baselineOnMigrate(true).baselineVersion("4").load().migrate();
+
+    List<String> expected;
+    try (Connection connection = dataSource.getConnection()) {
+      expected = describe(connection, schema());
+    }
+    try (Connection connection = DriverManager.getConnection(baselined.url())) {
+      assertEquals(expected, describe(connection, baselined.schema()));
+    }
+  }
+
+  private void createWithHibernate(Location location) throws SQLException {
+    try (Connection connection = DriverManager.getConnection(location.url());
+        Statement statement = connection.createStatement()) {
+      statement.execute("CREATE SCHEMA IF NOT EXISTS " + location.schema());
+    }
+    StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+        .applySetting(AvailableSettings.URL, location.url())
+        .applySetting(AvailableSettings.DIALECT, dialect())
+        .applySetting(AvailableSettings.DEFAULT_SCHEMA, location.schema())
+        .build();
+    try {
+      MetadataSources sources = new MetadataSources(registry);
+      for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+        sources.addAnnotatedClass(entity.getJavaType());
+      }
+      // the naming strategies Spring Boot configures
+      Metadata metadata = sources.getMetadataBuilder()
+          .applyImplicitNamingStrategy(new SpringImplicitNamingStrategy())
+          .applyPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+          .build();
+      new SchemaExport().setHaltOnError(true).createOnly(EnumSet.of(TargetType.DATABASE), metadata);
+    } finally {
+      StandardServiceRegistryBuilder.destroy(registry);
+    }
+  }
+
+  // one line per column, declared index and foreign key, in a stable order
+  List<String> describe(Connection connection, String schema) throws SQLException {
+    DatabaseMetaData metaData = connection.getMetaData();
+    List<String> partitions = partitions(connection, schema);
+    List<String> tables = new ArrayList<>();
+    try (ResultSet rs = metaData.getTables(null, schema, "%", new String[] { "TABLE", "PARTITIONED TABLE" })) {
+      while (rs.next()) {
+        String table = rs.getString("TABLE_NAME").toLowerCase(Locale.ROOT);
+        if (!table.equals("flyway_schema_history") && !partitions.contains(table)) {
+          tables.add(rs.getString("TABLE_NAME"));
+        }
+      }
+    }
+    List<String> lines = new ArrayList<>();
+    for (String table : tables) {
+      String name = table.toLowerCase(Locale.ROOT);
+      try (ResultSet rs = metaData.getColumns(null, schema, table, "%")) {
+        while (rs.next()) {
+          int type = rs.getInt("DATA_TYPE");
+          lines.add(String.format("column %s.%s %s%s%s", name, rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT),
+              TYPE_NAMES.getOrDefault(type, String.valueOf(type)),
+              type == Types.VARCHAR ? "(" + rs.getInt("COLUMN_SIZE") + ")" : "",
+              rs.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls ? " not null" : ""));
+        }
+      }
+      try (ResultSet rs = metaData.getPrimaryKeys(null, schema, table)) {
+        while (rs.next()) {
+          lines.add("primary key " + name + "." + rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+        }
+      }
+      try (ResultSet rs = metaData.getIndexInfo(null, schema, table, false, false)) {
+        while (rs.next()) {
+          // primary keys and the indexes H2 adds for foreign keys have generated names
+          String index = rs.getString("INDEX_NAME").toLowerCase(Locale.ROOT);
+          if (!index.startsWith("primary_key") && !index.matches(".*_index_[0-9a-f]+")) {
+            lines.add("index " + index + " on " + name + "." + rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+          }
+        }
+      }
+      try (ResultSet rs = metaData.getImportedKeys(null, schema, table)) {
+        while (rs.next()) {
+          lines.add(String.format("foreign key %s %s.%s -> %s.%s", rs.getString("FK_NAME").toLowerCase(Locale.ROOT),
+              name, rs.getString("FKCOLUMN_NAME").toLowerCase(Locale.ROOT),
+              rs.getString("PKTABLE_NAME").toLowerCase(Locale.ROOT),
+              rs.getString("PKCOLUMN_NAME").toLowerCase(Locale.ROOT)));
+        }
+      }
+    }
+    lines.sort(null);
+    return lines;
+  }
+
+  private static final Map<Integer, String> TYPE_NAMES = Map.of(
+      Types.BIGINT, "bigint",
+      Types.INTEGER, "integer",
+      Types.BOOLEAN, "boolean",
+      Types.DOUBLE, "double",
+      Types.TIMESTAMP, "timestamp",
+      Types.VARCHAR, "varchar");
+}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+
+class CoalescingAspectTests {
+
+  private final CoalescingAspect aspect = new CoalescingAspect();
+  private final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+  private final Coalesced coalesced = mock(Coalesced.class);
+
+  @BeforeEach
+  void setup() {
+    aspect.requestCoalescer = mock(RequestCoalescer.class);
+    aspect.currentUserService = mock(CurrentUserService.class);
+    doReturn(List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")))
+        .when(aspect.currentUserService).getRoles();
+    when(coalesced.timeoutMs()).thenReturn(250L);
+  }
+
+  @AfterEach
+  void clearRequest() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void test_key_is_method_path_sorted_parameters_and_sorted_roles() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/menuitemreview");
+    request.addParameter("sort", "stars", "date");
+    request.addParameter("id", "7");
+
+    assertEquals("GET /api/menuitemreview&id=7&sort=stars,date|ROLE_ADMIN,ROLE_USER", aspect.key(request));
+  }
+
+  @Test
+  void test_coalesces_under_request_key_with_annotation_timeout() throws Throwable {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ucsbdates/all");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    when(aspect.requestCoalescer.execute(eq("GET /api/ucsbdates/all|ROLE_ADMIN,ROLE_USER"), eq(250L), any()))
+        .thenReturn("shared");
+
+    assertEquals("shared", aspect.coalesce(joinPoint, coalesced));
+    verify(joinPoint, never()).proceed();
+  }
+
+  @Test
+  void test_proceeds_directly_outside_a_request() throws Throwable {
+    when(joinPoint.proceed()).thenReturn("direct");
+
+    assertEquals("direct", aspect.coalesce(joinPoint, coalesced));
+    verify(aspect.requestCoalescer, never()).execute(any(), eq(250L), any());
+  }
+
+  @Test
+  void test_runs_inside_the_rate_limiter_and_outside_the_transaction() {
+    int order = OrderUtils.getOrder(CoalescingAspect.class, Ordered.LOWEST_PRECEDENCE);
+
+    assertTrue(order > OrderUtils.getOrder(RateLimitAspect.class, Ordered.LOWEST_PRECEDENCE));
+    assertTrue(order < Ordered.LOWEST_PRECEDENCE);
+  }
+}
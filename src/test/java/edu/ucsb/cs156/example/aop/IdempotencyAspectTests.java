@@ -0,0 +1,144 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.IdempotencyService;
+
+class IdempotencyAspectTests {
+
+  private final IdempotencyAspect aspect = new IdempotencyAspect();
+  private final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+  private final MethodSignature signature = mock(MethodSignature.class);
+  private final Idempotent idempotent = mock(Idempotent.class);
+
+  static class Handler {
+    public UCSBDate post() {
+      return null;
+    }
+  }
+
+  @BeforeEach
+  void setup() throws NoSuchMethodException {
+    aspect.idempotencyService = mock(IdempotencyService.class);
+    aspect.currentUserService = mock(CurrentUserService.class);
+    when(aspect.currentUserService.getPrincipalName()).thenReturn("admin@ucsb.edu");
+    when(joinPoint.getSignature()).thenReturn(signature);
+    when(signature.getMethod()).thenReturn(Handler.class.getMethod("post"));
+  }
+
+  @AfterEach
+  void clearRequest() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private static MockHttpServletRequest post(String key) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/ucsbdates/post");
+    request.addParameter("quarterYYYYQ", "20231");
+    request.addParameter("name", "firstDayOfClasses");
+    if (key != null) {
+      request.addHeader(IdempotencyService.HEADER, key);
+    }
+    return request;
+  }
+
+  @Test
+  void test_proceeds_directly_without_the_header() throws Throwable {
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(post(null)));
+    when(joinPoint.proceed()).thenReturn("direct");
+
+    assertEquals("direct", aspect.idempotent(joinPoint, idempotent));
+    verify(aspect.idempotencyService, never()).execute(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void test_proceeds_directly_outside_a_request() throws Throwable {
+    when(joinPoint.proceed()).thenReturn("direct");
+
+    assertEquals("direct", aspect.idempotent(joinPoint, idempotent));
+    verify(aspect.idempotencyService, never()).execute(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void test_blank_and_overlong_keys_are_rejected() {
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(post(" ")));
+    ResponseStatusException blank = assertThrows(ResponseStatusException.class,
+        () -> aspect.idempotent(joinPoint, idempotent));
+    assertEquals(HttpStatus.BAD_REQUEST, blank.getStatus());
+
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(post("k".repeat(256))));
+    ResponseStatusException overlong = assertThrows(ResponseStatusException.class,
+        () -> aspect.idempotent(joinPoint, idempotent));
+    assertEquals(HttpStatus.BAD_REQUEST, overlong.getStatus());
+  }
+
+  @Test
+  void test_executes_under_the_scoped_key_and_marks_replays() throws Throwable {
+    MockHttpServletRequest request = post("abc");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    when(aspect.idempotencyService.execute(eq(aspect.id(request, "abc")), eq(aspect.fingerprint(request)),
+        eq(UCSBDate.class), any(), any())).thenAnswer(invocation -> {
+          invocation.getArgument(4, Runnable.class).run();
+          return "replayed";
+        });
+
+    assertEquals("replayed", aspect.idempotent(joinPoint, idempotent));
+    assertEquals("true", response.getHeader(IdempotencyService.REPLAYED_HEADER));
+  }
+
+  @Test
+  void test_keys_are_scoped_to_the_user_and_the_path() {
+    MockHttpServletRequest request = post("abc");
+    String id = aspect.id(request, "abc");
+
+    assertEquals(64, id.length());
+    assertNotEquals(id, aspect.id(request, "abd"));
+    assertNotEquals(id, aspect.id(new MockHttpServletRequest("POST", "/api/ucsborganization/post"), "abc"));
+    when(aspect.currentUserService.getPrincipalName()).thenReturn("other@ucsb.edu");
+    assertNotEquals(id, aspect.id(request, "abc"));
+  }
+
+  @Test
+  void test_fingerprint_ignores_parameter_order_but_not_values() {
+    MockHttpServletRequest reordered = new MockHttpServletRequest("POST", "/api/ucsbdates/post");
+    reordered.addParameter("name", "firstDayOfClasses");
+    reordered.addParameter("quarterYYYYQ", "20231");
+    MockHttpServletRequest changed = post(null);
+    changed.setParameter("name", "lastDayOfClasses");
+
+    assertEquals(aspect.fingerprint(post(null)), aspect.fingerprint(reordered));
+    assertNotEquals(aspect.fingerprint(post(null)), aspect.fingerprint(changed));
+  }
+
+  @Test
+  void test_fingerprint_ignores_the_csrf_token() {
+    MockHttpServletRequest first = post(null);
+    first.addParameter("_csrf", "token-1");
+    MockHttpServletRequest retry = post(null);
+    retry.addParameter("_csrf", "token-2");
+
+    assertEquals(aspect.fingerprint(first), aspect.fingerprint(retry));
+  }
+}
@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.OrderUtils;
+
+import edu.ucsb.cs156.example.errors.TooManyRequestsException;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.RateLimiterService;
+
+class RateLimitAspectTests {
+
+  private final RateLimitAspect aspect = new RateLimitAspect();
+  private final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+  private final RateLimited rateLimited = mock(RateLimited.class);
+
+  @BeforeEach
+  void setup() {
+    aspect.rateLimiterService = mock(RateLimiterService.class);
+    aspect.currentUserService = mock(CurrentUserService.class);
+    when(aspect.currentUserService.getPrincipalName()).thenReturn("alice");
+    when(rateLimited.value()).thenReturn("review-post");
+  }
+
+  @Test
+  void test_proceeds_when_token_available() throws Throwable {
+    when(aspect.rateLimiterService.tryAcquire(eq("review-post"), eq("alice"), any())).thenReturn(0L);
+    when(joinPoint.proceed()).thenReturn("saved");
+
+    assertEquals("saved", aspect.limit(joinPoint, rateLimited));
+  }
+
+  @Test
+  void test_throws_with_retry_after_rounded_up_to_seconds() throws Throwable {
+    when(aspect.rateLimiterService.tryAcquire(eq("review-post"), eq("alice"), any()))
+        .thenReturn(TimeUnit.MILLISECONDS.toNanos(1500));
+
+    TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+        () -> aspect.limit(joinPoint, rateLimited));
+
+    assertEquals(2, e.getRetryAfterSeconds());
+    assertEquals("rate limit exceeded for review-post", e.getMessage());
+    verify(joinPoint, never()).proceed();
+  }
+
+  @Test
+  void test_runs_inside_idempotency_and_outside_the_transaction() {
+    int order = OrderUtils.getOrder(RateLimitAspect.class, Ordered.LOWEST_PRECEDENCE);
+
+    assertTrue(order > OrderUtils.getOrder(IdempotencyAspect.class, Ordered.LOWEST_PRECEDENCE));
+    assertTrue(order < Ordered.LOWEST_PRECEDENCE);
+  }
+}
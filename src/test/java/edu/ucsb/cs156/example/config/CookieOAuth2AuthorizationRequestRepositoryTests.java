@@ -0,0 +1,123 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import javax.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+class CookieOAuth2AuthorizationRequestRepositoryTests {
+
+  private final SessionTokenCodec codec = new SessionTokenCodec(SessionTokenCodecTests.SECRET, Duration.ofHours(8),
+      Duration.ofDays(7));
+  private final CookieOAuth2AuthorizationRequestRepository repository =
+      new CookieOAuth2AuthorizationRequestRepository(codec);
+
+  private final OAuth2AuthorizationRequest authorizationRequest = OAuth2AuthorizationRequest.authorizationCode()
+      .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+      .clientId("client")
+      .redirectUri("http://localhost:8080/login/oauth2/code/google")
+      .state("state-123")
+      .build();
+
+  // the Google callback carrying the cookie set when the login started
+  private MockHttpServletRequest callback(String state) {
+    MockHttpServletResponse started = new MockHttpServletResponse();
+    repository.saveAuthorizationRequest(authorizationRequest, new MockHttpServletRequest(), started);
+    String value = started.getHeader("Set-Cookie").split(";")[0].split("=", 2)[1];
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/login/oauth2/code/google");
+    request.setParameter("state", state);
+    request.setCookies(new Cookie(CookieOAuth2AuthorizationRequestRepository.COOKIE_NAME, value));
+    return request;
+  }
+
+  @Test
+  void test_save_sets_short_lived_cookie() {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    repository.saveAuthorizationRequest(authorizationRequest, new MockHttpServletRequest(), response);
+
+    String header = response.getHeader("Set-Cookie");
+    assertTrue(header.startsWith(CookieOAuth2AuthorizationRequestRepository.COOKIE_NAME + "="));
+    assertTrue(header.contains("Max-Age=300"));
+    assertTrue(header.contains("HttpOnly"));
+  }
+
+  @Test
+  void test_callback_with_matching_state_loads_and_removes() {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockHttpServletRequest request = callback("state-123");
+
+    assertEquals("state-123", repository.loadAuthorizationRequest(request).getState());
+    assertEquals("client", repository.removeAuthorizationRequest(request, response).getClientId());
+    assertTrue(response.getHeader("Set-Cookie").contains("Max-Age=0"));
+    assertEquals("client", repository.removeAuthorizationRequest(request).getClientId());
+  }
+
+  @Test
+  void test_mismatched_state_missing_cookie_or_forged_cookie_load_nothing() {
+    assertNull(repository.loadAuthorizationRequest(callback("other-state")));
+
+    MockHttpServletRequest noCookie = new MockHttpServletRequest();
+    noCookie.setParameter("state", "state-123");
+    assertNull(repository.loadAuthorizationRequest(noCookie));
+
+    MockHttpServletRequest noState = callback("state-123");
+    noState.removeParameter("state");
+    assertNull(repository.loadAuthorizationRequest(noState));
+
+    MockHttpServletRequest forged = new MockHttpServletRequest();
+    forged.setParameter("state", "state-123");
+    forged.setCookies(new Cookie(CookieOAuth2AuthorizationRequestRepository.COOKIE_NAME, "rO0ABX.forged"));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertNull(repository.removeAuthorizationRequest(forged, response));
+    assertNull(response.getHeader("Set-Cookie"));
+  }
+
+  @Test
+  void test_session_token_or_unreadable_payload_is_not_an_authorization_request() {
+    MockHttpServletRequest session = new MockHttpServletRequest();
+    session.setParameter("state", "state-123");
+    session.setCookies(new Cookie(CookieOAuth2AuthorizationRequestRepository.COOKIE_NAME,
+        codec.encode(SessionTokenCodecTests.googleLogin())));
+    assertNull(repository.loadAuthorizationRequest(session));
+
+    // correctly signed, but not a serialized authorization request
+    MockHttpServletRequest garbage = new MockHttpServletRequest();
+    garbage.setParameter("state", "state-123");
+    garbage.setCookies(new Cookie(CookieOAuth2AuthorizationRequestRepository.COOKIE_NAME,
+        codec.sign(CookieOAuth2AuthorizationRequestRepository.PURPOSE, "not java".getBytes(), Duration.ofMinutes(5))));
+    assertNull(repository.loadAuthorizationRequest(garbage));
+  }
+
+  @Test
+  void test_expired_cookie_loads_nothing() {
+    MockHttpServletRequest request = callback("state-123");
+    CookieOAuth2AuthorizationRequestRepository later = new CookieOAuth2AuthorizationRequestRepository(
+        new SessionTokenCodec(SessionTokenCodecTests.SECRET, Duration.ofHours(8), Duration.ofDays(7),
+            Clock.fixed(Instant.now().plus(Duration.ofMinutes(6)), ZoneOffset.UTC)));
+
+    assertEquals("state-123", repository.loadAuthorizationRequest(request).getState());
+    assertNull(later.loadAuthorizationRequest(request));
+  }
+
+  @Test
+  void test_saving_null_clears_cookie() {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    repository.saveAuthorizationRequest(null, new MockHttpServletRequest(), response);
+
+    assertTrue(response.getHeader("Set-Cookie").contains("Max-Age=0"));
+  }
+}
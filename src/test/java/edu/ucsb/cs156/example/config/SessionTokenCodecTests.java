@@ -0,0 +1,182 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+
+class SessionTokenCodecTests {
+
+  static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+  static OAuth2AuthenticationToken googleLogin() {
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("sub", "115856948234298493496");
+    attributes.put("email", "cgaucho@ucsb.edu");
+    attributes.put("name", "Chris Gaucho");
+    attributes.put("given_name", "Chris");
+    attributes.put("family_name", "Gaucho");
+    attributes.put("picture", "https://example.org/cgaucho.jpg");
+    attributes.put("email_verified", true);
+    attributes.put("locale", "en");
+    attributes.put("hd", "ucsb.edu");
+    attributes.put("at_hash", "not carried over");
+    List<GrantedAuthority> authorities = List.of(
+        new OAuth2UserAuthority(attributes),
+        new SimpleGrantedAuthority("SCOPE_email"),
+        new SimpleGrantedAuthority("ROLE_ADMIN"),
+        new SimpleGrantedAuthority("ROLE_MEMBER"));
+    return new OAuth2AuthenticationToken(new DefaultOAuth2User(authorities, attributes, "sub"), authorities, "google");
+  }
+
+  private static Clock at(long epochSecond) {
+    return Clock.fixed(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+  }
+
+  @Test
+  void test_round_trip_keeps_attributes_roles_and_registration() {
+    SessionTokenCodec codec = new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7), at(1_700_000_000L));
+
+    SessionTokenCodec.Decoded decoded = codec.decode(codec.encode(googleLogin())).orElseThrow();
+    OAuth2AuthenticationToken authentication = decoded.getAuthentication();
+
+    assertEquals("115856948234298493496", authentication.getName());
+    assertEquals("google", authentication.getAuthorizedClientRegistrationId());
+    assertEquals("cgaucho@ucsb.edu", authentication.getPrincipal().getAttribute("email"));
+    assertEquals(true, authentication.getPrincipal().getAttribute("email_verified"));
+    assertNull(authentication.getPrincipal().getAttribute("at_hash"));
+    Set<String> roles = authentication.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    assertEquals(Set.of("ROLE_USER", "SCOPE_email", "ROLE_ADMIN", "ROLE_MEMBER"), roles);
+    assertTrue(authentication.getAuthorities().stream().anyMatch(OAuth2UserAuthority.class::isInstance));
+    assertEquals(1_700_000_000L, decoded.getIssuedAtEpochSecond());
+    assertEquals(1_700_000_000L, decoded.getLoginEpochSecond());
+  }
+
+  @Test
+  void test_expired_token_is_rejected() {
+    String token = new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7), at(1_700_000_000L)).encode(googleLogin());
+
+    assertTrue(new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7), at(1_700_000_000L + 8 * 3600 - 1))
+        .decode(token).isPresent());
+    assertFalse(new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7), at(1_700_000_000L + 8 * 3600))
+        .decode(token).isPresent());
+  }
+
+  @Test
+  void test_tampered_or_foreign_tokens_are_rejected() {
+    SessionTokenCodec codec = new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7));
+    String token = codec.encode(googleLogin());
+    String[] parts = token.split("\\.");
+    String body = parts[0];
+    String signature = parts[1] + "." + parts[2];
+
+    String otherBody = codec.encode(googleLogin(), 1_600_000_000L).split("\\.")[0];
+    assertFalse(codec.decode(otherBody + "." + signature).isPresent());
+    assertFalse(codec.decode(body + "." + (Long.parseLong(parts[1]) + 1) + "." + parts[2]).isPresent());
+    assertFalse(new SessionTokenCodec(SECRET.toUpperCase(), Duration.ofHours(8), Duration.ofDays(7)).decode(token).isPresent());
+    assertFalse(codec.decode(body).isPresent());
+    assertFalse(codec.decode(body + "." + parts[1]).isPresent());
+    assertFalse(codec.decode("." + signature).isPresent());
+    assertFalse(codec.decode(body + "." + parts[1] + ".!!").isPresent());
+    assertFalse(codec.decode(null).isPresent());
+  }
+
+  @Test
+  void test_signed_but_unreadable_payload_is_rejected() {
+    SessionTokenCodec codec = new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7));
+
+    assertFalse(codec.decode(codec.sign(SessionTokenCodec.SESSION, "{\"a\":{}}".getBytes(), Duration.ofHours(1)))
+        .isPresent());
+    assertFalse(codec.decode(codec.sign(SessionTokenCodec.SESSION, "not json".getBytes(), Duration.ofHours(1)))
+        .isPresent());
+  }
+
+  @Test
+  void test_token_signed_for_another_purpose_is_rejected() {
+    SessionTokenCodec codec = new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7));
+    String session = codec.encode(googleLogin());
+    String other = codec.sign("oauth2-authorization-request", "payload".getBytes(), Duration.ofMinutes(5));
+
+    assertTrue(codec.verify(SessionTokenCodec.SESSION, session).isPresent());
+    assertFalse(codec.verify("oauth2-authorization-request", session).isPresent());
+    assertEquals("payload", new String(codec.verify("oauth2-authorization-request", other).orElseThrow()));
+    assertFalse(codec.verify(SessionTokenCodec.SESSION, other).isPresent());
+  }
+
+  @Test
+  void test_expiry_is_signed() {
+    SessionTokenCodec codec = new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7),
+        at(1_700_000_000L));
+    String token = codec.sign("test", "payload".getBytes(), Duration.ofMinutes(5));
+    String[] parts = token.split("\\.");
+
+    assertEquals(String.valueOf(1_700_000_000L + 300), parts[1]);
+    assertFalse(codec.verify("test", parts[0] + "." + (1_700_000_000L + 3600) + "." + parts[2]).isPresent());
+    assertFalse(new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7), at(1_700_000_000L + 300))
+        .verify("test", token).isPresent());
+  }
+
+  @Test
+  void test_reissued_token_keeps_the_login_time_and_never_outlives_the_absolute_max_age() {
+    long login = 1_700_000_000L;
+    long later = login + 7 * 24 * 3600 - 3600;
+    SessionTokenCodec codec = new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7), at(later));
+
+    String token = codec.encode(googleLogin(), login);
+    SessionTokenCodec.Decoded decoded = codec.decode(token).orElseThrow();
+
+    assertEquals(login, decoded.getLoginEpochSecond());
+    assertEquals(later, decoded.getIssuedAtEpochSecond());
+    // one hour left of the seven days, not the eight hours of max-age
+    assertEquals(String.valueOf(later + 3600), token.split("\\.")[1]);
+    assertFalse(new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7), at(later + 3600))
+        .decode(token).isPresent());
+  }
+
+  @Test
+  void test_due_for_refresh_after_half_the_max_age_on_the_codec_clock() {
+    String token = new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7), at(1_700_000_000L))
+        .encode(googleLogin());
+
+    SessionTokenCodec at4h = new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7),
+        at(1_700_000_000L + 4 * 3600));
+    SessionTokenCodec after4h = new SessionTokenCodec(SECRET, Duration.ofHours(8), Duration.ofDays(7),
+        at(1_700_000_000L + 4 * 3600 + 1));
+    assertFalse(at4h.isDueForRefresh(at4h.decode(token).orElseThrow()));
+    assertTrue(after4h.isDueForRefresh(after4h.decode(token).orElseThrow()));
+  }
+
+  @Test
+  void test_short_secret_fails_fast() {
+    assertThrows(IllegalStateException.class,
+        () -> new SessionTokenCodec("too short", Duration.ofHours(8), Duration.ofDays(7)));
+    assertThrows(IllegalStateException.class,
+        () -> new SessionTokenCodec(null, Duration.ofHours(8), Duration.ofDays(7)));
+  }
+
+  @Test
+  void test_published_sample_secret_fails_fast() {
+    assertThrows(IllegalStateException.class,
+        () -> new SessionTokenCodec("at-least-32-random-bytes-shared-by-all-nodes", Duration.ofHours(8),
+            Duration.ofDays(7)));
+  }
+}
@@ -0,0 +1,182 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+
+class SignedCookieSecurityContextRepositoryTests {
+
+  private final SessionTokenCodec codec = new SessionTokenCodec(SessionTokenCodecTests.SECRET, Duration.ofHours(8),
+      Duration.ofDays(7));
+  private final List<Collection<? extends GrantedAuthority>> mapped = new ArrayList<>();
+  // as if the user was no longer an admin, but still a member
+  private final GrantedAuthoritiesMapper mapper = authorities -> {
+    mapped.add(authorities);
+    Set<GrantedAuthority> roles = new HashSet<>(authorities);
+    roles.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
+    return roles;
+  };
+  private final SignedCookieSecurityContextRepository repository =
+      new SignedCookieSecurityContextRepository(codec, mapper);
+
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  private HttpRequestResponseHolder holder(MockHttpServletRequest request) {
+    return new HttpRequestResponseHolder(request, response);
+  }
+
+  private String setCookie() {
+    return response.getHeader("Set-Cookie");
+  }
+
+  @Test
+  void test_login_writes_cookie_before_redirect_commits() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    HttpRequestResponseHolder holder = holder(request);
+    SecurityContext context = repository.loadContext(holder);
+    assertNull(context.getAuthentication());
+
+    // what OAuth2LoginAuthenticationFilter does, then its success handler redirects
+    SecurityContext loggedIn = SecurityContextHolder.createEmptyContext();
+    loggedIn.setAuthentication(SessionTokenCodecTests.googleLogin());
+    SecurityContextHolder.setContext(loggedIn);
+    try {
+      holder.getResponse().sendRedirect("/");
+      repository.saveContext(loggedIn, request, holder.getResponse());
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+
+    String header = setCookie();
+    assertTrue(header.startsWith(SignedCookieSecurityContextRepository.COOKIE_NAME + "="), header);
+    assertTrue(header.contains("HttpOnly"));
+    assertTrue(header.contains("SameSite=Lax"));
+    assertTrue(header.contains("Max-Age=28800"));
+    assertEquals(1, response.getHeaders("Set-Cookie").size());
+    assertEquals("/", response.getRedirectedUrl());
+  }
+
+  @Test
+  void test_valid_cookie_restores_authentication_without_reissuing() {
+    String token = codec.encode(SessionTokenCodecTests.googleLogin());
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie(SignedCookieSecurityContextRepository.COOKIE_NAME, token));
+    HttpRequestResponseHolder holder = holder(request);
+
+    SecurityContext context = repository.loadContext(holder);
+    repository.saveContext(context, request, holder.getResponse());
+
+    assertTrue(repository.containsContext(request));
+    assertEquals("cgaucho@ucsb.edu",
+        ((OAuth2AuthenticationToken) context.getAuthentication()).getPrincipal().getAttribute("email"));
+    assertNull(setCookie());
+  }
+
+  @Test
+  void test_cookie_past_half_its_life_is_reissued_with_roles_looked_up_again() {
+    Instant login = Instant.now().minus(Duration.ofHours(5));
+    SessionTokenCodec oldCodec = new SessionTokenCodec(SessionTokenCodecTests.SECRET, Duration.ofHours(8),
+        Duration.ofDays(7), Clock.fixed(login, ZoneOffset.UTC));
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie(SignedCookieSecurityContextRepository.COOKIE_NAME,
+        oldCodec.encode(SessionTokenCodecTests.googleLogin())));
+    HttpRequestResponseHolder holder = holder(request);
+
+    SecurityContext context = repository.loadContext(holder);
+    repository.saveContext(context, request, holder.getResponse());
+
+    // only what Google granted goes through the mapper again
+    assertEquals(Set.of("ROLE_USER", "SCOPE_email"), authorities(mapped.get(0)));
+    assertEquals(Set.of("ROLE_USER", "SCOPE_email", "ROLE_MEMBER"),
+        authorities(context.getAuthentication().getAuthorities()));
+    assertTrue(setCookie().contains("Max-Age=28800"));
+    String reissued = setCookie().split(";")[0].split("=", 2)[1];
+    SessionTokenCodec.Decoded decoded = codec.decode(reissued).orElseThrow();
+    assertEquals(login.getEpochSecond(), decoded.getLoginEpochSecond());
+    assertEquals(Set.of("ROLE_USER", "SCOPE_email", "ROLE_MEMBER"),
+        authorities(decoded.getAuthentication().getAuthorities()));
+  }
+
+  @Test
+  void test_cookie_is_kept_when_roles_cannot_be_looked_up() {
+    SignedCookieSecurityContextRepository failing = new SignedCookieSecurityContextRepository(codec, authorities -> {
+      throw new IllegalStateException("database unavailable");
+    });
+    SessionTokenCodec oldCodec = new SessionTokenCodec(SessionTokenCodecTests.SECRET, Duration.ofHours(8),
+        Duration.ofDays(7), Clock.fixed(Instant.now().minus(Duration.ofHours(5)), ZoneOffset.UTC));
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie(SignedCookieSecurityContextRepository.COOKIE_NAME,
+        oldCodec.encode(SessionTokenCodecTests.googleLogin())));
+    HttpRequestResponseHolder holder = holder(request);
+
+    SecurityContext context = failing.loadContext(holder);
+    failing.saveContext(context, request, holder.getResponse());
+
+    assertTrue(authorities(context.getAuthentication().getAuthorities()).contains("ROLE_ADMIN"));
+    assertNull(setCookie());
+  }
+
+  private static Set<String> authorities(Collection<? extends GrantedAuthority> authorities) {
+    return authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+  }
+
+  @Test
+  void test_logout_or_bad_cookie_clears_it() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie(SignedCookieSecurityContextRepository.COOKIE_NAME, "forged.token"));
+    HttpRequestResponseHolder holder = holder(request);
+
+    SecurityContext context = repository.loadContext(holder);
+    assertNull(context.getAuthentication());
+    assertFalse(repository.containsContext(request));
+    context.setAuthentication(new AnonymousAuthenticationToken("key", "anonymousUser",
+        List.of(new SimpleGrantedAuthority("ROLE_ANONYMOUS"))));
+    repository.saveContext(context, request, holder.getResponse());
+
+    assertTrue(setCookie().contains("Max-Age=0"));
+  }
+
+  @Test
+  void test_anonymous_request_without_cookie_sets_nothing() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    HttpRequestResponseHolder holder = holder(request);
+
+    SecurityContext context = repository.loadContext(holder);
+    repository.saveContext(context, request, holder.getResponse());
+
+    assertNull(setCookie());
+  }
+
+  @Test
+  void test_save_requires_wrapped_response() {
+    assertThrows(IllegalStateException.class, () -> repository.saveContext(
+        SecurityContextHolder.createEmptyContext(), new MockHttpServletRequest(), new MockHttpServletResponse()));
+  }
+}
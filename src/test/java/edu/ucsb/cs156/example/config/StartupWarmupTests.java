@@ -0,0 +1,166 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.controllers.MenuItemReviewController;
+import edu.ucsb.cs156.example.controllers.RecommendationRequestController;
+import edu.ucsb.cs156.example.controllers.UCSBDatesController;
+import edu.ucsb.cs156.example.controllers.UCSBDiningCommonsController;
+import edu.ucsb.cs156.example.controllers.UCSBDiningCommonsMenuItemController;
+import edu.ucsb.cs156.example.controllers.UCSBOrganizationController;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.JsonResponseCache;
+
+class StartupWarmupTests {
+
+  private final StartupWarmup warmup = new StartupWarmup();
+  private final List<Authentication> callers = new ArrayList<>();
+
+  @BeforeEach
+  void setup() throws SQLException {
+    warmup.applicationContext = mock(ApplicationContext.class);
+    warmup.dataSource = mock(DataSource.class);
+    warmup.mapper = new ObjectMapper();
+    warmup.jsonResponseCache = mock(JsonResponseCache.class);
+    warmup.ucsbDiningCommonsRepository = mock(UCSBDiningCommonsRepository.class);
+    warmup.ucsbOrganizationRepository = mock(UCSBOrganizationRepository.class);
+    warmup.ucsbDatesController = mock(UCSBDatesController.class);
+    warmup.ucsbDiningCommonsController = mock(UCSBDiningCommonsController.class);
+    warmup.ucsbDiningCommonsMenuItemController = mock(UCSBDiningCommonsMenuItemController.class);
+    warmup.ucsbOrganizationController = mock(UCSBOrganizationController.class);
+    warmup.menuItemReviewController = mock(MenuItemReviewController.class);
+    warmup.recommendationRequestController = mock(RecommendationRequestController.class);
+    warmup.iterations = 3;
+    warmup.timeout = Duration.ofSeconds(60);
+
+    when(warmup.dataSource.getConnection()).thenReturn(mock(Connection.class));
+    when(warmup.ucsbDatesController.getBatch(StartupWarmup.IDS)).thenAnswer(invocation -> {
+      callers.add(SecurityContextHolder.getContext().getAuthentication());
+      return null;
+    });
+    when(warmup.ucsbDatesController.getById(0L)).thenThrow(new EntityNotFoundException(UCSBDate.class, 0L));
+  }
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private void run() {
+    warmup.run(new DefaultApplicationArguments());
+  }
+
+  @Test
+  void test_endpoints_are_called_each_round_as_a_read_only_user() {
+    run();
+
+    assertEquals(3, callers.size());
+    assertEquals("warmup", callers.get(0).getName());
+    assertEquals(List.of("ROLE_USER"),
+        callers.get(0).getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    verify(warmup.recommendationRequestController, times(3)).getBatch(StartupWarmup.IDS);
+    verify(warmup.ucsbDiningCommonsController, times(3)).getLeaderboard(10);
+    verify(warmup.menuItemReviewController, times(3)).getPageWithItems(0, 50);
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+  }
+
+  @Test
+  void test_only_bounded_reads_are_used() {
+    run();
+
+    verify(warmup.ucsbDatesController, never()).allUCSBDates();
+    verify(warmup.ucsbDiningCommonsMenuItemController, never()).allCommonsMenuItems();
+    verify(warmup.menuItemReviewController, never()).allReviews();
+    verify(warmup.recommendationRequestController, never()).allRecommendationRequests(any(Boolean.class));
+    assertEquals(11, StartupWarmup.IDS.size());
+  }
+
+  @Test
+  void test_reference_data_is_rendered_into_the_cache() throws Exception {
+    run();
+
+    verify(warmup.jsonResponseCache).preload(eq(UCSBDiningCommons.class), any());
+    verify(warmup.jsonResponseCache).preload(eq(UCSBOrganization.class), any());
+  }
+
+  @Test
+  void test_pool_connections_are_held_together_and_returned() throws SQLException {
+    Connection connection = mock(Connection.class);
+    when(warmup.dataSource.getConnection()).thenReturn(connection);
+
+    run();
+
+    verify(connection).isValid(1);
+    verify(connection).close();
+  }
+
+  @Test
+  void test_a_failing_step_does_not_stop_the_rest() throws Exception {
+    when(warmup.dataSource.getConnection()).thenThrow(new SQLException("refused"));
+    when(warmup.menuItemReviewController.getPageWithItems(0, 50)).thenThrow(new IllegalStateException("boom"));
+
+    run();
+
+    verify(warmup.jsonResponseCache).preload(eq(UCSBDiningCommons.class), any());
+    // the first round stopped at the failure
+    assertEquals(1, callers.size());
+    verify(warmup.recommendationRequestController, never()).getBatch(any());
+    assertNull(SecurityContextHolder.getContext().getAuthentication());
+  }
+
+  @Test
+  void test_no_rounds_after_the_timeout() {
+    warmup.timeout = Duration.ZERO;
+
+    run();
+
+    assertEquals(0, callers.size());
+  }
+
+  @Test
+  void test_the_timeout_is_checked_before_each_call() {
+    warmup.timeout = Duration.ofMillis(50);
+    when(warmup.ucsbDatesController.getBatch(StartupWarmup.IDS)).thenAnswer(invocation -> {
+      Thread.sleep(100);
+      return null;
+    });
+
+    run();
+
+    verify(warmup.ucsbDatesController, times(1)).getBatch(StartupWarmup.IDS);
+    verify(warmup.ucsbDatesController, never()).getById(0L);
+    verify(warmup.ucsbDiningCommonsController, never()).getLeaderboard(10);
+  }
+}
@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ChangeFeedService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ChangesController.class)
+@Import(TestConfig.class)
+public class ChangesControllerTests extends ControllerTestCase {
+
+  @MockBean
+  ChangeFeedService changeFeedService;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void logged_out_users_cannot_subscribe() throws Exception {
+    mockMvc.perform(get("/api/changes/stream"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void logged_in_users_can_subscribe() throws Exception {
+    when(changeFeedService.subscribe(null)).thenReturn(new SseEmitter());
+
+    mockMvc.perform(get("/api/changes/stream"))
+        .andExpect(request().asyncStarted());
+
+    verify(changeFeedService, times(1)).subscribe(null);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void last_event_id_is_passed_to_the_feed() throws Exception {
+    when(changeFeedService.subscribe(42L)).thenReturn(new SseEmitter());
+
+    mockMvc.perform(get("/api/changes/stream").header("Last-Event-ID", "42"))
+        .andExpect(request().asyncStarted());
+
+    verify(changeFeedService, times(1)).subscribe(42L);
+  }
+}
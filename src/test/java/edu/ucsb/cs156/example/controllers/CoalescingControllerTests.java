@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.CoalescingStats;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = CoalescingController.class)
+@Import(TestConfig.class)
+public class CoalescingControllerTests extends ControllerTestCase {
+
+  @MockBean
+  RequestCoalescer requestCoalescer;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void coalescing__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/coalescing"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void coalescing__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/coalescing"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void coalescing__admin_logged_in() throws Exception {
+
+    // arrange
+
+    CoalescingStats stats = CoalescingStats.builder()
+        .requests(500)
+        .executions(20)
+        .collapsed(480)
+        .timeouts(1)
+        .inFlight(2)
+        .build();
+    when(requestCoalescer.getStats()).thenReturn(stats);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/coalescing"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(requestCoalescer, times(1)).getStats();
+    assertEquals(mapper.writeValueAsString(stats), response.getResponse().getContentAsString());
+  }
+}
@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.ConnectionPoolStats;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ConnectionPoolMetrics;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ConnectionPoolController.class)
+@Import(TestConfig.class)
+public class ConnectionPoolControllerTests extends ControllerTestCase {
+
+  @MockBean
+  ConnectionPoolMetrics connectionPoolMetrics;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void pool__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/pool"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void pool__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/pool"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void pool__admin_logged_in() throws Exception {
+
+    // arrange
+
+    ConnectionPoolStats stats = ConnectionPoolStats.builder()
+        .poolName("team02-h2")
+        .activeConnections(1)
+        .idleConnections(4)
+        .totalConnections(5)
+        .maxConnections(5)
+        .acquisitions(1000)
+        .p99WaitMicros(127)
+        .build();
+    when(connectionPoolMetrics.getStats()).thenReturn(stats);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/admin/pool"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(connectionPoolMetrics, times(1)).getStats();
+    assertEquals(mapper.writeValueAsString(stats), response.getResponse().getContentAsString());
+  }
+}
@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DashboardService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = DashboardController.class)
+@Import(TestConfig.class)
+public class DashboardControllerTests extends ControllerTestCase {
+
+  @MockBean
+  DashboardService dashboardService;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void dashboard__logged_out() throws Exception {
+    mockMvc.perform(get("/api/dashboard"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void dashboard__user_logged_in() throws Exception {
+
+    // arrange
+
+    when(dashboardService.getDashboard(any())).thenAnswer(invocation -> {
+      Supplier<CurrentUser> currentUser = invocation.getArgument(0);
+      return Dashboard.builder()
+          .currentUser(currentUser.get())
+          .recentReviews(List.of())
+          .unavailable(List.of("upcomingDates"))
+          .build();
+    });
+
+    // the security context is cleared once the request completes
+    Dashboard expected = Dashboard.builder()
+        .currentUser(currentUserService.getCurrentUser())
+        .recentReviews(List.of())
+        .unavailable(List.of("upcomingDates"))
+        .build();
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/dashboard"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+}
@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.GraphQLService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = GraphQLController.class)
+@Import(TestConfig.class)
+public class GraphQLControllerTests extends ControllerTestCase {
+
+  @MockBean
+  GraphQLService graphQLService;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void graphql__logged_out() throws Exception {
+    mockMvc.perform(post("/api/graphql").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"query\":\"{ dates { id } }\"}"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void graphql__user_logged_in() throws Exception {
+
+    // arrange
+
+    Map<String, Object> result = Map.of("data", Map.of("dates", List.of(Map.of("id", "7"))));
+    when(graphQLService.execute("query D($q: String) { dates { id } }", "D", Map.of("q", "20222")))
+        .thenReturn(result);
+
+    // act
+
+    MvcResult response = mockMvc.perform(post("/api/graphql").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"query\":\"query D($q: String) { dates { id } }\",\"operationName\":\"D\","
+            + "\"variables\":{\"q\":\"20222\"}}"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(result), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void graphql__missing_query_is_a_bad_request() throws Exception {
+    mockMvc.perform(post("/api/graphql").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"operationName\":\"D\"}"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(post("/api/graphql").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("{\"query\":\" \"}"))
+        .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(graphQLService);
+  }
+}
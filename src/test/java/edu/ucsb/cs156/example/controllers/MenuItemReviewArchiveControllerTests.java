@@ -0,0 +1,143 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.ReviewArchive;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ReviewArchiver;
+import edu.ucsb.cs156.example.services.ReviewPartitions.Quarter;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = MenuItemReviewArchiveController.class)
+@Import(TestConfig.class)
+public class MenuItemReviewArchiveControllerTests extends ControllerTestCase {
+
+  private static final String LINES = "{\"id\":1,\"stars\":4}\n{\"id\":2,\"stars\":5}\n";
+
+  @MockBean
+  ReviewArchiver reviewArchiver;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @TempDir
+  Path directory;
+
+  private Path archiveFile() throws Exception {
+    Path file = directory.resolve("menuitemreview_2022q1.jsonl.gz");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+      out.write(LINES.getBytes(StandardCharsets.UTF_8));
+    }
+    return file;
+  }
+
+  @Test
+  public void archives__logged_out() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/archive"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void archives__regular_user() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/archive/2022q1"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void archives__admin_lists_archived_quarters() throws Exception {
+
+    // arrange
+
+    List<ReviewArchive> archives = List.of(ReviewArchive.builder().quarter("2022q1").compressedBytes(123)
+        .archivedAt(Instant.parse("2024-05-10T03:30:00Z")).build());
+    when(reviewArchiver.list()).thenReturn(archives);
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/menuitemreview/archive"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(archives), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void archive__admin_streams_a_quarter_decompressed() throws Exception {
+    when(reviewArchiver.find(new Quarter(2022, 1))).thenReturn(Optional.of(archiveFile()));
+
+    MvcResult started = mockMvc.perform(get("/api/menuitemreview/archive/2022q1"))
+        .andExpect(request().asyncStarted()).andReturn();
+
+    mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+        .andExpect(content().string(LINES));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void archive__admin_gets_the_gzipped_file_when_accepted() throws Exception {
+    Path file = archiveFile();
+    when(reviewArchiver.find(new Quarter(2022, 1))).thenReturn(Optional.of(file));
+
+    MvcResult started = mockMvc.perform(get("/api/menuitemreview/archive/2022q1")
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+        .andExpect(request().asyncStarted()).andReturn();
+
+    MvcResult response = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+        .andReturn();
+    assertArrayEquals(Files.readAllBytes(file), response.getResponse().getContentAsByteArray());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void archive__admin_gets_404_for_a_quarter_not_archived() throws Exception {
+    when(reviewArchiver.find(new Quarter(2023, 1))).thenReturn(Optional.empty());
+
+    mockMvc.perform(get("/api/menuitemreview/archive/2023q1"))
+        .andExpect(status().isNotFound());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void archive__admin_gets_404_for_a_name_that_is_not_a_quarter() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/archive/latest"))
+        .andExpect(status().isNotFound());
+
+    verify(reviewArchiver, never()).find(any());
+  }
+}
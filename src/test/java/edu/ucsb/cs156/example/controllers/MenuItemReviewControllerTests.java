@@ -3,16 +3,24 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.ReviewWithItem;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.TooManyRequestsException;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.ReferenceFilter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -24,10 +32,15 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.time.LocalDateTime;
 
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -42,6 +55,14 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        ReferenceFilter referenceFilter;
+
+        @BeforeEach
+        public void every_menu_item_might_exist() {
+                when(referenceFilter.mightContainMenuItem(anyLong())).thenReturn(true);
+        }
+
         @Test
         public void logged_out_users_cannot_get_all() throws Exception {
                 mockMvc.perform(get("/api/menuitemreview/all"))
@@ -196,6 +217,28 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void rate_limited_post_returns_429_with_retry_after() throws Exception {
+                // arrange
+
+                when(menuItemReviewRepository.save(any()))
+                                .thenThrow(new TooManyRequestsException("menuitemreview-post", 1_200_000_000L));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/menuitemreview/post?itemId=1&reviewerEmail=cyrus898@ucsb.edu&stars=2&comments=npc_comment&dateReviewed=2022-01-03T00:00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isTooManyRequests())
+                                .andExpect(header().string("Retry-After", "2"))
+                                .andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("TooManyRequestsException", json.get("type"));
+                assertEquals("rate limit exceeded for menuitemreview-post", json.get("message"));
+        }
+
         // TEST FOR DELETE BY ID
         @WithMockUser(roles = { "ADMIN", "USER" })
         @Test
@@ -332,4 +375,323 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
         }
 
+
+        // Tests for DELETE /api/menuitemreview/bulk
+
+        @Test
+        public void logged_out_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/menuitemreview/bulk?dateReviewedBefore=2022-01-03T00:00:00").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_delete() throws Exception {
+                mockMvc.perform(delete("/api/menuitemreview/bulk?dateReviewedBefore=2022-01-03T00:00:00").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_delete_old_reviews_of_one_item() throws Exception {
+                // arrange
+
+                LocalDateTime before = LocalDateTime.parse("2022-01-03T00:00:00");
+                when(menuItemReviewRepository.deleteReviewedBefore(eq(7L), eq(before))).thenReturn(3);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/menuitemreview/bulk?itemId=7&dateReviewedBefore=2022-01-03T00:00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).deleteReviewedBefore(7L, before);
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("3 MenuItemReviews deleted", json.get("message"));
+                assertEquals(3, json.get("count"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_bulk_delete_with_no_matches_deletes_nothing() throws Exception {
+                // arrange
+
+                LocalDateTime before = LocalDateTime.parse("2022-01-03T00:00:00");
+                when(menuItemReviewRepository.deleteReviewedBefore(eq(null), eq(before))).thenReturn(0);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/menuitemreview/bulk?dateReviewedBefore=2022-01-03T00:00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, times(1)).deleteReviewedBefore(null, before);
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("0 MenuItemReviews deleted", json.get("message"));
+        }
+
+        // Tests for GET /api/menuitemreview/batch
+
+        @Test
+        public void logged_out_users_cannot_get_batch() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/batch?ids=1,2"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_batch_in_request_order_with_missing_ids() throws Exception {
+
+                // arrange
+
+                MenuItemReview first = MenuItemReview.builder().id(1L).reviewerEmail("a@ucsb.edu").build();
+                MenuItemReview last = MenuItemReview.builder().id(3L).reviewerEmail("b@ucsb.edu").build();
+
+                when(menuItemReviewRepository.findAllById(eq(List.of(3L, 2L, 1L)))).thenReturn(List.of(first, last));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/batch?ids=3,2,1,3"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(menuItemReviewRepository, times(1)).findAllById(eq(List.of(3L, 2L, 1L)));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(last, first), List.of(2L)));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void batch_ids_are_looked_up_in_chunks() throws Exception {
+
+                // arrange
+
+                String ids = LongStream.rangeClosed(1, 250).mapToObj(String::valueOf).collect(Collectors.joining(","));
+                when(menuItemReviewRepository.findAllById(any())).thenReturn(List.of());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/batch?ids=" + ids))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(menuItemReviewRepository, times(1)).findAllById(
+                                eq(LongStream.rangeClosed(1, 200).boxed().collect(Collectors.toList())));
+                verify(menuItemReviewRepository, times(1)).findAllById(
+                                eq(LongStream.rangeClosed(201, 250).boxed().collect(Collectors.toList())));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(250, ((List<?>) json.get("missing")).size());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void batch_of_more_than_the_maximum_ids_is_rejected() throws Exception {
+                String ids = LongStream.rangeClosed(1, 1001).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+                mockMvc.perform(get("/api/menuitemreview/batch?ids=" + ids))
+                                .andExpect(status().isBadRequest());
+
+                verify(menuItemReviewRepository, times(0)).findAllById(any());
+        }
+
+        // Tests for GET /api/menuitemreview/page
+
+        @Test
+        public void logged_out_users_cannot_get_a_page() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_reviews_with_their_items() throws Exception {
+
+                // arrange
+
+                ReviewWithItem review = ReviewWithItem.builder()
+                                .id(7L)
+                                .itemId(3L)
+                                .reviewerEmail("cyrus898@ucsb.edu")
+                                .stars(4)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("npc_comment")
+                                .itemName("Pho")
+                                .station("Noodles")
+                                .diningCommonsCode("carrillo")
+                                .diningCommonsName("Carrillo")
+                                .build();
+
+                when(menuItemReviewRepository.findPageWithItems(eq(PageRequest.of(2, 10)))).thenReturn(List.of(review));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/menuitemreview/page?page=2&size=10"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(menuItemReviewRepository, times(1)).findPageWithItems(eq(PageRequest.of(2, 10)));
+                String expectedJson = mapper.writeValueAsString(List.of(review));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void page_defaults_to_the_first_fifty_reviews() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/page"))
+                                .andExpect(status().isOk());
+
+                verify(menuItemReviewRepository, times(1)).findPageWithItems(eq(PageRequest.of(0, 50)));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void page_size_out_of_range_is_rejected() throws Exception {
+                mockMvc.perform(get("/api/menuitemreview/page?size=501"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/menuitemreview/page?size=0"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/menuitemreview/page?page=-1"))
+                                .andExpect(status().isBadRequest());
+
+                verify(menuItemReviewRepository, never()).findPageWithItems(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void review_of_a_menu_item_that_the_foreign_key_rejects_is_not_found() throws Exception {
+                // arrange
+
+                when(menuItemReviewRepository.save(any()))
+                                .thenThrow(new DataIntegrityViolationException("MENUITEMREVIEW_ITEM"));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/menuitemreview/post?itemId=404&reviewerEmail=cyrus898@ucsb.edu&stars=2&comments=npc_comment&dateReviewed=2022-01-03T00:00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("EntityNotFoundException", json.get("type"));
+                assertEquals("UCSBDiningCommonsMenuItem with id 404 not found", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void edit_moving_a_review_to_an_item_the_foreign_key_rejects_is_not_found() throws Exception {
+                // arrange
+
+                MenuItemReview review = MenuItemReview.builder()
+                                .itemId(1L)
+                                .reviewerEmail("cyrus899@ucsb.edu")
+                                .stars(2)
+                                .comments("npc comment")
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+                MenuItemReview moved = MenuItemReview.builder()
+                                .itemId(404L)
+                                .reviewerEmail("cyrus899@ucsb.edu")
+                                .stars(2)
+                                .comments("npc comment")
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.of(review));
+                doThrow(new DataIntegrityViolationException("menuitemreview_item"))
+                                .when(menuItemReviewRepository).flush();
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/menuitemreview?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(moved))
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("UCSBDiningCommonsMenuItem with id 404 not found", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void other_constraint_violations_are_still_a_conflict() throws Exception {
+                // arrange
+
+                when(menuItemReviewRepository.save(any()))
+                                .thenThrow(new DataIntegrityViolationException("menuitemreview_pkey"));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/menuitemreview/post?itemId=7&reviewerEmail=cyrus898@ucsb.edu&stars=2&comments=npc_comment&dateReviewed=2022-01-03T00:00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("DataIntegrityViolationException", json.get("type"));
+                assertEquals("the change conflicts with related rows", json.get("message"));
+        }
+
+        // Tests for the menu item id pre-check
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void review_of_an_item_the_filter_finds_missing_is_rejected_without_saving() throws Exception {
+                // arrange
+
+                when(referenceFilter.mightContainMenuItem(eq(404L))).thenReturn(false);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/menuitemreview/post?itemId=404&reviewerEmail=cyrus898@ucsb.edu&stars=2&comments=npc_comment&dateReviewed=2022-01-03T00:00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound()).andReturn();
+
+                // assert
+                verify(menuItemReviewRepository, never()).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("UCSBDiningCommonsMenuItem with id 404 not found", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void edit_moving_a_review_to_an_item_the_filter_finds_missing_is_rejected() throws Exception {
+                // arrange
+
+                MenuItemReview review = MenuItemReview.builder()
+                                .itemId(1L)
+                                .reviewerEmail("cyrus899@ucsb.edu")
+                                .stars(2)
+                                .comments("npc comment")
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+                MenuItemReview moved = MenuItemReview.builder()
+                                .itemId(404L)
+                                .reviewerEmail("cyrus899@ucsb.edu")
+                                .stars(2)
+                                .comments("npc comment")
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                when(referenceFilter.mightContainMenuItem(eq(404L))).thenReturn(false);
+                when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.of(review));
+
+                // act
+                mockMvc.perform(
+                                put("/api/menuitemreview?id=67")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(mapper.writeValueAsString(moved))
+                                                .with(csrf()))
+                                .andExpect(status().isNotFound());
+
+                // assert
+                verify(menuItemReviewRepository, never()).save(any());
+        }
 }
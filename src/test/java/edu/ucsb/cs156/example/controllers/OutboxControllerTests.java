@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.OutboxEvent;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.OutboxRelay;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = OutboxController.class)
+@Import(TestConfig.class)
+public class OutboxControllerTests extends ControllerTestCase {
+
+  @MockBean
+  OutboxRelay outboxRelay;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void outbox__logged_out() throws Exception {
+    mockMvc.perform(get("/api/outbox"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void outbox__defaults_to_the_start() throws Exception {
+    when(outboxRelay.eventsAfter(0, 100)).thenReturn(List.of());
+
+    mockMvc.perform(get("/api/outbox"))
+        .andExpect(status().isOk())
+        .andExpect(content().json("[]"));
+
+    verify(outboxRelay).eventsAfter(0, 100);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void outbox__returns_events_after_the_given_id() throws Exception {
+
+    // arrange
+
+    OutboxEvent event = OutboxEvent.builder()
+        .id(43)
+        .entityType("UCSBDate")
+        .entityId("7")
+        .op(EntityChangeEvent.Op.UPDATE)
+        .version(1001)
+        .createdAt(Instant.parse("2023-08-01T12:00:00Z"))
+        .build();
+    when(outboxRelay.eventsAfter(42, 10)).thenReturn(List.of(event));
+
+    // act
+
+    MvcResult response = mockMvc.perform(get("/api/outbox?after=42&limit=10"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(List.of(event)), response.getResponse().getContentAsString());
+  }
+}
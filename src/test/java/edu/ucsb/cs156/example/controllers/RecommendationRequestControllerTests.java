@@ -3,11 +3,15 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.repositories.ArchivedRecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -21,6 +25,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 import java.util.Optional;
@@ -28,6 +33,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -39,6 +45,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
         @MockBean
         RecommendationRequestRepository recommendationRequestRepository;
 
+        @MockBean
+        ArchivedRecommendationRequestRepository archivedRecommendationRequestRepository;
+
         @MockBean
         UserRepository userRepository;
 
@@ -350,4 +359,233 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("RecommendationRequest with id 123 not found", json.get("message"));
         }
+
+        // Tests for PUT /api/RecommendationRequest/bulk/done
+
+        @Test
+        public void logged_out_users_cannot_bulk_mark_done() throws Exception {
+                mockMvc.perform(put("/api/RecommendationRequest/bulk/done?dateNeededBefore=2022-01-03T00:00:00").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_regular_users_cannot_bulk_mark_done() throws Exception {
+                mockMvc.perform(put("/api/RecommendationRequest/bulk/done?dateNeededBefore=2022-01-03T00:00:00").with(csrf()))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_mark_done_for_one_professor() throws Exception {
+                // arrange
+
+                LocalDateTime before = LocalDateTime.parse("2022-01-03T00:00:00");
+                when(recommendationRequestRepository.markDone(eq("prof@ucsb.edu"), eq(before))).thenReturn(17);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/RecommendationRequest/bulk/done?professorEmail=prof@ucsb.edu&dateNeededBefore=2022-01-03T00:00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).markDone("prof@ucsb.edu", before);
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("17 RecommendationRequests marked done", json.get("message"));
+                assertEquals(17, json.get("count"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_mark_done_for_every_professor() throws Exception {
+                // arrange
+
+                LocalDateTime before = LocalDateTime.parse("2022-01-03T00:00:00");
+                when(recommendationRequestRepository.markDone(eq(null), eq(before))).thenReturn(0);
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/RecommendationRequest/bulk/done?dateNeededBefore=2022-01-03T00:00:00")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(recommendationRequestRepository, times(1)).markDone(null, before);
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("0 RecommendationRequests marked done", json.get("message"));
+                assertEquals(0, json.get("count"));
+        }
+
+        // Tests for GET /api/RecommendationRequest/batch
+
+        @Test
+        public void logged_out_users_cannot_get_batch() throws Exception {
+                mockMvc.perform(get("/api/RecommendationRequest/batch?ids=1,2"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_batch_in_request_order_with_missing_ids() throws Exception {
+
+                // arrange
+
+                RecommendationRequest first = RecommendationRequest.builder().id(1L).requesterEmail("a@ucsb.edu").build();
+                RecommendationRequest last = RecommendationRequest.builder().id(3L).requesterEmail("b@ucsb.edu").build();
+
+                when(recommendationRequestRepository.findAllById(eq(List.of(3L, 2L, 1L)))).thenReturn(List.of(first, last));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/batch?ids=3,2,1,3"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(recommendationRequestRepository, times(1)).findAllById(eq(List.of(3L, 2L, 1L)));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(last, first), List.of(2L)));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for requests moved to the archive table
+
+        private ArchivedRecommendationRequest archived(long id) {
+                return ArchivedRecommendationRequest.builder()
+                                .id(id)
+                                .requesterEmail("old@ucsb.edu")
+                                .professorEmail("guru@ucsb.edu")
+                                .explanation("long done")
+                                .dateRequested(LocalDateTime.parse("2021-01-03T00:00:00"))
+                                .dateNeeded(LocalDateTime.parse("2021-01-05T11:59:59"))
+                                .done(true)
+                                .archivedAt(Instant.parse("2021-06-01T00:00:00Z"))
+                                .build();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_by_id_falls_back_to_the_archive() throws Exception {
+
+                // arrange
+
+                when(recommendationRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+                when(archivedRecommendationRequestRepository.findById(eq(7L))).thenReturn(Optional.of(archived(7L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest?id=7"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                String expectedJson = mapper.writeValueAsString(archived(7L).toRecommendationRequest());
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_leaves_out_archived_requests_unless_asked() throws Exception {
+
+                // arrange
+
+                RecommendationRequest open = RecommendationRequest.builder().id(1L).requesterEmail("a@ucsb.edu").build();
+                when(recommendationRequestRepository.findAll()).thenReturn(List.of(open));
+                when(archivedRecommendationRequestRepository.findAll()).thenReturn(List.of(archived(7L)));
+
+                // act
+                MvcResult hotOnly = mockMvc.perform(get("/api/RecommendationRequest/all"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult all = mockMvc.perform(get("/api/RecommendationRequest/all?includeArchived=true"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(archivedRecommendationRequestRepository, times(1)).findAll();
+                assertEquals(mapper.writeValueAsString(List.of(open)), hotOnly.getResponse().getContentAsString());
+                assertEquals(mapper.writeValueAsString(List.of(open, archived(7L).toRecommendationRequest())),
+                                all.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void batch_looks_up_ids_missing_from_the_main_table_in_the_archive() throws Exception {
+
+                // arrange
+
+                RecommendationRequest open = RecommendationRequest.builder().id(1L).requesterEmail("a@ucsb.edu").build();
+                when(recommendationRequestRepository.findAllById(eq(List.of(7L, 2L, 1L)))).thenReturn(List.of(open));
+                when(archivedRecommendationRequestRepository.findAllById(eq(List.of(7L, 2L)))).thenReturn(List.of(archived(7L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/RecommendationRequest/batch?ids=7,2,1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                String expectedJson = mapper.writeValueAsString(
+                                new BatchResult<>(List.of(archived(7L).toRecommendationRequest(), open), List.of(2L)));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void batch_does_not_read_the_archive_when_every_id_is_found() throws Exception {
+
+                // arrange
+
+                RecommendationRequest open = RecommendationRequest.builder().id(1L).requesterEmail("a@ucsb.edu").build();
+                when(recommendationRequestRepository.findAllById(eq(List.of(1L)))).thenReturn(List.of(open));
+
+                // act
+                mockMvc.perform(get("/api/RecommendationRequest/batch?ids=1"))
+                                .andExpect(status().isOk());
+
+                // assert
+
+                verify(archivedRecommendationRequestRepository, never()).findAllById(any());
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_delete_an_archived_request() throws Exception {
+                // arrange
+
+                ArchivedRecommendationRequest archived = archived(7L);
+                when(recommendationRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+                when(archivedRecommendationRequestRepository.findById(eq(7L))).thenReturn(Optional.of(archived));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                delete("/api/RecommendationRequest?id=7")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(archivedRecommendationRequestRepository, times(1)).delete(archived);
+                verify(recommendationRequestRepository, never()).delete(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("RecommendationRequest with id 7 deleted", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_edit_an_archived_request() throws Exception {
+                // arrange
+
+                String requestBody = mapper.writeValueAsString(archived(7L).toRecommendationRequest());
+                when(recommendationRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+                when(archivedRecommendationRequestRepository.existsById(eq(7L))).thenReturn(true);
+
+                // act
+                mockMvc.perform(
+                                put("/api/RecommendationRequest?id=7")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isConflict());
+
+                // assert
+                verify(recommendationRequestRepository, never()).save(any());
+        }
 }
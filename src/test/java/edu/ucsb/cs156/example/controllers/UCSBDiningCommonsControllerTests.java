@@ -3,11 +3,15 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.BatchResult;
+import edu.ucsb.cs156.example.models.CommonsRating;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.RatingLeaderboard;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -25,7 +29,9 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,6 +46,9 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        RatingLeaderboard ratingLeaderboard;
+
         // Authorization tests for /api/ucsbdiningcommons/admin/all
 
         @Test
@@ -332,4 +341,88 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
 
         }
+
+        // Tests for GET /api/ucsbdiningcommons/batch
+
+        @Test
+        public void logged_out_users_cannot_get_batch() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/batch?codes=carrillo,dlg"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_batch_in_request_order_with_missing_ids() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons first = UCSBDiningCommons.builder().code("carrillo").name("Carrillo").build();
+                UCSBDiningCommons last = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+
+                when(ucsbDiningCommonsRepository.findAllById(eq(List.of("ortega", "dlg", "carrillo")))).thenReturn(List.of(first, last));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/batch?codes=ortega,dlg,carrillo,ortega"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(1)).findAllById(eq(List.of("ortega", "dlg", "carrillo")));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(last, first), List.of("dlg")));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        // Tests for GET /api/ucsbdiningcommons/leaderboard
+
+        @Test
+        public void logged_out_users_cannot_get_the_leaderboard() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/leaderboard"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_the_leaderboard() throws Exception {
+
+                // arrange
+
+                CommonsRating ortega = CommonsRating.builder().diningCommonsCode("ortega").diningCommonsName("Ortega")
+                                .reviewCount(12).averageStars(4.25).build();
+                CommonsRating carrillo = CommonsRating.builder().diningCommonsCode("carrillo").diningCommonsName("Carrillo")
+                                .reviewCount(3).averageStars(3.0).build();
+
+                when(ratingLeaderboard.top(eq(5))).thenReturn(List.of(ortega, carrillo));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/leaderboard?limit=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ratingLeaderboard, times(1)).top(eq(5));
+                String expectedJson = mapper.writeValueAsString(List.of(ortega, carrillo));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void leaderboard_defaults_to_the_top_ten() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/leaderboard"))
+                                .andExpect(status().isOk());
+
+                verify(ratingLeaderboard, times(1)).top(eq(10));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void leaderboard_limit_out_of_range_is_rejected() throws Exception {
+                mockMvc.perform(get("/api/ucsbdiningcommons/leaderboard?limit=0"))
+                                .andExpect(status().isBadRequest());
+                mockMvc.perform(get("/api/ucsbdiningcommons/leaderboard?limit=101"))
+                                .andExpect(status().isBadRequest());
+
+                verify(ratingLeaderboard, never()).top(anyInt());
+        }
 }
@@ -3,12 +3,16 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -27,7 +31,9 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -43,6 +49,14 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         @MockBean
         UserRepository UserRepository;
 
+        @MockBean
+        UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+        @BeforeEach
+        public void every_dining_commons_exists() {
+                when(ucsbDiningCommonsRepository.existsById(anyString())).thenReturn(true);
+        }
+
         // Authorization tests for /api/ucsbdiningcommons/admin/all
 
         @Test
@@ -294,5 +308,114 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         }
         
 
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_post_an_item_in_a_dining_commons_that_does_not_exist() throws Exception {
+            //arrange
+            when(ucsbDiningCommonsRepository.existsById(eq("nowhere"))).thenReturn(false);
+
+            //act
+            MvcResult response = mockMvc.perform(post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode=nowhere&name=Cheese&station=Entrees")
+                                                    .with(csrf()))
+                                                    .andExpect(status().isNotFound()).andReturn();
+
+            //assert
+            verify(ucsbDiningCommonsMenuItemRepository, never()).save(any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("UCSBDiningCommons with id nowhere not found", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void editing_an_item_checks_its_dining_commons_only_when_it_changes() throws Exception {
+            //arrange
+            UCSBDiningCommonsMenuItem legacy = UCSBDiningCommonsMenuItem.builder()
+                .diningCommonsCode("nowhere")
+                .name("Cheese")
+                .station("Entrees")
+                .build();
+            UCSBDiningCommonsMenuItem renamed = UCSBDiningCommonsMenuItem.builder()
+                .diningCommonsCode("nowhere")
+                .name("Cake")
+                .station("Entrees")
+                .build();
+
+            when(ucsbDiningCommonsRepository.existsById(eq("nowhere"))).thenReturn(false);
+            when(ucsbDiningCommonsMenuItemRepository.findById(eq(67L))).thenReturn(Optional.of(legacy));
+
+            //act
+            mockMvc.perform(
+                put("/api/UCSBDiningCommonsMenuItem?id=67")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .characterEncoding("utf-8")
+                            .content(mapper.writeValueAsString(renamed))
+                            .with(csrf()))
+                            .andExpect(status().isOk());
+
+            //assert
+            verify(ucsbDiningCommonsRepository, never()).existsById(any());
+            verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(renamed);
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_move_an_item_to_a_dining_commons_that_does_not_exist() throws Exception {
+            //arrange
+            UCSBDiningCommonsMenuItem commonsMenuItem = UCSBDiningCommonsMenuItem.builder()
+                .diningCommonsCode("ortega")
+                .name("Cheese")
+                .station("Entrees")
+                .build();
+            UCSBDiningCommonsMenuItem moved = UCSBDiningCommonsMenuItem.builder()
+                .diningCommonsCode("nowhere")
+                .name("Cheese")
+                .station("Entrees")
+                .build();
+
+            when(ucsbDiningCommonsRepository.existsById(eq("nowhere"))).thenReturn(false);
+            when(ucsbDiningCommonsMenuItemRepository.findById(eq(67L))).thenReturn(Optional.of(commonsMenuItem));
+
+            //act
+            mockMvc.perform(
+                put("/api/UCSBDiningCommonsMenuItem?id=67")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .characterEncoding("utf-8")
+                            .content(mapper.writeValueAsString(moved))
+                            .with(csrf()))
+                            .andExpect(status().isNotFound());
 
+            //assert
+            verify(ucsbDiningCommonsMenuItemRepository, never()).save(any());
+        }
+
+        // Tests for GET /api/UCSBDiningCommonsMenuItem/batch
+
+        @Test
+        public void logged_out_users_cannot_get_batch() throws Exception {
+                mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/batch?ids=1,2"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_batch_in_request_order_with_missing_ids() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(1L).name("Burrito").build();
+                UCSBDiningCommonsMenuItem last = UCSBDiningCommonsMenuItem.builder().id(3L).name("Pho").build();
+
+                when(ucsbDiningCommonsMenuItemRepository.findAllById(eq(List.of(3L, 2L, 1L)))).thenReturn(List.of(first, last));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/UCSBDiningCommonsMenuItem/batch?ids=3,2,1,3"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAllById(eq(List.of(3L, 2L, 1L)));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(last, first), List.of(2L)));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
 }
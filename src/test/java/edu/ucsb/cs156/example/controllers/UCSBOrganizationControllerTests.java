@@ -2,14 +2,20 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import edu.ucsb.cs156.example.config.JacksonConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.BatchResult;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -33,7 +39,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBOrganizationController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, JacksonConfig.class })
 
 public class UCSBOrganizationControllerTests extends ControllerTestCase{
 
@@ -96,6 +102,65 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase{
     }
 
 
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_all_answers_in_smile_or_cbor_when_asked() throws Exception {
+
+        // arrange
+
+        List<UCSBOrganization> orgs = List.of(UCSBOrganization.builder()
+                .orgCode("SKY")
+                .orgTranslationShort("SKYDIVING CLUB")
+                .orgTranslation("SKYDIVING CLUB AT UCSB")
+                .inactive(false)
+                .build());
+        when(ucsbOrganizationRepository.findAll()).thenReturn(orgs);
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+        // act
+
+        MvcResult smileResponse = mockMvc.perform(get("/api/UCSBOrganization/all")
+                .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().doesNotExist("ETag")).andReturn();
+        MvcResult cborResponse = mockMvc.perform(get("/api/UCSBOrganization/all")
+                .accept("application/cbor, */*;q=0.1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor")).andReturn();
+        mockMvc.perform(get("/api/UCSBOrganization/all").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().exists("ETag"));
+
+        // assert
+
+        UCSBOrganization[] fromSmile = smile.readValue(smileResponse.getResponse().getContentAsByteArray(),
+                UCSBOrganization[].class);
+        UCSBOrganization[] fromCbor = cbor.readValue(cborResponse.getResponse().getContentAsByteArray(),
+                UCSBOrganization[].class);
+        assertEquals(orgs, List.of(fromSmile));
+        assertEquals(orgs, List.of(fromCbor));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_all_returns_not_modified_when_etag_matches() throws Exception {
+
+        // arrange
+
+        when(ucsbOrganizationRepository.findAll()).thenReturn(new ArrayList<>());
+        MvcResult first = mockMvc.perform(get("/api/UCSBOrganization/all"))
+                .andExpect(status().isOk()).andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        // act & assert
+
+        mockMvc.perform(get("/api/UCSBOrganization/all").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
     // Authorization tests for /api/UCSBOrganization/post
     // (Perhaps should also have these for put and delete)
     // POST tests
@@ -350,4 +415,34 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase{
         assertEquals("UCSBOrganization with id pickleball not found", json.get("message"));
     }
 
-}   
\ No newline at end of file
+        // Tests for GET /api/UCSBOrganization/batch
+
+        @Test
+        public void logged_out_users_cannot_get_batch() throws Exception {
+                mockMvc.perform(get("/api/UCSBOrganization/batch?orgCodes=KRC,OSLI"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_batch_in_request_order_with_missing_ids() throws Exception {
+
+                // arrange
+
+                UCSBOrganization first = UCSBOrganization.builder().orgCode("KRC").orgTranslationShort("KOREAN RADIO CL").build();
+                UCSBOrganization last = UCSBOrganization.builder().orgCode("SKY").orgTranslationShort("SKYDIVING CLUB").build();
+
+                when(ucsbOrganizationRepository.findAllById(eq(List.of("SKY", "OSLI", "KRC")))).thenReturn(List.of(first, last));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/UCSBOrganization/batch?orgCodes=SKY,OSLI,KRC,SKY"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbOrganizationRepository, times(1)).findAllById(eq(List.of("SKY", "OSLI", "KRC")));
+                String expectedJson = mapper.writeValueAsString(new BatchResult<>(List.of(last, first), List.of("OSLI")));
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+}
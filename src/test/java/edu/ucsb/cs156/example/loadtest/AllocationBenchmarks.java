@@ -0,0 +1,135 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures the bytes allocated on the request thread to serve the user and
+ * review list endpoints, so changes to response serialization can be
+ * compared run to run. MockMvc runs each request on the calling thread, which
+ * is what makes the per-thread allocation counter meaningful.
+ *
+ * Excluded from the normal build; run with
+ *   mvn test -Plocalhost,loadtest -Dtest=AllocationBenchmarks
+ */
+@Slf4j
+@Tag("loadtest")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:allocations;DB_CLOSE_DELAY=-1",
+    "logging.level.sql=WARN",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+    "logging.level.edu.ucsb.cs156.example=WARN",
+    "app.coalescing.enabled=false"
+})
+@AutoConfigureMockMvc
+@Import(LoadTestConfig.class)
+@WithMockUser(roles = { "ADMIN", "USER" })
+class AllocationBenchmarks {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  LoadTestDataSeeder seeder;
+
+  @Autowired
+  UserRepository userRepository;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Value("${loadtest.allocation.rows:2000}")
+  int rows;
+
+  @Value("${loadtest.allocation.warmup:200}")
+  int warmup;
+
+  @Value("${loadtest.allocation.iterations:200}")
+  int iterations;
+
+  // 0 disables the check
+  @Value("${loadtest.allocation.max-bytes-per-row:0}")
+  long maxBytesPerRow;
+
+  @Value("${loadtest.allocation.report:target/loadtest/allocations.json}")
+  String reportPath;
+
+  @Data
+  @Builder
+  static class Result {
+    private int rows;
+    private long bytesPerRequest;
+    private long bytesPerRow;
+    private long responseBytes;
+  }
+
+  @Test
+  void list_endpoint_allocations() throws Exception {
+    seeder.seed(LoadTestDataSeeder.Volumes.builder().diningCommons(1).menuItems(50).reviews(rows)
+        .dates(1).organizations(1).recommendationRequests(1).build());
+    userRepository.saveAll(() -> IntStream.range(0, rows)
+        .mapToObj(i -> User.builder().email("user" + i + "@ucsb.edu").googleSub("sub" + i)
+            .fullName("User " + i).givenName("User").familyName(String.valueOf(i)).emailVerified(true)
+            .locale("en").hostedDomain("ucsb.edu").pictureUrl("https://example.org/" + i + ".png").build())
+        .iterator());
+
+    Map<String, Result> results = new LinkedHashMap<>();
+    results.put("/api/admin/users", measure("/api/admin/users"));
+    results.put("/api/menuitemreview/all", measure("/api/menuitemreview/all"));
+
+    File file = new File(reportPath);
+    file.getParentFile().mkdirs();
+    mapper.writerWithDefaultPrettyPrinter().writeValue(file, results);
+    results.forEach((url, result) -> log.warn("{}: {} rows, {} bytes allocated per request ({} per row)",
+        url, result.getRows(), result.getBytesPerRequest(), result.getBytesPerRow()));
+
+    results.forEach((url, result) -> assertTrue(maxBytesPerRow <= 0 || result.getBytesPerRow() <= maxBytesPerRow,
+        "%s allocates %d bytes per row; limit is %d".formatted(url, result.getBytesPerRow(), maxBytesPerRow)));
+  }
+
+  private Result measure(String url) throws Exception {
+    long responseBytes = 0;
+    for (int i = 0; i < warmup; i++) {
+      responseBytes = mockMvc.perform(get(url)).andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsByteArray().length;
+    }
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < iterations; i++) {
+      mockMvc.perform(get(url));
+    }
+    long perRequest = (threads.getThreadAllocatedBytes(thread) - before) / iterations;
+    return Result.builder()
+        .rows(rows)
+        .bytesPerRequest(perRequest)
+        .bytesPerRow(perRequest / rows)
+        .responseBytes(responseBytes)
+        .build();
+  }
+}
@@ -0,0 +1,226 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Open-model load generator: requests are started on a fixed schedule at the
+ * target rate whether or not earlier ones have finished, and latency is
+ * measured from each request's scheduled start, so a server that falls
+ * behind shows up as growing latency instead of a quietly lower rate.
+ *
+ * Virtual users keep their own session cookie; every request carries a
+ * matching XSRF-TOKEN cookie and X-XSRF-TOKEN header so writes pass CSRF.
+ */
+public class LoadGenerator implements AutoCloseable {
+
+  @Getter
+  @AllArgsConstructor
+  public static class Scenario {
+    private final String name;
+    private final int weight;
+    // writes are sent as one of the admin virtual users
+    private final boolean admin;
+    private final Function<Random, HttpRequest.Builder> request;
+  }
+
+  private static class VirtualUser {
+    private final String name;
+    private volatile String sessionCookie;
+
+    VirtualUser(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class Recorder {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    private final List<Long> latencies = new ArrayList<>();
+
+    void record(String status, boolean error, long latencyNanos) {
+      requests.increment();
+      if (error) {
+        errors.increment();
+      }
+      statusCodes.computeIfAbsent(status, s -> new LongAdder()).increment();
+      synchronized (latencies) {
+        latencies.add(latencyNanos);
+      }
+    }
+
+    long[] latencies() {
+      synchronized (latencies) {
+        return latencies.stream().mapToLong(Long::longValue).toArray();
+      }
+    }
+  }
+
+  private final String csrfToken = UUID.randomUUID().toString();
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+  private final HttpClient client = HttpClient.newBuilder()
+      .executor(executor)
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+
+  private final List<Scenario> scenarios;
+  private final List<VirtualUser> readers = new ArrayList<>();
+  private final List<VirtualUser> admins = new ArrayList<>();
+  private final int maxInFlight;
+  private final int totalWeight;
+
+  public LoadGenerator(List<Scenario> scenarios, int readerCount, int adminCount, int maxInFlight) {
+    this.scenarios = scenarios;
+    this.maxInFlight = maxInFlight;
+    this.totalWeight = scenarios.stream().mapToInt(Scenario::getWeight).sum();
+    for (int i = 0; i < readerCount; i++) {
+      readers.add(new VirtualUser("reader" + i));
+    }
+    for (int i = 0; i < Math.max(1, adminCount); i++) {
+      admins.add(new VirtualUser(LoadTestUserFilter.ADMIN_PREFIX + i));
+    }
+    readers.addAll(admins);
+  }
+
+  public LoadReport run(double targetRps, Duration duration, long seed) throws InterruptedException {
+    Map<String, Recorder> recorders = new LinkedHashMap<>();
+    scenarios.forEach(scenario -> recorders.put(scenario.getName(), new Recorder()));
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    Random random = new Random(seed);
+    Instant startedAt = Instant.now();
+
+    long interval = (long) (TimeUnit.SECONDS.toNanos(1) / targetRps);
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+    for (long i = 0; start + i * interval < end; i++) {
+      long scheduled = start + i * interval;
+      long wait = scheduled - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      Scenario scenario = pick(random);
+      Recorder recorder = recorders.get(scenario.getName());
+      if (!inFlight.tryAcquire()) {
+        // the client itself is saturated; count it rather than slow the schedule
+        recorder.record("client-saturated", true, System.nanoTime() - scheduled);
+        continue;
+      }
+      List<VirtualUser> pool = scenario.getAdmin() ? admins : readers;
+      VirtualUser user = pool.get(random.nextInt(pool.size()));
+      client.sendAsync(prepare(scenario.getRequest().apply(random), user), HttpResponse.BodyHandlers.discarding())
+          .whenComplete((response, error) -> {
+            long latency = System.nanoTime() - scheduled;
+            inFlight.release();
+            if (error != null) {
+              recorder.record(error.getClass().getSimpleName(), true, latency);
+              return;
+            }
+            rememberSession(user, response);
+            recorder.record(String.valueOf(response.statusCode()), response.statusCode() >= 400, latency);
+          });
+    }
+    long elapsed = System.nanoTime() - start;
+    if (!inFlight.tryAcquire(maxInFlight, 30, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("requests still outstanding 30s after the run ended");
+    }
+    inFlight.release(maxInFlight);
+    return report(startedAt, targetRps, elapsed, recorders);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private Scenario pick(Random random) {
+    int ticket = random.nextInt(totalWeight);
+    for (Scenario scenario : scenarios) {
+      ticket -= scenario.getWeight();
+      if (ticket < 0) {
+        return scenario;
+      }
+    }
+    return scenarios.get(scenarios.size() - 1);
+  }
+
+  private HttpRequest prepare(HttpRequest.Builder request, VirtualUser user) {
+    String session = user.sessionCookie;
+    return request
+        .timeout(Duration.ofSeconds(30))
+        .header(LoadTestUserFilter.USER_HEADER, user.name)
+        .header("X-XSRF-TOKEN", csrfToken)
+        .header("Cookie", "XSRF-TOKEN=" + csrfToken + (session == null ? "" : "; " + session))
+        .build();
+  }
+
+  private static void rememberSession(VirtualUser user, HttpResponse<?> response) {
+    response.headers().allValues("Set-Cookie").stream()
+        .filter(cookie -> cookie.startsWith("JSESSIONID="))
+        .map(cookie -> cookie.split(";", 2)[0])
+        .findFirst()
+        .ifPresent(cookie -> user.sessionCookie = cookie);
+  }
+
+  private static LoadReport report(Instant startedAt, double targetRps, long elapsedNanos,
+      Map<String, Recorder> recorders) {
+    double seconds = elapsedNanos / 1e9;
+    Map<String, LoadReport.ScenarioResult> results = new LinkedHashMap<>();
+    List<long[]> all = new ArrayList<>();
+    long requests = 0;
+    long errors = 0;
+    for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+      Recorder recorder = entry.getValue();
+      long[] latencies = recorder.latencies();
+      all.add(latencies);
+      long count = recorder.requests.sum();
+      long failed = recorder.errors.sum();
+      requests += count;
+      errors += failed;
+      Map<String, Long> statusCodes = new TreeMap<>();
+      recorder.statusCodes.forEach((status, n) -> statusCodes.put(status, n.sum()));
+      results.put(entry.getKey(), LoadReport.ScenarioResult.builder()
+          .requests(count)
+          .errors(failed)
+          .errorRate(count == 0 ? 0 : (double) failed / count)
+          .throughputRps(count / seconds)
+          .latencyMs(LoadReport.Latency.of(latencies))
+          .statusCodes(statusCodes)
+          .build());
+    }
+    return LoadReport.builder()
+        .startedAt(startedAt.toString())
+        .targetRps(targetRps)
+        .durationSeconds(seconds)
+        .achievedRps(requests / seconds)
+        .requests(requests)
+        .errors(errors)
+        .errorRate(requests == 0 ? 0 : (double) errors / requests)
+        .latencyMs(LoadReport.Latency.of(all.stream().flatMapToLong(Arrays::stream).toArray()))
+        .scenarios(results)
+        .build();
+  }
+}
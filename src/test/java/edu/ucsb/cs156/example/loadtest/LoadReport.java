@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Machine-readable result of a load run, written as JSON so runs can be
+ * compared release to release.
+ */
+@Data
+@Builder
+public class LoadReport {
+  private String startedAt;
+  private double targetRps;
+  private double durationSeconds;
+  private double achievedRps;
+  private long requests;
+  private long errors;
+  private double errorRate;
+  private Latency latencyMs;
+  private Map<String, ScenarioResult> scenarios;
+  private LoadTestDataSeeder.Volumes seeded;
+
+  @Data
+  @Builder
+  public static class ScenarioResult {
+    private long requests;
+    private long errors;
+    private double errorRate;
+    private double throughputRps;
+    private Latency latencyMs;
+    private Map<String, Long> statusCodes;
+  }
+
+  @Data
+  @Builder
+  public static class Latency {
+    private double mean;
+    private double p50;
+    private double p90;
+    private double p99;
+    private double p999;
+    private double max;
+
+    // latencies in nanoseconds, measured from each request's scheduled start
+    public static Latency of(long[] nanos) {
+      if (nanos.length == 0) {
+        return Latency.builder().build();
+      }
+      long[] sorted = nanos.clone();
+      Arrays.sort(sorted);
+      return Latency.builder()
+          .mean(Arrays.stream(sorted).average().orElse(0) / 1e6)
+          .p50(percentile(sorted, 0.50))
+          .p90(percentile(sorted, 0.90))
+          .p99(percentile(sorted, 0.99))
+          .p999(percentile(sorted, 0.999))
+          .max(sorted[sorted.length - 1] / 1e6)
+          .build();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+      int index = (int) Math.ceil(p * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+  }
+}
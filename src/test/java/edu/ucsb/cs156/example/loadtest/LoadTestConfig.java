@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+@TestConfiguration
+public class LoadTestConfig {
+
+    // a Filter bean is registered after springSecurityFilterChain
+    @Bean
+    public LoadTestUserFilter loadTestUserFilter() {
+        return new LoadTestUserFilter();
+    }
+
+    @Bean
+    public LoadTestDataSeeder loadTestDataSeeder() {
+        return new LoadTestDataSeeder();
+    }
+
+}
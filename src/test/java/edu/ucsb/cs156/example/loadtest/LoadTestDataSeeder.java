@@ -0,0 +1,161 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.StreamSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.repository.CrudRepository;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.ReferenceFilter;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Fills the database with generated rows for every domain entity and returns
+ * their keys, which the load scenarios draw from.
+ */
+public class LoadTestDataSeeder {
+
+  private static final int BATCH_SIZE = 500;
+  private static final LocalDateTime BASE = LocalDateTime.parse("2023-01-01T12:00:00");
+
+  @Autowired
+  UCSBDiningCommonsRepository diningCommonsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository menuItemRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  UCSBDateRepository dateRepository;
+
+  @Autowired
+  UCSBOrganizationRepository organizationRepository;
+
+  @Autowired
+  RecommendationRequestRepository recommendationRequestRepository;
+
+  // rows saved here publish no change events
+  @Autowired
+  ReferenceFilter referenceFilter;
+
+  @Data
+  @Builder
+  public static class Volumes {
+    private int diningCommons;
+    private int menuItems;
+    private int reviews;
+    private int dates;
+    private int organizations;
+    private int recommendationRequests;
+  }
+
+  @Data
+  @Builder
+  public static class SeedData {
+    private List<String> diningCommonsCodes;
+    private List<Long> menuItemIds;
+    private List<Long> reviewIds;
+    private List<Long> dateIds;
+    private List<String> orgCodes;
+    private List<Long> recommendationRequestIds;
+  }
+
+  public SeedData seed(Volumes volumes) {
+    List<String> commonsCodes = new ArrayList<>();
+    for (UCSBDiningCommons commons : save(diningCommonsRepository, Math.max(1, volumes.getDiningCommons()),
+        i -> UCSBDiningCommons.builder()
+            .code("commons-" + i).name("Commons " + i)
+            .hasSackMeal(i % 2 == 0).hasTakeOutMeal(i % 3 == 0).hasDiningCam(i % 5 == 0)
+            .latitude(34.41 + i * 0.001).longitude(-119.85 - i * 0.001)
+            .build())) {
+      commonsCodes.add(commons.getCode());
+    }
+
+    List<Long> menuItemIds = new ArrayList<>();
+    for (UCSBDiningCommonsMenuItem item : save(menuItemRepository, Math.max(1, volumes.getMenuItems()),
+        i -> UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode(commonsCodes.get(i % commonsCodes.size()))
+            .name("Dish " + i).station("Station " + (i % 8))
+            .build())) {
+      menuItemIds.add(item.getId());
+    }
+
+    List<Long> reviewIds = new ArrayList<>();
+    for (MenuItemReview review : save(menuItemReviewRepository, Math.max(1, volumes.getReviews()),
+        i -> MenuItemReview.builder()
+            .itemId(menuItemIds.get(i % menuItemIds.size()))
+            .reviewerEmail("reviewer" + (i % 97) + "@ucsb.edu")
+            .stars(1 + i % 5).dateReviewed(BASE.plusMinutes(i)).comments("seeded review " + i)
+            .build())) {
+      reviewIds.add(review.getId());
+    }
+
+    List<Long> dateIds = new ArrayList<>();
+    for (UCSBDate date : save(dateRepository, Math.max(1, volumes.getDates()),
+        i -> UCSBDate.builder()
+            .quarterYYYYQ("20" + (20 + i % 10) + (1 + i % 4)).name("date " + i).localDateTime(BASE.plusDays(i))
+            .build())) {
+      dateIds.add(date.getId());
+    }
+
+    List<String> orgCodes = new ArrayList<>();
+    for (UCSBOrganization org : save(organizationRepository, Math.max(1, volumes.getOrganizations()),
+        i -> UCSBOrganization.builder()
+            .orgCode("ORG" + i).orgTranslationShort("Org " + i).orgTranslation("Organization " + i)
+            .inactive(i % 10 == 0)
+            .build())) {
+      orgCodes.add(org.getOrgCode());
+    }
+
+    List<Long> requestIds = new ArrayList<>();
+    for (RecommendationRequest request : save(recommendationRequestRepository, Math.max(1, volumes.getRecommendationRequests()),
+        i -> RecommendationRequest.builder()
+            .requesterEmail("student" + (i % 211) + "@ucsb.edu").professorEmail("prof" + (i % 31) + "@ucsb.edu")
+            .explanation("seeded request " + i)
+            .dateRequested(BASE.plusDays(i % 300)).dateNeeded(BASE.plusDays(i % 300 + 30)).done(i % 4 == 0)
+            .build())) {
+      requestIds.add(request.getId());
+    }
+
+    referenceFilter.rebuild();
+
+    return SeedData.builder()
+        .diningCommonsCodes(commonsCodes)
+        .menuItemIds(menuItemIds)
+        .reviewIds(reviewIds)
+        .dateIds(dateIds)
+        .orgCodes(orgCodes)
+        .recommendationRequestIds(requestIds)
+        .build();
+  }
+
+  private static <T> List<T> save(CrudRepository<T, ?> repository, int count, IntFunction<T> row) {
+    List<T> saved = new ArrayList<>(count);
+    for (int start = 0; start < count; start += BATCH_SIZE) {
+      List<T> batch = new ArrayList<>(BATCH_SIZE);
+      for (int i = start; i < Math.min(count, start + BATCH_SIZE); i++) {
+        batch.add(row.apply(i));
+      }
+      StreamSupport.stream(repository.saveAll(batch).spliterator(), false).forEach(saved::add);
+    }
+    return saved;
+  }
+}
@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Stands in for the Google login during load tests: a request carrying
+ * X-Load-Test-User and no authenticated session is given the OAuth2
+ * authentication the real login would have produced, with the same Google
+ * attributes and role mapping. The security context is then stored in the
+ * session as usual, so each virtual user logs in once and later requests
+ * pay the normal session lookup.
+ *
+ * Registered as a plain servlet filter, it runs after the Spring Security
+ * chain (CSRF included) and before the dispatcher.
+ */
+public class LoadTestUserFilter extends OncePerRequestFilter {
+
+  public static final String USER_HEADER = "X-Load-Test-User";
+
+  // virtual users whose name starts with this get ROLE_ADMIN
+  public static final String ADMIN_PREFIX = "admin";
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String name = request.getHeader(USER_HEADER);
+    Authentication current = SecurityContextHolder.getContext().getAuthentication();
+    if (name != null && (current == null || current instanceof AnonymousAuthenticationToken)) {
+      SecurityContextHolder.getContext().setAuthentication(authenticate(name));
+    }
+    chain.doFilter(request, response);
+  }
+
+  static OAuth2AuthenticationToken authenticate(String name) {
+    Map<String, Object> attributes = Map.of(
+        "sub", "loadtest-" + name,
+        "email", name + "@loadtest.ucsb.edu",
+        "name", "Load Test " + name,
+        "given_name", "Load Test",
+        "family_name", name,
+        "picture", "https://example.org/" + name + ".jpg",
+        "email_verified", true,
+        "locale", "en",
+        "hd", "ucsb.edu");
+
+    Set<GrantedAuthority> authorities = new HashSet<>();
+    authorities.add(new OAuth2UserAuthority(attributes));
+    authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+    authorities.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
+    if (name.startsWith(ADMIN_PREFIX)) {
+      authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    }
+    return new OAuth2AuthenticationToken(new DefaultOAuth2User(authorities, attributes, "sub"), authorities, "google");
+  }
+}
@@ -0,0 +1,192 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.loadtest.LoadGenerator.Scenario;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives a mixed read/write workload against every domain controller and
+ * /api/currentUser on a real server, then writes a JSON report and fails if
+ * the error rate or p99 latency exceed their limits.
+ *
+ * Excluded from the normal build; run with
+ *   mvn test -Plocalhost,loadtest -Dloadtest.rps=200 -Dloadtest.duration-seconds=60
+ * See docs/load-testing.md for the other settings.
+ */
+@Slf4j
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+    "logging.level.sql=WARN",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+    "logging.level.edu.ucsb.cs156.example=WARN",
+    "app.rate-limit.enabled=false"
+})
+@Import(LoadTestConfig.class)
+class LoadTests {
+
+  @LocalServerPort
+  int port;
+
+  @Autowired
+  LoadTestDataSeeder seeder;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Value("${loadtest.rps:100}")
+  double rps;
+
+  @Value("${loadtest.duration-seconds:30}")
+  int durationSeconds;
+
+  @Value("${loadtest.warmup-seconds:5}")
+  int warmupSeconds;
+
+  @Value("${loadtest.users:20}")
+  int users;
+
+  @Value("${loadtest.admins:5}")
+  int admins;
+
+  @Value("${loadtest.max-in-flight:256}")
+  int maxInFlight;
+
+  @Value("${loadtest.seed.dining-commons:10}")
+  int diningCommons;
+
+  @Value("${loadtest.seed.menu-items:1000}")
+  int menuItems;
+
+  @Value("${loadtest.seed.reviews:5000}")
+  int reviews;
+
+  @Value("${loadtest.seed.dates:200}")
+  int dates;
+
+  @Value("${loadtest.seed.organizations:100}")
+  int organizations;
+
+  @Value("${loadtest.seed.recommendation-requests:1000}")
+  int recommendationRequests;
+
+  @Value("${loadtest.max-error-rate:0.01}")
+  double maxErrorRate;
+
+  // 0 disables the latency check
+  @Value("${loadtest.max-p99-ms:0}")
+  double maxP99Ms;
+
+  @Value("${loadtest.report:target/loadtest/report.json}")
+  String reportPath;
+
+  @Test
+  void mixed_read_write_load() throws Exception {
+    LoadTestDataSeeder.Volumes volumes = LoadTestDataSeeder.Volumes.builder()
+        .diningCommons(diningCommons)
+        .menuItems(menuItems)
+        .reviews(reviews)
+        .dates(dates)
+        .organizations(organizations)
+        .recommendationRequests(recommendationRequests)
+        .build();
+    LoadTestDataSeeder.SeedData data = seeder.seed(volumes);
+
+    LoadReport report;
+    try (LoadGenerator generator = new LoadGenerator(scenarios(data), users, admins, maxInFlight)) {
+      if (warmupSeconds > 0) {
+        generator.run(rps, Duration.ofSeconds(warmupSeconds), 1);
+      }
+      report = generator.run(rps, Duration.ofSeconds(durationSeconds), 2);
+    }
+    report.setSeeded(volumes);
+
+    File file = new File(reportPath);
+    file.getParentFile().mkdirs();
+    mapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+    log.warn("load test: {} requests at {} rps, error rate {}, p99 {} ms; report in {}", report.getRequests(),
+        report.getAchievedRps(), report.getErrorRate(), report.getLatencyMs().getP99(), file.getAbsolutePath());
+
+    assertTrue(report.getErrorRate() <= maxErrorRate,
+        "error rate %.4f exceeds %.4f".formatted(report.getErrorRate(), maxErrorRate));
+    assertTrue(maxP99Ms <= 0 || report.getLatencyMs().getP99() <= maxP99Ms,
+        "p99 %.1f ms exceeds %.1f ms".formatted(report.getLatencyMs().getP99(), maxP99Ms));
+  }
+
+  private List<Scenario> scenarios(LoadTestDataSeeder.SeedData data) {
+    return List.of(
+        new Scenario("currentUser", 10, false, r -> get("/api/currentUser")),
+        new Scenario("menuItems.all", 8, false, r -> get("/api/UCSBDiningCommonsMenuItem/all")),
+        new Scenario("menuItems.get", 10, false,
+            r -> get("/api/UCSBDiningCommonsMenuItem?id=" + any(r, data.getMenuItemIds()))),
+        new Scenario("reviews.all", 3, false, r -> get("/api/menuitemreview/all")),
+        new Scenario("reviews.get", 10, false, r -> get("/api/menuitemreview?id=" + any(r, data.getReviewIds()))),
+        new Scenario("dates.all", 4, false, r -> get("/api/ucsbdates/all")),
+        new Scenario("dates.get", 5, false, r -> get("/api/ucsbdates?id=" + any(r, data.getDateIds()))),
+        new Scenario("diningCommons.all", 6, false, r -> get("/api/ucsbdiningcommons/all")),
+        new Scenario("diningCommons.get", 5, false,
+            r -> get("/api/ucsbdiningcommons?code=" + any(r, data.getDiningCommonsCodes()))),
+        new Scenario("organizations.all", 6, false, r -> get("/api/UCSBOrganization/all")),
+        new Scenario("organizations.get", 5, false,
+            r -> get("/api/UCSBOrganization?orgCode=" + any(r, data.getOrgCodes()))),
+        new Scenario("recommendationRequests.all", 3, false, r -> get("/api/RecommendationRequest/all")),
+        new Scenario("recommendationRequests.get", 5, false,
+            r -> get("/api/RecommendationRequest?id=" + any(r, data.getRecommendationRequestIds()))),
+        new Scenario("reviews.post", 5, true,
+            r -> post("/api/menuitemreview/post?itemId=" + any(r, data.getMenuItemIds())
+                + "&reviewerEmail=loadtest@ucsb.edu&stars=" + (1 + r.nextInt(5))
+                + "&dateReviewed=2023-06-01T12:00:00&comments=load")),
+        new Scenario("recommendationRequests.post", 3, true,
+            r -> post("/api/RecommendationRequest/post?requesterEmail=loadtest@ucsb.edu&professorEmail=prof@ucsb.edu"
+                + "&explanation=load&dateRequested=2023-06-01T00:00:00&dateNeeded=2023-07-01T00:00:00&done=false")),
+        new Scenario("menuItems.post", 2, true,
+            r -> post("/api/UCSBDiningCommonsMenuItem/post?diningCommonsCode="
+                + any(r, data.getDiningCommonsCodes()) + "&name=Load&station=Grill")),
+        new Scenario("dates.put", 2, true,
+            r -> put("/api/ucsbdates?id=" + any(r, data.getDateIds()),
+                "{\"quarterYYYYQ\":\"20232\",\"name\":\"load\",\"localDateTime\":\"2023-04-03T12:00:00\"}")),
+        new Scenario("organizations.put", 1, true,
+            r -> put("/api/UCSBOrganization?orgCode=" + any(r, data.getOrgCodes()),
+                "{\"orgTranslationShort\":\"Load\",\"orgTranslation\":\"Load Test\",\"inactive\":false}")));
+  }
+
+  private static <T> T any(Random random, List<T> values) {
+    return values.get(random.nextInt(values.size()));
+  }
+
+  private HttpRequest.Builder get(String path) {
+    return HttpRequest.newBuilder(uri(path)).GET();
+  }
+
+  private HttpRequest.Builder post(String path) {
+    return HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.noBody());
+  }
+
+  private HttpRequest.Builder put(String path, String json) {
+    return HttpRequest.newBuilder(uri(path))
+        .header("Content-Type", "application/json")
+        .PUT(HttpRequest.BodyPublishers.ofString(json));
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://localhost:" + port + path);
+  }
+}
@@ -0,0 +1,148 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares JSON, Smile and CBOR for the two bulk list endpoints: the size of
+ * the response each one sends, and the time the application's mappers take to
+ * encode the list and to decode it again the way a client would.
+ *
+ * Excluded from the normal build; run with
+ *   mvn test -Plocalhost,loadtest -Dtest=PayloadFormatBenchmarks
+ */
+@Slf4j
+@Tag("loadtest")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:payloadformats;DB_CLOSE_DELAY=-1",
+    "logging.level.sql=WARN",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+    "logging.level.edu.ucsb.cs156.example=WARN",
+    "app.coalescing.enabled=false"
+})
+@AutoConfigureMockMvc
+@Import(LoadTestConfig.class)
+@WithMockUser(roles = { "ADMIN", "USER" })
+class PayloadFormatBenchmarks {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  LoadTestDataSeeder seeder;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Autowired
+  MappingJackson2SmileHttpMessageConverter smileConverter;
+
+  @Autowired
+  MappingJackson2CborHttpMessageConverter cborConverter;
+
+  @Value("${loadtest.payload.rows:5000}")
+  int rows;
+
+  @Value("${loadtest.payload.warmup:50}")
+  int warmup;
+
+  @Value("${loadtest.payload.iterations:50}")
+  int iterations;
+
+  @Value("${loadtest.payload.report:target/loadtest/payload-formats.json}")
+  String reportPath;
+
+  @Data
+  @Builder
+  static class Result {
+    private int rows;
+    private long responseBytes;
+    private long encodeMicros;
+    private long decodeMicros;
+  }
+
+  @Test
+  void payload_size_and_codec_time_per_format() throws Exception {
+    seeder.seed(LoadTestDataSeeder.Volumes.builder().diningCommons(1).menuItems(50).reviews(rows)
+        .dates(1).organizations(1).recommendationRequests(rows).build());
+    Map<String, ObjectMapper> formats = new LinkedHashMap<>();
+    formats.put(MediaType.APPLICATION_JSON_VALUE, mapper);
+    formats.put("application/x-jackson-smile", smileConverter.getObjectMapper());
+    formats.put("application/cbor", cborConverter.getObjectMapper());
+
+    Map<String, Map<String, Result>> results = new LinkedHashMap<>();
+    results.put("/api/menuitemreview/all", measure("/api/menuitemreview/all", MenuItemReview.class, formats));
+    results.put("/api/RecommendationRequest/all",
+        measure("/api/RecommendationRequest/all", RecommendationRequest.class, formats));
+
+    File file = new File(reportPath);
+    file.getParentFile().mkdirs();
+    mapper.writerWithDefaultPrettyPrinter().writeValue(file, results);
+    results.forEach((url, byFormat) -> byFormat.forEach((format, result) ->
+        log.warn("{} as {}: {} bytes, encode {} us, decode {} us", url, format, result.getResponseBytes(),
+            result.getEncodeMicros(), result.getDecodeMicros())));
+  }
+
+  private Map<String, Result> measure(String url, Class<?> type, Map<String, ObjectMapper> formats) throws Exception {
+    Map<String, Result> results = new LinkedHashMap<>();
+    for (Map.Entry<String, ObjectMapper> format : formats.entrySet()) {
+      ObjectMapper codec = format.getValue();
+      JavaType listType = codec.getTypeFactory().constructCollectionType(List.class, type);
+      byte[] body = mockMvc.perform(get(url).accept(MediaType.valueOf(format.getKey())))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsByteArray();
+      List<?> values = codec.readValue(body, listType);
+      List<?> roundTripped = codec.readValue(codec.writeValueAsBytes(values), listType);
+      assertEquals(values, roundTripped);
+
+      for (int i = 0; i < warmup; i++) {
+        codec.readValue(codec.writeValueAsBytes(values), listType);
+      }
+      long start = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        codec.writeValueAsBytes(values);
+      }
+      long encoded = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        codec.readValue(body, listType);
+      }
+      long decoded = System.nanoTime();
+
+      results.put(format.getKey(), Result.builder()
+          .rows(values.size())
+          .responseBytes(body.length)
+          .encodeMicros((encoded - start) / iterations / 1000)
+          .decodeMicros((decoded - encoded) / iterations / 1000)
+          .build());
+    }
+    return results;
+  }
+}
@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+  @Test
+  void keys_put_are_always_found() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    LongStream.range(0, 10_000).forEach(filter::put);
+
+    assertTrue(LongStream.range(0, 10_000).allMatch(filter::mightContain));
+  }
+
+  @Test
+  void false_positive_rate_is_close_to_the_one_sized_for() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    LongStream.range(0, 10_000).forEach(filter::put);
+
+    long falsePositives = LongStream.range(1_000_000, 1_100_000).filter(filter::mightContain).count();
+    assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+  }
+
+  @Test
+  void empty_filter_contains_nothing() {
+    BloomFilter filter = new BloomFilter(100, 0.01);
+
+    assertFalse(filter.mightContain(0));
+    assertFalse(filter.mightContain(BloomFilter.key("ortega")));
+  }
+
+  @Test
+  void size_follows_the_usual_formulas() {
+    BloomFilter filter = new BloomFilter(1000, 0.01);
+
+    // m = -n ln p / (ln 2)^2 = 9586 bits, rounded up to whole words; k = m/n ln 2
+    assertEquals(9600, filter.getBitCount());
+    assertEquals(7, filter.getHashCount());
+  }
+
+  @Test
+  void string_keys_differ() {
+    assertEquals(BloomFilter.key("ortega"), BloomFilter.key("ortega"));
+    assertNotEquals(BloomFilter.key("ortega"), BloomFilter.key("portola"));
+  }
+}
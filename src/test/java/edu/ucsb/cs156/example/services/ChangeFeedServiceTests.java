@@ -0,0 +1,170 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+
+class ChangeFeedServiceTests {
+
+  private final SseEmitter emitter = mock(SseEmitter.class);
+
+  private ChangeFeedService service(int bufferSize, int queueSize, Executor executor) {
+    return new ChangeFeedService(new ObjectMapper(), bufferSize, queueSize, 1000L, executor) {
+      @Override
+      SseEmitter createEmitter() {
+        return emitter;
+      }
+    };
+  }
+
+  private List<String> sentIds() throws IOException {
+    ArgumentCaptor<SseEmitter.SseEventBuilder> events = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+    verify(emitter, atLeastOnce()).send(events.capture());
+    // the id line leads the first chunk of each built event
+    return events.getAllValues().stream()
+        .map(event -> event.build().iterator().next().getData().toString())
+        .filter(chunk -> chunk.startsWith("id:"))
+        .map(chunk -> chunk.substring("id:".length(), chunk.indexOf('\n')))
+        .collect(Collectors.toList());
+  }
+
+  private EntityChangeEvent event(long id) {
+    return EntityChangeEvent.of(MenuItemReview.class, id, EntityChangeEvent.Op.CREATE);
+  }
+
+  @Test
+  void test_events_are_sent_to_subscribers() throws Exception {
+    ChangeFeedService service = service(8, 8, Runnable::run);
+
+    service.subscribe(null);
+    service.onEntityChange(event(1L));
+    service.onEntityChange(event(2L));
+
+    assertEquals(1, service.getSubscriberCount());
+    verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+  }
+
+  @Test
+  void test_last_event_id_replays_only_newer_events_still_in_buffer() throws Exception {
+    ChangeFeedService service = service(2, 8, Runnable::run);
+    EntityChangeEvent first = event(1L);
+    EntityChangeEvent second = event(2L);
+    EntityChangeEvent third = event(3L);
+
+    service.onEntityChange(first);
+    service.onEntityChange(second);
+    service.onEntityChange(third);
+    service.subscribe(1L);
+
+    // first was evicted from the ring and is older anyway; second and third are replayed
+    verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+    assertEquals(List.of("2", "3"), sentIds());
+  }
+
+  @Test
+  void test_event_ids_follow_the_order_events_arrive_in() throws Exception {
+    ChangeFeedService service = service(8, 8, Runnable::run);
+    EntityChangeEvent later = event(2L);
+    EntityChangeEvent earlier = event(1L);
+
+    service.subscribe(null);
+    service.onEntityChange(later);
+    service.onEntityChange(earlier);
+
+    assertEquals(List.of("1", "2"), sentIds());
+  }
+
+  @Test
+  void test_replay_is_not_overtaken_or_repeated_by_new_events() throws Exception {
+    // dispatch is deferred, so a replay and a live event queue up together
+    List<Runnable> tasks = new ArrayList<>();
+    ChangeFeedService service = service(8, 8, tasks::add);
+    service.onEntityChange(event(1L));
+    service.onEntityChange(event(2L));
+
+    service.subscribe(0L);
+    service.onEntityChange(event(3L));
+    tasks.forEach(Runnable::run);
+
+    assertEquals(List.of("1", "2", "3"), sentIds());
+  }
+
+  @Test
+  void test_last_event_id_from_before_a_restart_replays_the_whole_buffer() throws Exception {
+    ChangeFeedService service = service(8, 8, Runnable::run);
+    service.onEntityChange(event(1L));
+
+    service.subscribe(500L);
+
+    assertEquals(List.of("1"), sentIds());
+  }
+
+  @Test
+  void test_slow_subscriber_is_dropped() throws Exception {
+    // tasks never run, so the subscriber's queue only fills up
+    ChangeFeedService service = service(8, 1, task -> {});
+
+    service.subscribe(null);
+    service.onEntityChange(event(1L));
+    service.onEntityChange(event(2L));
+    service.onEntityChange(event(3L));
+
+    assertEquals(0, service.getSubscriberCount());
+    assertEquals(1, service.getDroppedSubscriberCount());
+    verify(emitter, times(1)).complete();
+    verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+  }
+
+  @Test
+  void test_failed_send_removes_subscriber() throws Exception {
+    ChangeFeedService service = service(8, 8, Runnable::run);
+    doThrow(new IOException("broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+    service.subscribe(null);
+    service.onEntityChange(event(1L));
+
+    assertEquals(0, service.getSubscriberCount());
+    assertEquals(0, service.getDroppedSubscriberCount());
+  }
+
+  @Test
+  void test_heartbeat_is_sent_to_idle_subscribers() throws Exception {
+    ChangeFeedService service = service(8, 8, Runnable::run);
+
+    service.subscribe(null);
+    service.heartbeat();
+
+    verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+  }
+
+  @Test
+  void test_shutdown_completes_subscribers() {
+    ChangeFeedService service = service(8, 8, Runnable::run);
+
+    service.subscribe(null);
+    service.shutdown();
+
+    assertEquals(0, service.getSubscriberCount());
+    verify(emitter, times(1)).complete();
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import edu.ucsb.cs156.example.models.ConnectionPoolStats;
+
+class ConnectionPoolMetricsTests {
+
+  @Test
+  void test_stats_before_pool_starts_are_empty() {
+    ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+
+    ConnectionPoolStats stats = metrics.getStats();
+
+    assertNull(stats.getPoolName());
+    assertEquals(0, stats.getAcquisitions());
+    assertEquals(0, stats.getMeanWaitMicros());
+    assertEquals(0, stats.getP99WaitMicros());
+    assertEquals(0, stats.getTotalConnections());
+  }
+
+  @Test
+  void test_tracker_records_waits_timeouts_and_pool_state() {
+    ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+    PoolStats poolStats = mock(PoolStats.class);
+    when(poolStats.getActiveConnections()).thenReturn(3);
+    when(poolStats.getIdleConnections()).thenReturn(7);
+    when(poolStats.getTotalConnections()).thenReturn(10);
+    when(poolStats.getMaxConnections()).thenReturn(10);
+    when(poolStats.getPendingThreads()).thenReturn(2);
+
+    IMetricsTracker tracker = metrics.create("test-pool", poolStats);
+    for (int i = 0; i < 99; i++) {
+      tracker.recordConnectionAcquiredNanos(500); // under a microsecond
+    }
+    tracker.recordConnectionAcquiredNanos(5_000_000); // 5ms
+    tracker.recordConnectionTimeout();
+
+    ConnectionPoolStats stats = metrics.getStats();
+
+    assertEquals("test-pool", stats.getPoolName());
+    assertEquals(100, stats.getAcquisitions());
+    assertEquals(1, stats.getTimeouts());
+    assertEquals(50, stats.getMeanWaitMicros());
+    assertEquals(1, stats.getP50WaitMicros());
+    assertEquals(1, stats.getP99WaitMicros());
+    assertEquals(5000, stats.getMaxWaitMicros());
+    assertEquals(3, stats.getActiveConnections());
+    assertEquals(7, stats.getIdleConnections());
+    assertEquals(10, stats.getTotalConnections());
+    assertEquals(10, stats.getMaxConnections());
+    assertEquals(2, stats.getThreadsAwaitingConnection());
+  }
+
+  @Test
+  void test_percentiles_report_bucket_upper_bound() {
+    ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+
+    metrics.recordWait(1_000_000); // 1000us lands in [512, 1024)
+    metrics.recordWait(3_000_000); // 3000us lands in [2048, 4096)
+
+    ConnectionPoolStats stats = metrics.getStats();
+
+    assertEquals(1023, stats.getP50WaitMicros());
+    assertEquals(4095, stats.getP99WaitMicros());
+  }
+}
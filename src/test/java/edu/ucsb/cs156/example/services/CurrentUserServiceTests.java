@@ -1,17 +1,28 @@
 package edu.ucsb.cs156.example.services;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.User;
 
 class CurrentUserServiceTests extends ControllerTestCase {
 
+  @AfterEach
+  void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
   @Test
   void test_isLoggedIn_returns_false() {
     CurrentUserService currentUserService = mock(CurrentUserService.class);
@@ -26,4 +37,17 @@ class CurrentUserServiceTests extends ControllerTestCase {
     assertTrue(currentUserService.isLoggedIn());
   }
 
+  @Test
+  void test_getPrincipalName_reads_security_context() {
+    CurrentUserService currentUserService = mock(CurrentUserService.class, CALLS_REAL_METHODS);
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", "password"));
+    assertEquals("alice", currentUserService.getPrincipalName());
+  }
+
+  @Test
+  void test_getPrincipalName_returns_null_when_unauthenticated() {
+    CurrentUserService currentUserService = mock(CurrentUserService.class, CALLS_REAL_METHODS);
+    SecurityContextHolder.clearContext();
+    assertNull(currentUserService.getPrincipalName());
+  }
 }
@@ -0,0 +1,130 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionOperations;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.models.SystemInfo;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+class DashboardServiceTests {
+
+  private static final Instant NOW = Instant.parse("2023-08-01T12:00:00Z");
+  private static final PageRequest FIRST_THREE = PageRequest.of(0, 3);
+
+  private final UCSBDiningCommonsRepository commonsRepository = mock(UCSBDiningCommonsRepository.class);
+  private final UCSBDiningCommonsMenuItemRepository menuItemRepository = mock(UCSBDiningCommonsMenuItemRepository.class);
+  private final MenuItemReviewRepository reviewRepository = mock(MenuItemReviewRepository.class);
+  private final UCSBDateRepository dateRepository = mock(UCSBDateRepository.class);
+  private final SystemInfoService systemInfoService = mock(SystemInfoService.class);
+
+  private final CurrentUser currentUser = CurrentUser.builder().build();
+  private final SystemInfo systemInfo = SystemInfo.builder().showSwaggerUILink(true).build();
+  private final List<UCSBDiningCommons> commons = List.of(UCSBDiningCommons.builder().code("ortega").build());
+  private final List<UCSBDiningCommonsMenuItem> menuItems = List.of(UCSBDiningCommonsMenuItem.builder().id(9).build());
+  private final List<MenuItemReview> reviews = List.of(MenuItemReview.builder().id(4).build());
+  private final List<UCSBDate> dates = List.of(UCSBDate.builder().id(2).build());
+
+  @BeforeEach
+  void stubRepositories() {
+    when(systemInfoService.getSystemInfo()).thenReturn(systemInfo);
+    when(commonsRepository.findAll()).thenReturn(commons);
+    when(menuItemRepository.findAllByOrderByIdDesc(FIRST_THREE)).thenReturn(menuItems);
+    when(reviewRepository.findAllByOrderByDateReviewedDesc(FIRST_THREE)).thenReturn(reviews);
+    when(dateRepository.findByLocalDateTimeGreaterThanEqualOrderByLocalDateTimeAsc(
+        LocalDateTime.ofInstant(NOW, ZoneOffset.UTC), FIRST_THREE)).thenReturn(dates);
+  }
+
+  private DashboardService wire(DashboardService service) {
+    service.ucsbDiningCommonsRepository = commonsRepository;
+    service.ucsbDiningCommonsMenuItemRepository = menuItemRepository;
+    service.menuItemReviewRepository = reviewRepository;
+    service.ucsbDateRepository = dateRepository;
+    service.systemInfoService = systemInfoService;
+    return service;
+  }
+
+  private DashboardService service(Executor executor, long partTimeoutMs) {
+    return wire(new DashboardService(executor, TransactionOperations.withoutTransaction(), partTimeoutMs, 3,
+        Clock.fixed(NOW, ZoneOffset.UTC)));
+  }
+
+  @Test
+  void test_dashboard_has_every_part() {
+    Dashboard dashboard = service(Runnable::run, 1000).getDashboard(() -> currentUser);
+
+    assertEquals(currentUser, dashboard.getCurrentUser());
+    assertEquals(systemInfo, dashboard.getSystemInfo());
+    assertEquals(commons, dashboard.getDiningCommons());
+    assertEquals(menuItems, dashboard.getMenuItems());
+    assertEquals(reviews, dashboard.getRecentReviews());
+    assertEquals(dates, dashboard.getUpcomingDates());
+    assertEquals(List.of(), dashboard.getUnavailable());
+  }
+
+  @Test
+  void test_failed_part_is_left_out() {
+    when(reviewRepository.findAllByOrderByDateReviewedDesc(any())).thenThrow(new IllegalStateException("db down"));
+
+    Dashboard dashboard = service(Runnable::run, 1000).getDashboard(() -> currentUser);
+
+    assertNull(dashboard.getRecentReviews());
+    assertEquals(dates, dashboard.getUpcomingDates());
+    assertEquals(List.of("recentReviews"), dashboard.getUnavailable());
+  }
+
+  @Test
+  void test_parts_that_miss_their_timeout_are_left_out() {
+    // an executor that never runs anything
+    Dashboard dashboard = service(runnable -> { }, 20).getDashboard(() -> currentUser);
+
+    assertEquals(currentUser, dashboard.getCurrentUser());
+    assertNull(dashboard.getDiningCommons());
+    assertEquals(4, dashboard.getUnavailable().size());
+  }
+
+  @Test
+  void test_each_part_runs_in_a_read_only_transaction_on_the_pool() {
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    DashboardService service = wire(new DashboardService(transactionManager, 2, 4, 1000, 3));
+
+    try {
+      Dashboard dashboard = service.getDashboard(() -> currentUser);
+
+      assertEquals(commons, dashboard.getDiningCommons());
+      verify(transactionManager, times(4)).getTransaction(argThat(definition -> definition.isReadOnly()));
+      verify(transactionManager, times(4)).commit(any());
+    } finally {
+      service.shutdown();
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.services.ReviewPartitions.Quarter;
+
+class EmulatedReviewPartitionsTests {
+
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+      new DriverManagerDataSource("jdbc:h2:mem:emulatedpartitions;DB_CLOSE_DELAY=-1"));
+  private final EmulatedReviewPartitions partitions = new EmulatedReviewPartitions(jdbcTemplate);
+
+  @BeforeEach
+  void createTable() {
+    jdbcTemplate.execute("CREATE TABLE menuitemreview (id BIGINT PRIMARY KEY, item_id BIGINT, reviewer_email VARCHAR(255),"
+        + " stars INT, date_reviewed TIMESTAMP, comments VARCHAR(255))");
+    insert(1, "2022-02-10T09:00:00");
+    insert(2, "2022-03-31T23:59:59");
+    insert(3, "2022-04-01T00:00:00");
+    insert(4, "2022-11-20T12:00:00");
+    insert(5, null);
+  }
+
+  @AfterEach
+  void dropTable() {
+    jdbcTemplate.execute("DROP TABLE menuitemreview");
+  }
+
+  private void insert(long id, String dateReviewed) {
+    jdbcTemplate.update("INSERT INTO menuitemreview VALUES (?, 7, 'student@ucsb.edu', 4, ?, 'ok')", id,
+        dateReviewed != null ? Timestamp.valueOf(dateReviewed.replace('T', ' ')) : null);
+  }
+
+  @Test
+  void test_quarters_before_are_the_ended_quarters_that_hold_reviews() {
+    assertEquals(List.of(), partitions.quartersBefore(LocalDate.parse("2022-03-31")));
+    assertEquals(List.of(new Quarter(2022, 1)), partitions.quartersBefore(LocalDate.parse("2022-04-01")));
+    assertEquals(List.of(new Quarter(2022, 1), new Quarter(2022, 2)),
+        partitions.quartersBefore(LocalDate.parse("2022-12-31")));
+    assertEquals(List.of(new Quarter(2022, 1), new Quarter(2022, 2), new Quarter(2022, 4)),
+        partitions.quartersBefore(LocalDate.parse("2023-01-01")));
+  }
+
+  @Test
+  void test_for_each_review_reads_the_quarter_in_id_order() {
+    List<MenuItemReview> reviews = new ArrayList<>();
+
+    partitions.forEachReview(new Quarter(2022, 1), reviews::add);
+
+    assertEquals(2, reviews.size());
+    assertEquals(1, reviews.get(0).getId());
+    assertEquals("2022-03-31T23:59:59", reviews.get(1).getDateReviewed().toString());
+    assertEquals(7, reviews.get(1).getItemId());
+    assertEquals("student@ucsb.edu", reviews.get(1).getReviewerEmail());
+    assertEquals(4, reviews.get(1).getStars());
+    assertEquals("ok", reviews.get(1).getComments());
+  }
+
+  @Test
+  void test_drop_deletes_only_the_quarter() {
+    partitions.prepare(LocalDate.parse("2023-01-01"));
+    partitions.drop(new Quarter(2022, 1));
+
+    assertEquals(List.of(3L, 4L, 5L), jdbcTemplate.queryForList("SELECT id FROM menuitemreview ORDER BY id", Long.class));
+  }
+}
@@ -0,0 +1,233 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+class GraphQLServiceTests {
+
+  private final MenuItemReviewRepository reviews = mock(MenuItemReviewRepository.class);
+  private final UCSBDiningCommonsMenuItemRepository menuItems = mock(UCSBDiningCommonsMenuItemRepository.class);
+  private final UCSBDiningCommonsRepository commons = mock(UCSBDiningCommonsRepository.class);
+  private final RecommendationRequestRepository recommendationRequests = mock(RecommendationRequestRepository.class);
+  private final UCSBOrganizationRepository organizations = mock(UCSBOrganizationRepository.class);
+  private final UCSBDateRepository dates = mock(UCSBDateRepository.class);
+  private final UserRepository users = mock(UserRepository.class);
+
+  private GraphQLService service;
+
+  private final UCSBDiningCommons ortega = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+  private final UCSBDiningCommonsMenuItem burrito = UCSBDiningCommonsMenuItem.builder()
+      .id(1).diningCommonsCode("ortega").name("Burrito").build();
+  private final UCSBDiningCommonsMenuItem pho = UCSBDiningCommonsMenuItem.builder()
+      .id(2).diningCommonsCode("ortega").name("Pho").build();
+  private final List<MenuItemReview> allReviews = List.of(
+      MenuItemReview.builder().id(10).itemId(1).reviewerEmail("a@ucsb.edu").stars(5).build(),
+      MenuItemReview.builder().id(11).itemId(2).reviewerEmail("b@ucsb.edu").stars(3).build(),
+      MenuItemReview.builder().id(12).itemId(1).reviewerEmail("a@ucsb.edu").stars(4).build());
+
+  @BeforeEach
+  void setup() throws Exception {
+    service = new GraphQLService(4, 30, 200, 10);
+    service.menuItemReviewRepository = reviews;
+    service.ucsbDiningCommonsMenuItemRepository = menuItems;
+    service.ucsbDiningCommonsRepository = commons;
+    service.recommendationRequestRepository = recommendationRequests;
+    service.ucsbOrganizationRepository = organizations;
+    service.ucsbDateRepository = dates;
+    service.userRepository = users;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T at(Map<String, Object> result, Object... path) {
+    Object node = result.get("data");
+    for (Object step : path) {
+      node = step instanceof Integer ? ((List<Object>) node).get((Integer) step) : ((Map<String, Object>) node).get(step);
+    }
+    return (T) node;
+  }
+
+  @Test
+  void test_nested_lookups_are_batched_once_per_level() {
+    when(reviews.findAllByOrderByIdAsc(PageRequest.of(0, 10))).thenReturn(allReviews);
+    when(menuItems.findAllById(List.of(1L, 2L))).thenReturn(List.of(pho, burrito));
+    when(commons.findAllById(List.of("ortega"))).thenReturn(List.of(ortega));
+    when(users.findAllByEmailIn(List.of("a@ucsb.edu", "b@ucsb.edu"))).thenReturn(List.of(
+        User.builder().email("a@ucsb.edu").fullName("Ann").build()));
+
+    Map<String, Object> result = service.execute(
+        "{ reviews { id stars menuItem { name diningCommons { name } } reviewer { fullName } } }", null, null);
+
+    assertNull(result.get("errors"));
+    assertEquals("Burrito", at(result, "reviews", 0, "menuItem", "name"));
+    assertEquals("Pho", at(result, "reviews", 1, "menuItem", "name"));
+    assertEquals("Ortega", at(result, "reviews", 2, "menuItem", "diningCommons", "name"));
+    assertEquals("Ann", at(result, "reviews", 2, "reviewer", "fullName"));
+    assertNull(at(result, "reviews", 1, "reviewer"));
+    verify(menuItems, times(1)).findAllById(any());
+    verify(commons, times(1)).findAllById(any());
+    verify(users, times(1)).findAllByEmailIn(any());
+  }
+
+  @Test
+  void test_one_to_many_relations_are_grouped_per_key() {
+    when(commons.findAllByOrderByCodeAsc(PageRequest.of(0, 10))).thenReturn(List.of(ortega));
+    when(menuItems.findFirstPerCommons(List.of("ortega"), 10)).thenReturn(List.of(burrito, pho));
+    when(reviews.findFirstPerItem(List.of(1L, 2L), 10)).thenReturn(allReviews);
+
+    Map<String, Object> result = service.execute(
+        "{ diningCommons { code menuItems { name reviews { stars } } } }", null, null);
+
+    assertNull(result.get("errors"));
+    List<Object> burritoReviews = at(result, "diningCommons", 0, "menuItems", 0, "reviews");
+    List<Object> phoReviews = at(result, "diningCommons", 0, "menuItems", 1, "reviews");
+    assertEquals(2, burritoReviews.size());
+    assertEquals(1, phoReviews.size());
+    verify(reviews, times(1)).findFirstPerItem(any(), anyInt());
+  }
+
+  @Test
+  void test_lookups_by_key_keep_request_order_and_return_null_for_missing_keys() {
+    when(organizations.findAllById(List.of("SKY", "NONE", "KRC"))).thenReturn(List.of(
+        UCSBOrganization.builder().orgCode("KRC").build(),
+        UCSBOrganization.builder().orgCode("SKY").build()));
+    when(dates.findAllById(List.of(3L))).thenReturn(List.of(UCSBDate.builder().id(3).name("noon").build()));
+    when(recommendationRequests.findAllById(List.of(5L))).thenReturn(List.of());
+    when(reviews.findAllById(List.of(12L))).thenReturn(List.of(allReviews.get(2)));
+    when(menuItems.findAllById(List.of(2L))).thenReturn(List.of(pho));
+    when(commons.findAllById(List.of("ortega"))).thenReturn(List.of(ortega));
+
+    Map<String, Object> result = service.execute(
+        "query Lookups($dates: [ID!]) { organizations(orgCodes: [\"SKY\", \"NONE\", \"KRC\"]) { orgCode }"
+            + " dates(ids: $dates) { name } recommendationRequests(ids: [\"5\"]) { id }"
+            + " reviews(ids: [\"12\"]) { id } menuItems(ids: [\"2\"]) { name } diningCommons(codes: [\"ortega\"]) { name } }",
+        "Lookups", Map.of("dates", List.of("3")));
+
+    assertNull(result.get("errors"));
+    assertEquals("SKY", at(result, "organizations", 0, "orgCode"));
+    assertNull(at(result, "organizations", 1));
+    assertEquals("KRC", at(result, "organizations", 2, "orgCode"));
+    assertEquals("noon", at(result, "dates", 0, "name"));
+    assertNull(at(result, "recommendationRequests", 0));
+    assertEquals("12", at(result, "reviews", 0, "id"));
+    assertEquals("Pho", at(result, "menuItems", 0, "name"));
+    assertEquals("Ortega", at(result, "diningCommons", 0, "name"));
+  }
+
+  @Test
+  void test_lists_without_keys_return_the_first_page() {
+    when(recommendationRequests.findAllByOrderByIdAsc(PageRequest.of(0, 10))).thenReturn(List.of(RecommendationRequest.builder().id(5).done(true).build()));
+    when(organizations.findAllByOrderByOrgCodeAsc(PageRequest.of(0, 10))).thenReturn(List.of());
+    when(dates.findAllByOrderByIdAsc(PageRequest.of(0, 10))).thenReturn(List.of());
+    when(menuItems.findAllByOrderByIdAsc(PageRequest.of(0, 10))).thenReturn(List.of(burrito));
+
+    Map<String, Object> result = service.execute(
+        "{ recommendationRequests { id done } organizations { orgCode } dates { id } menuItems { name } }", null, null);
+
+    assertNull(result.get("errors"));
+    assertEquals(true, at(result, "recommendationRequests", 0, "done"));
+    assertEquals("Burrito", at(result, "menuItems", 0, "name"));
+  }
+
+  @Test
+  void test_queries_deeper_than_the_limit_are_rejected_before_running() {
+    Map<String, Object> result = service.execute(
+        "{ reviews { menuItem { diningCommons { menuItems { reviews { stars } } } } } }", null, null);
+
+    assertNull(result.get("data"));
+    assertTrue(result.get("errors").toString().contains("depth"));
+    verify(reviews, never()).findAllByOrderByIdAsc(any());
+  }
+
+  @Test
+  void test_queries_with_too_many_fields_are_rejected_before_running() throws Exception {
+    GraphQLService strict = new GraphQLService(10, 3, 200, 10);
+
+    Map<String, Object> result = strict.execute("{ dates { id name quarterYYYYQ localDateTime } }", null, null);
+
+    assertNull(result.get("data"));
+    assertTrue(result.get("errors").toString().contains("complexity"));
+  }
+
+  @Test
+  void test_missing_relation_key_resolves_to_null() {
+    when(menuItems.findAllByOrderByIdAsc(PageRequest.of(0, 10))).thenReturn(List.of(UCSBDiningCommonsMenuItem.builder().id(3).name("Orphan").build()));
+
+    Map<String, Object> result = service.execute("{ menuItems { name diningCommons { name } } }", null, null);
+
+    assertNull(result.get("errors"));
+    assertNull(at(result, "menuItems", 0, "diningCommons"));
+    verify(commons, never()).findAllById(any());
+  }
+
+  @Test
+  void test_first_limits_lists_up_to_the_server_maximum() {
+    when(reviews.findAllByOrderByIdAsc(PageRequest.of(0, 2))).thenReturn(allReviews.subList(0, 2));
+
+    Map<String, Object> result = service.execute("{ reviews(first: 2) { id } dates(first: 50) { id }"
+        + " organizations(first: 0) { orgCode } }", null, null);
+
+    assertNull(result.get("errors"));
+    List<Object> firstReviews = at(result, "reviews");
+    assertEquals(2, firstReviews.size());
+    verify(dates).findAllByOrderByIdAsc(PageRequest.of(0, 10));
+    verify(organizations, never()).findAllByOrderByOrgCodeAsc(any());
+  }
+
+  @Test
+  void test_first_limits_nested_lists() {
+    when(commons.findAllByOrderByCodeAsc(PageRequest.of(0, 10))).thenReturn(List.of(ortega));
+    when(menuItems.findFirstPerCommons(List.of("ortega"), 10)).thenReturn(List.of(burrito, pho));
+    when(reviews.findFirstPerItem(List.of(1L), 10)).thenReturn(allReviews);
+
+    Map<String, Object> result = service.execute(
+        "{ diningCommons { menuItems(first: 1) { name reviews(first: 1) { id } } } }", null, null);
+
+    assertNull(result.get("errors"));
+    List<Object> items = at(result, "diningCommons", 0, "menuItems");
+    assertEquals(1, items.size());
+    assertEquals(List.of(Map.of("id", "10")), at(result, "diningCommons", 0, "menuItems", 0, "reviews"));
+  }
+
+  @Test
+  void test_more_ids_than_the_maximum_or_a_negative_first_is_an_error() {
+    Map<String, Object> result = service.execute(
+        "{ dates(ids: [\"1\", \"2\", \"3\", \"4\", \"5\", \"6\", \"7\", \"8\", \"9\", \"10\", \"11\"]) { id } }",
+        null, null);
+    assertTrue(result.get("errors").toString().contains("at most 10 ids"));
+    verify(dates, never()).findAllById(any());
+
+    result = service.execute("{ dates(first: -1) { id } }", null, null);
+    assertTrue(result.get("errors").toString().contains("first must not be negative"));
+    verify(dates, never()).findAllByOrderByIdAsc(any());
+  }
+}
@@ -0,0 +1,200 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.IdempotencyKey;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.IdempotencyKeyRepository;
+
+class IdempotencyServiceTests {
+
+  private static final Instant NOW = Instant.parse("2023-08-01T12:00:00Z");
+  private static final UCSBOrganization ORG = UCSBOrganization.builder().orgCode("ZPR")
+      .orgTranslationShort("ZETA PHI RHO").orgTranslation("ZETA PHI RHO").inactive(false).build();
+  private static final String ORG_JSON =
+      "{\"orgCode\":\"ZPR\",\"orgTranslationShort\":\"ZETA PHI RHO\",\"orgTranslation\":\"ZETA PHI RHO\",\"inactive\":false}";
+
+  private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+  private final Clock clock = mock(Clock.class);
+  private final IdempotencyService service = new IdempotencyService(repository,
+      TransactionOperations.withoutTransaction(), TransactionOperations.withoutTransaction(), new ObjectMapper(),
+      2, Duration.ofHours(24), Duration.ofSeconds(30), clock);
+
+  private final AtomicInteger calls = new AtomicInteger();
+  private final AtomicInteger replays = new AtomicInteger();
+
+  @BeforeEach
+  void setup() {
+    when(clock.instant()).thenReturn(NOW);
+  }
+
+  private Object execute(String id, String fingerprint) throws Throwable {
+    return service.execute(id, fingerprint, UCSBOrganization.class, () -> {
+      calls.incrementAndGet();
+      return ORG;
+    }, replays::incrementAndGet);
+  }
+
+  private void claimedElsewhere(IdempotencyKey key) {
+    when(repository.claim(eq(key.getId()), anyString(), any())).thenThrow(new DataIntegrityViolationException("dup"));
+    when(repository.findById(key.getId())).thenReturn(Optional.of(key));
+  }
+
+  @Test
+  void first_request_claims_runs_and_stores_its_response() throws Throwable {
+    assertSame(ORG, execute("k", "f"));
+
+    assertEquals(1, calls.get());
+    assertEquals(0, replays.get());
+    verify(repository).claim("k", "f", NOW);
+    verify(repository).complete("k", ORG_JSON, NOW);
+  }
+
+  @Test
+  void retries_on_this_node_are_answered_from_memory() throws Throwable {
+    execute("k", "f");
+
+    assertEquals(ORG, execute("k", "f"));
+    assertEquals(ORG, execute("k", "f"));
+
+    assertEquals(1, calls.get());
+    assertEquals(2, replays.get());
+    verify(repository, times(1)).claim(any(), any(), any());
+    verify(repository, never()).findById(any());
+  }
+
+  @Test
+  void key_completed_on_another_node_is_replayed_from_the_table() throws Throwable {
+    claimedElsewhere(IdempotencyKey.builder().id("k").fingerprint("f").response(ORG_JSON)
+        .claimedAt(NOW.minusSeconds(5)).completedAt(NOW.minusSeconds(4)).build());
+
+    assertEquals(ORG, execute("k", "f"));
+
+    assertEquals(0, calls.get());
+    assertEquals(1, replays.get());
+  }
+
+  @Test
+  void key_reused_with_other_parameters_is_422() {
+    claimedElsewhere(IdempotencyKey.builder().id("k").fingerprint("f").response(ORG_JSON)
+        .claimedAt(NOW.minusSeconds(5)).build());
+
+    ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> execute("k", "other"));
+
+    assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatus());
+    assertEquals(0, calls.get());
+  }
+
+  @Test
+  void key_still_in_progress_is_409() {
+    claimedElsewhere(IdempotencyKey.builder().id("k").fingerprint("f").claimedAt(NOW.minusSeconds(5)).build());
+
+    ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> execute("k", "f"));
+
+    assertEquals(HttpStatus.CONFLICT, e.getStatus());
+    verify(repository, never()).reclaim(any(), any(), any());
+    assertEquals(0, calls.get());
+  }
+
+  @Test
+  void key_released_between_claim_and_read_is_409() {
+    when(repository.claim(eq("k"), anyString(), any())).thenThrow(new DataIntegrityViolationException("dup"));
+    when(repository.findById("k")).thenReturn(Optional.empty());
+
+    ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> execute("k", "f"));
+
+    assertEquals(HttpStatus.CONFLICT, e.getStatus());
+  }
+
+  @Test
+  void stale_claim_is_taken_over() throws Throwable {
+    claimedElsewhere(IdempotencyKey.builder().id("k").fingerprint("f").claimedAt(NOW.minusSeconds(60)).build());
+    when(repository.reclaim("k", NOW, NOW.minusSeconds(30))).thenReturn(1);
+
+    assertSame(ORG, execute("k", "f"));
+
+    assertEquals(1, calls.get());
+    verify(repository).complete("k", ORG_JSON, NOW);
+  }
+
+  @Test
+  void stale_claim_taken_over_by_someone_else_first_is_409() {
+    claimedElsewhere(IdempotencyKey.builder().id("k").fingerprint("f").claimedAt(NOW.minusSeconds(60)).build());
+    when(repository.reclaim("k", NOW, NOW.minusSeconds(30))).thenReturn(0);
+
+    assertThrows(ResponseStatusException.class, () -> execute("k", "f"));
+    assertEquals(0, calls.get());
+  }
+
+  @Test
+  void failed_request_releases_its_claim_and_rethrows() throws Throwable {
+    IOException failure = new IOException("boom");
+
+    IOException thrown = assertThrows(IOException.class,
+        () -> service.execute("k", "f", UCSBOrganization.class, () -> {
+          throw failure;
+        }, replays::incrementAndGet));
+
+    assertSame(failure, thrown);
+    verify(repository).release("k");
+    verify(repository, never()).complete(any(), any(), any());
+
+    assertSame(ORG, execute("k", "f"));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void keys_past_retention_run_again() throws Throwable {
+    execute("k", "f");
+    when(clock.instant()).thenReturn(NOW.plus(Duration.ofHours(25)));
+
+    execute("k", "f");
+
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void memory_holds_at_most_cache_size_keys() throws Throwable {
+    execute("a", "f");
+    execute("b", "f");
+    execute("c", "f");
+    claimedElsewhere(IdempotencyKey.builder().id("a").fingerprint("f").response(ORG_JSON).claimedAt(NOW).build());
+
+    execute("a", "f");
+
+    verify(repository).findById("a");
+  }
+
+  @Test
+  void expired_rows_are_deleted() {
+    service.deleteExpired();
+
+    verify(repository).deleteClaimedBefore(NOW.minus(Duration.ofHours(24)));
+  }
+}
@@ -0,0 +1,163 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.CommonsRating;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.models.EntityChangeEvent.Op;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+
+class InMemoryRatingLeaderboardTests {
+
+  private final MenuItemReviewRepository reviewRepository = mock(MenuItemReviewRepository.class);
+  private final UCSBDiningCommonsMenuItemRepository itemRepository = mock(UCSBDiningCommonsMenuItemRepository.class);
+  private final UCSBDiningCommonsRepository commonsRepository = mock(UCSBDiningCommonsRepository.class);
+  private final InMemoryRatingLeaderboard leaderboard =
+      new InMemoryRatingLeaderboard(reviewRepository, itemRepository, commonsRepository);
+
+  private static UCSBDiningCommons commons(String code) {
+    return UCSBDiningCommons.builder().code(code).name(code.toUpperCase()).build();
+  }
+
+  private static UCSBDiningCommonsMenuItem item(long id, String code) {
+    return UCSBDiningCommonsMenuItem.builder().id(id).diningCommonsCode(code).name("item " + id).station("grill")
+        .build();
+  }
+
+  private static MenuItemReview review(long id, long itemId, int stars) {
+    return MenuItemReview.builder().id(id).itemId(itemId).reviewerEmail("cgaucho@ucsb.edu").stars(stars).build();
+  }
+
+  private static CommonsRating rating(String code, long reviews, double average) {
+    return CommonsRating.builder().diningCommonsCode(code).diningCommonsName(code.toUpperCase())
+        .reviewCount(reviews).averageStars(average).build();
+  }
+
+  private void changed(Class<?> type, Object id) {
+    leaderboard.onEntityChange(EntityChangeEvent.of(type, id, Op.UPDATE));
+  }
+
+  @BeforeEach
+  void setup() {
+    // ortega: item 1 (5, 3 stars); portola: item 2 (4 stars), item 3 (2 stars); carrillo: no reviews
+    when(commonsRepository.findAll()).thenReturn(List.of(commons("ortega"), commons("portola"), commons("carrillo")));
+    when(itemRepository.findAll()).thenReturn(List.of(item(1, "ortega"), item(2, "portola"), item(3, "portola")));
+    when(reviewRepository.findAll()).thenReturn(List.of(review(10, 1, 5), review(11, 1, 3), review(12, 2, 4),
+        review(13, 3, 2)));
+  }
+
+  @Test
+  void ranks_commons_with_reviews_by_average_stars() {
+    assertEquals(List.of(rating("ortega", 2, 4.0), rating("portola", 2, 3.0)), leaderboard.top(10));
+    assertEquals(List.of(rating("ortega", 2, 4.0)), leaderboard.top(1));
+  }
+
+  @Test
+  void reads_the_tables_once() {
+    leaderboard.top(10);
+    leaderboard.top(10);
+
+    verify(reviewRepository, times(1)).findAll();
+  }
+
+  @Test
+  void events_before_the_first_read_are_left_to_the_build() {
+    changed(MenuItemReview.class, 10L);
+
+    verify(reviewRepository, never()).findById(any());
+  }
+
+  @Test
+  void review_update_replaces_its_old_stars() {
+    leaderboard.top(10);
+    when(reviewRepository.findById(13L)).thenReturn(Optional.of(review(13, 3, 5)));
+
+    changed(MenuItemReview.class, 13L);
+
+    assertEquals(List.of(rating("portola", 2, 4.5), rating("ortega", 2, 4.0)), leaderboard.top(10));
+  }
+
+  @Test
+  void review_moved_to_another_item_moves_between_commons() {
+    leaderboard.top(10);
+    when(reviewRepository.findById(12L)).thenReturn(Optional.of(review(12, 1, 4)));
+
+    changed(MenuItemReview.class, 12L);
+
+    assertEquals(List.of(rating("ortega", 3, 4.0), rating("portola", 1, 2.0)), leaderboard.top(10));
+  }
+
+  @Test
+  void created_and_deleted_reviews() {
+    leaderboard.top(10);
+    when(reviewRepository.findById(14L)).thenReturn(Optional.of(review(14, 3, 3)));
+    when(reviewRepository.findById(10L)).thenReturn(Optional.empty());
+
+    leaderboard.onEntityChange(EntityChangeEvent.of(MenuItemReview.class, 14L, Op.CREATE));
+    leaderboard.onEntityChange(EntityChangeEvent.of(MenuItemReview.class, 10L, Op.DELETE));
+
+    assertEquals(List.of(rating("portola", 3, 3.0), rating("ortega", 1, 3.0)), leaderboard.top(10));
+  }
+
+  @Test
+  void item_moved_between_commons_takes_its_reviews_along() {
+    leaderboard.top(10);
+    when(itemRepository.findById(3L)).thenReturn(Optional.of(item(3, "carrillo")));
+
+    changed(UCSBDiningCommonsMenuItem.class, 3L);
+
+    // tied on stars, ortega has more reviews
+    assertEquals(List.of(rating("ortega", 2, 4.0), rating("portola", 1, 4.0), rating("carrillo", 1, 2.0)),
+        leaderboard.top(10));
+  }
+
+  @Test
+  void renamed_and_deleted_commons() {
+    leaderboard.top(10);
+    when(commonsRepository.findById("portola"))
+        .thenReturn(Optional.of(UCSBDiningCommons.builder().code("portola").name("Portola").build()));
+    when(commonsRepository.findById("ortega")).thenReturn(Optional.empty());
+
+    changed(UCSBDiningCommons.class, "portola");
+    changed(UCSBDiningCommons.class, "ortega");
+
+    List<CommonsRating> top = leaderboard.top(10);
+    assertEquals(1, top.size());
+    assertEquals("Portola", top.get(0).getDiningCommonsName());
+  }
+
+  @Test
+  void set_based_changes_and_missed_invalidations_rebuild() {
+    leaderboard.top(10);
+    changed(UCSBDate.class, 1L);
+    leaderboard.top(10);
+    verify(reviewRepository, times(1)).findAll();
+
+    leaderboard.onEntityChange(EntityChangeEvent.of(MenuItemReview.class, EntityChangeEvent.ALL_IDS, Op.DELETE));
+    when(reviewRepository.findAll()).thenReturn(List.of(review(12, 2, 4)));
+
+    assertEquals(List.of(rating("portola", 1, 4.0)), leaderboard.top(10));
+
+    leaderboard.onEntityChange(EntityChangeEvent.allTypes());
+    leaderboard.top(10);
+    verify(reviewRepository, times(3)).findAll();
+  }
+}
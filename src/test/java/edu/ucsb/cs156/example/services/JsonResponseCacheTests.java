@@ -0,0 +1,229 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+
+class JsonResponseCacheTests {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final List<UCSBOrganization> orgs = List.of(
+      UCSBOrganization.builder().orgCode("SKY").orgTranslationShort("SKYDIVING CLUB")
+          .orgTranslation("SKYDIVING CLUB AT UCSB").inactive(false).build());
+
+  private ServletWebRequest request(String acceptEncoding) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/UCSBOrganization/all");
+    if (acceptEncoding != null) {
+      request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+    }
+    return new ServletWebRequest(request);
+  }
+
+  @Test
+  void test_hit_does_not_call_loader_again() throws Exception {
+    JsonResponseCache cache = new JsonResponseCache(mapper, true);
+    AtomicInteger loads = new AtomicInteger();
+
+    ResponseEntity<?> first = cache.serve(UCSBOrganization.class, request(null), () -> {
+      loads.incrementAndGet();
+      return orgs;
+    });
+    ResponseEntity<?> second = cache.serve(UCSBOrganization.class, request(null), () -> {
+      loads.incrementAndGet();
+      return orgs;
+    });
+
+    assertEquals(1, loads.get());
+    assertArrayEquals(mapper.writeValueAsBytes(orgs), (byte[]) first.getBody());
+    assertArrayEquals((byte[]) first.getBody(), (byte[]) second.getBody());
+    assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    assertNull(first.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), first.getHeaders().getVary());
+  }
+
+  @Test
+  void test_preloaded_entry_is_served_without_loading() throws Exception {
+    JsonResponseCache cache = new JsonResponseCache(mapper, true);
+    AtomicInteger loads = new AtomicInteger();
+
+    cache.preload(UCSBOrganization.class, () -> {
+      loads.incrementAndGet();
+      return orgs;
+    });
+    ResponseEntity<?> served = cache.serve(UCSBOrganization.class, request(null), () -> {
+      loads.incrementAndGet();
+      return orgs;
+    });
+
+    assertEquals(1, loads.get());
+    assertArrayEquals(mapper.writeValueAsBytes(orgs), (byte[]) served.getBody());
+  }
+
+  @Test
+  void test_gzip_variant_is_served_when_accepted() throws Exception {
+    JsonResponseCache cache = new JsonResponseCache(mapper, true);
+
+    ResponseEntity<?> response = cache.serve(UCSBOrganization.class, request("deflate, GZIP"), () -> orgs);
+
+    assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream((byte[]) response.getBody()))) {
+      assertArrayEquals(mapper.writeValueAsBytes(orgs), in.readAllBytes());
+    }
+  }
+
+  @Test
+  void test_gzip_and_identity_bodies_have_different_etags() throws Exception {
+    JsonResponseCache cache = new JsonResponseCache(mapper, true);
+
+    String identity = cache.serve(UCSBOrganization.class, request(null), () -> orgs).getHeaders().getETag();
+    String gzip = cache.serve(UCSBOrganization.class, request("gzip"), () -> orgs).getHeaders().getETag();
+
+    assertNotEquals(identity, gzip);
+    assertEquals(identity.substring(0, identity.length() - 1) + "-gzip\"", gzip);
+  }
+
+  @Test
+  void test_accept_encoding_quality_values() {
+    assertTrue(JsonResponseCache.acceptsGzip("gzip, deflate, br"));
+    assertTrue(JsonResponseCache.acceptsGzip("deflate;q=1.0, gzip;q=0.5"));
+    assertTrue(JsonResponseCache.acceptsGzip("*"));
+    assertTrue(JsonResponseCache.acceptsGzip("x-gzip"));
+    assertFalse(JsonResponseCache.acceptsGzip(null));
+    assertFalse(JsonResponseCache.acceptsGzip("identity"));
+    assertFalse(JsonResponseCache.acceptsGzip("gzip;q=0"));
+    assertFalse(JsonResponseCache.acceptsGzip("gzip; q=0.000, *"));
+    assertFalse(JsonResponseCache.acceptsGzip("*;q=0"));
+    assertFalse(JsonResponseCache.acceptsGzip("gzip;q=zero"));
+  }
+
+  @Test
+  void test_json_is_served_only_when_it_is_the_first_preference() {
+    assertTrue(JsonResponseCache.acceptsJson(null));
+    assertTrue(JsonResponseCache.acceptsJson("*/*"));
+    assertTrue(JsonResponseCache.acceptsJson("application/json, text/plain, */*"));
+    assertTrue(JsonResponseCache.acceptsJson("application/x-jackson-smile;q=0.5, application/json"));
+    assertTrue(JsonResponseCache.acceptsJson("not a media type"));
+    assertFalse(JsonResponseCache.acceptsJson("application/x-jackson-smile"));
+    assertFalse(JsonResponseCache.acceptsJson("application/cbor, */*;q=0.1"));
+    assertFalse(JsonResponseCache.acceptsJson("application/json;q=0, */*"));
+    assertFalse(JsonResponseCache.acceptsJson("text/csv"));
+  }
+
+  @Test
+  void test_client_preferring_another_format_gets_the_entities_uncached() throws Exception {
+    JsonResponseCache cache = new JsonResponseCache(mapper, true);
+    AtomicInteger loads = new AtomicInteger();
+    MockHttpServletRequest smile = new MockHttpServletRequest("GET", "/api/UCSBOrganization/all");
+    smile.addHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile");
+
+    cache.serve(UCSBOrganization.class, request(null), () -> {
+      loads.incrementAndGet();
+      return orgs;
+    });
+    ResponseEntity<?> response = cache.serve(UCSBOrganization.class, new ServletWebRequest(smile), () -> {
+      loads.incrementAndGet();
+      return orgs;
+    });
+
+    assertEquals(2, loads.get());
+    assertSame(orgs, response.getBody());
+    assertNull(response.getHeaders().getContentType());
+    assertNull(response.getHeaders().getETag());
+    assertEquals(List.of(HttpHeaders.ACCEPT), response.getHeaders().getVary());
+  }
+
+  @Test
+  void test_invalidate_forces_reload_only_for_that_entity() throws Exception {
+    JsonResponseCache cache = new JsonResponseCache(mapper, true);
+    AtomicInteger orgLoads = new AtomicInteger();
+    AtomicInteger commonsLoads = new AtomicInteger();
+
+    cache.serve(UCSBOrganization.class, request(null), () -> orgLoads.incrementAndGet());
+    cache.serve(UCSBDiningCommons.class, request(null), () -> commonsLoads.incrementAndGet());
+    cache.invalidate(UCSBOrganization.class);
+    cache.invalidate(UCSBOrganization.class);
+    ResponseEntity<?> reloaded = cache.serve(UCSBOrganization.class, request(null), () -> orgLoads.incrementAndGet());
+    cache.serve(UCSBDiningCommons.class, request(null), () -> commonsLoads.incrementAndGet());
+
+    assertEquals(2, orgLoads.get());
+    assertEquals(1, commonsLoads.get());
+    assertEquals("2", new String((byte[]) reloaded.getBody()));
+  }
+
+  @Test
+  void test_change_events_evict_their_type_and_all_types_evicts_everything() throws Exception {
+    JsonResponseCache cache = new JsonResponseCache(mapper, true);
+    AtomicInteger orgLoads = new AtomicInteger();
+    AtomicInteger commonsLoads = new AtomicInteger();
+
+    cache.serve(UCSBOrganization.class, request(null), () -> orgLoads.incrementAndGet());
+    cache.serve(UCSBDiningCommons.class, request(null), () -> commonsLoads.incrementAndGet());
+    EntityChangeEvent remoteUpdate = EntityChangeEvent.of(UCSBOrganization.class, "SKY", EntityChangeEvent.Op.UPDATE);
+    remoteUpdate.setRemote(true);
+    cache.onEntityChange(remoteUpdate);
+    cache.serve(UCSBOrganization.class, request(null), () -> orgLoads.incrementAndGet());
+    cache.serve(UCSBDiningCommons.class, request(null), () -> commonsLoads.incrementAndGet());
+
+    assertEquals(2, orgLoads.get());
+    assertEquals(1, commonsLoads.get());
+
+    cache.onEntityChange(EntityChangeEvent.allTypes());
+    cache.serve(UCSBOrganization.class, request(null), () -> orgLoads.incrementAndGet());
+    cache.serve(UCSBDiningCommons.class, request(null), () -> commonsLoads.incrementAndGet());
+
+    assertEquals(3, orgLoads.get());
+    assertEquals(2, commonsLoads.get());
+  }
+
+  @Test
+  void test_load_racing_an_invalidation_is_not_stored() throws Exception {
+    JsonResponseCache cache = new JsonResponseCache(mapper, true);
+    AtomicInteger loads = new AtomicInteger();
+
+    cache.serve(UCSBOrganization.class, request(null), () -> {
+      loads.incrementAndGet();
+      cache.invalidate(UCSBOrganization.class);
+      return orgs;
+    });
+    cache.serve(UCSBOrganization.class, request(null), () -> {
+      loads.incrementAndGet();
+      return orgs;
+    });
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void test_disabled_cache_always_calls_loader() throws Exception {
+    JsonResponseCache cache = new JsonResponseCache(mapper, false);
+    AtomicInteger loads = new AtomicInteger();
+
+    cache.serve(UCSBOrganization.class, request(null), () -> loads.incrementAndGet());
+    ResponseEntity<?> second = cache.serve(UCSBOrganization.class, request(null), () -> loads.incrementAndGet());
+
+    assertEquals(2, loads.get());
+    assertEquals("2", new String((byte[]) second.getBody()));
+  }
+}
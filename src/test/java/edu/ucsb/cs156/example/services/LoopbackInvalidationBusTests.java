@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+
+class LoopbackInvalidationBusTests {
+
+  private final ApplicationEventPublisher publisherA = mock(ApplicationEventPublisher.class);
+  private final ApplicationEventPublisher publisherB = mock(ApplicationEventPublisher.class);
+  private final LoopbackHub hub = new LoopbackHub();
+  private final LoopbackInvalidationBus nodeA = new LoopbackInvalidationBus(publisherA, hub);
+  private final LoopbackInvalidationBus nodeB = new LoopbackInvalidationBus(publisherB, hub);
+
+  @AfterEach
+  void shutdown() {
+    nodeA.shutdown();
+    nodeB.shutdown();
+  }
+
+  @Test
+  void test_local_change_reaches_peer_as_remote_event() {
+    EntityChangeEvent update = EntityChangeEvent.of(UCSBOrganization.class, "SKY|2", EntityChangeEvent.Op.UPDATE);
+
+    nodeA.onEntityChange(update);
+
+    ArgumentCaptor<EntityChangeEvent> received = ArgumentCaptor.forClass(EntityChangeEvent.class);
+    verify(publisherB).publishEvent(received.capture());
+    assertEquals("UCSBOrganization", received.getValue().getEntityType());
+    assertEquals("SKY|2", received.getValue().getId());
+    assertEquals(EntityChangeEvent.Op.UPDATE, received.getValue().getOp());
+    assertEquals(update.getVersion(), received.getValue().getVersion());
+    assertTrue(received.getValue().getRemote());
+    verify(publisherA, never()).publishEvent(any(Object.class));
+  }
+
+  @Test
+  void test_remote_events_are_not_forwarded_again() {
+    EntityChangeEvent remote = EntityChangeEvent.of(UCSBOrganization.class, "SKY", EntityChangeEvent.Op.DELETE);
+    remote.setRemote(true);
+
+    nodeB.onEntityChange(remote);
+
+    verify(publisherA, never()).publishEvent(any(Object.class));
+  }
+
+  @Test
+  void test_stopped_node_receives_nothing() {
+    nodeB.shutdown();
+
+    nodeA.onEntityChange(EntityChangeEvent.of(UCSBOrganization.class, "SKY", EntityChangeEvent.Op.CREATE));
+
+    verify(publisherB, never()).publishEvent(any(Object.class));
+  }
+
+  @Test
+  void test_buses_without_a_shared_hub_are_not_peers() {
+    ApplicationEventPublisher publisherC = mock(ApplicationEventPublisher.class);
+    @SuppressWarnings("unchecked")
+    ObjectProvider<LoopbackHub> noHub = mock(ObjectProvider.class);
+    when(noHub.getIfAvailable(any())).thenAnswer(invocation -> new LoopbackHub());
+    LoopbackInvalidationBus nodeC = new LoopbackInvalidationBus(publisherC, noHub);
+    LoopbackInvalidationBus nodeD = new LoopbackInvalidationBus(mock(ApplicationEventPublisher.class), noHub);
+
+    nodeD.onEntityChange(EntityChangeEvent.of(UCSBOrganization.class, "SKY", EntityChangeEvent.Op.CREATE));
+
+    verify(publisherC, never()).publishEvent(any(Object.class));
+    verify(publisherA, never()).publishEvent(any(Object.class));
+    nodeC.shutdown();
+    nodeD.shutdown();
+  }
+
+  @Test
+  void test_resync_publishes_all_types_event() {
+    nodeA.resync();
+
+    ArgumentCaptor<EntityChangeEvent> received = ArgumentCaptor.forClass(EntityChangeEvent.class);
+    verify(publisherA).publishEvent(received.capture());
+    assertEquals(EntityChangeEvent.ALL_TYPES, received.getValue().getEntityType());
+    assertTrue(received.getValue().getRemote());
+  }
+
+  @Test
+  void test_malformed_messages_are_ignored() {
+    assertFalse(AbstractInvalidationBus.decode("node|UCSBOrganization|UPSERT|1|SKY").isPresent());
+    assertFalse(AbstractInvalidationBus.decode("node|UCSBOrganization|UPDATE|x|SKY").isPresent());
+    assertFalse(AbstractInvalidationBus.decode("node|UCSBOrganization").isPresent());
+
+    nodeA.receive("garbage");
+    verify(publisherA, never()).publishEvent(any(Object.class));
+  }
+}
@@ -0,0 +1,264 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionOperations;
+
+import edu.ucsb.cs156.example.entities.OutboxCursor;
+import edu.ucsb.cs156.example.entities.OutboxEvent;
+import edu.ucsb.cs156.example.entities.OutboxGap;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.repositories.OutboxCursorRepository;
+import edu.ucsb.cs156.example.repositories.OutboxEventRepository;
+import edu.ucsb.cs156.example.repositories.OutboxGapRepository;
+
+class OutboxRelayTests {
+
+  private static final Instant NOW = Instant.parse("2023-08-01T12:00:00Z");
+  private static final Instant RECENT = NOW.minusSeconds(2);
+  private static final Instant OLD = NOW.minus(Duration.ofMinutes(10));
+
+  private final OutboxEventRepository events = mock(OutboxEventRepository.class);
+  private final OutboxCursorRepository cursors = mock(OutboxCursorRepository.class);
+  private final OutboxGapRepository gaps = mock(OutboxGapRepository.class);
+
+  private static class RecordingConsumer implements OutboxConsumer {
+    final List<List<OutboxEvent>> batches = new ArrayList<>();
+
+    @Override
+    public String getName() {
+      return "recorder";
+    }
+
+    @Override
+    public void accept(List<OutboxEvent> batch) {
+      batches.add(batch);
+    }
+  }
+
+  private OutboxRelay relay(List<OutboxConsumer> consumers) {
+    return new OutboxRelay(events, cursors, gaps, consumers, TransactionOperations.withoutTransaction(), 2,
+        Duration.ofMinutes(10), Duration.ofDays(7), Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  private static List<OutboxEvent> events(Instant createdAt, long... ids) {
+    return LongStream.of(ids)
+        .mapToObj(id -> OutboxEvent.builder().id(id).entityType("UCSBDate").entityId("1")
+            .op(EntityChangeEvent.Op.UPDATE).version(id).createdAt(createdAt).build())
+        .collect(Collectors.toList());
+  }
+
+  private static List<OutboxEvent> events(long... ids) {
+    return events(RECENT, ids);
+  }
+
+  private static OutboxGap gap(long eventId, Instant skippedAt) {
+    return OutboxGap.builder().consumer("recorder").eventId(eventId).skippedAt(skippedAt).build();
+  }
+
+  private static Optional<OutboxCursor> cursor(String consumer, long position) {
+    return Optional.of(OutboxCursor.builder().consumer(consumer).position(position).build());
+  }
+
+  @Test
+  void test_events_after_reads_consecutive_ids_and_caps_the_limit() {
+    when(events.findByIdGreaterThanOrderByIdAsc(5, PageRequest.of(0, 2))).thenReturn(events(6, 7));
+
+    assertEquals(events(6, 7), relay(List.of()).eventsAfter(5, 1000));
+    relay(List.of()).eventsAfter(5, 0);
+
+    verify(events).findByIdGreaterThanOrderByIdAsc(5, PageRequest.of(0, 1));
+  }
+
+  @Test
+  void test_events_after_stops_at_a_gap_that_may_still_commit() {
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(5L), any())).thenReturn(events(6, 8));
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(6L), any())).thenReturn(events(8, 9));
+
+    // 7 was assigned before 8 was written two seconds ago, and may be in an open transaction
+    assertEquals(events(6), relay(List.of()).eventsAfter(5, 2));
+    assertEquals(List.of(), relay(List.of()).eventsAfter(6, 2));
+  }
+
+  @Test
+  void test_events_after_passes_a_gap_once_the_event_after_it_is_older_than_the_gap_window() {
+    List<OutboxEvent> page = new ArrayList<>(events(OLD, 8));
+    page.addAll(events(10));
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(6L), any())).thenReturn(page);
+
+    assertEquals(events(OLD, 8), relay(List.of()).eventsAfter(6, 2));
+  }
+
+  @Test
+  void test_relay_delivers_batches_and_advances_a_new_cursor() {
+    RecordingConsumer consumer = new RecordingConsumer();
+    OutboxCursor created = OutboxCursor.builder().consumer("recorder").build();
+    when(cursors.existsById("recorder")).thenReturn(false);
+    when(cursors.findLockedByConsumer("recorder")).thenReturn(Optional.of(created));
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(events(1, 2));
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(2L), any())).thenReturn(events(3));
+
+    relay(List.of(consumer)).relay();
+
+    assertEquals(List.of(events(1, 2), events(3)), consumer.batches);
+    ArgumentCaptor<OutboxCursor> saved = ArgumentCaptor.forClass(OutboxCursor.class);
+    verify(cursors, times(3)).save(saved.capture());
+    assertEquals("recorder", saved.getAllValues().get(0).getConsumer());
+    assertEquals(3, saved.getValue().getPosition());
+    assertEquals(NOW, saved.getValue().getUpdatedAt());
+  }
+
+  @Test
+  void test_relay_moves_past_a_gap_and_records_it() {
+    RecordingConsumer consumer = new RecordingConsumer();
+    when(cursors.existsById("recorder")).thenReturn(true);
+    when(cursors.findLockedByConsumer("recorder")).thenReturn(cursor("recorder", 0));
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(events(1, 4));
+
+    relay(List.of(consumer)).relay();
+
+    assertEquals(List.of(events(1, 4)), consumer.batches);
+    verify(gaps).saveAll(List.of(gap(2, NOW), gap(3, NOW)));
+    verify(cursors).save(argThat(c -> c.getPosition() == 4));
+  }
+
+  @Test
+  void test_event_that_commits_after_the_cursor_passed_it_is_delivered_late() {
+    RecordingConsumer consumer = new RecordingConsumer();
+    when(cursors.existsById("recorder")).thenReturn(true);
+    when(cursors.findLockedByConsumer("recorder")).thenReturn(cursor("recorder", 4));
+    when(gaps.findByConsumer("recorder")).thenReturn(List.of(gap(2, RECENT), gap(3, RECENT)));
+    when(events.findByIdInOrderByIdAsc(List.of(2L, 3L))).thenReturn(events(OLD, 2));
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(4L), any())).thenReturn(events(5));
+
+    relay(List.of(consumer)).relay();
+
+    // 3 may still commit, so it stays open
+    assertEquals(List.of(List.of(events(OLD, 2).get(0), events(5).get(0))), consumer.batches);
+    verify(gaps).deleteAll(List.of(gap(2, RECENT)));
+    verify(cursors).save(argThat(c -> c.getPosition() == 5));
+  }
+
+  @Test
+  void test_gap_is_given_up_after_the_gap_window() {
+    RecordingConsumer consumer = new RecordingConsumer();
+    when(cursors.existsById("recorder")).thenReturn(true);
+    when(cursors.findLockedByConsumer("recorder")).thenReturn(cursor("recorder", 4));
+    when(gaps.findByConsumer("recorder")).thenReturn(List.of(gap(2, OLD), gap(3, RECENT)));
+    when(events.findByIdInOrderByIdAsc(List.of(2L, 3L))).thenReturn(List.of());
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(4L), any())).thenReturn(List.of());
+
+    relay(List.of(consumer)).relay();
+
+    assertEquals(List.of(), consumer.batches);
+    verify(gaps).deleteAll(List.of(gap(2, OLD)));
+    verify(cursors, never()).save(any());
+  }
+
+  @Test
+  void test_a_jump_wider_than_a_batch_is_not_recorded_as_gaps() {
+    RecordingConsumer consumer = new RecordingConsumer();
+    when(cursors.existsById("recorder")).thenReturn(true);
+    when(cursors.findLockedByConsumer("recorder")).thenReturn(cursor("recorder", 0));
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(events(1000));
+
+    relay(List.of(consumer)).relay();
+
+    assertEquals(List.of(events(1000)), consumer.batches);
+    verify(gaps, never()).saveAll(any());
+  }
+
+  @Test
+  void test_cursor_created_by_another_node_is_used() {
+    RecordingConsumer consumer = new RecordingConsumer();
+    when(cursors.existsById("recorder")).thenReturn(false);
+    when(cursors.save(argThat(c -> c.getPosition() == 0)))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"));
+    when(cursors.findLockedByConsumer("recorder")).thenReturn(cursor("recorder", 4));
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(4L), any())).thenReturn(events(5));
+
+    relay(List.of(consumer)).relay();
+
+    assertEquals(List.of(events(5)), consumer.batches);
+    verify(cursors).save(argThat(c -> c.getPosition() == 5));
+  }
+
+  @Test
+  void test_relay_resumes_from_the_stored_cursor() {
+    RecordingConsumer consumer = new RecordingConsumer();
+    when(cursors.existsById("recorder")).thenReturn(true);
+    when(cursors.findLockedByConsumer("recorder")).thenReturn(cursor("recorder", 41));
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(41L), any())).thenReturn(List.of());
+
+    relay(List.of(consumer)).relay();
+
+    assertEquals(List.of(), consumer.batches);
+    verify(cursors, never()).save(any());
+  }
+
+  @Test
+  void test_consumer_locked_by_another_node_is_skipped() {
+    RecordingConsumer consumer = new RecordingConsumer();
+    when(cursors.existsById("recorder")).thenReturn(true);
+    when(cursors.findLockedByConsumer("recorder")).thenReturn(Optional.empty());
+
+    relay(List.of(consumer)).relay();
+
+    assertEquals(List.of(), consumer.batches);
+    verify(events, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    verify(cursors, never()).save(any());
+  }
+
+  @Test
+  void test_failed_batch_does_not_advance_the_cursor_or_stop_other_consumers() {
+    OutboxConsumer failing = mock(OutboxConsumer.class);
+    when(failing.getName()).thenReturn("failing");
+    doThrow(new IllegalStateException("downstream unavailable")).when(failing).accept(any());
+    RecordingConsumer recorder = new RecordingConsumer();
+    when(cursors.existsById(any())).thenReturn(true);
+    when(cursors.findLockedByConsumer("failing")).thenReturn(cursor("failing", 0));
+    when(cursors.findLockedByConsumer("recorder")).thenReturn(cursor("recorder", 0));
+    when(events.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(events(1));
+
+    relay(List.of(failing, recorder)).relay();
+
+    verify(cursors, never()).save(argThat(c -> "failing".equals(c.getConsumer())));
+    verify(cursors).save(argThat(c -> "recorder".equals(c.getConsumer()) && c.getPosition() == 1));
+    assertEquals(List.of(events(1)), recorder.batches);
+  }
+
+  @Test
+  void test_prune_deletes_events_past_retention() {
+    when(events.deleteCreatedBefore(NOW.minus(Duration.ofDays(7)))).thenReturn(3, 0);
+
+    OutboxRelay relay = relay(List.of());
+    relay.prune();
+    relay.prune();
+
+    verify(events, times(2)).deleteCreatedBefore(NOW.minus(Duration.ofDays(7)));
+  }
+}
@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.OutboxEvent;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.repositories.OutboxEventRepository;
+
+class OutboxWriterTests {
+
+  private static final Instant NOW = Instant.parse("2023-08-01T12:00:00Z");
+
+  private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+  private final OutboxWriter writer = new OutboxWriter(outboxEventRepository, Clock.fixed(NOW, ZoneOffset.UTC));
+
+  @Test
+  void test_local_change_is_appended() {
+    EntityChangeEvent event = EntityChangeEvent.of(UCSBDate.class, 7L, EntityChangeEvent.Op.DELETE);
+
+    writer.onEntityChange(event);
+
+    verify(outboxEventRepository).save(OutboxEvent.builder()
+        .entityType("UCSBDate")
+        .entityId("7")
+        .op(EntityChangeEvent.Op.DELETE)
+        .version(event.getVersion())
+        .createdAt(NOW)
+        .build());
+  }
+
+  @Test
+  void test_remote_change_is_not_appended_again() {
+    EntityChangeEvent event = EntityChangeEvent.of(UCSBDate.class, 7L, EntityChangeEvent.Op.DELETE);
+    event.setRemote(true);
+
+    writer.onEntityChange(event);
+
+    verify(outboxEventRepository, never()).save(any());
+  }
+}
@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+
+class PostgresInvalidationBusTests {
+
+  private final ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+  private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+  private PostgresInvalidationBus bus(PostgresInvalidationBus.ConnectionFactory connections) {
+    return new PostgresInvalidationBus(publisher, jdbcTemplate, connections, "entity_changes", 10, 1);
+  }
+
+  private Connection listenConnection(PGNotification... notifications) throws SQLException {
+    Connection connection = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    PGConnection pgConnection = mock(PGConnection.class);
+    when(connection.createStatement()).thenReturn(statement);
+    when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+    when(pgConnection.getNotifications(anyInt())).thenReturn(notifications, (PGNotification[]) null);
+    return connection;
+  }
+
+  private static PGNotification notification(String payload) {
+    PGNotification notification = mock(PGNotification.class);
+    when(notification.getParameter()).thenReturn(payload);
+    return notification;
+  }
+
+  @Test
+  void test_publish_sends_pg_notify_with_encoded_event() {
+    PostgresInvalidationBus bus = bus(() -> null);
+    EntityChangeEvent update = EntityChangeEvent.of(UCSBOrganization.class, "SKY", EntityChangeEvent.Op.UPDATE);
+
+    bus.onEntityChange(update);
+
+    verify(jdbcTemplate).queryForObject("select pg_notify(?, ?)", Object.class, "entity_changes",
+        bus.getNodeId() + "|UCSBOrganization|UPDATE|" + update.getVersion() + "|SKY");
+  }
+
+  @Test
+  void test_publish_failure_is_logged_not_thrown() {
+    when(jdbcTemplate.queryForObject(any(String.class), eq(Object.class), any(), any()))
+        .thenThrow(new DataAccessResourceFailureException("down"));
+
+    bus(() -> null).publish(EntityChangeEvent.of(UCSBOrganization.class, "SKY", EntityChangeEvent.Op.UPDATE));
+  }
+
+  @Test
+  void test_listener_resyncs_then_republishes_peer_notifications() throws Exception {
+    Connection connection = listenConnection(
+        notification("peer|UCSBOrganization|DELETE|42|SKY"));
+    PostgresInvalidationBus bus = bus(() -> connection);
+
+    bus.start();
+    try {
+      verify(publisher, timeout(2000)).publishEvent(
+          argThat((EntityChangeEvent e) -> "SKY".equals(e.getId()) && e.getVersion() == 42 && e.getRemote()));
+      verify(publisher, timeout(2000)).publishEvent(
+          argThat((EntityChangeEvent e) -> EntityChangeEvent.ALL_TYPES.equals(e.getEntityType())));
+      verify(connection.createStatement()).execute("LISTEN entity_changes");
+    } finally {
+      bus.shutdown();
+    }
+  }
+
+  @Test
+  void test_own_notifications_are_ignored() throws Exception {
+    PostgresInvalidationBus[] holder = new PostgresInvalidationBus[1];
+    PGNotification own = mock(PGNotification.class);
+    when(own.getParameter()).thenAnswer(invocation -> holder[0].getNodeId() + "|UCSBOrganization|UPDATE|1|SKY");
+    Connection connection = listenConnection(own, notification("peer|UCSBDate|CREATE|2|7"));
+    holder[0] = bus(() -> connection);
+
+    holder[0].start();
+    try {
+      verify(publisher, timeout(2000)).publishEvent(argThat((EntityChangeEvent e) -> "7".equals(e.getId())));
+      verify(publisher, never()).publishEvent(argThat((EntityChangeEvent e) -> "SKY".equals(e.getId())));
+    } finally {
+      holder[0].shutdown();
+    }
+  }
+
+  @Test
+  void test_listener_reconnects_after_failure() throws Exception {
+    Connection connection = listenConnection();
+    AtomicInteger opens = new AtomicInteger();
+    PostgresInvalidationBus bus = bus(() -> {
+      if (opens.incrementAndGet() == 1) {
+        throw new SQLException("connection refused");
+      }
+      return connection;
+    });
+
+    bus.start();
+    try {
+      verify(connection, timeout(2000)).unwrap(PGConnection.class);
+      verify(publisher, timeout(2000).atLeast(1)).publishEvent(
+          argThat((EntityChangeEvent e) -> EntityChangeEvent.ALL_TYPES.equals(e.getEntityType())));
+      assertEquals(2, opens.get());
+    } finally {
+      bus.shutdown();
+    }
+  }
+
+  @Test
+  void test_channel_must_be_an_identifier() {
+    assertThrows(IllegalArgumentException.class, () -> new PostgresInvalidationBus(publisher, jdbcTemplate,
+        () -> null, "changes; drop table users", 10, 1));
+  }
+}
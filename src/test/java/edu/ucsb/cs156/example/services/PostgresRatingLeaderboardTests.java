@@ -0,0 +1,92 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.models.EntityChangeEvent.Op;
+
+class PostgresRatingLeaderboardTests {
+
+  private static final String REFRESH = "REFRESH MATERIALIZED VIEW CONCURRENTLY commons_rating";
+
+  private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+  private final PostgresRatingLeaderboard leaderboard = new PostgresRatingLeaderboard(jdbcTemplate);
+
+  private static EntityChangeEvent remote(EntityChangeEvent event) {
+    event.setRemote(true);
+    return event;
+  }
+
+  @Test
+  void test_top_reads_the_view_best_first() {
+    leaderboard.top(5);
+
+    verify(jdbcTemplate).query(contains("FROM commons_rating ORDER BY average_stars DESC"),
+        any(RowMapper.class), eq(5));
+  }
+
+  @Test
+  void test_nothing_to_refresh_until_something_changes() {
+    leaderboard.refresh();
+
+    verify(jdbcTemplate, never()).execute(anyString());
+  }
+
+  @Test
+  void test_changes_are_refreshed_once_per_interval() {
+    leaderboard.onEntityChange(EntityChangeEvent.of(MenuItemReview.class, 1L, Op.CREATE));
+    leaderboard.onEntityChange(EntityChangeEvent.of(MenuItemReview.class, 2L, Op.UPDATE));
+    leaderboard.onEntityChange(EntityChangeEvent.of(UCSBDiningCommonsMenuItem.class, 3L, Op.UPDATE));
+
+    leaderboard.refresh();
+    leaderboard.refresh();
+
+    verify(jdbcTemplate, times(1)).execute(REFRESH);
+  }
+
+  @Test
+  void test_unrelated_and_remote_changes_are_left_to_their_own_node() {
+    leaderboard.onEntityChange(EntityChangeEvent.of(UCSBDate.class, 1L, Op.CREATE));
+    leaderboard.onEntityChange(remote(EntityChangeEvent.of(MenuItemReview.class, 1L, Op.CREATE)));
+
+    leaderboard.refresh();
+
+    verify(jdbcTemplate, never()).execute(anyString());
+  }
+
+  @Test
+  void test_missed_invalidations_refresh() {
+    leaderboard.onEntityChange(remote(EntityChangeEvent.allTypes()));
+
+    leaderboard.refresh();
+
+    verify(jdbcTemplate).execute(REFRESH);
+  }
+
+  @Test
+  void test_failed_refresh_is_retried() {
+    doThrow(new QueryTimeoutException("busy")).doNothing().when(jdbcTemplate).execute(REFRESH);
+    leaderboard.onEntityChange(EntityChangeEvent.of(MenuItemReview.class, 1L, Op.DELETE));
+
+    leaderboard.refresh();
+    leaderboard.refresh();
+
+    verify(jdbcTemplate, times(2)).execute(REFRESH);
+  }
+}
@@ -0,0 +1,154 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionOperations;
+
+import edu.ucsb.cs156.example.services.ReviewPartitions.Quarter;
+
+class PostgresReviewPartitionsTests {
+
+  private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-05-10T12:00:00Z"), ZoneOffset.UTC);
+
+  private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+  private final PostgresReviewPartitions partitions =
+      new PostgresReviewPartitions(jdbcTemplate, TransactionOperations.withoutTransaction(), 1, CLOCK);
+
+  private void existing(String... children) {
+    when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq("menuitemreview")))
+        .thenReturn(List.of(children));
+  }
+
+  private List<String> statements() {
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    verify(jdbcTemplate, atLeastOnce()).execute(sql.capture());
+    return sql.getAllValues();
+  }
+
+  @Test
+  void test_startup_creates_the_missing_quarters_up_to_those_ahead() {
+    existing("menuitemreview_default", "menuitemreview_2023q2");
+
+    partitions.prepareOnStartup();
+
+    assertEquals(List.of(
+        "CREATE TABLE menuitemreview_2023q3 (LIKE menuitemreview INCLUDING DEFAULTS)",
+        "ALTER TABLE menuitemreview ATTACH PARTITION menuitemreview_2023q3 FOR VALUES FROM ('2023-07-01') TO ('2023-10-01')"),
+        statements());
+    verify(jdbcTemplate).update(
+        "INSERT INTO menuitemreview_2023q3 SELECT * FROM menuitemreview_default WHERE date_reviewed >= ? AND date_reviewed < ?",
+        LocalDate.parse("2023-07-01").atStartOfDay(), LocalDate.parse("2023-10-01").atStartOfDay());
+    verify(jdbcTemplate).update(
+        "DELETE FROM menuitemreview_default WHERE date_reviewed >= ? AND date_reviewed < ?",
+        LocalDate.parse("2023-07-01").atStartOfDay(), LocalDate.parse("2023-10-01").atStartOfDay());
+    verify(jdbcTemplate).queryForObject(contains("pg_advisory_xact_lock"), eq(Object.class),
+        eq("menuitemreview_partitions"));
+  }
+
+  @Test
+  void test_startup_leaves_existing_quarters_alone() {
+    existing("menuitemreview_default", "menuitemreview_2023q2", "menuitemreview_2023q3");
+
+    partitions.prepareOnStartup();
+
+    verify(jdbcTemplate, never()).execute(anyString());
+    verify(jdbcTemplate, never()).update(anyString(), any(), any());
+  }
+
+  @Test
+  void test_quarters_before_lists_partitions_that_have_ended() {
+    existing("menuitemreview_2023q1", "menuitemreview_default", "menuitemreview_2022q4", "menuitemreview_2023q2",
+        "menuitemreview_backup");
+
+    assertEquals(List.of(new Quarter(2022, 4), new Quarter(2023, 1)),
+        partitions.quartersBefore(LocalDate.parse("2023-04-01")));
+    assertEquals(List.of(new Quarter(2022, 4)), partitions.quartersBefore(LocalDate.parse("2023-03-31")));
+  }
+
+  @Test
+  void test_quarters_before_includes_reviews_dated_in_archived_quarters() {
+    existing("menuitemreview_default", "menuitemreview_2023q1");
+    when(jdbcTemplate.queryForList(contains("FROM menuitemreview_default"), eq(Integer.class),
+        eq(LocalDate.parse("2023-04-01").atStartOfDay())))
+        .thenReturn(List.of(20223, 20231));
+
+    assertEquals(List.of(new Quarter(2022, 3), new Quarter(2023, 1)),
+        partitions.quartersBefore(LocalDate.parse("2023-04-01")));
+  }
+
+  @Test
+  void test_for_each_review_locks_the_partition_against_writes() {
+    existing("menuitemreview_default", "menuitemreview_2022q4");
+
+    partitions.forEachReview(new Quarter(2022, 4), review -> { });
+
+    verify(jdbcTemplate).execute("LOCK TABLE menuitemreview_2022q4 IN SHARE MODE");
+  }
+
+  @Test
+  void test_for_each_review_streams_with_a_fetch_size() throws Exception {
+    existing("menuitemreview_default", "menuitemreview_2022q4");
+    ArgumentCaptor<PreparedStatementSetter> setter = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+
+    partitions.forEachReview(new Quarter(2022, 4), review -> { });
+
+    verify(jdbcTemplate).query(contains("ORDER BY id"), setter.capture(), any(RowCallbackHandler.class));
+    setter.getValue().setValues(statement);
+    verify(statement).setFetchSize(ReviewPartitions.FETCH_SIZE);
+    verify(statement).setObject(1, LocalDate.parse("2022-10-01").atStartOfDay());
+    verify(statement).setObject(2, LocalDate.parse("2023-01-01").atStartOfDay());
+  }
+
+  @Test
+  void test_for_each_review_of_an_archived_quarter_locks_the_default_partition() {
+    existing("menuitemreview_default", "menuitemreview_2023q1");
+
+    partitions.forEachReview(new Quarter(2022, 4), review -> { });
+
+    verify(jdbcTemplate).execute("LOCK TABLE menuitemreview_default IN SHARE MODE");
+  }
+
+  @Test
+  void test_drop_detaches_and_drops_the_partition() {
+    existing("menuitemreview_default", "menuitemreview_2022q4");
+
+    partitions.drop(new Quarter(2022, 4));
+
+    assertEquals(List.of("ALTER TABLE menuitemreview DETACH PARTITION menuitemreview_2022q4",
+        "DROP TABLE menuitemreview_2022q4"), statements());
+    verify(jdbcTemplate, never()).update(anyString());
+  }
+
+  @Test
+  void test_drop_of_an_archived_quarter_deletes_its_reviews_from_the_default_partition() {
+    existing("menuitemreview_default", "menuitemreview_2023q1");
+
+    partitions.drop(new Quarter(2022, 4));
+
+    verify(jdbcTemplate).update("DELETE FROM menuitemreview_default WHERE date_reviewed >= ? AND date_reviewed < ?",
+        LocalDate.parse("2022-10-01").atStartOfDay(), LocalDate.parse("2023-01-01").atStartOfDay());
+    verify(jdbcTemplate, never()).execute(contains("DETACH"));
+  }
+}
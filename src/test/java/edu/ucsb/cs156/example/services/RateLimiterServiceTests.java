@@ -0,0 +1,143 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import edu.ucsb.cs156.example.config.RateLimitProperties;
+
+class RateLimiterServiceTests {
+
+  private static final List<GrantedAuthority> USER = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+  private static final List<GrantedAuthority> ADMIN = List.of(new SimpleGrantedAuthority("ROLE_USER"),
+      new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+  private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+  private RateLimitProperties properties() {
+    RateLimitProperties properties = new RateLimitProperties();
+    properties.setDefaultLimit(new RateLimitProperties.Limit(2, Duration.ofSeconds(10)));
+    properties.setEndpoints(Map.of("review-post", Map.of(
+        "user", new RateLimitProperties.Limit(3, Duration.ofSeconds(3)),
+        "admin", new RateLimitProperties.Limit(10, Duration.ofSeconds(1)))));
+    return properties;
+  }
+
+  @Test
+  void test_burst_up_to_capacity_then_rejects_with_retry_after() {
+    RateLimiterService limiter = new RateLimiterService(properties(), now::get);
+
+    assertEquals(0, limiter.tryAcquire("review-post", "alice", USER));
+    assertEquals(0, limiter.tryAcquire("review-post", "alice", USER));
+    assertEquals(0, limiter.tryAcquire("review-post", "alice", USER));
+    assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.tryAcquire("review-post", "alice", USER));
+    assertEquals(1, limiter.getRejectedCount());
+
+    // one token refills per second
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertEquals(0, limiter.tryAcquire("review-post", "alice", USER));
+    assertTrue(limiter.tryAcquire("review-post", "alice", USER) > 0);
+  }
+
+  @Test
+  void test_buckets_are_per_user_and_per_endpoint() {
+    RateLimiterService limiter = new RateLimiterService(properties(), now::get);
+
+    for (int i = 0; i < 3; i++) {
+      limiter.tryAcquire("review-post", "alice", USER);
+    }
+
+    assertTrue(limiter.tryAcquire("review-post", "alice", USER) > 0);
+    assertEquals(0, limiter.tryAcquire("review-post", "bob", USER));
+    assertEquals(0, limiter.tryAcquire("other-post", "alice", USER));
+    assertEquals(3, limiter.getBucketCount());
+  }
+
+  @Test
+  void test_limit_is_most_generous_configured_role_or_default() {
+    RateLimiterService limiter = new RateLimiterService(properties(), now::get);
+
+    assertEquals(10, limiter.limitFor("review-post", ADMIN).getCapacity());
+    assertEquals(3, limiter.limitFor("review-post", USER).getCapacity());
+    assertEquals(2, limiter.limitFor("review-post", List.of()).getCapacity());
+    assertEquals(2, limiter.limitFor("review-post", null).getCapacity());
+    assertEquals(2, limiter.limitFor("other-post", ADMIN).getCapacity());
+  }
+
+  @Test
+  void test_disabled_never_limits() {
+    RateLimitProperties properties = properties();
+    properties.setEnabled(false);
+    RateLimiterService limiter = new RateLimiterService(properties, now::get);
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(0, limiter.tryAcquire("review-post", "alice", USER));
+    }
+    assertEquals(0, limiter.getBucketCount());
+  }
+
+  @Test
+  void test_idle_buckets_are_evicted() {
+    RateLimitProperties properties = properties();
+    properties.setIdleEviction(Duration.ofMinutes(1));
+    RateLimiterService limiter = new RateLimiterService(properties, now::get);
+
+    limiter.tryAcquire("review-post", "alice", USER);
+    now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    limiter.tryAcquire("review-post", "bob", USER);
+    now.addAndGet(TimeUnit.SECONDS.toNanos(40));
+
+    limiter.evictIdle();
+
+    assertEquals(1, limiter.getBucketCount());
+  }
+
+  @Test
+  void test_full_map_falls_back_to_shared_overflow_bucket_until_the_sweep() {
+    RateLimitProperties properties = properties();
+    properties.setMaxBuckets(2);
+    RateLimiterService limiter = new RateLimiterService(properties, now::get);
+
+    limiter.tryAcquire("other-post", "alice", USER);
+    limiter.tryAcquire("other-post", "bob", USER);
+
+    // carol and dave share the overflow bucket, whose capacity is 2
+    assertEquals(0, limiter.tryAcquire("other-post", "carol", USER));
+    assertEquals(0, limiter.tryAcquire("other-post", "dave", USER));
+    assertTrue(limiter.tryAcquire("other-post", "carol", USER) > 0);
+    assertEquals(3, limiter.getBucketCount());
+
+    // alice and bob have refilled, but only the sweep evicts them
+    now.addAndGet(TimeUnit.MINUTES.toNanos(20));
+    assertEquals(0, limiter.tryAcquire("other-post", "erin", USER));
+    assertEquals(3, limiter.getBucketCount());
+
+    // erin's token just now came from the overflow bucket, which is kept
+    limiter.evictIdle();
+    assertEquals(1, limiter.getBucketCount());
+    assertEquals(0, limiter.tryAcquire("other-post", "erin", USER));
+    assertEquals(2, limiter.getBucketCount());
+  }
+
+  @Test
+  void test_bucket_retry_after_grows_with_pending_demand() {
+    RateLimiterService.Bucket bucket = new RateLimiterService.Bucket(
+        new RateLimitProperties.Limit(1, Duration.ofSeconds(2)), 0);
+
+    assertEquals(0, bucket.tryAcquire(0));
+    assertEquals(TimeUnit.SECONDS.toNanos(2), bucket.tryAcquire(0));
+    assertEquals(TimeUnit.SECONDS.toNanos(1), bucket.tryAcquire(TimeUnit.SECONDS.toNanos(1)));
+    assertFalse(bucket.isIdle(TimeUnit.SECONDS.toNanos(1), 0));
+    assertTrue(bucket.isIdle(TimeUnit.SECONDS.toNanos(2), 0));
+  }
+}
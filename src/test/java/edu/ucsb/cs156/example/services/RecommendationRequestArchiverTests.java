@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.ArchivedRecommendationRequest;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.repositories.ArchivedRecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+
+class RecommendationRequestArchiverTests {
+
+  private static final Instant NOW = Instant.parse("2023-08-01T12:00:00Z");
+  private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+  private static final LocalDateTime CUTOFF = LocalDateTime.parse("2023-05-03T12:00:00");
+
+  private final RecommendationRequestRepository repository = mock(RecommendationRequestRepository.class);
+  private final ArchivedRecommendationRequestRepository archivedRepository =
+      mock(ArchivedRecommendationRequestRepository.class);
+
+  private RecommendationRequestArchiver archiver(int batchSize) {
+    return new RecommendationRequestArchiver(repository, archivedRepository,
+        TransactionOperations.withoutTransaction(), Duration.ofDays(90), batchSize, CLOCK);
+  }
+
+  private static RecommendationRequest request(long id) {
+    return RecommendationRequest.builder().id(id).requesterEmail("student@ucsb.edu").professorEmail("prof@ucsb.edu")
+        .explanation("grad school").dateRequested(LocalDateTime.parse("2023-01-01T00:00:00"))
+        .dateNeeded(LocalDateTime.parse("2023-02-01T00:00:00")).done(true).build();
+  }
+
+  @Test
+  void nothing_to_archive() {
+    assertEquals(0, archiver(2).archive());
+
+    verify(repository, times(1)).findByDoneTrueAndDateNeededBeforeOrderByIdAsc(CUTOFF, PageRequest.of(0, 2));
+    verify(archivedRepository, never()).saveAll(any());
+    verify(repository, never()).deleteByIds(any());
+  }
+
+  @Test
+  void copies_then_deletes_each_batch_until_one_is_short() {
+    when(repository.findByDoneTrueAndDateNeededBeforeOrderByIdAsc(eq(CUTOFF), eq(PageRequest.of(0, 2))))
+        .thenReturn(List.of(request(1), request(2)))
+        .thenReturn(List.of(request(3)));
+
+    assertEquals(3, archiver(2).archive());
+
+    verify(archivedRepository, times(1)).saveAll(List.of(
+        ArchivedRecommendationRequest.from(request(1), NOW), ArchivedRecommendationRequest.from(request(2), NOW)));
+    verify(repository, times(1)).deleteByIds(List.of(1L, 2L));
+    verify(archivedRepository, times(1)).saveAll(List.of(ArchivedRecommendationRequest.from(request(3), NOW)));
+    verify(repository, times(1)).deleteByIds(List.of(3L));
+    verify(repository, times(2)).findByDoneTrueAndDateNeededBeforeOrderByIdAsc(any(), any());
+  }
+
+  @Test
+  void a_full_last_batch_is_followed_by_one_empty_lookup() {
+    when(repository.findByDoneTrueAndDateNeededBeforeOrderByIdAsc(eq(CUTOFF), eq(PageRequest.of(0, 1))))
+        .thenReturn(List.of(request(1)))
+        .thenReturn(List.of());
+
+    assertEquals(1, archiver(1).archive());
+
+    verify(repository, times(2)).findByDoneTrueAndDateNeededBeforeOrderByIdAsc(any(), any());
+    verify(repository, times(1)).deleteByIds(any());
+  }
+
+  @Test
+  void archived_copy_keeps_every_field() {
+    RecommendationRequest request = request(5);
+    ArchivedRecommendationRequest archived = ArchivedRecommendationRequest.from(request, NOW);
+
+    assertEquals(5L, archived.getId());
+    assertEquals(NOW, archived.getArchivedAt());
+    assertEquals(request, archived.toRecommendationRequest());
+  }
+
+  @Test
+  void archived_copy_is_new_so_save_all_persists_without_a_lookup() {
+    ArchivedRecommendationRequest archived = ArchivedRecommendationRequest.from(request(5), NOW);
+    assertTrue(archived.isNew());
+    assertFalse(new ObjectMapper().findAndRegisterModules().valueToTree(archived).has("new"));
+  }
+}
@@ -0,0 +1,127 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.models.EntityChangeEvent.Op;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+
+class ReferenceFilterTests {
+
+  private final UCSBDiningCommonsMenuItemRepository menuItemRepository = mock(UCSBDiningCommonsMenuItemRepository.class);
+  private final ReferenceFilter filter = new ReferenceFilter(menuItemRepository, 0.01);
+
+  private void existing(List<Long> itemIds) {
+    when(menuItemRepository.findAllIds()).thenReturn(itemIds);
+    filter.rebuild();
+  }
+
+  @Test
+  void everything_might_exist_until_first_built() {
+    assertTrue(filter.mightContainMenuItem(42));
+    verify(menuItemRepository, never()).existsById(any());
+  }
+
+  @Test
+  void ids_in_the_filter_are_not_queried() {
+    existing(List.of(1L, 2L, 3L));
+
+    assertTrue(filter.mightContainMenuItem(2));
+    verify(menuItemRepository, never()).existsById(any());
+  }
+
+  @Test
+  void ids_ruled_out_by_the_filter_are_confirmed_before_reporting_them_missing() {
+    existing(List.of(1L, 2L, 3L));
+
+    assertFalse(filter.mightContainMenuItem(999_999));
+    verify(menuItemRepository).existsById(999_999L);
+  }
+
+  @Test
+  void an_item_created_on_another_node_is_found_before_its_event_arrives() {
+    existing(List.of(1L));
+    when(menuItemRepository.existsById(77L)).thenReturn(true);
+
+    assertTrue(filter.mightContainMenuItem(77));
+    assertTrue(filter.mightContainMenuItem(77));
+
+    // added to the filter by the first lookup
+    verify(menuItemRepository, times(1)).existsById(77L);
+  }
+
+  @Test
+  void creates_are_added_as_their_events_arrive() {
+    existing(List.of(1L));
+
+    filter.onEntityChange(EntityChangeEvent.of(UCSBDiningCommonsMenuItem.class, 77L, Op.CREATE));
+    EntityChangeEvent remote = EntityChangeEvent.of(UCSBDiningCommonsMenuItem.class, 78L, Op.CREATE);
+    remote.setRemote(true);
+    filter.onEntityChange(remote);
+
+    assertTrue(filter.mightContainMenuItem(77));
+    assertTrue(filter.mightContainMenuItem(78));
+    verify(menuItemRepository, never()).existsById(any());
+  }
+
+  @Test
+  void updates_deletes_and_set_based_events_leave_the_filter_alone() {
+    existing(List.of(1L));
+
+    filter.onEntityChange(EntityChangeEvent.of(UCSBDiningCommonsMenuItem.class, 77L, Op.UPDATE));
+    filter.onEntityChange(EntityChangeEvent.of(UCSBDiningCommonsMenuItem.class, EntityChangeEvent.ALL_IDS, Op.CREATE));
+    filter.onEntityChange(EntityChangeEvent.of(UCSBDiningCommonsMenuItem.class, 1L, Op.DELETE));
+    filter.onEntityChange(EntityChangeEvent.of(UCSBDiningCommons.class, "ortega", Op.CREATE));
+
+    assertFalse(filter.mightContainMenuItem(77));
+    assertTrue(filter.mightContainMenuItem(1));
+  }
+
+  @Test
+  void rebuild_drops_deleted_ids() {
+    existing(List.of(1L, 2L));
+    existing(List.of(2L));
+
+    assertFalse(filter.mightContainMenuItem(1));
+    assertTrue(filter.mightContainMenuItem(2));
+  }
+
+  @Test
+  void creates_committed_while_a_rebuild_reads_the_table_are_kept() {
+    existing(List.of(1L));
+    when(menuItemRepository.findAllIds()).thenAnswer(invocation -> {
+      // committed after this read, so only its event carries it
+      filter.onEntityChange(EntityChangeEvent.of(UCSBDiningCommonsMenuItem.class, 88L, Op.CREATE));
+      return List.of(1L);
+    });
+
+    filter.rebuild();
+
+    assertTrue(filter.mightContainMenuItem(88));
+    verify(menuItemRepository, never()).existsById(any());
+  }
+
+  @Test
+  void missed_invalidations_trigger_a_rebuild() {
+    existing(List.of(1L));
+    when(menuItemRepository.findAllIds()).thenReturn(List.of(1L, 5L));
+
+    filter.onEntityChange(EntityChangeEvent.allTypes());
+
+    assertTrue(filter.mightContainMenuItem(5));
+    verify(menuItemRepository, never()).existsById(any());
+  }
+}
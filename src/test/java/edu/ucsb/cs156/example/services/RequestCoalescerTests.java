@@ -0,0 +1,168 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.CoalescingStats;
+
+class RequestCoalescerTests {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  // starts a leader that blocks until released, then waits until it is in flight
+  private Future<Object> blockedLeader(RequestCoalescer coalescer, String key, CountDownLatch release,
+      AtomicInteger runs, Object result) throws Exception {
+    Future<Object> leader = executor.submit(() -> {
+      try {
+        return coalescer.execute(key, 0, () -> {
+          runs.incrementAndGet();
+          release.await();
+          if (result instanceof RuntimeException) {
+            throw (RuntimeException) result;
+          }
+          return result;
+        });
+      } catch (Throwable t) {
+        throw new Exception(t);
+      }
+    });
+    while (coalescer.getStats().getInFlight() == 0) {
+      Thread.sleep(1);
+    }
+    return leader;
+  }
+
+  private Future<Object> follower(RequestCoalescer coalescer, String key, long timeoutMs, AtomicInteger runs) {
+    return executor.submit(() -> {
+      try {
+        return coalescer.execute(key, timeoutMs, () -> {
+          runs.incrementAndGet();
+          return "own result";
+        });
+      } catch (Throwable t) {
+        throw new Exception(t);
+      }
+    });
+  }
+
+  private void awaitCollapsed(RequestCoalescer coalescer, long count) throws InterruptedException {
+    while (coalescer.getStats().getCollapsed() < count) {
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  void test_concurrent_identical_calls_share_one_execution() throws Exception {
+    RequestCoalescer coalescer = new RequestCoalescer(true, 5000);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger runs = new AtomicInteger();
+    List<UCSBDate> dates = List.of(UCSBDate.builder().name("noon").build());
+
+    Future<Object> leader = blockedLeader(coalescer, "GET /api/ucsbdates/all|ROLE_USER", release, runs, dates);
+    Future<Object> first = follower(coalescer, "GET /api/ucsbdates/all|ROLE_USER", 0, runs);
+    Future<Object> second = follower(coalescer, "GET /api/ucsbdates/all|ROLE_USER", 0, runs);
+    awaitCollapsed(coalescer, 2);
+    release.countDown();
+
+    assertSame(dates, leader.get(5, TimeUnit.SECONDS));
+    assertSame(dates, first.get(5, TimeUnit.SECONDS));
+    assertSame(dates, second.get(5, TimeUnit.SECONDS));
+    assertEquals(1, runs.get());
+
+    CoalescingStats stats = coalescer.getStats();
+    assertEquals(3, stats.getRequests());
+    assertEquals(1, stats.getExecutions());
+    assertEquals(2, stats.getCollapsed());
+    assertEquals(0, stats.getInFlight());
+  }
+
+  @Test
+  void test_different_keys_run_separately() throws Exception {
+    RequestCoalescer coalescer = new RequestCoalescer(true, 5000);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger runs = new AtomicInteger();
+
+    Future<Object> leader = blockedLeader(coalescer, "GET /api/ucsbdates?id=1|ROLE_USER", release, runs, "one");
+
+    assertEquals("own result", follower(coalescer, "GET /api/ucsbdates?id=2|ROLE_USER", 0, runs)
+        .get(5, TimeUnit.SECONDS));
+    release.countDown();
+    assertEquals("one", leader.get(5, TimeUnit.SECONDS));
+    assertEquals(2, runs.get());
+    assertEquals(0, coalescer.getStats().getCollapsed());
+  }
+
+  @Test
+  void test_followers_receive_the_leaders_exception() throws Exception {
+    RequestCoalescer coalescer = new RequestCoalescer(true, 5000);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger runs = new AtomicInteger();
+    EntityNotFoundException notFound = new EntityNotFoundException(UCSBDate.class, 7L);
+
+    Future<Object> leader = blockedLeader(coalescer, "GET /api/ucsbdates?id=7|ROLE_USER", release, runs, notFound);
+    Future<Object> follower = follower(coalescer, "GET /api/ucsbdates?id=7|ROLE_USER", 0, runs);
+    awaitCollapsed(coalescer, 1);
+    release.countDown();
+
+    Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    Exception followerFailure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+    assertSame(notFound, leaderFailure.getCause().getCause());
+    assertSame(notFound, followerFailure.getCause().getCause());
+    assertEquals(1, runs.get());
+  }
+
+  @Test
+  void test_follower_runs_its_own_call_after_timeout() throws Exception {
+    RequestCoalescer coalescer = new RequestCoalescer(true, 5000);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger runs = new AtomicInteger();
+
+    Future<Object> leader = blockedLeader(coalescer, "GET /api/ucsbdates/all|ROLE_USER", release, runs, "slow");
+
+    assertEquals("own result", follower(coalescer, "GET /api/ucsbdates/all|ROLE_USER", 10, runs)
+        .get(5, TimeUnit.SECONDS));
+    release.countDown();
+    assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+
+    CoalescingStats stats = coalescer.getStats();
+    assertEquals(1, stats.getTimeouts());
+    assertEquals(2, stats.getExecutions());
+  }
+
+  @Test
+  void test_disabled_runs_every_call() throws Throwable {
+    RequestCoalescer coalescer = new RequestCoalescer(false, 5000);
+
+    assertEquals("a", coalescer.execute("key", 0, () -> "a"));
+    assertEquals("b", coalescer.execute("key", 0, () -> "b"));
+    assertEquals(0, coalescer.getStats().getRequests());
+  }
+
+  @Test
+  void test_sequential_calls_are_not_cached() throws Throwable {
+    RequestCoalescer coalescer = new RequestCoalescer(true, 5000);
+
+    assertEquals("a", coalescer.execute("key", 0, () -> "a"));
+    assertEquals("b", coalescer.execute("key", 0, () -> "b"));
+    assertEquals(2, coalescer.getStats().getExecutions());
+  }
+}
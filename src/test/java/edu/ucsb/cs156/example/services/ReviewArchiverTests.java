@@ -0,0 +1,198 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.EntityChangeEvent;
+import edu.ucsb.cs156.example.models.ReviewArchive;
+import edu.ucsb.cs156.example.services.ReviewPartitions.Quarter;
+
+class ReviewArchiverTests {
+
+  private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-10T12:00:00Z"), ZoneOffset.UTC);
+  private static final LocalDate CUTOFF = LocalDate.parse("2022-05-10");
+  private static final Quarter Q1 = new Quarter(2022, 1);
+  private static final Quarter Q2 = new Quarter(2022, 2);
+
+  @TempDir
+  Path directory;
+
+  private final ReviewPartitions partitions = mock(ReviewPartitions.class);
+  private final ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+  private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private ReviewArchiver archiver() {
+    return new ReviewArchiver(partitions, TransactionOperations.withoutTransaction(), mapper, publisher, directory,
+        Period.ofYears(2), CLOCK);
+  }
+
+  private static MenuItemReview review(long id) {
+    return MenuItemReview.builder().id(id).itemId(7).reviewerEmail("student@ucsb.edu").stars(4)
+        .dateReviewed(LocalDateTime.parse("2022-02-10T09:00:00")).comments("ok").build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void reviews(Quarter quarter, MenuItemReview... reviews) {
+    doAnswer(invocation -> {
+      Consumer<MenuItemReview> action = invocation.getArgument(1);
+      for (MenuItemReview review : reviews) {
+        action.accept(review);
+      }
+      return null;
+    }).when(partitions).forEachReview(eq(quarter), any(Consumer.class));
+  }
+
+  private String unzip(Path file) throws IOException {
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private List<Path> files() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.sorted().toList();
+    }
+  }
+
+  @Test
+  void test_archive_writes_each_old_quarter_then_drops_it() throws Exception {
+    when(partitions.quartersBefore(CUTOFF)).thenReturn(List.of(Q1, Q2));
+    reviews(Q1, review(1), review(2));
+    reviews(Q2);
+
+    archiver().archive();
+
+    verify(partitions).prepare(LocalDate.parse("2024-05-10"));
+    assertEquals(List.of(directory.resolve("menuitemreview_2022q1.jsonl.gz"),
+        directory.resolve("menuitemreview_2022q2.jsonl.gz")), files());
+    assertEquals(mapper.writeValueAsString(review(1)) + "\n" + mapper.writeValueAsString(review(2)) + "\n",
+        unzip(directory.resolve("menuitemreview_2022q1.jsonl.gz")));
+    assertEquals("", unzip(directory.resolve("menuitemreview_2022q2.jsonl.gz")));
+    verify(partitions).drop(Q1);
+    verify(partitions).drop(Q2);
+    verify(publisher, times(2)).publishEvent(argThat((Object event) ->
+        event instanceof EntityChangeEvent
+            && ((EntityChangeEvent) event).getEntityType().equals("MenuItemReview")
+            && ((EntityChangeEvent) event).getId().equals(EntityChangeEvent.ALL_IDS)
+            && ((EntityChangeEvent) event).getOp() == EntityChangeEvent.Op.DELETE));
+  }
+
+  @Test
+  void test_archive_stops_at_a_quarter_that_fails_and_keeps_its_rows() throws Exception {
+    when(partitions.quartersBefore(CUTOFF)).thenReturn(List.of(Q1, Q2));
+    reviews(Q1, review(1));
+    doThrow(new IllegalStateException("lock timeout")).when(partitions).drop(Q1);
+
+    archiver().archive();
+
+    verify(partitions, never()).forEachReview(eq(Q2), any());
+    verify(partitions, never()).drop(Q2);
+    verify(publisher, never()).publishEvent(any(Object.class));
+    // the file is kept, and the next run merges the same rows into it
+    assertEquals(List.of(directory.resolve("menuitemreview_2022q1.jsonl.gz")), files());
+  }
+
+  @Test
+  void test_reviews_added_to_an_archived_quarter_are_added_to_its_file() throws Exception {
+    ReviewArchiver archiver = archiver();
+    reviews(Q1, review(1), review(2));
+    archiver.archive(Q1);
+    reviews(Q1, review(9));
+
+    assertEquals(1, archiver.archive(Q1));
+
+    assertEquals(mapper.writeValueAsString(review(1)) + "\n" + mapper.writeValueAsString(review(2)) + "\n"
+        + mapper.writeValueAsString(review(9)) + "\n", unzip(directory.resolve("menuitemreview_2022q1.jsonl.gz")));
+    verify(partitions, times(2)).drop(Q1);
+  }
+
+  @Test
+  void test_rerun_after_a_failed_drop_does_not_duplicate_reviews() throws Exception {
+    ReviewArchiver archiver = archiver();
+    reviews(Q1, review(1), review(2));
+    doThrow(new IllegalStateException("lock timeout")).doNothing().when(partitions).drop(Q1);
+    assertThrows(IllegalStateException.class, () -> archiver.archive(Q1));
+    MenuItemReview edited = review(2);
+    edited.setComments("edited before the rerun");
+    reviews(Q1, review(1), edited);
+
+    archiver.archive(Q1);
+
+    assertEquals(mapper.writeValueAsString(review(1)) + "\n" + mapper.writeValueAsString(edited) + "\n",
+        unzip(directory.resolve("menuitemreview_2022q1.jsonl.gz")));
+  }
+
+  @Test
+  void test_archive_of_a_quarter_that_cannot_be_read_leaves_no_file() throws Exception {
+    doThrow(new IllegalStateException("connection reset")).when(partitions).forEachReview(eq(Q1), any());
+
+    assertThrows(IllegalStateException.class, () -> archiver().archive(Q1));
+
+    assertEquals(List.of(), files());
+    verify(partitions, never()).drop(Q1);
+  }
+
+  @Test
+  void test_list_and_find_archived_quarters() throws Exception {
+    ReviewArchiver archiver = archiver();
+    assertEquals(List.of(), archiver.list());
+    reviews(Q2, review(3));
+    reviews(Q1, review(1));
+    archiver.archive(Q2);
+    archiver.archive(Q1);
+    Files.writeString(directory.resolve("notes.txt"), "not an archive");
+    Files.writeString(directory.resolve("menuitemreview_latest.jsonl.gz"), "not a quarter");
+
+    List<ReviewArchive> archives = archiver.list();
+
+    assertEquals(List.of("2022q1", "2022q2"), archives.stream().map(ReviewArchive::getQuarter).toList());
+    assertEquals(Files.size(directory.resolve("menuitemreview_2022q1.jsonl.gz")), archives.get(0).getCompressedBytes());
+    assertTrue(archiver.find(Q1).isPresent());
+    assertFalse(archiver.find(new Quarter(2021, 4)).isPresent());
+  }
+
+  @Test
+  void test_list_without_a_directory_is_empty() throws Exception {
+    ReviewArchiver archiver = new ReviewArchiver(partitions, TransactionOperations.withoutTransaction(), mapper,
+        publisher, directory.resolve("missing"), Period.ofYears(2), CLOCK);
+
+    assertEquals(List.of(), archiver.list());
+  }
+}
@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.services.ReviewPartitions.Quarter;
+
+class ReviewPartitionsTests {
+
+  @Test
+  void test_quarter_of_a_date() {
+    assertEquals(new Quarter(2023, 1), Quarter.of(LocalDate.parse("2023-01-01")));
+    assertEquals(new Quarter(2023, 1), Quarter.of(LocalDate.parse("2023-03-31")));
+    assertEquals(new Quarter(2023, 2), Quarter.of(LocalDate.parse("2023-04-01")));
+    assertEquals(new Quarter(2023, 4), Quarter.of(LocalDate.parse("2023-12-31")));
+  }
+
+  @Test
+  void test_quarter_bounds_and_next() {
+    Quarter q4 = new Quarter(2022, 4);
+
+    assertEquals(LocalDate.parse("2022-10-01"), q4.getStart());
+    assertEquals(LocalDate.parse("2023-01-01"), q4.getEnd());
+    assertEquals(new Quarter(2023, 1), q4.next());
+    assertTrue(q4.compareTo(q4.next()) < 0);
+  }
+
+  @Test
+  void test_quarter_text() {
+    assertEquals("2023q2", new Quarter(2023, 2).toString());
+    assertEquals(new Quarter(2023, 2), Quarter.parse("2023q2"));
+    assertNull(Quarter.parse("2023q5"));
+    assertNull(Quarter.parse("../2023q1"));
+  }
+}
@@ -1,11 +1,15 @@
 package edu.ucsb.cs156.example.testconfig;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 
 
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.JsonResponseCache;
 
 @TestConfiguration
 public class TestConfig {
@@ -20,4 +24,12 @@ public class TestConfig {
         return new GrantedAuthoritiesService();
     }
 
+    // Caching is covered by JsonResponseCacheTests; here every request
+    // re-renders so each test sees its own mocked repository data
+    @Bean
+    public JsonResponseCache jsonResponseCache(ObjectProvider<ObjectMapper> mapper) {
+        // plain Spring tests that import this have no Jackson auto-configuration
+        return new JsonResponseCache(mapper.getIfAvailable(ObjectMapper::new), false);
+    }
+
 }